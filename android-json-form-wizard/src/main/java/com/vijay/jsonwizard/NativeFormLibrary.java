@@ -3,6 +3,10 @@ package com.vijay.jsonwizard;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.vijay.jsonwizard.rules.RuleFileLoader;
+import com.vijay.jsonwizard.utils.SubFormCache;
+import com.vijay.jsonwizard.utils.TranslationBundleCache;
+
 import org.smartregister.client.utils.contract.ClientFormContract;
 
 /**
@@ -30,6 +34,20 @@ public class NativeFormLibrary {
 
     public void setClientFormDao(@NonNull ClientFormContract.Dao clientFormDao) {
         this.clientFormDao = clientFormDao;
+        // Translations read from another repository do not apply to this one
+        TranslationBundleCache.getInstance().clear();
+    }
+
+    /**
+     * Call when another version of a client form becomes active, e.g. after a new version is saved through the
+     * {@link ClientFormContract.Dao}, so that forms opened afterwards do not use what was cached for the old version
+     *
+     * @param formIdentifier identifier of the client form
+     */
+    public void onClientFormUpdated(@NonNull String formIdentifier) {
+        RuleFileLoader.getInstance().invalidate(formIdentifier);
+        SubFormCache.getInstance().invalidate(formIdentifier);
+        TranslationBundleCache.getInstance().invalidate(formIdentifier);
     }
 
     public boolean isPerformFormTranslation() {
@@ -13,7 +13,6 @@ import com.vijay.jsonwizard.NativeFormLibrary;
 import com.vijay.jsonwizard.R;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.interfaces.OnFormFetchedCallback;
-import com.vijay.jsonwizard.utils.AppExecutors;
 import com.vijay.jsonwizard.utils.FormUtils;
 import com.vijay.jsonwizard.utils.NativeFormLangUtils;
 import com.vijay.jsonwizard.utils.NoLocaleFormUtils;
@@ -40,8 +39,15 @@ public class FormConfigurationJsonFormActivity extends JsonFormActivity {
         super.onCreate(savedInstanceState);
 
         formUtils = getFormUtils();
-        JSONObject jsonObject = getmJSONObject();
-        checkIfFormUpdate(jsonObject);
+        if (isFormLoaded()) {
+            checkIfFormUpdate(getmJSONObject());
+        }
+    }
+
+    @Override
+    protected void onFormSessionLoaded() {
+        super.onFormSessionLoaded();
+        checkIfFormUpdate(getmJSONObject());
     }
 
     private FormUtils getFormUtils() {
@@ -85,9 +91,7 @@ public class FormConfigurationJsonFormActivity extends JsonFormActivity {
 
     @VisibleForTesting
     protected void negateIsNewClientForm(final int clientFormId) {
-        AppExecutors appExecutors = new AppExecutors();
-
-        appExecutors.diskIO()
+        getAppExecutors().diskIO()
                 .execute(new Runnable() {
                     @Override
                     public void run() {
@@ -119,7 +123,7 @@ public class FormConfigurationJsonFormActivity extends JsonFormActivity {
 
     @Override
     protected String getJsonForm() {
-        String jsonForm = getIntent().getStringExtra(JsonFormConstants.JSON_FORM_KEY.JSON);
+        String jsonForm = getStartingJsonForm();
         if (translateForm) {
             jsonForm = NativeFormLangUtils.getTranslatedStringWithDBResourceBundle(this, jsonForm, null);
         }
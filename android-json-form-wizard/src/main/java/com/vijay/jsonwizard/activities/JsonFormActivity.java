@@ -5,7 +5,6 @@ import static com.vijay.jsonwizard.utils.FormUtils.getCheckboxValueJsonArray;
 import static com.vijay.jsonwizard.utils.FormUtils.getCurrentCheckboxValues;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.app.AlertDialog;
 import android.content.BroadcastReceiver;
 import android.content.Context;
@@ -16,7 +15,6 @@ import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
 import android.graphics.drawable.Drawable;
 import android.graphics.drawable.GradientDrawable;
-import android.os.AsyncTask;
 import android.os.Bundle;
 import android.text.Html;
 import android.text.Spanned;
@@ -37,9 +35,11 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.AppCompatRadioButton;
 import androidx.core.app.ActivityCompat;
 import androidx.core.util.Pair;
+import androidx.fragment.app.Fragment;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 
 import com.google.gson.Gson;
@@ -49,14 +49,9 @@ import com.shashank.sony.fancydialoglib.Animation;
 import com.shashank.sony.fancydialoglib.FancyAlertDialog;
 import com.shashank.sony.fancydialoglib.Icon;
 import com.vijay.jsonwizard.R;
-import com.vijay.jsonwizard.comparisons.Comparison;
-import com.vijay.jsonwizard.comparisons.EqualToComparison;
-import com.vijay.jsonwizard.comparisons.GreaterThanComparison;
-import com.vijay.jsonwizard.comparisons.GreaterThanEqualToComparison;
-import com.vijay.jsonwizard.comparisons.LessThanComparison;
-import com.vijay.jsonwizard.comparisons.LessThanEqualToComparison;
-import com.vijay.jsonwizard.comparisons.NotEqualToComparison;
-import com.vijay.jsonwizard.comparisons.RegexComparison;
+import com.vijay.jsonwizard.comparisons.ComparisonExpression;
+import com.vijay.jsonwizard.comparisons.TypedValue;
+import com.vijay.jsonwizard.comparisons.TypedValueStore;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.customviews.GenericPopupDialog;
 import com.vijay.jsonwizard.customviews.MaterialSpinner;
@@ -69,14 +64,25 @@ import com.vijay.jsonwizard.interfaces.JsonApi;
 import com.vijay.jsonwizard.interfaces.LifeCycleListener;
 import com.vijay.jsonwizard.interfaces.OnActivityRequestPermissionResultListener;
 import com.vijay.jsonwizard.interfaces.OnActivityResultListener;
+import com.vijay.jsonwizard.model.FieldModel;
+import com.vijay.jsonwizard.model.FormModel;
+import com.vijay.jsonwizard.model.FormStateStore;
+import com.vijay.jsonwizard.rules.RuleBinding;
+import com.vijay.jsonwizard.rules.RuleBindingCache;
 import com.vijay.jsonwizard.rules.RuleConstant;
+import com.vijay.jsonwizard.rules.RuleDependencyGraph;
+import com.vijay.jsonwizard.rules.RuleFile;
 import com.vijay.jsonwizard.utils.AppExecutors;
 import com.vijay.jsonwizard.utils.ExObjectResult;
+import com.vijay.jsonwizard.utils.FormJournal;
+import com.vijay.jsonwizard.utils.FormSessionStore;
 import com.vijay.jsonwizard.utils.FormUtils;
+import com.vijay.jsonwizard.utils.JsonUtils;
 import com.vijay.jsonwizard.utils.NativeFormsProperties;
 import com.vijay.jsonwizard.utils.PermissionUtils;
 import com.vijay.jsonwizard.utils.PropertyManager;
 import com.vijay.jsonwizard.utils.Utils;
+import com.vijay.jsonwizard.views.CanvasViewRegistry;
 import com.vijay.jsonwizard.views.CustomTextView;
 import com.vijay.jsonwizard.widgets.CountDownTimerFactory;
 import com.vijay.jsonwizard.widgets.NumberSelectorFactory;
@@ -89,22 +95,20 @@ import org.jeasy.rules.api.Facts;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
-import org.yaml.snakeyaml.Yaml;
 
-import java.io.BufferedReader;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import timber.log.Timber;
 
@@ -113,14 +117,33 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
     private final FormUtils formUtils = new FormUtils();
     private final Map<String, JSONObject> formFields = new ConcurrentHashMap<>();
     private final Set<String> popupFormFields = new ConcurrentSkipListSet<>();
-    private final Map<String, List<String>> ruleKeys = new HashMap<>();
+    private final Map<String, Set<String>> ruleKeys = new ConcurrentHashMap<>();
     private final Map<String, String> formValuesCacheMap = new HashMap<>();
+    private final CanvasViewRegistry canvasViewRegistry = new CanvasViewRegistry();
     private final Utils utils = new Utils();
-    private final HashMap<String, String[]> addressMap = new HashMap<>();
-    private final Map<String, Set<String>> calculationDependencyMap = new HashMap<>();
-    private final Map<String, Set<String>> skipLogicDependencyMap = new HashMap<>();
+    private volatile RuleDependencyGraph dependencyGraph = RuleDependencyGraph.empty();
+    private volatile boolean dependencyGraphStale;
+    // Set while a calculated value is written, its dependents are refreshed by the pass that calculated it
+    private boolean writingCalculatedValue;
     private final Map<String, Boolean> stepSkipLogicPresenceMap = new ConcurrentHashMap<>();
     private final AppExecutors appExecutors = new AppExecutors();
+    private final TypedValueStore typedValues = new TypedValueStore();
+    private final RuleBindingCache ruleBindingCache = new RuleBindingCache();
+    private FormJournal formJournal;
+    private final ComparisonExpression.ValueResolver fieldValueResolver = new ComparisonExpression.ValueResolver() {
+        @NonNull
+        @Override
+        public TypedValue getValue(@NonNull String[] address) {
+            try {
+                Object value = getValueFromAddress(address, false).get(JsonFormConstants.VALUE);
+                return getTypedValue(address, String.valueOf(value));
+            } catch (Exception e) {
+                Timber.e(e, "JsonFormActivity --> fieldValueResolver");
+                return TypedValue.of(null);
+            }
+        }
+    };
+    private FormStateStore formStateStore;
     private final BroadcastReceiver messageReceiver = new BroadcastReceiver() {
         @Override
         public void onReceive(Context context, Intent intent) {
@@ -136,8 +159,6 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         }
     };
     private Map<String, View> formDataViews = new ConcurrentHashMap<>();
-    private String functionRegex;
-    private HashMap<String, Comparison> comparisons;
     private GenericDialogInterface genericDialogInterface;
     private JSONArray extraFieldsWithValues;
     private TextView selectedTextView = null;
@@ -154,13 +175,11 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
     }
 
     @Override
-    public synchronized JSONObject getStep(final String name) {
-        synchronized (getmJSONObject()) {
-            try {
-                return getmJSONObject().getJSONObject(name);
-            } catch (JSONException e) {
-                Timber.e(e);
-            }
+    public JSONObject getStep(final String name) {
+        try {
+            return getFormStateStore().read(form -> form.getJSONObject(name));
+        } catch (JSONException e) {
+            Timber.e(e);
         }
         return null;
     }
@@ -168,11 +187,17 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
     @Override
     public void writeValue(String stepName, String key, String value, String openMrsEntityParent, String openMrsEntity,
                            String openMrsEntityId, boolean popup) throws JSONException {
+        markStepDirty(stepName);
         if (invokeRefreshLogic(stepName, null, key, value)) {
             if (!popup) {
                 cacheFormMapValues(stepName, null, key, value);
             }
+            typedValues.write(stepName + "_" + key, value);
             widgetsWriteValue(stepName, key, value, openMrsEntityParent, openMrsEntity, openMrsEntityId, popup);
+            if (!popup) {
+                appendToJournal(FormJournal.newValueRecord(stepName, key, value, openMrsEntityParent, openMrsEntity,
+                        openMrsEntityId));
+            }
         }
     }
 
@@ -180,62 +205,122 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
     public void writeValue(String stepName, String parentKey, String childObjectKey, String childKey, String value,
                            String openMrsEntityParent, String openMrsEntity, String openMrsEntityId, boolean popup)
             throws JSONException {
+        markStepDirty(stepName);
         if (invokeRefreshLogic(stepName, parentKey, childKey, value)) {
             if (!popup) {
                 cacheFormMapValues(stepName, parentKey, childKey, value);
             }
             checkBoxWriteValue(stepName, parentKey, childObjectKey, childKey, value, popup);
-
+            if (!popup) {
+                appendToJournal(FormJournal.newCheckboxRecord(stepName, parentKey, childObjectKey, childKey, value));
+            }
         }
     }
 
     @Override
     public void writeValue(String stepName, String key, String value, String openMrsEntityParent, String openMrsEntity,
                            String openMrsEntityId) throws JSONException {
+        markStepDirty(stepName);
         if (invokeRefreshLogic(stepName, null, key, value)) {
             cacheFormMapValues(stepName, null, key, value);
+            typedValues.write(stepName + "_" + key, value);
             widgetsWriteValue(stepName, key, value, openMrsEntityParent, openMrsEntity, openMrsEntityId, false);
+            appendToJournal(FormJournal.newValueRecord(stepName, key, value, openMrsEntityParent, openMrsEntity,
+                    openMrsEntityId));
         }
     }
 
     @Override
     public void writeValue(String stepName, String parentKey, String childObjectKey, String childKey, String value,
                            String openMrsEntityParent, String openMrsEntity, String openMrsEntityId) throws JSONException {
+        markStepDirty(stepName);
         if (invokeRefreshLogic(stepName, parentKey, childKey, value)) {
             cacheFormMapValues(stepName, parentKey, childKey, value);
             checkBoxWriteValue(stepName, parentKey, childObjectKey, childKey, value, false);
-
+            appendToJournal(FormJournal.newCheckboxRecord(stepName, parentKey, childObjectKey, childKey, value));
         }
     }
 
     @Override
     public void writeMetaDataValue(String metaDataKey, Map<String, String> values) throws JSONException {
-        synchronized (getmJSONObject()) {
-            if (mJSONObject.has(FormUtils.METADATA_PROPERTY) && !values.isEmpty() &&
-                    (mJSONObject.getJSONObject(FormUtils.METADATA_PROPERTY).has(metaDataKey))) {
-                JSONObject metaData = mJSONObject.getJSONObject(FormUtils.METADATA_PROPERTY).getJSONObject(metaDataKey);
-                for (Map.Entry<String, String> entry : values.entrySet()) {
-                    String key = entry.getKey();
-                    String value = entry.getValue();
-                    if (value == null) value = "";
-                    metaData.put(key, value);
-                }
+        getFormStateStore().write(form -> updateMetaDataValue(form, metaDataKey, values));
+        if (!values.isEmpty()) {
+            appendToJournal(FormJournal.newMetadataRecord(metaDataKey, values));
+        }
+    }
+
+    private void updateMetaDataValue(JSONObject form, String metaDataKey, Map<String, String> values)
+            throws JSONException {
+        if (form.has(FormUtils.METADATA_PROPERTY) && !values.isEmpty() &&
+                (form.getJSONObject(FormUtils.METADATA_PROPERTY).has(metaDataKey))) {
+            JSONObject metaData = form.getJSONObject(FormUtils.METADATA_PROPERTY).getJSONObject(metaDataKey);
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                String key = entry.getKey();
+                String value = entry.getValue();
+                if (value == null) value = "";
+                metaData.put(key, value);
             }
+        }
+    }
 
+    private void appendToJournal(JSONObject record) {
+        if (formJournal != null) {
+            formJournal.append(record);
         }
     }
 
     @Override
     public String currentJsonState() {
-        synchronized (getmJSONObject()) {
-            return getmJSONObject().toString();
-        }
+        return readFormState(JSONObject::toString, null);
     }
 
     @Override
     public String getCount() {
-        synchronized (getmJSONObject()) {
-            return getmJSONObject().optString("count");
+        return readFormState(form -> form.optString("count"), "");
+    }
+
+    /**
+     * @return the index of the canvas views toggled by relevance, shared by every step and popup of the form
+     */
+    public CanvasViewRegistry getCanvasViewRegistry() {
+        return canvasViewRegistry;
+    }
+
+    /**
+     * @return the store that owns the form json on the ui thread and publishes snapshots for background readers. It is
+     * created on the ui thread when the form is set.
+     */
+    public FormStateStore getFormStateStore() {
+        if (formStateStore == null) {
+            formStateStore = new FormStateStore(getmJSONObject(), appExecutors.mainThread());
+        }
+        return formStateStore;
+    }
+
+    private void invalidateRuleResults(String address) {
+        if (getRulesEngineFactory() != null) {
+            getRulesEngineFactory().invalidateRuleResults(address);
+        }
+    }
+
+    private <T> T readFormState(FormStateStore.Query<T> query, T defaultValue) {
+        try {
+            return getFormStateStore().read(query);
+        } catch (JSONException e) {
+            Timber.e(e, "JsonFormActivity --> readFormState");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Publishes a new snapshot of a main form field after it has been written on the ui thread
+     *
+     * @param address field address in the form stepName_key
+     */
+    private void publishFormField(String address) {
+        JSONObject field = formFields.get(address);
+        if (field != null && !popupFormFields.contains(address)) {
+            getFormStateStore().publish(address, field);
         }
     }
 
@@ -276,106 +361,134 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
     @Override
     public void addSkipLogicView(View view) {
+        view.setTag(R.id.rule_binding, null);
         skipLogicViews.put((String) view.getTag(R.id.address), view);
+        dependencyGraphStale = true;
     }
 
     @Override
     public void addCalculationLogicView(View view) {
+        view.setTag(R.id.rule_binding, null);
         calculationLogicViews.put((String) view.getTag(R.id.address), view);
+        dependencyGraphStale = true;
     }
 
     @Override
     public void addConstrainedView(View view) {
+        view.setTag(R.id.rule_binding, null);
         constrainedViews.put(getViewKey(view), view);
+        dependencyGraphStale = true;
+    }
+
+    /**
+     * Returns the compiled rule configuration of a view. The binding is compiled from the view tags the first time the
+     * view takes part in a refresh, by then the widget factory has finished tagging the view, and is reused for every
+     * refresh after that.
+     *
+     * @param view {@link View}
+     * @return {@link RuleBinding}
+     */
+    @NonNull
+    protected RuleBinding getRuleBinding(@NonNull View view) {
+        Object bindingTag = view.getTag(R.id.rule_binding);
+        if (bindingTag instanceof RuleBinding) {
+            return (RuleBinding) bindingTag;
+        }
+
+        // Most widgets tag their canvas ids as a json string, the image widget tags the json array itself
+        Object canvasIdsTag = view.getTag(R.id.canvas_ids);
+        String addressString = (String) view.getTag(R.id.address);
+        String widgetKey = (String) view.getTag(R.id.key);
+        Object popupTag = view.getTag(R.id.extraPopup);
+        String canvasIds = canvasIdsTag != null ? canvasIdsTag.toString() : null;
+        String relevance = (String) view.getTag(R.id.relevance);
+        String calculation = (String) view.getTag(R.id.calculation);
+        String constraints = (String) view.getTag(R.id.constraints);
+        RuleBinding ruleBinding = addressString != null ? ruleBindingCache.get(addressString, widgetKey, popupTag,
+                canvasIds, relevance, calculation, constraints) : null;
+        if (ruleBinding == null) {
+            ruleBinding = RuleBinding.compile(addressString, widgetKey, popupTag, canvasIds, relevance, calculation,
+                    constraints);
+        }
+        view.setTag(R.id.rule_binding, ruleBinding);
+        return ruleBinding;
     }
 
     @Override
     public void refreshHiddenViews(boolean popup) {
-        for (View curView : getFormDataViews()) {
-            String addressString = (String) curView.getTag(R.id.address);
-            if (StringUtils.isNotBlank(addressString)) {
-                String[] address = addressString.split(":");
-                try {
-                    JSONObject viewData = getObjectUsingAddress(address, popup);
-                    if (viewData.has(JsonFormConstants.HIDDEN) && viewData.getBoolean(JsonFormConstants.HIDDEN)) {
-                        toggleViewVisibility(curView, false, popup);
+        canvasViewRegistry.beginBatch();
+        try {
+            for (View curView : getFormDataViews()) {
+                String addressString = (String) curView.getTag(R.id.address);
+                if (StringUtils.isNotBlank(addressString)) {
+                    String[] address = addressString.split(":");
+                    try {
+                        JSONObject viewData = getObjectUsingAddress(address, popup);
+                        if (viewData.has(JsonFormConstants.HIDDEN) && viewData.getBoolean(JsonFormConstants.HIDDEN)) {
+                            toggleViewVisibility(curView, false, popup);
+                        }
+                    } catch (JSONException e) {
+                        Timber.e(e);
                     }
-                } catch (JSONException e) {
-                    Timber.e(e);
                 }
             }
+        } finally {
+            canvasViewRegistry.endBatch();
         }
     }
 
     @Override
     public void refreshSkipLogic(String parentKey, String childKey, boolean popup, String stepName, boolean isForNextStep) {
-        initComparisons();
-        Set<String> viewsIds = skipLogicDependencyMap.get(stepName + "_" + parentKey);
-        if (parentKey == null || childKey == null) {
-            for (View curView : skipLogicViews.values()) {
-                if (isForNextStep && isNextStepRelevant()) {
-                    break;
-                }
+        Collection<String> viewsIds = parentKey == null ? skipLogicViews.keySet() :
+                getAffectedViews(RuleDependencyGraph.Kind.RELEVANCE, stepName + "_" + parentKey);
+        for (String viewId : viewsIds) {
+            if (isForNextStep && isNextStepRelevant()) {
+                break;
+            }
+            View curView = skipLogicViews.get(viewId);
+            if (curView != null) {
                 addRelevance(curView, popup, isForNextStep);
             }
-        } else if (viewsIds == null) {
-            for (String curViewId : skipLogicViews.keySet()) {
-                //skip any relevance by rules engine since the these components are not affected either way.
-                // Run relevance for native relevance functions as these are first and not optimized currently
-                if (isForNextStep && isNextStepRelevant()) {
-                    break;
-                }
-                if (!skipLogicDependencyMap.containsKey(curViewId)) {
-                    addRelevance(skipLogicViews.get(curViewId), popup, isForNextStep);
-                }
-            }
-        } else {
-            for (String viewId : viewsIds) {
-                if (isForNextStep && isNextStepRelevant()) {
-                    break;
-                }
-                addRelevance(skipLogicViews.get(viewId), popup, isForNextStep);
-            }
         }
     }
 
-    public Pair<String[], JSONObject> getCalculationAddressAndValue(View view) throws JSONException {
-        String calculationTag = (String) view.getTag(R.id.calculation);
-        String widgetKey = (String) view.getTag(R.id.key);
-        String stepName = ((String) view.getTag(R.id.address)).split(":")[0];
-        if (calculationTag != null && calculationTag.length() > 0) {
-            JSONObject calculation = new JSONObject(calculationTag);
-            Iterator<String> keys = calculation.keys();
+    /**
+     * Returns the views with rules of the given kind that depend on the changed field in evaluation order, followed by
+     * the views whose dependencies could not be resolved when the dependency graph was built
+     *
+     * @param kind           {@link RuleDependencyGraph.Kind}
+     * @param changedAddress address of the changed field in the form stepName_key
+     * @return the view keys to evaluate
+     */
+    private List<String> getAffectedViews(RuleDependencyGraph.Kind kind, String changedAddress) {
+        return getDependencyGraph().getAffectedViews(changedAddress, kind);
+    }
 
-            while (keys.hasNext()) {
-                String curKey = keys.next();
+    /**
+     * Returns the dependency graph, which is built again when views with rules were registered after it was built,
+     * e.g. by a repeating group or a popup
+     */
+    private RuleDependencyGraph getDependencyGraph() {
+        if (dependencyGraphStale) {
+            initializeDependencyMaps();
+        }
+        return dependencyGraph;
+    }
 
-                JSONObject curCalculation = calculation.getJSONObject(curKey);
-                JSONObject valueSource = new JSONObject();
-                if (calculation.has(JsonFormConstants.SRC)) {
-                    valueSource = calculation.getJSONObject(JsonFormConstants.SRC);
-                }
-                String[] address = getAddressFromMap(widgetKey, stepName, JsonFormConstants.CALCULATION);
-                if (address == null && curCalculation.has(JsonFormConstants.JSON_FORM_KEY.EX_RULES)) {
-                    JSONObject exRulesObject = curCalculation.getJSONObject(JsonFormConstants.JSON_FORM_KEY.EX_RULES);
-                    if (exRulesObject.has(RuleConstant.RULES_DYNAMIC)) {
-                        address = getDynamicRulesEngineAddress(curKey, curCalculation, view, JsonFormConstants.CALCULATION);
-                    } else {
-                        address = getRulesEngineAddress(curKey, curCalculation, view, JsonFormConstants.CALCULATION);
-                    }
-                }
-                return new Pair<>(address, valueSource);
-            }
+    public Pair<String[], JSONObject> getCalculationAddressAndValue(View view) throws JSONException {
+        RuleBinding ruleBinding = getRuleBinding(view);
+        RuleBinding.Descriptor calculation = ruleBinding.getCalculation();
+        if (calculation != null) {
+            return new Pair<>(calculation.getAddress(), ruleBinding.getCalculationValueSource());
         }
         return null;
     }
 
     @Override
     public void refreshCalculationLogic(String parentKey, String childKey, boolean popup, String stepName, boolean isForNextStep) {
-        appExecutors.diskIO().execute(() ->{
-            Set<String> viewsIds = calculationDependencyMap.get(stepName + "_" + parentKey);
-            if (parentKey == null || viewsIds == null)
-                viewsIds = calculationLogicViews.keySet();
+        appExecutors.compute().execute(() ->{
+            Collection<String> viewsIds = parentKey == null ? calculationLogicViews.keySet() :
+                    getAffectedViews(RuleDependencyGraph.Kind.CALCULATION, stepName + "_" + parentKey);
             for (String viewId : viewsIds) {
                 try {
                     View curView = calculationLogicViews.get(viewId);
@@ -383,19 +496,11 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                         Timber.w("calculationLogicViews Missing %s", viewId);
                         continue;
                     }
-                    Pair<String[], JSONObject> addressAndValue = getCalculationAddressAndValue(curView);
-                    if (addressAndValue != null && addressAndValue.first != null) {
-                        String[] address = addressAndValue.first;
-                        JSONObject valueSource = addressAndValue.second;
-                        Facts curValueMap;
-                        if (valueSource.length() > 0) {
-                            curValueMap = getValueFromAddress(address, popup, valueSource);
-                        } else {
-                            curValueMap = getValueFromAddress(address, popup);
-                        }
+                    Pair<String[], Facts> calculationFacts = getCalculationFacts(curView, popup);
+                    if (calculationFacts != null) {
                         //update ui
                         appExecutors.mainThread().execute(() -> {
-                            updateCalculation(curValueMap, curView, address, isForNextStep);
+                            updateCalculation(calculationFacts.second, curView, calculationFacts.first, isForNextStep);
                         });
 
                     }
@@ -410,66 +515,222 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
     }
 
+    /**
+     * @return the calculation address of the view and the facts it is calculated from, or null if the view has no
+     * calculation
+     */
+    @Nullable
+    private Pair<String[], Facts> getCalculationFacts(View view, boolean popup) throws JSONException {
+        Pair<String[], JSONObject> addressAndValue = getCalculationAddressAndValue(view);
+        if (addressAndValue == null || addressAndValue.first == null) {
+            return null;
+        }
+        String[] address = addressAndValue.first;
+        JSONObject valueSource = addressAndValue.second;
+        Facts curValueMap;
+        if (valueSource.length() > 0) {
+            curValueMap = getValueFromAddress(address, popup, valueSource);
+        } else {
+            curValueMap = getValueFromAddress(address, popup);
+        }
+        return new Pair<>(address, curValueMap);
+    }
+
     @Override
     public void initializeDependencyMaps() {
-        populateDependencyMap(calculationLogicViews, calculationDependencyMap, true);
-        populateDependencyMap(skipLogicViews, skipLogicDependencyMap, false);
+        // Views registered while the graph is built mark it stale again
+        dependencyGraphStale = false;
+        RuleDependencyGraph.Builder builder = new RuleDependencyGraph.Builder();
+        for (Map.Entry<String, View> entry : calculationLogicViews.entrySet()) {
+            RuleBinding ruleBinding = getRuleBinding(entry.getValue());
+            if (ruleBinding.getCalculation() != null) {
+                addRuleDependencies(builder, RuleDependencyGraph.Kind.CALCULATION, entry.getKey(), ruleBinding,
+                        getRuleInputs(ruleBinding.getCalculation().getAddress()));
+            }
+        }
+
+        for (Map.Entry<String, View> entry : skipLogicViews.entrySet()) {
+            RuleBinding ruleBinding = getRuleBinding(entry.getValue());
+            if (ruleBinding.getRelevance() != null) {
+                addRuleDependencies(builder, RuleDependencyGraph.Kind.RELEVANCE, entry.getKey(), ruleBinding,
+                        getRuleInputs(ruleBinding.getRelevance().getAddress()));
+            }
+        }
+
+        for (Map.Entry<String, View> entry : constrainedViews.entrySet()) {
+            RuleBinding ruleBinding = getRuleBinding(entry.getValue());
+            Collection<String> inputs = null;
+            if (ruleBinding.getNativeConstraints() != null) {
+                inputs = ruleBinding.getNativeConstraintReferences();
+            } else if (!ruleBinding.getConstraints().isEmpty()) {
+                inputs = new HashSet<>();
+                for (RuleBinding.Descriptor constraint : ruleBinding.getConstraints()) {
+                    Collection<String> constraintInputs = getRuleInputs(constraint.getAddress());
+                    if (constraintInputs == null) {
+                        inputs = null;
+                        break;
+                    }
+                    inputs.addAll(constraintInputs);
+                }
+            }
+            addRuleDependencies(builder, RuleDependencyGraph.Kind.CONSTRAINT, entry.getKey(), ruleBinding, inputs);
+        }
+
+        dependencyGraph = builder.build();
     }
 
     @Override
     public void invokeRefreshLogic(String value, boolean popup, String parentKey, String childKey, String stepName, boolean isForNextStep) {
-        refreshCalculationLogic(parentKey, childKey, popup, stepName, isForNextStep);
-        refreshSkipLogic(parentKey, childKey, popup, stepName, isForNextStep);
-
-        if (!isForNextStep) {
-            refreshConstraints(parentKey, childKey, popup);
+        if (parentKey != null && stepName != null && !isForNextStep && Utils.isRunningOnUiThread()) {
+            refreshDependentRules(getDependencyGraph().getAffectedRules(stepName + "_" + parentKey), 0, popup,
+                    parentKey, childKey, new ArrayList<>());
             refreshMediaLogic(parentKey, value, stepName);
+            return;
+        }
+
+        // The visibility changes of the whole cascade are applied together
+        boolean batchVisibility = Utils.isRunningOnUiThread();
+        if (batchVisibility) {
+            canvasViewRegistry.beginBatch();
+        }
+        try {
+            refreshCalculationLogic(parentKey, childKey, popup, stepName, isForNextStep);
+            refreshSkipLogic(parentKey, childKey, popup, stepName, isForNextStep);
+
+            if (!isForNextStep) {
+                refreshConstraints(parentKey, childKey, popup, stepName);
+                refreshMediaLogic(parentKey, value, stepName);
+            }
+        } finally {
+            if (batchVisibility) {
+                canvasViewRegistry.endBatch();
+            }
         }
     }
 
-    private void populateDependencyMap(Map<String, View> formViews, Map<String, Set<String>> dependencyMap, boolean calculation) {
-        for (View view : formViews.values()) {
-            try {
-                boolean isPopup = false;
-                if (view.getTag(R.id.extraPopup) != null) {
-                    isPopup = (boolean) view.getTag(R.id.extraPopup);
-                }
-                Pair<String[], JSONObject> addressAndValue = calculation ? getCalculationAddressAndValue(view) :
-                        getRelevanceAddress(view, isPopup);
-                if (addressAndValue != null) {
-                    String[] address = addressAndValue.first;
-                    List<String> widgets = null;
-                    if (address.length > 2) {
-                        if (RuleConstant.RULES_DYNAMIC.equals(address[0])) {
-                            widgets = getDynamicRules(address);
-                        } else {
-                            widgets = getRules(address[1], address[2], true);
-                        }
-                    } else if (address.length == 2) {
-                        widgets = Arrays.asList(address[0] + "_" + address[1]);
+    /**
+     * Evaluates the rules affected by a change on the ui thread in the order of the dependency graph, starting at
+     * index. The facts of a calculation are read in the background, its value is written before the rules after it
+     * are evaluated so that they read the calculated value. The constraints are checked once all calculations and
+     * relevance are evaluated.
+     *
+     * @param rules           the affected rules
+     * @param index           index of the next rule to evaluate
+     * @param popup           whether the change was made in a popup
+     * @param parentKey       key of the changed field
+     * @param childKey        key of the changed option of the field, if any
+     * @param constrainedKeys keys of the affected constrained views found so far
+     */
+    private void refreshDependentRules(final List<RuleDependencyGraph.Rule> rules, int index, final boolean popup,
+                                       final String parentKey, final String childKey,
+                                       final List<String> constrainedKeys) {
+        canvasViewRegistry.beginBatch();
+        try {
+            for (int i = index; i < rules.size(); i++) {
+                RuleDependencyGraph.Rule rule = rules.get(i);
+                if (rule.getKind() == RuleDependencyGraph.Kind.CONSTRAINT) {
+                    constrainedKeys.add(rule.getViewKey());
+                } else if (rule.getKind() == RuleDependencyGraph.Kind.RELEVANCE) {
+                    View curView = skipLogicViews.get(rule.getViewKey());
+                    if (curView != null) {
+                        addRelevance(curView, popup, false);
                     }
-
-                    if (widgets == null)
-                        continue;
-                    for (String widget : widgets) {
-                        if (!widget.startsWith(RuleConstant.STEP)) {
-                            continue;
-                        }
-                        String key = (String) view.getTag(R.id.address);
-                        if (!dependencyMap.containsKey(widget)) {
-                            Set<String> views = new HashSet<>();
-                            views.add(key);
-                            dependencyMap.put(widget, views);
-                        } else {
-                            dependencyMap.get(widget).add(key);
+                } else if (calculationLogicViews.containsKey(rule.getViewKey())) {
+                    final View curView = calculationLogicViews.get(rule.getViewKey());
+                    final boolean resolved = !dependencyGraph.getUnresolvedViews(RuleDependencyGraph.Kind.CALCULATION)
+                            .contains(rule.getViewKey());
+                    final int next = i + 1;
+                    appExecutors.compute().execute(() -> {
+                        Pair<String[], Facts> calculationFacts = null;
+                        try {
+                            calculationFacts = getCalculationFacts(curView, popup);
+                        } catch (Exception e) {
+                            Timber.e(e, "%s refreshDependentRules()", this.getClass().getCanonicalName());
                         }
-                    }
+                        final Pair<String[], Facts> facts = calculationFacts;
+                        appExecutors.mainThread().execute(() -> {
+                            if (facts != null) {
+                                applyCalculation(facts.second, curView, facts.first, popup, resolved);
+                            }
+                            refreshDependentRules(rules, next, popup, parentKey, childKey, constrainedKeys);
+                        });
+                    });
+                    return;
                 }
-            } catch (JSONException e) {
-                Timber.e(e);
+            }
+        } finally {
+            canvasViewRegistry.endBatch();
+        }
+        checkConstraints(parentKey, childKey, popup, constrainedKeys);
+    }
+
+    /**
+     * Shows a calculated value and writes it to the form straight away when the view is a text field, without
+     * refreshing its dependents, which come after it in the same pass. Other widgets write their value when it is
+     * shown.
+     *
+     * @param resolved false if the inputs of the calculation are not in the dependency graph, its dependents are then
+     *                 not part of the pass and are refreshed by the write
+     */
+    private void applyCalculation(Facts valueMap, View view, String[] address, boolean popup, boolean resolved) {
+        String calculation = updateCalculation(valueMap, view, address, false);
+        if (calculation == null || popup || !(view instanceof EditText) || view.getTag(R.id.raw_value) != null) {
+            return;
+        }
+
+        calculation = getEditTextCalculation(calculation, view);
+        String key = (String) view.getTag(R.id.key);
+        String stepName = getRuleBinding(view).getStepName();
+        if (TextUtils.isEmpty(calculation) || key == null || stepName == null) {
+            return;
+        }
+
+        writingCalculatedValue = resolved;
+        try {
+            writeValue(stepName, key, calculation, (String) view.getTag(R.id.openmrs_entity_parent),
+                    (String) view.getTag(R.id.openmrs_entity), (String) view.getTag(R.id.openmrs_entity_id), false);
+        } catch (JSONException e) {
+            Timber.e(e, "%s applyCalculation()", this.getClass().getCanonicalName());
+        } finally {
+            writingCalculatedValue = false;
+        }
+    }
+
+    /**
+     * Adds a rule to the dependency graph. Rules whose inputs cannot be resolved are added as unresolved so that they
+     * are evaluated on every change.
+     */
+    private void addRuleDependencies(RuleDependencyGraph.Builder builder, RuleDependencyGraph.Kind kind, String viewId,
+                                     RuleBinding ruleBinding, @Nullable Collection<String> inputs) {
+        if (inputs == null) {
+            builder.addUnresolvedRule(kind, viewId);
+            return;
+        }
+
+        List<String> fieldInputs = new ArrayList<>(inputs.size());
+        for (String input : inputs) {
+            if (input.startsWith(RuleConstant.STEP) || input.startsWith(RuleConstant.PREFIX.GLOBAL)) {
+                fieldInputs.add(input);
             }
         }
+        builder.addRule(kind, ruleBinding.getAddressString().replace(':', '_'), viewId, fieldInputs);
+    }
 
+    /**
+     * @param address resolved rule address
+     * @return the addresses of the fields a rule reads or null if they cannot be resolved
+     */
+    @Nullable
+    private Collection<String> getRuleInputs(@Nullable String[] address) {
+        if (address == null) {
+            return null;
+        } else if (address.length > 2) {
+            return RuleConstant.RULES_DYNAMIC.equals(address[0]) ? getDynamicRules(address) :
+                    getRules(address[1], address[2]);
+        } else if (address.length == 2) {
+            return Collections.singletonList(address[0] + "_" + address[1]);
+        }
+        return null;
     }
 
     @Override
@@ -492,11 +753,11 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
     public JSONObject getObjectUsingAddress(String[] address, boolean popup) throws JSONException {
         if (address != null && address.length > 1) {
             if (RuleConstant.RULES_DYNAMIC.equals(address[0])) {
-                List<String> rulesList = getDynamicRules(address);
+                Set<String> rulesList = getDynamicRules(address);
                 return fillFieldsWithValues(rulesList, popup);
             } else if (RuleConstant.RULES_ENGINE.equals(address[0])) {
                 String fieldKey = address[2];
-                List<String> rulesList = getRules(address[1], fieldKey, false);
+                Set<String> rulesList = getRules(address[1], fieldKey);
                 if (rulesList != null) {
                     return fillFieldsWithValues(rulesList, popup);
                 }
@@ -508,46 +769,82 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         return null;
     }
 
-    private List<String> getDynamicRules(@NonNull String[] address) {
-        List<String> keysList = new ArrayList<>();
+    /**
+     * @return the addresses of the fields a dynamic rule set reads, parsed once per rule set
+     */
+    private Set<String> getDynamicRules(@NonNull String[] address) {
+        if (address.length < 2 || StringUtils.isBlank(address[1])) {
+            return Collections.emptySet();
+        }
 
-        JSONArray jsonArray = null;
-        if (address.length > 1 && StringUtils.isNotBlank(address[1])) {
-            try {
-                jsonArray = new JSONArray(address[1]);
-                for (int i = 0; i < jsonArray.length(); i++) {
-                    JSONObject jsonObject = jsonArray.optJSONObject(i);
-                    if (!jsonObject.has(JsonFormConstants.KEY)) {
-                        String condition = jsonObject.optString(RuleConstant.CONDITION);
-                        if (StringUtils.isNotBlank(condition)) {
-                            keysList.addAll(Utils.getConditionKeys(condition));
-                        }
+        Set<String> keys = ruleKeys.get(address[1]);
+        if (keys == null) {
+            keys = Collections.unmodifiableSet(parseDynamicRuleKeys(address[1]));
+            ruleKeys.put(address[1], keys);
+        }
+        return keys;
+    }
 
-                        String action = jsonObject.optString(RuleConstant.ACTIONS);
-                        if (StringUtils.isNotBlank(action) && !action.trim().startsWith(RuleConstant.IS_RELEVANT)) {
-                            keysList.addAll(Utils.getConditionKeys(action));
-                        }
+    private Set<String> parseDynamicRuleKeys(String dynamicRules) {
+        Set<String> keysList = new LinkedHashSet<>();
+        try {
+            JSONArray jsonArray = new JSONArray(dynamicRules);
+            for (int i = 0; i < jsonArray.length(); i++) {
+                JSONObject jsonObject = jsonArray.optJSONObject(i);
+                if (!jsonObject.has(JsonFormConstants.KEY)) {
+                    String condition = jsonObject.optString(RuleConstant.CONDITION);
+                    if (StringUtils.isNotBlank(condition)) {
+                        keysList.addAll(Utils.getConditionKeys(condition));
+                    }
+
+                    String action = jsonObject.optString(RuleConstant.ACTIONS);
+                    if (StringUtils.isNotBlank(action) && !action.trim().startsWith(RuleConstant.IS_RELEVANT)) {
+                        keysList.addAll(Utils.getConditionKeys(action));
                     }
                 }
-            } catch (JSONException e) {
-                Timber.e(e);
             }
+        } catch (JSONException e) {
+            Timber.e(e);
         }
         return keysList;
     }
 
-    private JSONObject fillFieldsWithValues(List<String> rulesList, boolean popup) throws JSONException {
+    private JSONObject fillFieldsWithValues(Set<String> rulesList, boolean popup) throws JSONException {
+        if (popup) {
+            return fillPopupFieldsWithValues(rulesList);
+        }
+
+        JSONObject result = new JSONObject();
+        JSONArray rulesArray = new JSONArray();
+        for (String address : rulesList) {
+            if (!address.startsWith(RuleConstant.STEP) || address.indexOf('_') < 0) {
+                continue;
+            }
+            JSONObject fieldObject = getFormField(address);
+            if (fieldObject != null) {
+                FieldModel field = getFormModel().getField(address);
+                String stepName = field != null ? field.getStepName() : address.substring(0, address.indexOf('_'));
+                rulesArray.put(getRuleInput(fieldObject, stepName));
+            }
+        }
+        result.put(RuleConstant.RESULT, rulesArray);
+        return result;
+    }
+
+    private JSONObject fillPopupFieldsWithValues(Set<String> rulesList) throws JSONException {
         JSONObject result = new JSONObject();
         JSONArray rulesArray = new JSONArray();
         for (int h = 1; h < getmJSONObject().getInt(JsonFormConstants.COUNT) + 1; h++) {
-            JSONArray fields = fetchFields(getmJSONObject().optJSONObject(RuleConstant.STEP + h), popup);
-            for (int i = 0; i < fields.length(); i++) {
-                if (rulesList.contains(RuleConstant.STEP + h + "_" +
-                        fields.getJSONObject(i).getString(JsonFormConstants.KEY))) {
+            String stepName = RuleConstant.STEP + h;
+            if (!hasRuleInputsInStep(rulesList, stepName)) {
+                continue;
+            }
 
-                    JSONObject fieldObject = fields.getJSONObject(i);
-                    fieldObject.put(RuleConstant.STEP, RuleConstant.STEP + h);
-                    rulesArray.put(fieldObject);
+            JSONArray fields = fetchFields(getmJSONObject().optJSONObject(stepName), true);
+            for (int i = 0; i < fields.length(); i++) {
+                JSONObject fieldObject = fields.getJSONObject(i);
+                if (rulesList.contains(stepName + "_" + fieldObject.getString(JsonFormConstants.KEY))) {
+                    rulesArray.put(getRuleInput(fieldObject, stepName));
                 }
             }
         }
@@ -555,6 +852,48 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         return result;
     }
 
+    /**
+     * Rule inputs are flagged with their step, the flags go on a copy so the field json shared with the form model
+     * and the widgets is left alone
+     */
+    private JSONObject getRuleInput(JSONObject fieldObject, String stepName) throws JSONException {
+        return JsonUtils.shallowCopy(fieldObject).put(RuleConstant.STEP, stepName);
+    }
+
+    private boolean hasRuleInputsInStep(Set<String> rulesList, String stepName) {
+        String prefix = stepName + "_";
+        for (String address : rulesList) {
+            if (address.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds a main form field by key, first in the compiled form then in the fields added at runtime such as repeating
+     * group fields
+     *
+     * @param key field key
+     * @return the field or null if no step has a field with that key
+     */
+    @Nullable
+    private JSONObject findFormFieldByKey(String key) {
+        FieldModel field = getFormModel().findFieldByKey(key);
+        if (field != null) {
+            return field.getJson();
+        }
+
+        int stepCount = getmJSONObject().optInt(JsonFormConstants.COUNT);
+        for (int step = 1; step <= stepCount; step++) {
+            String address = RuleConstant.STEP + step + "_" + key;
+            if (!popupFormFields.contains(address) && formFields.containsKey(address)) {
+                return formFields.get(address);
+            }
+        }
+        return null;
+    }
+
     @Override
     public JSONObject getObjectUsingAddress(String[] address, boolean popup, JSONObject valueSource) throws JSONException {
         if (valueSource != null && valueSource.has(JsonFormConstants.KEY) && valueSource.has(JsonFormConstants.STEPNAME) &&
@@ -569,13 +908,13 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                     if (RuleConstant.RULES_ENGINE.equals(address[0])) {
                         String fieldKey = address[2];
 
-                        List<String> rulesList = getRules(address[1], fieldKey, false);
+                        Set<String> rulesList = getRules(address[1], fieldKey);
                         if (rulesList != null) {
                             JSONObject result = new JSONObject();
                             JSONArray rulesArray = new JSONArray();
 
-                            JSONObject mainWidget = FormUtils.getFieldFromForm(mJSONObject, key);
-                            if (mainWidget.has(JsonFormConstants.OPTIONS_FIELD_NAME)) {
+                            JSONObject mainWidget = findFormFieldByKey(key);
+                            if (mainWidget != null && mainWidget.has(JsonFormConstants.OPTIONS_FIELD_NAME)) {
                                 JSONArray options = mainWidget.getJSONArray(JsonFormConstants.OPTIONS_FIELD_NAME);
                                 for (int i = 0; i < options.length(); i++) {
                                     JSONObject option = options.getJSONObject(i);
@@ -629,9 +968,31 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
      */
     @Override
     public void refreshConstraints(String parentKey, String childKey, boolean popup) {
-        appExecutors.diskIO().execute(()->{
-            initComparisons();
+        refreshConstraints(parentKey, childKey, popup, null);
+    }
 
+    /**
+     * Checks the constraints of the changed view and of the views whose constraints depend on it. All constrained views
+     * are checked when the step is not known.
+     *
+     * @param parentKey {@link String}
+     * @param childKey  {@link String}
+     * @param popup     {@link Boolean}
+     * @param stepName  {@link String} step of the changed view
+     */
+    protected void refreshConstraints(String parentKey, String childKey, boolean popup, @Nullable String stepName) {
+        checkConstraints(parentKey, childKey, popup, parentKey == null || stepName == null ? null :
+                getAffectedViews(RuleDependencyGraph.Kind.CONSTRAINT, stepName + "_" + parentKey));
+    }
+
+    /**
+     * Checks the constraints of the changed view and then of the given views in the background
+     *
+     * @param viewKeys keys of the constrained views to check, all constrained views if null
+     */
+    private void checkConstraints(String parentKey, String childKey, boolean popup,
+                                  @Nullable Collection<String> viewKeys) {
+        appExecutors.compute().execute(()->{
             // Priorities constraints on the view that has just been changed
             String changedViewKey = parentKey;
             if (changedViewKey != null && childKey != null) {
@@ -642,9 +1003,9 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                 checkViewConstraints(constrainedViews.get(changedViewKey), popup);
             }
 
-            for (View curView : constrainedViews.values()) {
-                String viewKey = getViewKey(curView);
-                if (changedViewKey == null || (!TextUtils.isEmpty(viewKey) && !viewKey.equals(changedViewKey))) {
+            for (String viewKey : viewKeys != null ? viewKeys : constrainedViews.keySet()) {
+                View curView = constrainedViews.get(viewKey);
+                if (curView != null && (changedViewKey == null || (!TextUtils.isEmpty(viewKey) && !viewKey.equals(changedViewKey)))) {
                     checkViewConstraints(curView, popup);
                 }
             }
@@ -685,42 +1046,158 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
     @Override
     public void setmJSONObject(JSONObject mJSONObject) {
+        boolean replaced = getmJSONObject() != mJSONObject;
         super.setmJSONObject(mJSONObject);
-        initializeFormFieldsMap();
+        // A form that is set again after it was changed in place, e.g. by a popup, is republished step by step
+        // through onStepChanged
+        if (replaced) {
+            initializeFormFieldsMap();
+        }
     }
 
-    private void initializeFormFieldsMap() {
-        appExecutors.diskIO().execute(new Runnable() {
-            @Override
-            public void run() {
-                JSONObject formJsonObject = getmJSONObject();
-                int count = formJsonObject.optInt(JsonFormConstants.COUNT);
-                try {
-                    for (int i = 1; i <= count; i++) {
-                        String step = JsonFormConstants.STEP + i;
-                        if (!formJsonObject.has(step)) {
-                            Timber.w("Missing step %s", step);
-                            continue;
-                        }
-                        JSONArray fields = fetchFields(formJsonObject.getJSONObject(step), false);
-                        for (int j = 0; j < fields.length(); j++) {
-                            JSONObject field = fields.getJSONObject(j);
-                            formFields.put(step + "_" + field.getString(JsonFormConstants.KEY), field);
-                        }
+    @Override
+    protected void init(JSONObject formJson) {
+        super.init(formJson);
+        if (formJournal == null && sessionHandle != null && getmJSONObject().has(JsonFormConstants.ENCOUNTER_TYPE)) {
+            formJournal = FormSessionStore.getInstance().openJournal(getApplicationContext(), sessionHandle);
+            // The journal is read in the background, its records are replayed on the main thread
+            formJournal.getRecords(records -> {
+                if (!records.isEmpty()) {
+                    appExecutors.mainThread().execute(() -> onFormJournalRead(records));
+                }
+            });
+        }
+    }
+
+    /**
+     * Replays the journal and builds the views of the form step on screen again, since they may have been built
+     * before the journal was read
+     */
+    private void onFormJournalRead(List<JSONObject> records) {
+        if (isDestroyed()) {
+            return;
+        }
+
+        replayFormJournal(records);
+        Fragment formFragment = getSupportFragmentManager().findFragmentById(R.id.container);
+        if (formFragment != null && formFragment.getView() != null) {
+            getSupportFragmentManager().beginTransaction().detach(formFragment).attach(formFragment)
+                    .commitAllowingStateLoss();
+        }
+    }
+
+    /**
+     * Writes the values journaled in the form session back to the form, in one pass and in the order they were
+     * written, e.g. after the app was killed while the form was open. Values of fields the form does not have yet,
+     * such as the fields of repeating groups that were not generated again, are skipped.
+     *
+     * @param records journal records, oldest first
+     */
+    private void replayFormJournal(List<JSONObject> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        try {
+            getFormStateStore().write(form -> {
+                for (JSONObject record : records) {
+                    try {
+                        replayJournalRecord(form, record);
+                    } catch (JSONException e) {
+                        Timber.w(e, "JsonFormActivity --> replayFormJournal");
                     }
-                } catch (JSONException e) {
-                    Timber.e(e);
                 }
+            });
+        } catch (JSONException e) {
+            Timber.e(e, "JsonFormActivity --> replayFormJournal");
+        }
+        // Publish the replayed fields to background readers
+        initializeFormFieldsMap();
+    }
+
+    private void replayJournalRecord(JSONObject form, JSONObject record) throws JSONException {
+        String type = record.optString(FormJournal.TYPE);
+        String stepName = record.optString(JsonFormConstants.STEPNAME);
+        if (FormJournal.TYPE_VALUE.equals(type)) {
+            String key = record.optString(JsonFormConstants.KEY);
+            JSONObject item = formFields.get(stepName + "_" + key);
+            if (item == null) {
+                return;
+            }
+            String itemType = item.optString(JsonFormConstants.TYPE);
+            String cleanKey = isSpecialWidget(itemType) ? cleanWidgetKey(key, itemType) : key;
+            if (cleanKey.equals(item.optString(JsonFormConstants.KEY))) {
+                updateItemValue(record.optString(JsonFormConstants.VALUE, null), item, itemType,
+                        record.optString(JsonFormConstants.OPENMRS_ENTITY_PARENT, null),
+                        record.optString(JsonFormConstants.OPENMRS_ENTITY, null),
+                        record.optString(JsonFormConstants.OPENMRS_ENTITY_ID, null));
+                markStepDirty(stepName);
+            }
+        } else if (FormJournal.TYPE_CHECKBOX.equals(type)) {
+            String parentKey = record.optString(FormJournal.PARENT_KEY);
+            if (formFields.containsKey(stepName + "_" + parentKey)) {
+                updateCheckboxValue(stepName, parentKey, record.optString(FormJournal.CHILD_OBJECT_KEY),
+                        record.optString(FormJournal.CHILD_KEY), record.optString(JsonFormConstants.VALUE));
+                markStepDirty(stepName);
+            }
+        } else if (FormJournal.TYPE_METADATA.equals(type)) {
+            JSONObject valuesObject = record.optJSONObject(FormJournal.VALUES);
+            if (valuesObject != null) {
+                Map<String, String> values = new HashMap<>();
+                Iterator<String> keys = valuesObject.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    values.put(key, valuesObject.optString(key));
+                }
+                updateMetaDataValue(form, record.optString(FormJournal.METADATA_KEY), values);
             }
-        });
+        }
+    }
+
+    private void initializeFormFieldsMap() {
+        for (FieldModel field : getFormModel().getFields()) {
+            formFields.put(field.getAddress(), field.getJson());
+        }
+        getFormStateStore().reset(getmJSONObject());
+    }
+
+    /**
+     * Resolves a main form field by its stepName_key address. The compiled {@link com.vijay.jsonwizard.model.FormModel}
+     * is checked first, fields added after the form was compiled (e.g. repeating groups) are resolved from the live
+     * form fields map.
+     *
+     * @param address {@link String} field address
+     * @return the field json or null if the form has no such field
+     */
+    private JSONObject getFormField(String address) {
+        FieldModel field = getFormModel().getField(address);
+        if (field != null) {
+            return getFieldForRead(address, field.getJson());
+        }
+        return popupFormFields.contains(address) ? null : getFieldForRead(address, formFields.get(address));
+    }
+
+    /**
+     * Background evaluators read the last published snapshot of a field, the ui thread writes fields and reads them
+     * directly
+     *
+     * @param address   field address in the form stepName_key
+     * @param liveField the live field json
+     * @return the field to read from
+     */
+    private JSONObject getFieldForRead(String address, JSONObject liveField) {
+        if (liveField == null || Utils.isRunningOnUiThread()) {
+            return liveField;
+        }
+        JSONObject snapshot = getFormStateStore().getFieldSnapshot(address);
+        return snapshot != null ? snapshot : liveField;
     }
 
     @Override
     protected void initiateFormUpdate(JSONObject json) {
         if (getForm() != null && ((getForm().getHiddenFields() != null && !getForm().getHiddenFields().isEmpty()) || (getForm().getDisabledFields() != null && !getForm().getDisabledFields().isEmpty()))) {
-            JSONArray fieldsJsonObject = FormUtils.getMultiStepFormFields(json);
-            for (int k = 0; k < fieldsJsonObject.length(); k++) {
-                Utils.handleFieldBehaviour(fieldsJsonObject.optJSONObject(k), getForm());
+            for (FieldModel field : getFormModel().getFields()) {
+                Utils.handleFieldBehaviour(field.getJson(), getForm());
             }
         }
     }
@@ -810,16 +1287,12 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
      */
     @Override
     public boolean displayScrollBars() {
-        synchronized (getmJSONObject()) {
-            return getmJSONObject().optBoolean(JsonFormConstants.DISPLAY_SCROLL_BARS, false);
-        }
+        return readFormState(form -> form.optBoolean(JsonFormConstants.DISPLAY_SCROLL_BARS, false), false);
     }
 
     @Override
     public boolean skipBlankSteps() {
-        synchronized (getmJSONObject()) {
-            return getmJSONObject().optBoolean(JsonFormConstants.SKIP_BLANK_STEPS, false);
-        }
+        return readFormState(form -> form.optBoolean(JsonFormConstants.SKIP_BLANK_STEPS, false), false);
     }
 
     @Override
@@ -836,64 +1309,12 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         return key;
     }
 
-    private void addToAddressMap(String key, String stepName, String type, String[] address) {
-        addressMap.put(stepName + "_" + key + "_" + type, address);
-    }
-
-    private String[] getAddressFromMap(String key, String stepName, String type) {
-        return addressMap.get(stepName + "_" + key + "_" + type);
-    }
-
-    private String[] getAddress(View view, String curKey, JSONObject curRelevance, String type) {
-        String[] address;
-        if (curKey.contains(":")) {
-            address = curKey.split(":");
-            String[] viewAddress = view.getTag(R.id.address).toString().split(":");
-            addToAddressMap(viewAddress[1], viewAddress[0], type, address);
-        } else {
-            try {
-                if (curRelevance.getJSONObject(JsonFormConstants.JSON_FORM_KEY.EX_RULES).has(RuleConstant.RULES_DYNAMIC)) {
-                    return getDynamicRulesEngineAddress(curKey, curRelevance, view, type);
-                } else {
-                    address = getRulesEngineAddress(curKey, curRelevance, view, type);
-                }
-            } catch (JSONException e) {
-                Timber.e(e);
-                return null;
-            }
-        }
-        return address;
-    }
-
-    private String[] getRulesEngineAddress(String curKey, JSONObject curRelevance, View view, String type) {
-        return getRulesEngineAddress(curKey, curRelevance, view, type, RuleConstant.RULES_FILE);
-    }
-
-    private String[] getDynamicRulesEngineAddress(String curKey, JSONObject curRelevance, View view, String type) {
-        return getRulesEngineAddress(curKey, curRelevance, view, type, RuleConstant.RULES_DYNAMIC);
-    }
-
-    private String[] getRulesEngineAddress(String curKey, JSONObject curRelevance, View view, String type, String ruleType) {
-        String[] address = new String[0];
-        try {
-            String currentKey = RuleConstant.RULES_DYNAMIC.equals(ruleType) ? ruleType : curKey;
-            address = new String[]{currentKey,
-                    curRelevance.getJSONObject(JsonFormConstants.JSON_FORM_KEY.EX_RULES).getString(ruleType),
-                    view.getTag(R.id.address).toString().replace(':', '_')};
-
-            String[] viewAddress = view.getTag(R.id.address).toString().split(":");
-            addToAddressMap(viewAddress[0], viewAddress[1], type, address);
-        } catch (JSONException e) {
-            Timber.e(e, "%s getRulesEngineAddress()", this.getClass().getCanonicalName());
-        }
-        return address;
-    }
-
     private JSONObject getRelevanceReferencedObject(String stepName, String key) {
-        return formFields.get(stepName + "_" + key);
+        String address = stepName + "_" + key;
+        return getFieldForRead(address, formFields.get(address));
     }
 
-    private void getFieldObject(String stepName, List<String> rulesList, JSONArray rulesArray, JSONArray fields)
+    private void getFieldObject(String stepName, Set<String> rulesList, JSONArray rulesArray, JSONArray fields)
             throws JSONException {
         if (fields.length() > 0) {
             for (int j = 0; j < fields.length(); j++) {
@@ -934,17 +1355,27 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
             String cleanKey = isSpecialWidget ? cleanWidgetKey(key, itemType) : key;
 
             if (cleanKey.equals(keyAtIndex)) {
-                if (item.has(JsonFormConstants.TEXT)) {
-                    item.put(JsonFormConstants.TEXT, value);
-                } else {
-                    widgetWriteItemValue(value, item, itemType);
+                getFormStateStore().write(form -> updateItemValue(value, item, itemType, openMrsEntityParent,
+                        openMrsEntity, openMrsEntityId));
+                publishFormField(stepName + "_" + key);
+                invalidateRuleResults(stepName + "_" + cleanKey);
+                if (!writingCalculatedValue) {
+                    invokeRefreshLogic(value, popup, cleanKey, null, stepName, false);
                 }
-                addOpenMrsAttributes(openMrsEntityParent, openMrsEntity, openMrsEntityId, item);
-                invokeRefreshLogic(value, popup, cleanKey, null, stepName, false);
             }
         }
     }
 
+    private void updateItemValue(String value, JSONObject item, String itemType, String openMrsEntityParent,
+                                 String openMrsEntity, String openMrsEntityId) throws JSONException {
+        if (item.has(JsonFormConstants.TEXT)) {
+            item.put(JsonFormConstants.TEXT, value);
+        } else {
+            widgetWriteItemValue(value, item, itemType);
+        }
+        addOpenMrsAttributes(openMrsEntityParent, openMrsEntity, openMrsEntityId, item);
+    }
+
     private void addOpenMrsAttributes(String openMrsEntityParent, String openMrsEntity, String openMrsEntityId,
                                       JSONObject item) throws JSONException {
         item.put(JsonFormConstants.OPENMRS_ENTITY_PARENT, openMrsEntityParent);
@@ -1035,45 +1466,52 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
     protected void checkBoxWriteValue(String stepName, String parentKey, String childObjectKey, String childKey,
                                       String value, boolean popup) throws JSONException {
 
-        synchronized (getmJSONObject()) {
-            JSONObject checkboxObject = formFields.get(stepName + "_" + parentKey);
-            JSONArray checkboxOptions = checkboxObject.getJSONArray(childObjectKey);
-            HashSet<String> currentValues = new HashSet<>();
-            //Get current values
-            if (checkboxObject.has(JsonFormConstants.VALUE)) {
-                formUtils.updateValueToJSONArray(checkboxObject, checkboxObject.optString(JsonFormConstants.VALUE, ""));
-            }
+        getFormStateStore().write(form -> updateCheckboxValue(stepName, parentKey, childObjectKey, childKey, value));
+        publishFormField(stepName + "_" + parentKey);
+        invalidateRuleResults(stepName + "_" + parentKey);
+        if (!writingCalculatedValue) {
+            invokeRefreshLogic(value, popup, parentKey, childKey, stepName, false);
+        }
+    }
 
-            if (checkboxObject != null && checkboxOptions != null) {
-                if (checkboxObject.has(JsonFormConstants.VALUE) && StringUtils.isNotEmpty(checkboxObject.getString(JsonFormConstants.VALUE))) {
-                    currentValues.addAll(getCurrentCheckboxValues(checkboxObject.getJSONArray(JsonFormConstants.VALUE)));
-                }
+    private void updateCheckboxValue(String stepName, String parentKey, String childObjectKey, String childKey,
+                                     String value) throws JSONException {
+        JSONObject checkboxObject = formFields.get(stepName + "_" + parentKey);
+        JSONArray checkboxOptions = checkboxObject.getJSONArray(childObjectKey);
+        HashSet<String> currentValues = new HashSet<>();
+        //Get current values
+        if (checkboxObject.has(JsonFormConstants.VALUE)) {
+            formUtils.updateValueToJSONArray(checkboxObject, checkboxObject.optString(JsonFormConstants.VALUE, ""));
+        }
 
-                for (int index = 0; index < checkboxOptions.length(); index++) {
-                    JSONObject option = checkboxOptions.getJSONObject(index);
-                    if (option.has(JsonFormConstants.KEY) &&
-                            childKey.equals(option.getString(JsonFormConstants.KEY))) {
-                        option.put(JsonFormConstants.VALUE, Boolean.parseBoolean(value));
-                        if (Boolean.parseBoolean(value)) {
-                            if (Utils.enabledProperty(NativeFormsProperties.KEY.WIDGET_VALUE_TRANSLATED)) {
-                                JSONObject object = Utils.generateTranslatableValue(childKey, option);
-                                currentValues.add(object.toString());
-                            } else {
-                                currentValues.add(childKey);
-                            }
+        if (checkboxObject != null && checkboxOptions != null) {
+            if (checkboxObject.has(JsonFormConstants.VALUE) && StringUtils.isNotEmpty(checkboxObject.getString(JsonFormConstants.VALUE))) {
+                currentValues.addAll(getCurrentCheckboxValues(checkboxObject.getJSONArray(JsonFormConstants.VALUE)));
+            }
+
+            for (int index = 0; index < checkboxOptions.length(); index++) {
+                JSONObject option = checkboxOptions.getJSONObject(index);
+                if (option.has(JsonFormConstants.KEY) &&
+                        childKey.equals(option.getString(JsonFormConstants.KEY))) {
+                    option.put(JsonFormConstants.VALUE, Boolean.parseBoolean(value));
+                    if (Boolean.parseBoolean(value)) {
+                        if (Utils.enabledProperty(NativeFormsProperties.KEY.WIDGET_VALUE_TRANSLATED)) {
+                            JSONObject object = Utils.generateTranslatableValue(childKey, option);
+                            currentValues.add(object.toString());
                         } else {
-                            if (Utils.enabledProperty(NativeFormsProperties.KEY.WIDGET_VALUE_TRANSLATED)) {
-                                JSONObject object = Utils.generateTranslatableValue(childKey, option);
-                                currentValues.remove(object.toString());
-                            } else {
-                                currentValues.remove(childKey);
-                            }
+                            currentValues.add(childKey);
+                        }
+                    } else {
+                        if (Utils.enabledProperty(NativeFormsProperties.KEY.WIDGET_VALUE_TRANSLATED)) {
+                            JSONObject object = Utils.generateTranslatableValue(childKey, option);
+                            currentValues.remove(object.toString());
+                        } else {
+                            currentValues.remove(childKey);
                         }
                     }
                 }
-                checkboxObject.put(JsonFormConstants.VALUE, getCheckboxValueJsonArray(currentValues));
             }
-            invokeRefreshLogic(value, popup, parentKey, childKey, stepName, false);
+            checkboxObject.put(JsonFormConstants.VALUE, getCheckboxValueJsonArray(currentValues));
         }
     }
 
@@ -1126,37 +1564,38 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         for (LifeCycleListener lifeCycleListener : lifeCycleListeners) {
             lifeCycleListener.onResume();
         }
-        if (!getmJSONObject().has(JsonFormConstants.INVISIBLE_REQUIRED_FIELDS)) {
-            try {
-                getmJSONObject().put(JsonFormConstants.INVISIBLE_REQUIRED_FIELDS, invisibleRequiredFields);
-            } catch (JSONException e) {
-                Timber.e(e, "JsonFormActivity --> onResume");
-            }
+        if (isFormLoaded()) {
+            putInvisibleRequiredFields();
         }
         EventBus.getDefault().register(this);
     }
 
+    @Override
+    protected void onFormSessionLoaded() {
+        super.onFormSessionLoaded();
+        putInvisibleRequiredFields();
+    }
+
+    private void putInvisibleRequiredFields() {
+        try {
+            getFormStateStore().write(form -> {
+                if (!form.has(JsonFormConstants.INVISIBLE_REQUIRED_FIELDS)) {
+                    form.put(JsonFormConstants.INVISIBLE_REQUIRED_FIELDS, invisibleRequiredFields);
+                }
+            });
+        } catch (JSONException e) {
+            Timber.e(e, "JsonFormActivity --> putInvisibleRequiredFields");
+        }
+    }
+
 
     protected Pair<String[], JSONObject> getRelevanceAddress(View view, boolean popup) throws
             JSONException {
         if (view != null) {
-            String relevanceTag = (String) view.getTag(R.id.relevance);
-            String widgetKey = (String) view.getTag(R.id.key);
-            String stepName = ((String) view.getTag(R.id.address)).split(":")[0];
-            boolean widgetDisplay = (boolean) view.getTag(R.id.extraPopup);
-            if ((relevanceTag != null && relevanceTag.length() > 0) && (widgetDisplay == popup)) {
-                JSONObject relevance = new JSONObject(relevanceTag);
-                Iterator<String> keys = relevance.keys();
-                while (keys.hasNext()) {
-                    String curKey = keys.next();
-                    JSONObject curRelevance = relevance.has(curKey) ? relevance.getJSONObject(curKey) : null;
-
-                    String[] address = getAddressFromMap(widgetKey, stepName, JsonFormConstants.RELEVANCE);
-                    if (address == null) {
-                        address = getAddress(view, curKey, curRelevance, JsonFormConstants.RELEVANCE);
-                    }
-                    return new Pair<>(address, curRelevance);
-                }
+            RuleBinding ruleBinding = getRuleBinding(view);
+            RuleBinding.Descriptor relevance = ruleBinding.getRelevance();
+            if (relevance != null && ruleBinding.isPopup() == popup) {
+                return new Pair<>(relevance.getAddress(), relevance.getDefinition());
             }
         }
         return null;
@@ -1175,7 +1614,7 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
                     Facts curValueMap = getValueFromAddress(address, isPopup);
                     try {
-                        comparison = isRelevant(curValueMap, curRelevance);
+                        comparison = isRelevant(address, curValueMap, curRelevance);
                     } catch (Exception e) {
                         Timber.e(e, "JsonFormActivity --> addRelevance --> comparison");
                     }
@@ -1201,9 +1640,8 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
     protected void toggleViewVisibility(View view, boolean visible, boolean popup) {
         try {
-            JSONArray canvasViewIds = new JSONArray((String) view.getTag(R.id.canvas_ids));
-            String addressString = (String) view.getTag(R.id.address);
-            String[] address = addressString.split(":");
+            RuleBinding ruleBinding = getRuleBinding(view);
+            String[] address = ruleBinding.getAddress();
             JSONObject object = getObjectUsingAddress(address, popup);
             boolean enabled = visible;
             if (object != null && object.has(JsonFormConstants.READ_ONLY) &&
@@ -1219,19 +1657,17 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                 }
             }
 
-            updateCanvas(view, visible, canvasViewIds, addressString, object);
-            setReadOnlyAndFocus(view, visible, popup);
+            updateCanvas(view, visible, ruleBinding.getCanvasIds(), ruleBinding.getAddressString(), object);
+            setReadOnlyAndFocus(view, address, visible, popup);
 
         } catch (JSONException e) {
             Timber.e(e);
         }
     }
 
-    private void setReadOnlyAndFocus(View view, boolean visible, boolean popup) {
+    private void setReadOnlyAndFocus(View view, String[] address, boolean visible, boolean popup) {
         try {
-            String addressString = (String) view.getTag(R.id.address);
             String widgetType = (String) view.getTag(R.id.type);
-            String[] address = addressString.split(":");
             JSONObject object = getObjectUsingAddress(address, popup);
 
             boolean enabled = visible;
@@ -1279,44 +1715,29 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
     }
 
     private void checkViewConstraints(View curView, boolean popup) {
-        String constraintTag = (String) curView.getTag(R.id.constraints);
-        String widgetKey = (String) curView.getTag(R.id.key);
-        String stepName = ((String) curView.getTag(R.id.address)).split(":")[0];
-        if (constraintTag != null && constraintTag.length() > 0) {
+        RuleBinding ruleBinding = getRuleBinding(curView);
+        if (ruleBinding.hasConstraints()) {
             try {
 
                 String errorMessage = null;
-                String[] address = null;
-
-                if (constraintTag.charAt(0) == '[') {
-                    String addressString = (String) curView.getTag(R.id.address);
-                    address = addressString.split(":");
+                JSONArray constraint = ruleBinding.getNativeConstraints();
 
-                    JSONArray constraint = new JSONArray(constraintTag);
+                if (constraint != null) {
+                    String[] address = ruleBinding.getAddress();
                     for (int i = 0; i < constraint.length(); i++) {
                         JSONObject curConstraint = constraint.getJSONObject(i);
                         if (address.length == 2) {
                             String value = String.valueOf(getValueFromAddress(address, popup).get(JsonFormConstants.VALUE));
-                            errorMessage = enforceConstraint(value, curView, curConstraint);
+                            errorMessage = enforceConstraint(getTypedValue(address, value), curView, curConstraint);
                             if (errorMessage != null) break;
                         }
                     }
 
                 } else {
                     //Rules Engine
-                    JSONObject constraint = new JSONObject(constraintTag);
-                    Iterator<String> keys = constraint.keys();
-                    while (keys.hasNext()) {
-                        String curKey = keys.next();
-                        JSONObject curConstraint = constraint.getJSONObject(curKey);
-
-
-                        address = getAddressFromMap(widgetKey, stepName, JsonFormConstants.CONSTRAINTS);
-                        if (address == null) {
-                            address = getAddress(curView, curKey, curConstraint, JsonFormConstants.CONSTRAINTS);
-                        }
-                        Facts curValueMap = getValueFromAddress(address, popup);
-                        errorMessage = enforceConstraint(curValueMap, curConstraint);
+                    for (RuleBinding.Descriptor curConstraint : ruleBinding.getConstraints()) {
+                        Facts curValueMap = getValueFromAddress(curConstraint.getAddress(), popup);
+                        errorMessage = enforceConstraint(curValueMap, curConstraint.getDefinition());
                         if (errorMessage != null) break;
                     }
                 }
@@ -1331,7 +1752,7 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
     private void updateUiByConstraints(View curView, boolean popup, String errorMessage) throws
             JSONException {
-        String[] address = ((String) curView.getTag(R.id.address)).split(":");
+        String[] address = getRuleBinding(curView).getAddress();
         if (errorMessage != null) {
             if (curView instanceof MaterialEditText) {
                 ((MaterialEditText) curView).setText(null);
@@ -1468,85 +1889,18 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         return result;
     }
 
-    private void initComparisons() {
-        if (comparisons == null) {
-            functionRegex = "";
-            comparisons = new HashMap<>();
-
-            LessThanComparison lessThanComparison = new LessThanComparison();
-            functionRegex += lessThanComparison.getFunctionName();
-            comparisons.put(lessThanComparison.getFunctionName(), lessThanComparison);
-
-            LessThanEqualToComparison lessThanEqualToComparison = new LessThanEqualToComparison();
-            functionRegex += "|" + lessThanEqualToComparison.getFunctionName();
-            comparisons.put(lessThanEqualToComparison.getFunctionName(), lessThanEqualToComparison);
-
-            EqualToComparison equalToComparison = new EqualToComparison();
-            functionRegex += "|" + equalToComparison.getFunctionName();
-            comparisons.put(equalToComparison.getFunctionName(), equalToComparison);
-
-            NotEqualToComparison notEqualToComparer = new NotEqualToComparison();
-            functionRegex += "|" + notEqualToComparer.getFunctionName();
-            comparisons.put(notEqualToComparer.getFunctionName(), notEqualToComparer);
-
-            GreaterThanComparison greaterThanComparison = new GreaterThanComparison();
-            functionRegex += "|" + greaterThanComparison.getFunctionName();
-            comparisons.put(greaterThanComparison.getFunctionName(), greaterThanComparison);
-
-            GreaterThanEqualToComparison greaterThanEqualToComparison = new GreaterThanEqualToComparison();
-            functionRegex += "|" + greaterThanEqualToComparison.getFunctionName();
-            comparisons.put(greaterThanEqualToComparison.getFunctionName(), greaterThanEqualToComparison);
-
-            RegexComparison regexComparison = new RegexComparison();
-            functionRegex += "|" + regexComparison.getFunctionName();
-            comparisons.put(regexComparison.getFunctionName(), regexComparison);
-        }
+    /**
+     * @return the value of the field at the address, reusing the numbers, dates and arrays already parsed from it
+     * while the value is unchanged
+     */
+    private TypedValue getTypedValue(String[] address, String value) {
+        return address.length > 1 ? typedValues.read(address[0] + "_" + address[1], value) : TypedValue.of(value);
     }
 
-    private boolean doComparison(String value, JSONObject comparison) throws Exception {
+    private boolean doComparison(TypedValue value, JSONObject comparison) throws Exception {
         String type = comparison.getString(JsonFormConstants.TYPE).toLowerCase();
-        String ex = comparison.getString(JsonFormConstants.EX);
-
-        Pattern pattern = Pattern.compile("(" + functionRegex + ")\\((.*)\\)");
-        Matcher matcher = pattern.matcher(ex);
-        if (matcher.find()) {
-            String functionName = matcher.group(1);
-            String b = matcher.group(
-                    2);//functions arguments should be two, and should either be addresses or values (enclosed using "")
-            String[] args = getFunctionArgs(b, value);
-            return comparisons.get(functionName).compare(args[0], type, args[1]);
-        }
-
-        return false;
-    }
-
-    private String[] getFunctionArgs(String functionArgs, String value) {
-        String[] args = new String[2];
-        String[] splitArgs = functionArgs.split(",");
-        if (splitArgs.length == 2) {
-            Pattern valueRegex = Pattern.compile("\"(.*)\"");
-            for (int i = 0; i < splitArgs.length; i++) {
-                String curArg = splitArgs[i].trim();
-
-                if (".".equals(curArg)) {
-                    args[i] = value;
-                } else {
-                    Matcher valueMatcher = valueRegex.matcher(curArg);
-                    if (valueMatcher.find()) {
-                        args[i] = valueMatcher.group(1);
-                    } else {
-                        try {
-                            args[i] = String.valueOf(
-                                    getValueFromAddress(curArg.split(":"), false).get(JsonFormConstants.VALUE));
-                        } catch (Exception e) {
-                            Timber.e(e, "JsonFormActivity --> getFunctionArgs");
-                        }
-                    }
-                }
-            }
-        }
-
-        return args;
+        ComparisonExpression expression = ComparisonExpression.compile(comparison.getString(JsonFormConstants.EX));
+        return expression != null && expression.compare(value, type, fieldValueResolver);
     }
 
     protected void refreshMediaLogic(String key, String value, String stepName) {
@@ -1605,46 +1959,43 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
      * This method checks whether a constraint has been enforced and returns an error message if not The error message should
      * be displayable to the user
      *
-     * @param value      {@link String} The value to be checked
+     * @param typedValue {@link TypedValue} The value to be checked
      * @param view       {@link View} The value to be checked
      * @param constraint {@link JSONObject} The constraint expression to use
      * @return An error message if constraint has not been enforced or NULL if constraint enforced
      * @throws Exception
      */
-    private String enforceConstraint(String value, View view, JSONObject constraint) throws
+    private String enforceConstraint(TypedValue typedValue, View view, JSONObject constraint) throws
             Exception {
 
         String type = constraint.getString("type").toLowerCase();
         String ex = constraint.getString(JsonFormConstants.EX);
         String errorMessage = type.equals(JsonFormConstants.NUMBER_SELECTOR) ? constraint.optString(JsonFormConstants.ERR) :
                 constraint.getString(JsonFormConstants.ERR);
-        Pattern pattern = Pattern.compile("(" + functionRegex + ")\\((.*)\\)");
-        Matcher matcher = pattern.matcher(ex);
-        if (matcher.find()) {
-            String functionName = matcher.group(1);
-            String b = matcher.group(2);
-            String[] args = getFunctionArgs(b, value);
-
-            boolean viewDoesNotHaveValue = TextUtils.isEmpty(value);
+        ComparisonExpression expression = ComparisonExpression.compile(ex);
+        if (expression != null) {
+            TypedValue[] args = expression.resolveArguments(typedValue, fieldValueResolver);
+
+            boolean viewDoesNotHaveValue = TextUtils.isEmpty(typedValue.getRaw());
             if (view instanceof CheckBox) {
                 viewDoesNotHaveValue = !((CheckBox) view).isChecked();
             } else if (isNumberSelectorConstraint(view) || isDatePickerNativeRadio(view)) {
-                return args.length > 1 ? args[1] : "";//clever fix to pass back the max value for number selectors
+                return args.length > 1 ? args[1].getRaw() : "";//clever fix to pass back the max value for number selectors
 
             }
 
-            if (checkViewValues(type, functionName, args, viewDoesNotHaveValue)) return null;
+            if (checkViewValues(type, expression, args, viewDoesNotHaveValue)) return null;
         } else {
-            Timber.d("Matcher didn't work with function");
+            Timber.d("Constraint does not call a known comparison");
         }
 
         return errorMessage;
     }
 
-    private boolean checkViewValues(String type, String functionName, String[] args,
+    private boolean checkViewValues(String type, ComparisonExpression expression, TypedValue[] args,
                                     boolean viewDoesNotHaveValue) {
-        return viewDoesNotHaveValue || TextUtils.isEmpty(args[0]) || TextUtils.isEmpty(args[1]) ||
-                comparisons.get(functionName).compare(args[0], type, args[1]);
+        return viewDoesNotHaveValue || TextUtils.isEmpty(args[0].getRaw()) || TextUtils.isEmpty(args[1].getRaw()) ||
+                expression.compare(args, type);
     }
 
     private String enforceConstraint(Facts curValueMap, JSONObject constraint) throws Exception {
@@ -1822,7 +2173,7 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         return form;
     }
 
-    private boolean isRelevant(Facts curValueMap, JSONObject curRelevance) throws Exception {
+    private boolean isRelevant(String[] address, Facts curValueMap, JSONObject curRelevance) throws Exception {
         if (curRelevance != null) {
             if (curRelevance.has(JsonFormConstants.JSON_FORM_KEY.EX_RULES)) {
 
@@ -1857,9 +2208,9 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                 Object currObjectValue = curValueMap.get(JsonFormConstants.VALUE);
                 if (currObjectValue != null) {
                     String curValue = String.valueOf(currObjectValue);
-                    return doComparison(curValue, curRelevance);
+                    return doComparison(getTypedValue(address, curValue), curRelevance);
                 }
-                return doComparison("", curRelevance);
+                return doComparison(TypedValue.of(""), curRelevance);
             }
         }
         return false;
@@ -1910,60 +2261,20 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         return new ExObjectResult(false, false);
     }
 
-    private List<String> getRules(String filename, String fieldKey, boolean readAllRules) {
-        List<String> rules = ruleKeys.get(filename + ":" + fieldKey);
+    private Set<String> getRules(String filename, String fieldKey) {
+        Set<String> rules = ruleKeys.get(filename + ":" + fieldKey);
 
         if (rules == null) {
-            try {
-                Yaml yaml = new Yaml();
-                BufferedReader inputStreamReader = getRules(getApplicationContext(), getRulesEngineFactory().getRulesFolderPath() + filename);
-                Iterable<Object> ruleObjects = yaml.loadAll(inputStreamReader);
-
-                for (Object object : ruleObjects) {
-
-                    Map<String, Object> map = ((Map<String, Object>) object);
-
-                    String name = map.get(RuleConstant.NAME).toString();
-                    if (ruleKeys.containsKey(filename + ":" + name)) {
-                        continue;
-                    }
-
-                    List<String> actions = new ArrayList<>();
-
-                    StringBuilder conditionString = new StringBuilder();
-                    conditionString.append(map.get(RuleConstant.CONDITION).toString());
-
-                    List<String> fields = (List<String>) map.get(RuleConstant.ACTIONS);
-                    if (fields != null) {
-                        for (String field : fields) {
-                            if (field.trim().startsWith(RuleConstant.CALCULATION) ||
-                                    field.trim().startsWith(RuleConstant.CONSTRAINT)) {
-                                conditionString.append(" " + field);
-                            }
-                        }
-
-                    }
-
-                    actions.addAll(getConditionKeys(conditionString.toString()));
-                    ruleKeys.put(filename + ":" + name, actions);
-
-                    if (!readAllRules && name.equals(fieldKey)) {
-                        break;
-                    }
+            RuleFile ruleFile = getRulesEngineFactory().getRuleFile(getRulesEngineFactory().getRulesFolderPath() + filename);
+            if (ruleFile != null) {
+                rules = ruleFile.getRuleInputs(fieldKey);
+                if (rules != null) {
+                    ruleKeys.put(filename + ":" + fieldKey, rules);
                 }
-
-            } catch (Exception e) {
-                Timber.e(e, "JsonFormActivity --> getRules");
             }
-
-            return ruleKeys.get(filename + ":" + fieldKey);
-        } else {
-            return rules;
         }
-    }
 
-    private List<String> getConditionKeys(String condition) {
-        return Utils.getConditionKeys(condition);
+        return rules;
     }
 
     private void updateUiByCalculation(@NonNull String calculationValue, final View view) {
@@ -1983,11 +2294,7 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                 textView.setText(spanned);
             }
         } else if (view instanceof EditText) {
-            String type = (String) view.getTag(R.id.type);
-            if (JsonFormConstants.HIDDEN.equals(type) && TextUtils.isEmpty(calculation)) {
-                calculation = "0";
-            }
-
+            calculation = getEditTextCalculation(calculation, view);
             if (!TextUtils.isEmpty(calculation)) {
                 final String finalCalculation = calculation;
                 getAppExecutors().mainThread().execute(new Runnable() {
@@ -2021,8 +2328,20 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
     }
 
-    private void updateCalculation(Facts valueMap, View view, String[] address,
-                                   boolean isForNextStep) {
+    /**
+     * @return the text a calculation sets on a text field, hidden fields are never left empty
+     */
+    private String getEditTextCalculation(String calculation, View view) {
+        String type = (String) view.getTag(R.id.type);
+        return JsonFormConstants.HIDDEN.equals(type) && TextUtils.isEmpty(calculation) ? "0" : calculation;
+    }
+
+    /**
+     * @return the calculated value or null if it could not be calculated
+     */
+    @Nullable
+    private String updateCalculation(Facts valueMap, View view, String[] address,
+                                     boolean isForNextStep) {
         String calculation;
         try {
             if (address[0].equals(RuleConstant.RULES_DYNAMIC)) {
@@ -2034,11 +2353,12 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
             if (!isForNextStep) {
                 updateUiByCalculation(calculation, view);
             }
+            return calculation;
 
         } catch (Exception e) {
             Timber.e(e, "calling updateCalculation on Non TextView or Text View decendant");
         }
-
+        return null;
     }
 
     private void setRadioButtonCalculation(final RadioGroup view, final String calculation) {
@@ -2200,12 +2520,11 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         }
     }
 
-    private void updateCanvas(View view, boolean visible, JSONArray canvasViewIds, String
+    private void updateCanvas(View view, boolean visible, int[] canvasViewIds, String
             addressString, JSONObject object)
             throws JSONException {
-        for (int i = 0; i < canvasViewIds.length(); i++) {
-            int curId = canvasViewIds.getInt(i);
-            View curCanvasView = view.getRootView().findViewById(curId);
+        for (int curId : canvasViewIds) {
+            View curCanvasView = canvasViewRegistry.getView(view, curId);
 
             if (curCanvasView == null) {
                 continue;
@@ -2213,7 +2532,7 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
 
             if (visible) {
                 curCanvasView.setEnabled(true);
-                curCanvasView.setVisibility(View.VISIBLE);
+                canvasViewRegistry.setVisibility(curCanvasView, View.VISIBLE);
 
                 if (curCanvasView instanceof RelativeLayout || view instanceof LinearLayout) {
                     curCanvasView.setFocusable(true);
@@ -2228,7 +2547,7 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                     clearHiddenViewsValues(object, addressString);
                 }
                 curCanvasView.setEnabled(false);
-                curCanvasView.setVisibility(View.GONE);
+                canvasViewRegistry.setVisibility(curCanvasView, View.GONE);
                 refreshViews(curCanvasView);
             }
 
@@ -2243,28 +2562,24 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
                 }
             }
         }
+
+        if (object != null) {
+            publishFormField(addressString.replace(":", "_"));
+        }
     }
 
-    @SuppressLint("StaticFieldLeak")
     private void trackInvisibleFields(final JSONObject object, final boolean visible) {
-        new AsyncTask<Void, Void, Void>() {
-            @Override
-            protected Void doInBackground(Void... voids) {
-                try {
-                    synchronized (invisibleRequiredFields) {
-                        if (visible) {
-                            invisibleRequiredFields.remove(object.getString(JsonFormConstants.KEY));
-                        } else {
-                            invisibleRequiredFields.add(object.getString(JsonFormConstants.KEY));
-                        }
-                        getmJSONObject().put(JsonFormConstants.INVISIBLE_REQUIRED_FIELDS, invisibleRequiredFields);
-                    }
-                } catch (JSONException e) {
-                    Timber.e(e);
+        final String key = object.optString(JsonFormConstants.KEY);
+        getFormStateStore().enqueue(form -> {
+            synchronized (invisibleRequiredFields) {
+                if (visible) {
+                    invisibleRequiredFields.remove(key);
+                } else {
+                    invisibleRequiredFields.add(key);
                 }
-                return null;
+                form.put(JsonFormConstants.INVISIBLE_REQUIRED_FIELDS, invisibleRequiredFields);
             }
-        }.execute();
+        });
     }
 
     private void refreshViews(View childElement) {
@@ -2362,18 +2677,94 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         for (LifeCycleListener lifeCycleListener : lifeCycleListeners) {
             lifeCycleListener.onDestroy();
         }
+        if (formJournal != null) {
+            // Queued records are still written, before the session is deleted
+            formJournal.close();
+        }
+        if (isFinishing() && sessionHandle != null) {
+            FormSessionStore.getInstance().delete(getApplicationContext(), sessionHandle);
+        }
     }
 
     @Override
     public void onSaveInstanceState(Bundle outState) {
         super.onSaveInstanceState(outState);
-        outState.putString(JSON_STATE, mJSONObject.toString());
+        outState.putString(SESSION_STATE, sessionHandle);
+        if (isFormLoaded()) {
+            outState.putStringArrayList(DIRTY_STEPS_STATE, getFormSessionEntryNames());
+            saveFormSession();
+        } else {
+            // The form session is still being read, it has not changed since it was saved
+            outState.putStringArrayList(DIRTY_STEPS_STATE, getPendingSessionEntries());
+        }
         outState.putSerializable(FORM_STATE, form);
         for (LifeCycleListener lifeCycleListener : lifeCycleListeners) {
             lifeCycleListener.onSaveInstanceState(outState);
         }
     }
 
+    /**
+     * @return names of the entries read back from the form session when the activity is recreated: the steps that
+     * were written to and the rest of the form, which is small. Steps that are not among them still have the json the
+     * form started with.
+     */
+    private ArrayList<String> getFormSessionEntryNames() {
+        return readFormState(form -> {
+            ArrayList<String> names = new ArrayList<>();
+            Iterator<String> keys = form.keys();
+            while (keys.hasNext()) {
+                String name = keys.next();
+                if (isFormSessionEntry(name, dirtySteps)) {
+                    names.add(name);
+                }
+            }
+            return names;
+        }, new ArrayList<>());
+    }
+
+    private boolean isFormSessionEntry(String name, Set<String> steps) {
+        FormModel model = getFormModel();
+        return steps.contains(name) || model == null || model.getStep(name) == null;
+    }
+
+    /**
+     * Writes the steps changed since they were last saved, and the rest of the form, to the form session. The entries
+     * are serialised here on the ui thread, which owns the form, so a step changed in place cannot reach the disk half
+     * changed; only hashing and writing them is left to the background. Steps that could not be written are written
+     * with the next save, values written after the last save are restored from the form journal.
+     */
+    private void saveFormSession() {
+        if (sessionHandle == null) {
+            return;
+        }
+
+        final Set<String> savedSteps = new HashSet<>(unsavedSteps);
+        final Map<String, String> entries = new LinkedHashMap<>();
+        try {
+            getFormStateStore().read(form -> {
+                Iterator<String> keys = form.keys();
+                while (keys.hasNext()) {
+                    String name = keys.next();
+                    if (isFormSessionEntry(name, savedSteps)) {
+                        entries.put(name, new JSONObject().put(name, form.opt(name)).toString());
+                    }
+                }
+                return entries;
+            });
+        } catch (JSONException e) {
+            // The steps stay unsaved and are written with the next save
+            Timber.e(e, "JsonFormActivity --> saveFormSession");
+            return;
+        }
+
+        unsavedSteps.removeAll(savedSteps);
+        FormSessionStore.getInstance().writeEntriesInBackground(getApplicationContext(), sessionHandle, entries,
+                writtenNames -> {
+                    savedSteps.removeAll(writtenNames);
+                    unsavedSteps.addAll(savedSteps);
+                });
+    }
+
     private String getTemplateValue(Object object) {
         StringBuilder result = new StringBuilder();
         if (object instanceof List) {
@@ -2537,4 +2928,25 @@ public class JsonFormActivity extends JsonFormBaseActivity implements JsonApi {
         return formFields;
     }
 
+    @Override
+    public void prefetchRuleBindings(final String stepName) {
+        // Compiled from a snapshot of the step, the form itself is only read on the ui thread
+        appExecutors.compute().execute(() -> {
+            JSONObject step = readFormState(form -> form.optJSONObject(stepName), null);
+            if (step != null) {
+                ruleBindingCache.prefetch(stepName, step);
+            }
+        });
+    }
+
+    @Override
+    public void onStepChanged(String stepName) {
+        markStepDirty(stepName);
+        // Background readers read snapshots, publish the step again so they see it as it is now
+        getFormStateStore().publishStep(stepName);
+        // Fields may have been added or removed, e.g. by a repeating group, only that step is compiled again
+        formModel = formModel != null && formModel.isCompiledFrom(mJSONObject) ? formModel.withStep(stepName) :
+                FormModel.compile(mJSONObject);
+    }
+
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.localbroadcastmanager.content.LocalBroadcastManager;
 import androidx.appcompat.widget.Toolbar;
+import androidx.fragment.app.Fragment;
 import android.view.View;
 
 import com.google.gson.Gson;
@@ -21,7 +22,11 @@ import com.vijay.jsonwizard.interfaces.LifeCycleListener;
 import com.vijay.jsonwizard.interfaces.OnActivityRequestPermissionResultListener;
 import com.vijay.jsonwizard.interfaces.OnActivityResultListener;
 import com.vijay.jsonwizard.interfaces.OnFieldsInvalid;
+import com.vijay.jsonwizard.model.FormModel;
 import com.vijay.jsonwizard.rules.RulesEngineFactory;
+import com.vijay.jsonwizard.rules.StepRelevanceEvaluator;
+import com.vijay.jsonwizard.utils.FormExecutors;
+import com.vijay.jsonwizard.utils.FormSessionStore;
 import com.vijay.jsonwizard.utils.FormUtils;
 import com.vijay.jsonwizard.utils.PropertyManager;
 import com.vijay.jsonwizard.utils.ValidationStatus;
@@ -38,9 +43,11 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import timber.log.Timber;
@@ -51,8 +58,11 @@ public abstract class JsonFormBaseActivity extends MultiLanguageActivity impleme
     protected static final String TAG = JsonFormActivity.class.getSimpleName();
     protected static final String JSON_STATE = "jsonState";
     protected static final String FORM_STATE = "formState";
+    protected static final String SESSION_STATE = "sessionState";
+    protected static final String DIRTY_STEPS_STATE = "dirtyStepsState";
     protected final HashSet<String> invisibleRequiredFields = new HashSet<>();
     protected JSONObject mJSONObject;
+    protected FormModel formModel;
     protected PropertyManager propertyManager;
     protected Map<String, View> skipLogicViews;
     protected Map<String, View> calculationLogicViews;
@@ -67,6 +77,16 @@ public abstract class JsonFormBaseActivity extends MultiLanguageActivity impleme
     protected RulesEngineFactory rulesEngineFactory = null;
     protected LocalBroadcastManager localBroadcastManager;
     protected boolean isFormFragmentInitialized;
+    protected String sessionHandle;
+    // Top level entries of the form, mostly steps, that may differ from the form the session started with
+    protected final Set<String> dirtySteps = ConcurrentHashMap.newKeySet();
+    // Dirty entries that changed since they were last written to the form session
+    protected final Set<String> unsavedSteps = ConcurrentHashMap.newKeySet();
+    // Entries of the form session being read back, kept so they are saved again if the activity goes away first
+    private ArrayList<String> pendingSessionEntries;
+    private StepRelevanceEvaluator stepRelevanceEvaluator;
+    // Step relevance for the current values, cleared whenever a step is marked dirty
+    private volatile StepRelevanceEvaluator.Result stepRelevance;
     private Toolbar mToolbar;
     private Map<String, ValidationStatus> invalidFields = new ConcurrentHashMap<>();
     private boolean isPreviousPressed = false;
@@ -81,6 +101,7 @@ public abstract class JsonFormBaseActivity extends MultiLanguageActivity impleme
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        FormExecutors.acquire();
         setContentView(R.layout.native_form_activity_json_form);
         findViewById(R.id.native_form_activity).setFilterTouchesWhenObscured(true);
         mToolbar = findViewById(R.id.tb_top);
@@ -96,37 +117,161 @@ public abstract class JsonFormBaseActivity extends MultiLanguageActivity impleme
                 getIntent().getBooleanExtra(JsonFormConstants.PERFORM_FORM_TRANSLATION, false) :
                 NativeFormLibrary.getInstance().isPerformFormTranslation();
 
+        localBroadcastManager = LocalBroadcastManager.getInstance(this);
+
         if (savedInstanceState == null) {
             this.form = extractForm(getIntent().getSerializableExtra(JsonFormConstants.JSON_FORM_KEY.FORM));
-            init(getJsonForm());
-            initializeFormFragment();
-            onFormStart();
             DATA_SOURCE = readDataSource();
+            if (getIntent().hasExtra(JsonFormConstants.JSON_FORM_KEY.SESSION)) {
+                sessionHandle = getIntent().getStringExtra(JsonFormConstants.JSON_FORM_KEY.SESSION);
+                loadFormSession(null);
+            } else {
+                sessionHandle = FormSessionStore.newSessionHandle();
+                init(getJsonForm());
+                initializeFormFragment();
+                onFormStart();
+            }
         } else {
             this.form = extractForm(savedInstanceState.getSerializable(FORM_STATE));
-            init(savedInstanceState.getString(JSON_STATE));
+            sessionHandle = savedInstanceState.getString(SESSION_STATE);
+            if (sessionHandle != null) {
+                loadFormSession(savedInstanceState.getStringArrayList(DIRTY_STEPS_STATE));
+            } else {
+                // State saved before forms were kept in form sessions
+                sessionHandle = FormSessionStore.newSessionHandle();
+                init(savedInstanceState.getString(JSON_STATE));
+            }
         }
         for (LifeCycleListener lifeCycleListener : lifeCycleListeners) {
             lifeCycleListener.onCreate(savedInstanceState);
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Released here so that every subclass gives up the pools acquired in onCreate
+        FormExecutors.release();
+    }
+
     private String readDataSource() {
         String source = getIntent().getStringExtra(JsonFormConstants.FROM_DATA_SOURCE);
         return StringUtils.isBlank(source) ? JsonFormConstants.FileSource.ASSETS : source;
     }
 
     protected String getJsonForm() {
-        String jsonForm = getIntent().getStringExtra(JsonFormConstants.JSON_FORM_KEY.JSON);
+        String jsonForm = getStartingJsonForm();
         if (translateForm) {
             jsonForm = getTranslatedString(jsonForm, this);
         }
         return jsonForm;
     }
 
+    /**
+     * @return the form the activity was started with, from its form session or from the Intent
+     */
+    protected String getStartingJsonForm() {
+        String startingSession = getIntent().getStringExtra(JsonFormConstants.JSON_FORM_KEY.SESSION);
+        return startingSession != null ? FormSessionStore.getInstance().readForm(this, startingSession) :
+                getIntent().getStringExtra(JsonFormConstants.JSON_FORM_KEY.JSON);
+    }
+
+    /**
+     * Reads the form session in the background and initializes the form on the main thread once it has been read.
+     * Until then {@link #isFormLoaded()} is false, fragments restored with the activity build their step when the
+     * form is loaded.
+     *
+     * @param savedDirtySteps the entries written to the form session before the activity was destroyed, null when
+     *                        the activity is started with a form session
+     */
+    private void loadFormSession(@Nullable final List<String> savedDirtySteps) {
+        pendingSessionEntries = savedDirtySteps != null ? new ArrayList<>(savedDirtySteps) : null;
+        FormExecutors.io().execute(() -> {
+            final JSONObject formJson = readFormSession(savedDirtySteps);
+            runOnUiThread(() -> onFormSessionRead(formJson, savedDirtySteps));
+        });
+    }
+
+    /**
+     * Reads the form the session started with and the entries that changed
+     *
+     * @return the form or null if it could not be read
+     */
+    @Nullable
+    private JSONObject readFormSession(@Nullable List<String> savedDirtySteps) {
+        String json = getJsonForm();
+        if (json == null) {
+            Timber.e("Initialization error. Form session %s has no form", sessionHandle);
+            return null;
+        }
+
+        try {
+            JSONObject formJson = new JSONObject(json);
+            if (savedDirtySteps != null) {
+                FormSessionStore.getInstance().restoreEntries(this, sessionHandle, formJson, savedDirtySteps);
+            }
+            return formJson;
+        } catch (JSONException e) {
+            Timber.e(e, "Initialization error. Json passed is invalid");
+            return null;
+        }
+    }
+
+    private void onFormSessionRead(@Nullable JSONObject formJson, @Nullable List<String> savedDirtySteps) {
+        if (isDestroyed()) {
+            return;
+        }
+
+        pendingSessionEntries = null;
+        if (formJson != null && savedDirtySteps != null) {
+            dirtySteps.addAll(savedDirtySteps);
+        }
+        init(formJson != null ? formJson : new JSONObject());
+        onFormSessionLoaded();
+    }
+
+    /**
+     * Called on the main thread once a form session was loaded, starts the form or builds the step of the form fragment
+     * restored with the activity again, since it was created before the form was loaded
+     */
+    protected void onFormSessionLoaded() {
+        Fragment formFragment = getSupportFragmentManager().findFragmentById(R.id.container);
+        if (formFragment == null) {
+            initializeFormFragment();
+            onFormStart();
+        } else if (formFragment.getView() != null) {
+            getSupportFragmentManager().beginTransaction().detach(formFragment).attach(formFragment)
+                    .commitAllowingStateLoss();
+        }
+    }
+
+    /**
+     * @return false while the form session is read in the background, see {@link #loadFormSession(List)}
+     */
+    public boolean isFormLoaded() {
+        return mJSONObject != null;
+    }
+
+    /**
+     * @return the form session entries being read back, null once the form is loaded
+     */
+    @Nullable
+    protected ArrayList<String> getPendingSessionEntries() {
+        return pendingSessionEntries;
+    }
+
     public void init(String json) {
         try {
-            setmJSONObject(new JSONObject(json));
+            init(new JSONObject(json));
+        } catch (JSONException e) {
+            Timber.e(e, "Initialization error. Json passed is invalid");
+        }
+    }
+
+    protected void init(JSONObject formJson) {
+        try {
+            formModel = FormModel.compile(formJson);
+            setmJSONObject(formJson);
             if (!mJSONObject.has(JsonFormConstants.ENCOUNTER_TYPE)) {
                 mJSONObject = new JSONObject();
                 throw new JSONException("Form encounter_type not set");
@@ -146,7 +291,6 @@ public abstract class JsonFormBaseActivity extends MultiLanguageActivity impleme
 
             confirmCloseTitle = getString(R.string.confirm_form_close);
             confirmCloseMessage = getString(R.string.confirm_form_close_explanation);
-            localBroadcastManager = LocalBroadcastManager.getInstance(this);
 
         } catch (JSONException e) {
             Timber.e(e, "Initialization error. Json passed is invalid");
@@ -182,10 +326,54 @@ public abstract class JsonFormBaseActivity extends MultiLanguageActivity impleme
     }
 
     public void setmJSONObject(JSONObject mJSONObject) {
+        if (this.mJSONObject != null && this.mJSONObject != mJSONObject) {
+            // Any step of a form that replaced the open form may differ from the form the session started with. A form
+            // that is set again after it was changed in place, e.g. by a popup, is not, the changed steps are reported
+            // through onStepChanged
+            Iterator<String> names = mJSONObject.keys();
+            while (names.hasNext()) {
+                markStepDirty(names.next());
+            }
+        }
+        if (formModel == null || !formModel.isCompiledFrom(mJSONObject)) {
+            formModel = FormModel.compile(mJSONObject);
+        }
         initiateFormUpdate(mJSONObject);
         this.mJSONObject = mJSONObject;
     }
 
+    /**
+     * Records that a top level entry of the form, usually a step, may differ from the form the session started with
+     * and has to be written to the form session again
+     *
+     * @param name the entry name, e.g. step1
+     */
+    protected void markStepDirty(String name) {
+        dirtySteps.add(name);
+        unsavedSteps.add(name);
+        stepRelevance = null;
+    }
+
+    public FormModel getFormModel() {
+        return formModel;
+    }
+
+    public StepRelevanceEvaluator.Result getStepRelevance() {
+        FormModel model = formModel != null && formModel.isCompiledFrom(mJSONObject) ? formModel :
+                FormModel.compile(mJSONObject);
+        if (stepRelevanceEvaluator == null || stepRelevanceEvaluator.getFormModel() != model) {
+            stepRelevanceEvaluator = new StepRelevanceEvaluator(model, getRulesEngineFactory());
+            stepRelevance = null;
+        }
+
+        StepRelevanceEvaluator.Result relevance = stepRelevance;
+        if (relevance == null) {
+            relevance = stepRelevanceEvaluator.evaluate();
+            stepRelevance = relevance;
+        }
+        return relevance;
+    }
+
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         if (onActivityResultListeners.containsKey(requestCode)) {
@@ -236,6 +424,7 @@ public abstract class JsonFormBaseActivity extends MultiLanguageActivity impleme
 
     public void setRulesEngineFactory(RulesEngineFactory rulesEngineFactory) {
         this.rulesEngineFactory = rulesEngineFactory;
+        this.stepRelevanceEvaluator = null;
     }
 
     public ProgressDialog getProgressDialog() {
@@ -11,15 +11,24 @@ import android.widget.TextView;
 
 import com.vijay.jsonwizard.R;
 import com.vijay.jsonwizard.domain.MultiSelectItem;
+import com.vijay.jsonwizard.utils.MultiSelectSearchIndex;
 
 import java.util.ArrayList;
 import java.util.List;
 
 public class MultiSelectListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> implements Filterable {
+    public static final int PAGE_SIZE = 50;
+    public static final int MAX_RESULTS = 1000;
+
     private final String currentKey;
     private List<MultiSelectItem> data;
     private List<MultiSelectItem> origData;
     private static ClickListener clickListener;
+    private volatile MultiSelectSearchIndex searchIndex;
+    private MultiSelectSearchIndex.Result searchResult;
+    private Filter filter;
+    // Copy of the items taken on the main thread when the index does not match them, null if it does
+    private volatile List<MultiSelectItem> itemsToIndex;
 
     public MultiSelectListAdapter(List<MultiSelectItem> data, String currentAdapterKey) {
         this.data = data;
@@ -35,6 +44,48 @@ public class MultiSelectListAdapter extends RecyclerView.Adapter<RecyclerView.Vi
         return origData;
     }
 
+    /**
+     * Adds items read after the list was filled, they are shown straight away unless a search is showing
+     */
+    public void appendItems(List<MultiSelectItem> items) {
+        int start = origData.size();
+        origData.addAll(items);
+        if (data == origData) {
+            notifyItemRangeInserted(start, items.size());
+        }
+    }
+
+    /**
+     * Sets the index searched by the filter and drops the pages of the last search, an index that does not match the
+     * items is rebuilt on the next search
+     */
+    public void setSearchIndex(MultiSelectSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+        this.searchResult = null;
+    }
+
+    /**
+     * @return whether matches of the last search are not listed yet
+     */
+    public boolean hasMoreResults() {
+        return searchResult != null && data.size() < searchResult.size();
+    }
+
+    /**
+     * Lists the next page of matches of the last search
+     */
+    public void showNextPage() {
+        if (!hasMoreResults()) {
+            return;
+        }
+        int start = data.size();
+        int end = Math.min(start + PAGE_SIZE, searchResult.size());
+        for (int i = start; i < end; i++) {
+            data.add(searchResult.getItem(i));
+        }
+        notifyItemRangeInserted(start, end - start);
+    }
+
     @NonNull
     @Override
     public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -66,39 +117,57 @@ public class MultiSelectListAdapter extends RecyclerView.Adapter<RecyclerView.Vi
         return data.size();
     }
 
+    /**
+     * Takes a copy of the items for the filter thread when the search index does not match them, the items are only
+     * written on the main thread so the filter thread never reads them directly. Call it on the main thread right
+     * before filtering, as in {@code getFilter().filter(text)}
+     */
     @Override
     public Filter getFilter() {
-        return new Filter() {
-            @Override
-            protected FilterResults performFiltering(CharSequence constraint) {
-                List<MultiSelectItem> filteredMultiSelectItems = null;
-                if (constraint.length() == 0) {
-                    filteredMultiSelectItems = origData;
-                } else {
-                    filteredMultiSelectItems = getFilteredResults(constraint.toString());
-                }
-                FilterResults filterResults = new FilterResults();
-                filterResults.values = filteredMultiSelectItems;
-                return filterResults;
-            }
-
-            @Override
-            protected void publishResults(CharSequence constraint, FilterResults results) {
-                data = (List<MultiSelectItem>) results.values;
-                notifyDataSetChanged();
-            }
+        MultiSelectSearchIndex index = searchIndex;
+        itemsToIndex = index != null && index.isIndexOf(origData) ? null : new ArrayList<>(origData);
+        if (filter == null) {
+            filter = new Filter() {
+                // Only used on the filter thread
+                private MultiSelectSearchIndex.Result previousResult;
+
+                @Override
+                protected FilterResults performFiltering(CharSequence constraint) {
+                    FilterResults filterResults = new FilterResults();
+                    if (constraint == null || constraint.length() == 0) {
+                        previousResult = null;
+                        return filterResults;
+                    }
 
-            protected List<MultiSelectItem> getFilteredResults(String constraint) {
-                List<MultiSelectItem> results = new ArrayList<>();
+                    MultiSelectSearchIndex index = searchIndex;
+                    List<MultiSelectItem> items = itemsToIndex;
+                    if (index == null || (items != null && !index.isIndexOf(items))) {
+                        index = MultiSelectSearchIndex.build(items != null ? items : new ArrayList<MultiSelectItem>());
+                        searchIndex = index;
+                    }
+                    previousResult = index.search(constraint, previousResult, MAX_RESULTS);
+                    filterResults.values = previousResult;
+                    filterResults.count = previousResult.size();
+                    return filterResults;
+                }
 
-                for (MultiSelectItem item : origData) {
-                    if (item.getText().toLowerCase().contains(constraint.toLowerCase())) {
-                        results.add(item);
+                @Override
+                protected void publishResults(CharSequence constraint, FilterResults results) {
+                    searchResult = (MultiSelectSearchIndex.Result) results.values;
+                    if (searchResult == null) {
+                        data = origData;
+                    } else {
+                        int end = Math.min(PAGE_SIZE, searchResult.size());
+                        data = new ArrayList<>(end);
+                        for (int i = 0; i < end; i++) {
+                            data.add(searchResult.getItem(i));
+                        }
                     }
+                    notifyDataSetChanged();
                 }
-                return results;
-            }
-        };
+            };
+        }
+        return filter;
     }
 
     public class SectionViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
@@ -0,0 +1,186 @@
+package com.vijay.jsonwizard.adapter;
+
+import android.content.Context;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.github.johnkil.print.PrintView;
+import com.vijay.jsonwizard.R;
+import com.vijay.jsonwizard.customviews.TreeNodeTable;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Shows the expanded part of a {@link TreeNodeTable}, or a list of search results, as recycled rows. Rows are only
+ * created for the nodes on screen, children are added to the list when their parent is expanded.
+ */
+public class TreeNodeAdapter extends RecyclerView.Adapter<TreeNodeAdapter.NodeViewHolder> {
+
+    private static final String KEY_LEVEL = "level";
+
+    private final Context context;
+    private final TreeNodeTable nodeTable;
+    private final OnNodeClickListener onNodeClickListener;
+    private final List<Integer> rows = new ArrayList<>();
+    private final BitSet expandedNodes = new BitSet();
+    private final int indentation;
+    private boolean showingResults;
+
+    public TreeNodeAdapter(Context context, TreeNodeTable nodeTable, OnNodeClickListener onNodeClickListener) {
+        this.context = context;
+        this.nodeTable = nodeTable;
+        this.onNodeClickListener = onNodeClickListener;
+        this.indentation = context.getResources().getDimensionPixelSize(R.dimen.default_left_margin);
+    }
+
+    @NonNull
+    @Override
+    public NodeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View itemView = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.native_form_layout_selectable_item, parent, false);
+        final NodeViewHolder holder = new NodeViewHolder(itemView);
+        itemView.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                int position = holder.getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    onNodeClickListener.onNodeClick(rows.get(position));
+                }
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull NodeViewHolder holder, int position) {
+        int node = rows.get(position);
+        JSONObject structure = nodeTable.getNode(node);
+        String levelLabel = structure != null ? structure.optString(KEY_LEVEL, "") : "";
+        String name = nodeTable.getName(node);
+        holder.nodeValue.setText(TextUtils.isEmpty(levelLabel) ? name : levelLabel + ": " + name);
+
+        int depth = showingResults ? 0 : nodeTable.getDepth(node) - 1;
+        holder.itemView.setPaddingRelative(depth * indentation, 0, 0, 0);
+
+        int arrow;
+        if (nodeTable.getChildCount(node) == 0) {
+            arrow = R.string.ic_check_circle_blank;
+        } else {
+            arrow = expandedNodes.get(node) && !showingResults ? R.string.ic_keyboard_arrow_down :
+                    R.string.ic_keyboard_arrow_right;
+        }
+        holder.arrowView.setIconText(context.getResources().getString(arrow));
+    }
+
+    @Override
+    public int getItemCount() {
+        return rows.size();
+    }
+
+    /**
+     * Shows the tree with the nodes expanded so far
+     */
+    public void showTree() {
+        showingResults = false;
+        rows.clear();
+        addVisibleDescendants(TreeNodeTable.ROOT, rows);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Shows a flat list of nodes in place of the tree
+     */
+    public void showResults(@NonNull List<Integer> nodes) {
+        showingResults = true;
+        rows.clear();
+        rows.addAll(nodes);
+        notifyDataSetChanged();
+    }
+
+    public boolean isShowingResults() {
+        return showingResults;
+    }
+
+    public boolean isExpanded(int node) {
+        return expandedNodes.get(node);
+    }
+
+    /**
+     * Marks the node and its ancestors expanded, takes effect on the next {@link #showTree()}
+     */
+    public void expandPath(int node) {
+        for (int current = node; current != TreeNodeTable.ROOT && current != TreeNodeTable.NO_NODE;
+             current = nodeTable.getParent(current)) {
+            expandedNodes.set(current);
+        }
+    }
+
+    /**
+     * Expands or collapses a node shown in the tree
+     */
+    public void toggle(int node) {
+        int position = rows.indexOf(node);
+        if (position < 0 || showingResults) {
+            return;
+        }
+
+        if (expandedNodes.get(node)) {
+            expandedNodes.clear(node);
+            int depth = nodeTable.getDepth(node);
+            int end = position + 1;
+            while (end < rows.size() && nodeTable.getDepth(rows.get(end)) > depth) {
+                end++;
+            }
+            rows.subList(position + 1, end).clear();
+            notifyItemRangeRemoved(position + 1, end - position - 1);
+        } else {
+            expandedNodes.set(node);
+            List<Integer> descendants = new ArrayList<>();
+            addVisibleDescendants(node, descendants);
+            rows.addAll(position + 1, descendants);
+            notifyItemRangeInserted(position + 1, descendants.size());
+        }
+        notifyItemChanged(position);
+    }
+
+    private void addVisibleDescendants(int node, List<Integer> result) {
+        for (int i = 0; i < nodeTable.getChildCount(node); i++) {
+            int child = nodeTable.getChild(node, i);
+            result.add(child);
+            if (expandedNodes.get(child)) {
+                addVisibleDescendants(child, result);
+            }
+        }
+    }
+
+    public interface OnNodeClickListener {
+        void onNodeClick(int node);
+    }
+
+    public static class NodeViewHolder extends RecyclerView.ViewHolder {
+        private final TextView nodeValue;
+        private final PrintView arrowView;
+
+        private NodeViewHolder(View view) {
+            super(view);
+            nodeValue = view.findViewById(R.id.node_value);
+            nodeValue.setTextSize(TypedValue.COMPLEX_UNIT_PX,
+                    view.getContext().getResources().getDimension(R.dimen.default_text_size));
+            arrowView = view.findViewById(R.id.arrowview);
+            arrowView.setIconFont("fonts/material/fonts/material-icon-font.ttf");
+            view.findViewById(R.id.top_line).setVisibility(View.INVISIBLE);
+            view.findViewById(R.id.bot_line).setVisibility(View.INVISIBLE);
+        }
+    }
+}
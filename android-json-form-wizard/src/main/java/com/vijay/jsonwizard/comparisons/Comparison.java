@@ -16,6 +16,14 @@ public abstract class Comparison {
 
     public abstract boolean compare(String a, String type, String b);
 
+    /**
+     * Compares values whose numbers, dates and arrays are parsed once and kept. Comparisons that parse their
+     * arguments override this, the others compare the raw strings.
+     */
+    public boolean compare(TypedValue a, String type, TypedValue b) {
+        return compare(a.getRaw(), type, b.getRaw());
+    }
+
     public abstract String getFunctionName();
 
 
@@ -0,0 +1,210 @@
+package com.vijay.jsonwizard.comparisons;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiled form of a native relevance or constraint expression such as {@code lessThan(., "5")} or
+ * {@code greaterThanEqualTo(., step1:min_age)}.
+ * <p>
+ * An expression is parsed once into its comparison and its two arguments, the current value ({@code .}), a quoted
+ * literal or the address of another field split into its parts. Literals are held as {@link TypedValue}s, so the
+ * numbers, dates and arrays they stand for are parsed once however often the expression is evaluated. Compiled
+ * expressions are shared across forms and the most recently used {@link #MAX_EXPRESSIONS} are kept, so a refresh only
+ * resolves field values and compares.
+ * Parsing follows the pattern {@code (functionName)\((.*)\)} the expressions were matched with before.
+ */
+public class ComparisonExpression {
+
+    @VisibleForTesting
+    static final int MAX_EXPRESSIONS = 256;
+    private static final Map<String, Comparison> COMPARISONS;
+    private static final ComparisonExpression NO_MATCH = new ComparisonExpression(null, null, null);
+    private static final Map<String, ComparisonExpression> EXPRESSIONS =
+            new LinkedHashMap<String, ComparisonExpression>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, ComparisonExpression> eldest) {
+                    return size() > MAX_EXPRESSIONS;
+                }
+            };
+
+    static {
+        // Function names are tried in this order at every position of an expression
+        Map<String, Comparison> comparisons = new LinkedHashMap<>();
+        for (Comparison comparison : new Comparison[]{new LessThanComparison(), new LessThanEqualToComparison(),
+                new EqualToComparison(), new NotEqualToComparison(), new GreaterThanComparison(),
+                new GreaterThanEqualToComparison(), new RegexComparison()}) {
+            comparisons.put(comparison.getFunctionName(), comparison);
+        }
+        COMPARISONS = Collections.unmodifiableMap(comparisons);
+    }
+
+    private final String functionName;
+    private final Comparison comparison;
+    private final Argument[] arguments;
+
+    private ComparisonExpression(String functionName, Comparison comparison, Argument[] arguments) {
+        this.functionName = functionName;
+        this.comparison = comparison;
+        this.arguments = arguments;
+    }
+
+    /**
+     * @param ex the expression
+     * @return the compiled expression, null if the expression does not call a known comparison
+     */
+    @Nullable
+    public static ComparisonExpression compile(@Nullable String ex) {
+        if (ex == null) {
+            return null;
+        }
+
+        ComparisonExpression expression;
+        synchronized (EXPRESSIONS) {
+            expression = EXPRESSIONS.get(ex);
+        }
+        if (expression == null) {
+            expression = parse(ex);
+            synchronized (EXPRESSIONS) {
+                EXPRESSIONS.put(ex, expression);
+            }
+        }
+        return expression == NO_MATCH ? null : expression;
+    }
+
+    private static ComparisonExpression parse(String ex) {
+        for (int start = 0; start < ex.length(); start++) {
+            for (Map.Entry<String, Comparison> entry : COMPARISONS.entrySet()) {
+                String name = entry.getKey();
+                int argsStart = start + name.length() + 1;
+                if (!ex.startsWith(name, start) || argsStart > ex.length() || ex.charAt(argsStart - 1) != '(') {
+                    continue;
+                }
+
+                int argsEnd = ex.lastIndexOf(')', getLineEnd(ex, argsStart) - 1);
+                if (argsEnd >= argsStart) {
+                    return new ComparisonExpression(name, entry.getValue(),
+                            parseArguments(ex.substring(argsStart, argsEnd)));
+                }
+            }
+        }
+        return NO_MATCH;
+    }
+
+    private static int getLineEnd(String ex, int from) {
+        for (int i = from; i < ex.length(); i++) {
+            char c = ex.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return i;
+            }
+        }
+        return ex.length();
+    }
+
+    /**
+     * @return the two arguments, null if the expression does not have exactly two
+     */
+    @Nullable
+    private static Argument[] parseArguments(String functionArgs) {
+        String[] splitArgs = functionArgs.split(",");
+        if (splitArgs.length != 2) {
+            return null;
+        }
+
+        Argument[] result = new Argument[2];
+        for (int i = 0; i < splitArgs.length; i++) {
+            String arg = splitArgs[i].trim();
+            int quoteStart = arg.indexOf('"');
+            int quoteEnd = arg.lastIndexOf('"');
+            if (".".equals(arg)) {
+                result[i] = Argument.CURRENT_VALUE;
+            } else if (quoteStart >= 0 && quoteEnd > quoteStart) {
+                result[i] = new Argument(TypedValue.of(arg.substring(quoteStart + 1, quoteEnd)), null);
+            } else {
+                result[i] = new Argument(null, arg.split(":"));
+            }
+        }
+        return result;
+    }
+
+    @VisibleForTesting
+    static void clearCache() {
+        synchronized (EXPRESSIONS) {
+            EXPRESSIONS.clear();
+        }
+    }
+
+    @VisibleForTesting
+    static int getCacheSize() {
+        synchronized (EXPRESSIONS) {
+            return EXPRESSIONS.size();
+        }
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    /**
+     * @param value    the current value, what {@code .} stands for
+     * @param resolver reads the values of the fields the expression references
+     * @return both arguments, an argument holds null when it could not be resolved
+     */
+    @NonNull
+    public TypedValue[] resolveArguments(@NonNull TypedValue value, @NonNull ValueResolver resolver) {
+        TypedValue[] args = new TypedValue[]{TypedValue.of(null), TypedValue.of(null)};
+        if (arguments != null) {
+            for (int i = 0; i < arguments.length; i++) {
+                Argument argument = arguments[i];
+                if (argument == Argument.CURRENT_VALUE) {
+                    args[i] = value;
+                } else if (argument.address == null) {
+                    args[i] = argument.literal;
+                } else {
+                    args[i] = resolver.getValue(argument.address);
+                }
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Compares already resolved arguments
+     */
+    public boolean compare(@NonNull TypedValue[] args, @Nullable String type) {
+        return comparison.compare(args[0], type, args[1]);
+    }
+
+    public boolean compare(@NonNull TypedValue value, @Nullable String type, @NonNull ValueResolver resolver) {
+        return compare(resolveArguments(value, resolver), type);
+    }
+
+    /**
+     * Reads the value of a field referenced by an expression
+     */
+    public interface ValueResolver {
+        /**
+         * @param address the field reference split on ':', {stepName, key}
+         * @return the value of the field, holding null if it cannot be read
+         */
+        @NonNull
+        TypedValue getValue(@NonNull String[] address);
+    }
+
+    private static final class Argument {
+        private static final Argument CURRENT_VALUE = new Argument(null, null);
+
+        private final TypedValue literal;
+        private final String[] address;
+
+        private Argument(TypedValue literal, String[] address) {
+            this.literal = literal;
+            this.address = address;
+        }
+    }
+}
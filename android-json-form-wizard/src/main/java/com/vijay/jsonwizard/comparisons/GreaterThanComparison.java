@@ -1,40 +1,22 @@
 package com.vijay.jsonwizard.comparisons;
 
-import com.vijay.jsonwizard.utils.Utils;
-import com.vijay.jsonwizard.widgets.DatePickerFactory;
-
-import org.smartregister.client.utils.domain.Form;
-
-import java.util.Date;
-
 public class GreaterThanComparison extends Comparison {
     @Override
     public boolean compare(String a, String type, String b) {
+        return compare(TypedValue.of(a), type, TypedValue.of(b));
+    }
+
+    @Override
+    public boolean compare(TypedValue a, String type, TypedValue b) {
         try {
             switch (type) {
                 case TYPE_STRING:
-                    if (a == null) {
-                        a = DEFAULT_STRING;
-                    }
-                    return a.compareTo(b) > 0;
+                    String stringA = a.getRaw() == null ? DEFAULT_STRING : a.getRaw();
+                    return b.getRaw() != null && stringA.compareTo(b.getRaw()) > 0;
                 case TYPE_NUMERIC:
-                    if (a == null) {
-                        a = DEFAULT_NUMERIC;
-                    }
-                    if (b == null) {
-                        b = DEFAULT_NUMERIC;
-                    }
-                    return Double.valueOf(a) > Double.valueOf(b);
+                    return a.isNumber() && b.isNumber() && a.getNumber() > b.getNumber();
                 case TYPE_DATE:
-                    if (a == null) {
-                        a = DEFAULT_DATE;
-                    }
-                    if (b == null) {
-                        b = DEFAULT_DATE;
-                    }
-                    Date dateA = DatePickerFactory.DATE_FORMAT.parse(Utils.getDateFormattedForCalculation(a,  Form.getDatePickerDisplayFormat()));
-                    Date dateB = DatePickerFactory.DATE_FORMAT.parse(Utils.getDateFormattedForCalculation(b,  Form.getDatePickerDisplayFormat()));
-                    return dateA.getTime() > dateB.getTime();
+                    return a.isCalculationDate() && b.isCalculationDate() && a.getCalculationDate() > b.getCalculationDate();
                 default:
                     break;
             }
@@ -2,17 +2,27 @@ package com.vijay.jsonwizard.comparisons;
 
 import android.util.Log;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class RegexComparison extends Comparison {
+    private static final int MAX_PATTERNS = 64;
+    // Patterns are compiled once and shared, the most recently used are kept
+    private static final Map<String, Pattern> PATTERNS = new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+            return size() > MAX_PATTERNS;
+        }
+    };
     private final String TAG = this.getClass().getSimpleName();
 
     @Override
     public boolean compare(String a, String type, String b) {
         if (a != null && b != null) {
             try {
-                Pattern pattern = Pattern.compile(b);
+                Pattern pattern = getPattern(b);
                 Matcher matcher = pattern.matcher(a);
                 return matcher.matches();
             } catch (Exception e) {
@@ -22,6 +32,17 @@ public class RegexComparison extends Comparison {
         return false;
     }
 
+    private static Pattern getPattern(String regex) {
+        synchronized (PATTERNS) {
+            Pattern pattern = PATTERNS.get(regex);
+            if (pattern == null) {
+                pattern = Pattern.compile(regex);
+                PATTERNS.put(regex, pattern);
+            }
+            return pattern;
+        }
+    }
+
     @Override
     public String getFunctionName() {
         return "regex";
@@ -0,0 +1,171 @@
+package com.vijay.jsonwizard.comparisons;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.utils.Utils;
+import com.vijay.jsonwizard.widgets.DatePickerFactory;
+
+import org.json.JSONArray;
+import org.smartregister.client.utils.domain.Form;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A value compared by the {@link Comparison}s, with the number, date and array it holds parsed at most once.
+ * <p>
+ * Each representation is parsed the first time a comparison asks for it and kept from then on, so a field value
+ * or an expression literal that is compared over and over is only parsed once. A null value reads as the defaults
+ * the comparisons have always used, {@code 0}, {@code 01-01-1900} and {@code []}.
+ */
+public final class TypedValue {
+
+    private static final TypedValue NULL = new TypedValue(null);
+    private static final byte UNPARSED = 0;
+    private static final byte PARSED = 1;
+    private static final byte INVALID = 2;
+
+    private final String raw;
+
+    private byte numberState = UNPARSED;
+    private double number;
+
+    private byte dateState = UNPARSED;
+    private long date;
+
+    private String calculationDateFormat;
+    private byte calculationDateState = UNPARSED;
+    private long calculationDate;
+
+    private byte arrayState = UNPARSED;
+    private List<String> array;
+    private Set<String> arrayItems;
+
+    private TypedValue(@Nullable String raw) {
+        this.raw = raw;
+    }
+
+    @NonNull
+    public static TypedValue of(@Nullable String value) {
+        return value == null ? NULL : new TypedValue(value);
+    }
+
+    @Nullable
+    public String getRaw() {
+        return raw;
+    }
+
+    public synchronized boolean isNumber() {
+        if (numberState == UNPARSED) {
+            try {
+                number = Double.parseDouble(raw == null ? Comparison.DEFAULT_NUMERIC : raw);
+                numberState = PARSED;
+            } catch (NumberFormatException e) {
+                numberState = INVALID;
+            }
+        }
+        return numberState == PARSED;
+    }
+
+    /**
+     * @return the value as a number, only meaningful when {@link #isNumber()}
+     */
+    public synchronized double getNumber() {
+        return isNumber() ? number : 0;
+    }
+
+    /**
+     * @return whether the value is a date in the {@link DatePickerFactory#DATE_FORMAT} format
+     */
+    public synchronized boolean isDate() {
+        if (dateState == UNPARSED) {
+            date = parseDate(raw == null ? Comparison.DEFAULT_DATE : raw);
+            dateState = date == Long.MIN_VALUE ? INVALID : PARSED;
+        }
+        return dateState == PARSED;
+    }
+
+    /**
+     * @return the date in epoch milliseconds, only meaningful when {@link #isDate()}
+     */
+    public synchronized long getDate() {
+        return isDate() ? date : 0;
+    }
+
+    /**
+     * @return whether the value is a date in the date picker display format of the form, the value is read the way
+     * {@link Utils#getDateFormattedForCalculation(String, String)} reads it
+     */
+    public synchronized boolean isCalculationDate() {
+        String displayFormat = Form.getDatePickerDisplayFormat();
+        if (calculationDateState == UNPARSED || !isSameFormat(displayFormat)) {
+            String value = raw == null ? Comparison.DEFAULT_DATE : raw;
+            calculationDate = parseDate(Utils.getDateFormattedForCalculation(value, displayFormat));
+            calculationDateState = calculationDate == Long.MIN_VALUE ? INVALID : PARSED;
+            calculationDateFormat = displayFormat;
+        }
+        return calculationDateState == PARSED;
+    }
+
+    /**
+     * @return the date in epoch milliseconds, only meaningful when {@link #isCalculationDate()}
+     */
+    public synchronized long getCalculationDate() {
+        return isCalculationDate() ? calculationDate : 0;
+    }
+
+    private boolean isSameFormat(String displayFormat) {
+        return displayFormat == null ? calculationDateFormat == null : displayFormat.equals(calculationDateFormat);
+    }
+
+    private static long parseDate(String value) {
+        try {
+            return DatePickerFactory.DATE_FORMAT.parse(value).getTime();
+        } catch (Exception e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    public synchronized boolean isArray() {
+        if (arrayState == UNPARSED) {
+            try {
+                JSONArray jsonArray = new JSONArray(raw == null ? Comparison.DEFAULT_ARRAY : raw);
+                List<String> items = new ArrayList<>(jsonArray.length());
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    items.add(jsonArray.getString(i));
+                }
+                array = Collections.unmodifiableList(items);
+                arrayItems = Collections.unmodifiableSet(new HashSet<>(items));
+                arrayState = PARSED;
+            } catch (Exception e) {
+                arrayState = INVALID;
+            }
+        }
+        return arrayState == PARSED;
+    }
+
+    /**
+     * @return the items of the array in order, empty unless {@link #isArray()}
+     */
+    @NonNull
+    public synchronized List<String> getArray() {
+        return isArray() ? array : Collections.<String>emptyList();
+    }
+
+    /**
+     * @return the distinct items of the array, empty unless {@link #isArray()}
+     */
+    @NonNull
+    public synchronized Set<String> getArrayItems() {
+        return isArray() ? arrayItems : Collections.<String>emptySet();
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(raw);
+    }
+}
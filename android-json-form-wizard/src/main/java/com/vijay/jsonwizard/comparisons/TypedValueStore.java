@@ -0,0 +1,41 @@
+package com.vijay.jsonwizard.comparisons;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link TypedValue}s of the fields of a form, keyed by field address ({@code stepName_key}).
+ * <p>
+ * Values are stored as they are written, so what comparisons parse from a value is kept until the field changes.
+ * A read only reuses the stored value while it still holds the value being read, values changed without a write
+ * are picked up on their next read.
+ */
+public class TypedValueStore {
+
+    private final Map<String, TypedValue> values = new ConcurrentHashMap<>();
+
+    /**
+     * Stores the value written to a field, dropping whatever was parsed from its previous value
+     */
+    @NonNull
+    public TypedValue write(@NonNull String address, @Nullable String value) {
+        TypedValue typedValue = TypedValue.of(value);
+        values.put(address, typedValue);
+        return typedValue;
+    }
+
+    /**
+     * @return the stored value of the field if it still holds the value, else the value is stored and returned
+     */
+    @NonNull
+    public TypedValue read(@NonNull String address, @Nullable String value) {
+        TypedValue typedValue = values.get(address);
+        if (typedValue != null && (value == null ? typedValue.getRaw() == null : value.equals(typedValue.getRaw()))) {
+            return typedValue;
+        }
+        return write(address, value);
+    }
+}
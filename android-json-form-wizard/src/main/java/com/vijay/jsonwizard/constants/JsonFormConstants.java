@@ -215,6 +215,7 @@ public class JsonFormConstants {
     public static final String FALSE = "false";
     public static final String DISPLAY_SCROLL_BARS = "display_scroll_bars";
     public static final String SKIP_BLANK_STEPS = "skip_blank_steps";
+    public static final String INPUT_QUIET_PERIOD = "input_quiet_period";
     public static final String MULTI_SELECT_LIST = "multi_select_list";
     public static final String FORM_VERSION = "form_version";
     public static final String LABEL_CONSTRAINT_LAYOUT = "label_constraint_layout";
@@ -256,6 +257,7 @@ public class JsonFormConstants {
         String ALPHABET_SORTING = "com.vijay.jsonwizard.comparator.MultiSelectListAlphabetComparator";
         String FILES_LOCATION = "native.form/multiselectlist";
         String REPOSITORY_CLASS = "repositoryClass";
+        String PAGE_SIZE = "pageSize";
     }
 
     public static class Properties {
@@ -300,6 +302,7 @@ public class JsonFormConstants {
         public static final String NOT = "not";
         public static final String GLOBAL = "global";
         public static final String JSON = "json";
+        public static final String SESSION = "session";
         public static final String FORM = "form";
         public static final String STEPNAME = "stepName";
         public static final String ID = "id";
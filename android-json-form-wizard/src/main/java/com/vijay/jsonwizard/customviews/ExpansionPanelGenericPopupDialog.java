@@ -263,6 +263,7 @@ public class ExpansionPanelGenericPopupDialog extends GenericPopupDialog {
                     }
                 }
                 getJsonApi().setmJSONObject(mJSONObject);
+                getJsonApi().onStepChanged(getStepName());
             } catch (JSONException e) {
                 Timber.e(e, "FullScreenGenericPopupDialog --> onDataPass");
             }
@@ -463,6 +463,7 @@ public class GenericPopupDialog extends DialogFragment implements GenericDialogI
                                     .getSpecifyText(getNewSelectedValues()) + " " + suffix);
                 }
                 getJsonApi().setmJSONObject(mJSONObject);
+                getJsonApi().onStepChanged(getStepName());
             } catch (JSONException e) {
                 Timber.e(e, "GenericPopupDialog --> onGenericDataPass");
             }
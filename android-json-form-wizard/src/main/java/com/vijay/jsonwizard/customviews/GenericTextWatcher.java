@@ -5,11 +5,14 @@ import android.text.Editable;
 import android.text.TextWatcher;
 import android.view.View;
 
+import androidx.annotation.Nullable;
+
 import com.vijay.jsonwizard.R;
 import com.vijay.jsonwizard.exceptions.JsonFormRuntimeException;
 import com.vijay.jsonwizard.fragments.JsonFormFragment;
 import com.vijay.jsonwizard.interfaces.JsonApi;
 import com.vijay.jsonwizard.presenters.JsonFormFragmentPresenter;
+import com.vijay.jsonwizard.utils.TextInputCoalescer;
 import com.vijay.jsonwizard.utils.ValidationStatus;
 
 import org.json.JSONException;
@@ -25,6 +28,7 @@ public class GenericTextWatcher implements TextWatcher, View.OnFocusChangeListen
     private String mStepName;
     private ArrayList<View.OnFocusChangeListener> onFocusChangeListeners;
     private JsonFormFragment formFragment;
+    private long quietPeriod;
 
     public GenericTextWatcher(String stepName, JsonFormFragment formFragment, View view) {
         this.formFragment = formFragment;
@@ -34,6 +38,15 @@ public class GenericTextWatcher implements TextWatcher, View.OnFocusChangeListen
         mView.setOnFocusChangeListener(this);
     }
 
+    /**
+     * Sets how long typed text is held back before it is validated and written, see {@link TextInputCoalescer}
+     *
+     * @param quietPeriod milliseconds without input before the value is committed, 0 commits every change
+     */
+    public void setQuietPeriod(long quietPeriod) {
+        this.quietPeriod = quietPeriod;
+    }
+
     public void addOnFocusChangeListener(View.OnFocusChangeListener onFocusChangeListener) {
         onFocusChangeListeners.add(onFocusChangeListener);
     }
@@ -74,6 +87,30 @@ public class GenericTextWatcher implements TextWatcher, View.OnFocusChangeListen
             return;
         }
 
+        final JsonApi jsonApi = api;
+        final String value = text;
+        Runnable commit = new Runnable() {
+            @Override
+            public void run() {
+                commitValue(jsonApi, value);
+            }
+        };
+
+        String commitKey = getCommitKey();
+        TextInputCoalescer textInputCoalescer = getTextInputCoalescer();
+        if (textInputCoalescer == null) {
+            commit.run();
+        } else if (quietPeriod > 0 && mView.hasFocus() && !Boolean.TRUE.equals(mView.getTag(R.id.extraPopup))) {
+            // Only typing is held back, text set by the form itself such as calculated values is committed straight away.
+            // Popup fields are never held back, the popup reads them as soon as it is closed.
+            textInputCoalescer.submit(commitKey, quietPeriod, commit);
+        } else {
+            textInputCoalescer.cancel(commitKey);
+            commit.run();
+        }
+    }
+
+    private void commitValue(JsonApi api, String text) {
         String key = (String) mView.getTag(R.id.key);
         String openMrsEntityParent = (String) mView.getTag(R.id.openmrs_entity_parent);
         String openMrsEntity = (String) mView.getTag(R.id.openmrs_entity);
@@ -90,11 +127,23 @@ public class GenericTextWatcher implements TextWatcher, View.OnFocusChangeListen
                 Timber.e(e);
             }
         }
+    }
 
+    private String getCommitKey() {
+        return mStepName + ":" + mView.getTag(R.id.key) + ":" + Boolean.TRUE.equals(mView.getTag(R.id.extraPopup));
+    }
+
+    @Nullable
+    private TextInputCoalescer getTextInputCoalescer() {
+        return formFragment != null ? formFragment.getTextInputCoalescer() : null;
     }
 
     @Override
     public void onFocusChange(View v, boolean hasFocus) {
+        TextInputCoalescer textInputCoalescer = getTextInputCoalescer();
+        if (!hasFocus && textInputCoalescer != null) {
+            textInputCoalescer.flush(getCommitKey());
+        }
         for (View.OnFocusChangeListener curListener : onFocusChangeListeners) {
             curListener.onFocusChange(v, hasFocus);
         }
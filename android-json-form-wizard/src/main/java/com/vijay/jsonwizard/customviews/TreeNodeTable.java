@@ -0,0 +1,327 @@
+package com.vijay.jsonwizard.customviews;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Flattened, index addressed copy of a tree widget structure.
+ * <p>
+ * Nodes are numbered breadth first with the synthetic root at {@link #ROOT}, so the children of a node sit next to each
+ * other and are addressed by the index of the first child and their count. Only the node json objects of the structure
+ * are referenced, no tree node or view is created until a node is shown.
+ * <p>
+ * The type-ahead name index is built once, on first use or ahead of it through {@link #prepareSearchIndex()}.
+ */
+public class TreeNodeTable {
+
+    public static final int ROOT = 0;
+    public static final int NO_NODE = -1;
+
+    private final JSONObject[] nodes;
+    private final String[] keys;
+    private final String[] names;
+    private final int[] parents;
+    private final int[] depths;
+    private final int[] firstChildren;
+    private final int[] childCounts;
+    private final Map<String, Integer> indexByKey;
+
+    private volatile SearchIndex searchIndex;
+
+    private TreeNodeTable(List<JSONObject> nodeList, List<Integer> parentList) {
+        int size = nodeList.size();
+        nodes = nodeList.toArray(new JSONObject[size]);
+        keys = new String[size];
+        names = new String[size];
+        parents = new int[size];
+        depths = new int[size];
+        firstChildren = new int[size];
+        childCounts = new int[size];
+        indexByKey = new HashMap<>(size * 2);
+
+        keys[ROOT] = "";
+        names[ROOT] = "";
+        parents[ROOT] = NO_NODE;
+        for (int i = 1; i < size; i++) {
+            keys[i] = nodes[i].optString(TreeViewDialog.KEY_KEY, "");
+            names[i] = nodes[i].optString(TreeViewDialog.KEY_NAME, "");
+            int parent = parentList.get(i);
+            parents[i] = parent;
+            depths[i] = depths[parent] + 1;
+            if (childCounts[parent]++ == 0) {
+                firstChildren[parent] = i;
+            }
+            // Like the tree view, a key used by more than one node resolves to the last of them
+            indexByKey.put(keys[i], i);
+        }
+    }
+
+    /**
+     * @param structure the tree of the widget
+     * @return the node table, holding only the root if there is no structure
+     */
+    @NonNull
+    public static TreeNodeTable fromJsonArray(@Nullable JSONArray structure) {
+        List<JSONObject> nodeList = new ArrayList<>();
+        List<Integer> parentList = new ArrayList<>();
+        nodeList.add(null);
+        parentList.add(NO_NODE);
+
+        for (int parent = 0; parent < nodeList.size(); parent++) {
+            JSONArray children = parent == ROOT ? structure : nodeList.get(parent).optJSONArray(TreeViewDialog.KEY_NODES);
+            if (children == null) {
+                continue;
+            }
+            for (int i = 0; i < children.length(); i++) {
+                JSONObject child = children.optJSONObject(i);
+                if (child != null) {
+                    nodeList.add(child);
+                    parentList.add(parent);
+                }
+            }
+        }
+        return new TreeNodeTable(nodeList, parentList);
+    }
+
+    /**
+     * Finds the names of the nodes on a path through a structure without flattening it, only the nodes on the path and
+     * their siblings are read
+     *
+     * @param structure the tree of the widget
+     * @param path      keys from the top level down, the value of a tree widget
+     * @return names of the nodes on the path, down to the first key with no node
+     */
+    @NonNull
+    public static ArrayList<String> getPathNames(@Nullable JSONArray structure, @Nullable List<String> path) {
+        ArrayList<String> result = new ArrayList<>();
+        JSONArray children = structure;
+        for (int level = 0; path != null && children != null && level < path.size(); level++) {
+            JSONObject node = null;
+            for (int i = 0; i < children.length(); i++) {
+                JSONObject child = children.optJSONObject(i);
+                // Like the tree view, a key used by more than one node resolves to the last of them
+                if (child != null && child.optString(TreeViewDialog.KEY_KEY, "").equals(path.get(level))) {
+                    node = child;
+                }
+            }
+            if (node == null) {
+                break;
+            }
+            result.add(node.optString(TreeViewDialog.KEY_NAME, ""));
+            children = node.optJSONArray(TreeViewDialog.KEY_NODES);
+        }
+        return result;
+    }
+
+    /**
+     * @return number of nodes, the root included
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * @return the json object of the node, null for the root
+     */
+    @Nullable
+    public JSONObject getNode(int node) {
+        return nodes[node];
+    }
+
+    public String getKey(int node) {
+        return keys[node];
+    }
+
+    public String getName(int node) {
+        return names[node];
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    /**
+     * @return depth of the node, 1 for the top level nodes
+     */
+    public int getDepth(int node) {
+        return depths[node];
+    }
+
+    public int getChildCount(int node) {
+        return childCounts[node];
+    }
+
+    public int getChild(int node, int position) {
+        return firstChildren[node] + position;
+    }
+
+    /**
+     * @return the node with the key, {@link #NO_NODE} if there is none
+     */
+    public int indexOfKey(@Nullable String key) {
+        Integer node = indexByKey.get(key);
+        return node != null ? node : NO_NODE;
+    }
+
+    /**
+     * @return the child of the node with the key, {@link #NO_NODE} if there is none
+     */
+    public int findChild(int node, @Nullable String key) {
+        for (int i = 0; i < childCounts[node]; i++) {
+            int child = firstChildren[node] + i;
+            if (keys[child].equals(key)) {
+                return child;
+            }
+        }
+        return NO_NODE;
+    }
+
+    /**
+     * @return keys from the top level down to the node, the value of a tree widget
+     */
+    @NonNull
+    public ArrayList<String> getPath(int node) {
+        ArrayList<String> path = new ArrayList<>(depths[node]);
+        for (int current = node; current != ROOT && current != NO_NODE; current = parents[current]) {
+            path.add(keys[current]);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @return names of the nodes with the keys, keys without a node are skipped
+     */
+    @NonNull
+    public ArrayList<String> getNames(@Nullable List<String> nodeKeys) {
+        ArrayList<String> result = new ArrayList<>();
+        if (nodeKeys != null) {
+            for (String key : nodeKeys) {
+                int node = indexOfKey(key);
+                if (node != NO_NODE) {
+                    result.add(names[node]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the nodes whose name contains the query, starting with a word of the name that starts like the query
+     *
+     * @param query text typed by the user
+     * @param limit maximum number of nodes returned
+     * @return matching nodes ordered by the matched word
+     */
+    @NonNull
+    public List<Integer> search(@Nullable String query, int limit) {
+        String normalizedQuery = query != null ? query.trim().toLowerCase(Locale.ROOT) : "";
+        if (normalizedQuery.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        String[] queryWords = normalizedQuery.split("\\s+");
+        SearchIndex index = prepareSearchIndex();
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int i = index.lowerBound(queryWords[0]); i < index.words.length && result.size() < limit; i++) {
+            if (!index.words[i].startsWith(queryWords[0])) {
+                break;
+            }
+            int node = index.nodes[i];
+            if (queryWords.length == 1 || names[node].toLowerCase(Locale.ROOT).contains(normalizedQuery)) {
+                result.add(node);
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Builds the name index used by {@link #search(String, int)} if it has not been built yet, safe to call from a
+     * background thread
+     */
+    @NonNull
+    public SearchIndex prepareSearchIndex() {
+        SearchIndex index = searchIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = searchIndex;
+                if (index == null) {
+                    index = new SearchIndex(names);
+                    searchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Every word of every node name, sorted for prefix lookups
+     */
+    public static final class SearchIndex {
+        private final String[] words;
+        private final int[] nodes;
+
+        private SearchIndex(String[] names) {
+            List<Entry> entries = new ArrayList<>(names.length);
+            for (int node = 1; node < names.length; node++) {
+                for (String word : names[node].toLowerCase(Locale.ROOT).split("\\s+")) {
+                    if (!word.isEmpty()) {
+                        entries.add(new Entry(word, node));
+                    }
+                }
+            }
+
+            Entry[] sorted = entries.toArray(new Entry[0]);
+            Arrays.sort(sorted);
+            words = new String[sorted.length];
+            nodes = new int[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                words[i] = sorted[i].word;
+                nodes[i] = sorted[i].node;
+            }
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = words.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (words[middle].compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        private static final class Entry implements Comparable<Entry> {
+            private final String word;
+            private final int node;
+
+            private Entry(String word, int node) {
+                this.word = word;
+                this.node = node;
+            }
+
+            @Override
+            public int compareTo(Entry other) {
+                int result = word.compareTo(other.word);
+                return result != 0 ? result : Integer.compare(node, other.node);
+            }
+        }
+    }
+}
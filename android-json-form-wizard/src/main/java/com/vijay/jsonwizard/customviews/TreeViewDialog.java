@@ -2,13 +2,23 @@ package com.vijay.jsonwizard.customviews;
 
 import android.app.Dialog;
 import android.content.Context;
-import androidx.annotation.VisibleForTesting;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.view.Window;
+import android.widget.EditText;
 import android.widget.LinearLayout;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
 import com.unnamed.b.atv.model.TreeNode;
 import com.unnamed.b.atv.view.AndroidTreeView;
 import com.vijay.jsonwizard.R;
+import com.vijay.jsonwizard.adapter.TreeNodeAdapter;
+import com.vijay.jsonwizard.interfaces.JsonApi;
+import com.vijay.jsonwizard.utils.AppExecutors;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -24,6 +34,7 @@ public class TreeViewDialog extends Dialog implements TreeNode.TreeNodeClickList
     protected static final String KEY_LEVEL = "level";
     protected static final String KEY_NAME = "name";
     protected static final String KEY_KEY = "key";
+    private static final int SEARCH_RESULT_LIMIT = 50;
     private final Context context;
     private boolean shouldExpandAllNodes = false;
     private ArrayList<String> value;
@@ -33,6 +44,9 @@ public class TreeViewDialog extends Dialog implements TreeNode.TreeNodeClickList
     private AndroidTreeView androidTreeView;
     private LinearLayout canvas;
     private boolean shouldDisableOnClickListener = false;
+    private TreeNodeTable nodeTable;
+    private TreeNodeAdapter nodeAdapter;
+    private EditText searchView;
 
     public TreeViewDialog(Context context, JSONArray structure, ArrayList<String> defaultValue,
                           ArrayList<String> value)
@@ -57,6 +71,17 @@ public class TreeViewDialog extends Dialog implements TreeNode.TreeNodeClickList
         init(structure, defaultValue, value, false);
     }
 
+    /**
+     * Creates a dialog that only builds the rows of the expanded nodes, in a recycling list, and offers type-ahead search
+     * over the node names. Meant for trees too large to build up front, {@link #getTreeView()} is null in this mode.
+     */
+    public TreeViewDialog(Context context, @NonNull TreeNodeTable nodeTable, ArrayList<String> defaultValue,
+                          ArrayList<String> value) {
+        super(context);
+        this.context = context;
+        initLazy(nodeTable, defaultValue, value);
+    }
+
     protected TreeViewDialog(Context context, boolean cancelable, OnCancelListener
             cancelListener, JSONArray structure, ArrayList<String> defaultValue, ArrayList<String> value)
             throws JSONException {
@@ -141,6 +166,106 @@ public class TreeViewDialog extends Dialog implements TreeNode.TreeNodeClickList
         setValue(value);
     }
 
+    private void initLazy(final TreeNodeTable nodeTable, ArrayList<String> defaultValue, ArrayList<String> value) {
+        this.defaultValue = defaultValue;
+        this.nodeTable = nodeTable;
+        requestWindowFeature(Window.FEATURE_NO_TITLE);
+        this.setContentView(R.layout.native_form_dialog_lazy_tree_view);
+        canvas = this.findViewById(R.id.canvas);
+
+        this.value = new ArrayList<>();
+        this.name = new ArrayList<>();
+        this.treeNodeHashMap = new HashMap<>();
+
+        nodeAdapter = new TreeNodeAdapter(context, nodeTable, new TreeNodeAdapter.OnNodeClickListener() {
+            @Override
+            public void onNodeClick(int node) {
+                onClick(node);
+            }
+        });
+        expandSelectedPath(value == null || value.size() == 0 ? defaultValue : value);
+        nodeAdapter.showTree();
+
+        RecyclerView recyclerView = this.findViewById(R.id.tree_nodes);
+        recyclerView.setLayoutManager(new LinearLayoutManager(context));
+        recyclerView.setAdapter(nodeAdapter);
+
+        searchView = this.findViewById(R.id.tree_search);
+        searchView.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+                // Do nothing
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                // Do nothing
+            }
+
+            @Override
+            public void afterTextChanged(Editable editable) {
+                String query = editable.toString().trim();
+                if (query.isEmpty()) {
+                    nodeAdapter.showTree();
+                } else {
+                    nodeAdapter.showResults(nodeTable.search(query, SEARCH_RESULT_LIMIT));
+                }
+            }
+        });
+
+        // Have the name index ready by the time the user starts typing
+        AppExecutors appExecutors = context instanceof JsonApi ? ((JsonApi) context).getAppExecutors() : new AppExecutors();
+        appExecutors.diskIO().execute(new Runnable() {
+            @Override
+            public void run() {
+                nodeTable.prepareSearchIndex();
+            }
+        });
+
+        setValue(value);
+    }
+
+    private void expandSelectedPath(ArrayList<String> selectedValue) {
+        if (selectedValue == null) {
+            return;
+        }
+
+        int node = TreeNodeTable.ROOT;
+        for (String key : selectedValue) {
+            node = nodeTable.findChild(node, key);
+            if (node == TreeNodeTable.NO_NODE) {
+                return;
+            }
+            nodeAdapter.expandPath(node);
+        }
+    }
+
+    /**
+     * Handles a click on a row of a dialog created from a {@link TreeNodeTable}
+     *
+     * @param node the node of the row
+     */
+    @VisibleForTesting
+    void onClick(int node) {
+        if (shouldDisableOnClickListener()) {
+            return;
+        }
+
+        boolean hasChildren = nodeTable.getChildCount(node) > 0;
+        if (shouldExpandAllNodes() ? !getDefaultValue().contains(nodeTable.getName(node)) : !hasChildren) {
+            this.value = nodeTable.getPath(node);
+            this.name = new ArrayList<>();
+            extractName();
+            dismiss();
+        } else if (nodeAdapter.isShowingResults()) {
+            // Show the chosen result in the tree
+            nodeAdapter.expandPath(node);
+            searchView.setText("");
+        } else if (hasChildren) {
+            nodeAdapter.toggle(node);
+        }
+    }
+
     private TreeNode constructTreeView(JSONObject structure, TreeNode parent, ArrayList<String> defaultValue,
                                        int level) throws
             JSONException {
@@ -182,7 +307,9 @@ public class TreeViewDialog extends Dialog implements TreeNode.TreeNodeClickList
     }
 
     private void extractName() {
-        if (value != null && value.size() > 0) {
+        if (nodeTable != null) {
+            name.addAll(nodeTable.getNames(value));
+        } else if (value != null && value.size() > 0) {
             HashMap<String, TreeNode> reverseHashMap = new HashMap<>();
             for (TreeNode curNode : treeNodeHashMap.keySet()) {
                 reverseHashMap.put(treeNodeHashMap.get(curNode), curNode);
@@ -28,9 +28,13 @@ public class DBResourceBundleControl extends ResourceBundle.Control {
         return TTL_DONT_CACHE;
     }
 
-    private Object[][] getPropertiesFromRepository(String identifier) {
+    /**
+     * @param identifier identifier of the properties file in the client form repository
+     * @return the key value pairs in the file, empty if the repository does not have the file
+     */
+    public static Object[][] getPropertiesFromRepository(String identifier) {
         Object[][] properties = new Object[0][];
-        if (StringUtils.isNotBlank(this.identifier)) {
+        if (StringUtils.isNotBlank(identifier)) {
             FormUtils formUtils = new FormUtils();
             String propertiesString = formUtils.getPropertiesFileContentsFromDB(identifier);
             if (StringUtils.isNotBlank(propertiesString)) {
@@ -4,6 +4,8 @@ import androidx.appcompat.app.AlertDialog;
 
 import com.vijay.jsonwizard.adapter.MultiSelectListAdapter;
 import com.vijay.jsonwizard.adapter.MultiSelectListSelectedAdapter;
+import com.vijay.jsonwizard.task.MultiSelectListPageLoader;
+import com.vijay.jsonwizard.utils.MultiSelectSearchIndex;
 
 import org.json.JSONObject;
 
@@ -16,6 +18,8 @@ public class MultiSelectListAccessory {
     private List<MultiSelectItem> selectedItemList;
     private List<MultiSelectItem> itemList;
     private JSONObject formAttributes;
+    private MultiSelectSearchIndex searchIndex;
+    private MultiSelectListPageLoader pageLoader;
 
     public MultiSelectListAccessory(MultiSelectListSelectedAdapter selectedAdapter,
                                     MultiSelectListAdapter listAdapter, AlertDialog alertDialog,
@@ -68,6 +72,25 @@ public class MultiSelectListAccessory {
         this.itemList = itemList;
     }
 
+    public MultiSelectSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    public void setSearchIndex(MultiSelectSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * @return the loader of the next pages of a paged list, null if the list is read at once
+     */
+    public MultiSelectListPageLoader getPageLoader() {
+        return pageLoader;
+    }
+
+    public void setPageLoader(MultiSelectListPageLoader pageLoader) {
+        this.pageLoader = pageLoader;
+    }
+
     public List<MultiSelectItem> getSelectedItemList() {
         return selectedItemList;
     }
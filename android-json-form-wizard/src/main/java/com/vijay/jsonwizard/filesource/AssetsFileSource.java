@@ -4,7 +4,7 @@ import android.content.Context;
 
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.interfaces.FormFileSource;
-import com.vijay.jsonwizard.utils.Utils;
+import com.vijay.jsonwizard.utils.FormJsonReader;
 
 import org.jeasy.rules.api.Rules;
 import org.jeasy.rules.mvel.MVELRuleFactory;
@@ -37,7 +37,7 @@ public class AssetsFileSource implements FormFileSource {
     @Override
     public JSONObject getFormFromFile(Context context, String fileName) throws Exception {
         String newFileName = JsonFormConstants.JSON_FORM_DIRECTORY + "/" + fileName + ".json";
-        return new JSONObject(Utils.convertStreamToString(getFileInputStream(context, newFileName)));
+        return FormJsonReader.readObject(getFileInputStream(context, newFileName));
     }
 
     @Override
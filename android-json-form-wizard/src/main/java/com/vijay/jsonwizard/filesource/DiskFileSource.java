@@ -6,7 +6,7 @@ import androidx.annotation.VisibleForTesting;
 
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.interfaces.FormFileSource;
-import com.vijay.jsonwizard.utils.Utils;
+import com.vijay.jsonwizard.utils.FormJsonReader;
 
 import org.jeasy.rules.api.Rules;
 import org.jeasy.rules.mvel.MVELRuleFactory;
@@ -41,8 +41,7 @@ public class DiskFileSource implements FormFileSource {
 
     @Override
     public JSONObject getFormFromFile(Context context, String fileName) throws Exception {
-        String content = Utils.convertStreamToString(getFileInputStream(context, fileName));
-        return new JSONObject(content);
+        return FormJsonReader.readObject(getFileInputStream(context, fileName));
     }
 
     @Override
@@ -43,9 +43,14 @@ import com.vijay.jsonwizard.domain.Form;
 import com.vijay.jsonwizard.interfaces.CommonListener;
 import com.vijay.jsonwizard.interfaces.JsonApi;
 import com.vijay.jsonwizard.interfaces.OnFieldsInvalid;
+import com.vijay.jsonwizard.model.FieldModel;
+import com.vijay.jsonwizard.model.FormModel;
+import com.vijay.jsonwizard.model.StepModel;
 import com.vijay.jsonwizard.mvp.MvpFragment;
 import com.vijay.jsonwizard.presenters.JsonFormFragmentPresenter;
+import com.vijay.jsonwizard.rules.StepRelevanceEvaluator;
 import com.vijay.jsonwizard.utils.NativeFormsProperties;
+import com.vijay.jsonwizard.utils.TextInputCoalescer;
 import com.vijay.jsonwizard.utils.Utils;
 import com.vijay.jsonwizard.views.JsonFormFragmentView;
 import com.vijay.jsonwizard.viewstates.JsonFormFragmentViewState;
@@ -75,6 +80,7 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
     private static NativeFormsProperties nativeFormProperties;
     private final Map<String, List<View>> lookUpMap = new HashMap<>();
     private final Handler handler = new Handler(Looper.getMainLooper(), this);
+    private final TextInputCoalescer textInputCoalescer = new TextInputCoalescer();
     public OnFieldsInvalid onFieldsInvalid;
     protected LinearLayout mMainView;
     protected ScrollView mScrollView;
@@ -143,6 +149,10 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
         if (getArguments() != null) {
             stepName = getArguments().getString(JsonFormConstants.STEPNAME);
         }
+        if (!isFormLoaded()) {
+            // The activity builds the step once the form session is loaded
+            return rootView;
+        }
 
         setupToolbarBackButton();
         showScrollBars();
@@ -159,9 +169,17 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
     @Override
     public void onDestroyView() {
         handler.removeMessages(GRAY_OUT_ACTIVE_WHAT);
+        textInputCoalescer.cancelAll();
         super.onDestroyView();
     }
 
+    /**
+     * @return false while the activity reads its form session in the background
+     */
+    private boolean isFormLoaded() {
+        return getJsonApi() != null && getJsonApi().getmJSONObject() != null;
+    }
+
     private void setupToolbarBackButton() {
         if (getArguments() != null) {
             String stepName = getArguments().getString(JsonFormConstants.STEPNAME);
@@ -276,6 +294,12 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
         }
     }
 
+    @Override
+    public void onPause() {
+        textInputCoalescer.flushAll();
+        super.onPause();
+    }
+
     @Override
     public void onDetach() {
         setmJsonApi(null);
@@ -289,6 +313,9 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
         mMenu = menu;
         menu.clear();
         inflater.inflate(R.menu.menu_toolbar, menu);
+        if (!isFormLoaded()) {
+            return;
+        }
         presenter.setUpToolBar();
 
         if (getForm() != null && getForm().isGreyOutSaveWhenFormInvalid()) {
@@ -382,7 +409,7 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
             String next = formStep.optString(JsonFormConstants.NEXT, "");
             if (StringUtils.isNotEmpty(next) && (!getJsonApi().isNextStepRelevant() && !nextStepHasNoSkipLogic())) {
                 markStepAsSkipped(formStep);
-                getJsonApi().setNextStep(next);
+                getJsonApi().setNextStep(skipBlankStepsAfter(step, next));
                 isSkipped = true;
                 next();
             }
@@ -395,12 +422,12 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
      */
     public void skipStepOnPreviousPressed() {
         if (skipBlankSteps()) {
+            StepRelevanceEvaluator.Result relevance = evaluateStepRelevance();
             int currentFormStepNumber = getFormStepNumber();
             for (int i = currentFormStepNumber; i >= 1; i--) {
-                JSONObject formStep = getJsonApi().getmJSONObject().optJSONObject(JsonFormConstants.STEP + i);
-                if (formStep != null) {
-                    checkIfStepIsBlank(formStep);
-                    if (shouldSkipStep()) {
+                String stepName = JsonFormConstants.STEP + i;
+                if (getJsonApi().getmJSONObject().has(stepName)) {
+                    if (!relevance.isStepRelevant(stepName)) {
                         getFragmentManager().popBackStack();
                     } else {
                         break;
@@ -410,6 +437,70 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
         }
     }
 
+    /**
+     * Evaluates the relevance of every field and step of the form for the current values, without building any view.
+     * The evaluation is shared with the other steps until a value changes, so going back over several skipped steps
+     * evaluates the form once.
+     *
+     * @return {@link StepRelevanceEvaluator.Result}
+     */
+    @NonNull
+    public StepRelevanceEvaluator.Result evaluateStepRelevance() {
+        return getJsonApi().getStepRelevance();
+    }
+
+    /**
+     * @return the form compiled by the activity, the form is only compiled here if the activity has not compiled it
+     */
+    @NonNull
+    private FormModel getFormModel() {
+        FormModel formModel = getJsonApi().getFormModel();
+        JSONObject form = getJsonApi().getmJSONObject();
+        return formModel != null && formModel.isCompiledFrom(form) ? formModel : FormModel.compile(form);
+    }
+
+    /**
+     * Finds the step to move to once a step is skipped. The steps after it with nothing to show are marked skipped
+     * and jumped over in one go instead of building the views of each of them in turn. Calculations only run when a
+     * step is built, so a step with calculations is never jumped over, it is moved to and skipped the usual way.
+     *
+     * @param skippedStep name of the step being skipped
+     * @param next        step after the skipped step
+     * @return the first step after the skipped step with something to show or with calculations, next if there is none
+     */
+    private String skipBlankStepsAfter(String skippedStep, String next) {
+        String target = evaluateStepRelevance().getNextRelevantStep(skippedStep);
+        if (target == null) {
+            return next;
+        }
+
+        JSONObject formStep = getJsonApi().getmJSONObject().optJSONObject(next);
+        while (formStep != null && !next.equals(target)) {
+            if (stepHasCalculations(next)) {
+                return next;
+            }
+            markStepAsSkipped(formStep);
+            next = formStep.optString(JsonFormConstants.NEXT, "");
+            formStep = getJsonApi().getmJSONObject().optJSONObject(next);
+        }
+        return target;
+    }
+
+    /**
+     * @return true if a field of the step has a calculation, which only runs once the views of the step are built
+     */
+    public boolean stepHasCalculations(String stepName) {
+        StepModel step = getFormModel().getStep(stepName);
+        if (step != null) {
+            for (FieldModel field : step.getFields()) {
+                if (field.hasCalculation()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * should not be used alone, use with {@link #nextStepHasNoSkipLogic()}
      * Checks if a given step is blank due to relevance hiding all the widgets
@@ -495,6 +586,13 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
         return mJsonApi;
     }
 
+    /**
+     * @return holds back the commits of the text typed in the fields of this step
+     */
+    public TextInputCoalescer getTextInputCoalescer() {
+        return textInputCoalescer;
+    }
+
     @Override
     protected JsonFormFragmentViewState createViewState() {
         return new JsonFormFragmentViewState();
@@ -503,6 +601,9 @@ public class JsonFormFragment extends MvpFragment<JsonFormFragmentPresenter, Jso
     @Override
     public void onViewCreated(View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
+        if (!isFormLoaded()) {
+            return;
+        }
         mJsonApi.clearFormDataViews();
         presenter.addFormElements();
     }
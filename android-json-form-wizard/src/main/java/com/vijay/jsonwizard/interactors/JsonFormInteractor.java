@@ -8,11 +8,13 @@ import android.view.View;
 import androidx.annotation.Nullable;
 
 import com.vijay.jsonwizard.R;
+import com.vijay.jsonwizard.activities.JsonFormActivity;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.fragments.JsonFormFragment;
 import com.vijay.jsonwizard.interfaces.CommonListener;
 import com.vijay.jsonwizard.interfaces.FormWidgetFactory;
 import com.vijay.jsonwizard.utils.Utils;
+import com.vijay.jsonwizard.views.CanvasViewRegistry;
 import com.vijay.jsonwizard.widgets.BarcodeFactory;
 import com.vijay.jsonwizard.widgets.BasicRDTCaptureFactory;
 import com.vijay.jsonwizard.widgets.ButtonFactory;
@@ -235,6 +237,7 @@ public class JsonFormInteractor {
                             Timber.e(e, "Exception encountered in getViewsFromJsoo");
                         }
                         if (views != null && views.size() > 0) {
+                            registerCanvasViews(formFragment, views);
                             viewsFromJson.addAll(views);
                         }
                     }
@@ -248,6 +251,15 @@ public class JsonFormInteractor {
 //
     }
 
+    private void registerCanvasViews(JsonFormFragment formFragment, List<View> views) {
+        if (formFragment.getActivity() instanceof JsonFormActivity) {
+            CanvasViewRegistry canvasViewRegistry = ((JsonFormActivity) formFragment.getActivity()).getCanvasViewRegistry();
+            for (View view : views) {
+                canvasViewRegistry.register(view);
+            }
+        }
+    }
+
     private void closeActivityAfterRuntimeException(JsonFormFragment jsonFormFragment, final RuntimeException e) {
         Timber.e(e);
 
@@ -4,7 +4,9 @@ import android.view.View;
 
 import com.vijay.jsonwizard.customviews.GenericPopupDialog;
 import com.vijay.jsonwizard.domain.Form;
+import com.vijay.jsonwizard.model.FormModel;
 import com.vijay.jsonwizard.rules.RulesEngineFactory;
+import com.vijay.jsonwizard.rules.StepRelevanceEvaluator;
 import com.vijay.jsonwizard.utils.AppExecutors;
 import com.vijay.jsonwizard.utils.ValidationStatus;
 
@@ -21,6 +23,9 @@ import java.util.Map;
  */
 public interface JsonApi extends ClientFormContract.View {
 
+    /**
+     * @return the live step on the ui thread, a snapshot of the step that must not be modified on any other thread
+     */
     JSONObject getStep(String stepName);
 
     void writeValue(String stepName, String key, String value, String openMrsEntityParent,
@@ -97,6 +102,17 @@ public interface JsonApi extends ClientFormContract.View {
 
     JSONObject getmJSONObject();
 
+    /**
+     * @return the compiled form, compiled once when the form is set and again when a step changes shape
+     */
+    FormModel getFormModel();
+
+    /**
+     * @return the relevance of the fields and steps for the current values, the form is evaluated again only after a
+     * value or a step changed, so the steps skipped during one navigation share one evaluation
+     */
+    StepRelevanceEvaluator.Result getStepRelevance();
+
     void setmJSONObject(JSONObject jsonObject);
 
     void updateGenericPopupSecondaryValues(JSONArray jsonArray, String stepName);
@@ -135,6 +151,23 @@ public interface JsonApi extends ClientFormContract.View {
 
     Map<String, JSONObject> getFormFieldsMap();
 
+    /**
+     * Tells the form that fields of a step were added, removed or changed in place instead of through writeValue,
+     * e.g. by a repeating group, so that the step is saved with the form session and background rule evaluators see
+     * the change. Call it on the ui thread once the change is complete.
+     *
+     * @param stepName name of the step that changed
+     */
+    void onStepChanged(String stepName);
+
+    /**
+     * Compiles the rule configuration of the fields of a step in the background before its views are built, e.g. for
+     * the next step while the current one is being filled
+     *
+     * @param stepName name of the step
+     */
+    void prefetchRuleBindings(String stepName);
+
     Map<String, Boolean> stepSkipLogicPresenceMap();
 
     boolean isNextStepRelevant();
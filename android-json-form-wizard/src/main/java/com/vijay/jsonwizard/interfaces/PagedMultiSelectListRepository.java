@@ -0,0 +1,31 @@
+package com.vijay.jsonwizard.interfaces;
+
+import androidx.annotation.NonNull;
+
+import com.vijay.jsonwizard.domain.MultiSelectItem;
+
+import org.json.JSONObject;
+
+import java.util.List;
+
+/**
+ * Source of a multi select list that is read a page at a time. A repository class implementing this interface is read
+ * page by page as the list is scrolled instead of through {@link MultiSelectListRepository#fetchData()}.
+ * <p>
+ * The items are listed in the order they are returned, they are neither sorted nor grouped by the widget. The
+ * {@code sort}, {@code sortClass} and {@code groupings} attributes of the widget are handed to the repository as a hint
+ * so that it can order the items, with group headers being items without a value. Searching only covers the pages read
+ * so far.
+ */
+public interface PagedMultiSelectListRepository {
+
+    /**
+     * Called on a background thread
+     *
+     * @param offset    number of items to skip
+     * @param limit     maximum number of items to return
+     * @param orderHint {@code sort}, {@code sortClass} and {@code groupings} attributes of the widget, where set
+     * @return items of the page, fewer than the limit once the last page is reached
+     */
+    List<MultiSelectItem> fetchPage(int offset, int limit, @NonNull JSONObject orderHint);
+}
@@ -63,7 +63,7 @@ public class ExpansionPanelUndoButtonClickListener implements View.OnClickListen
                         JSONObject item = fields.getJSONObject(i);
                         if (item != null && item.getString(JsonFormConstants.KEY).equals(parentKey) &&
                                 item.has(JsonFormConstants.VALUE)) {
-                            displayUndoDialog(context, item, mainJson, view);
+                            displayUndoDialog(context, item, mainJson, stepName, view);
                         }
                     }
                 }
@@ -73,8 +73,8 @@ public class ExpansionPanelUndoButtonClickListener implements View.OnClickListen
         }
     }
 
-    private void displayUndoDialog(Context context, final JSONObject item, final JSONObject mainJson, final View view)
-            throws JSONException {
+    private void displayUndoDialog(Context context, final JSONObject item, final JSONObject mainJson,
+                                   final String stepName, final View view) throws JSONException {
         Activity activity = (Activity) context;
         LayoutInflater inflater = activity.getLayoutInflater();
         View dialogLayout = getUndoDialogLayout(inflater);
@@ -111,6 +111,7 @@ public class ExpansionPanelUndoButtonClickListener implements View.OnClickListen
                 item.remove(JsonFormConstants.VALUE);
                 item.remove(JsonFormConstants.REQUIRED_FIELDS);
                 getJsonApi().setmJSONObject(mainJson);
+                getJsonApi().onStepChanged(stepName);
                 Utils.postEvent(expansionPanelEvent);
                 dialog.dismiss();
             }
@@ -0,0 +1,164 @@
+package com.vijay.jsonwizard.model;
+
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled representation of a form field.
+ * <p>
+ * The structural attributes (step, key, type, options and the presence of relevance, calculation and constraints) are
+ * resolved once when the form is compiled. The backing {@link JSONObject} is kept so that widgets keep writing values
+ * into the same object that is serialised when the form is saved.
+ */
+public class FieldModel {
+    private final int id;
+    private final String stepName;
+    private final String key;
+    private final String address;
+    private final String type;
+    private final JSONObject json;
+    private final List<OptionModel> options;
+    private final boolean hasRelevance;
+    private final boolean hasCalculation;
+    private final boolean hasConstraints;
+
+    FieldModel(int id, String stepName, JSONObject json) {
+        this.id = id;
+        this.stepName = stepName;
+        this.json = json;
+        this.key = json.optString(JsonFormConstants.KEY, "").intern();
+        this.type = json.optString(JsonFormConstants.TYPE, "").intern();
+        this.address = (stepName + "_" + key).intern();
+        this.options = compileOptions(json.optJSONArray(JsonFormConstants.OPTIONS_FIELD_NAME));
+        this.hasRelevance = json.has(JsonFormConstants.RELEVANCE);
+        this.hasCalculation = json.has(JsonFormConstants.CALCULATION);
+        this.hasConstraints = json.has(JsonFormConstants.CONSTRAINTS);
+    }
+
+    private FieldModel(int id, FieldModel field) {
+        this.id = id;
+        this.stepName = field.stepName;
+        this.json = field.json;
+        this.key = field.key;
+        this.type = field.type;
+        this.address = field.address;
+        this.options = field.options;
+        this.hasRelevance = field.hasRelevance;
+        this.hasCalculation = field.hasCalculation;
+        this.hasConstraints = field.hasConstraints;
+    }
+
+    /**
+     * @return this field under another id, the compiled attributes are shared
+     */
+    FieldModel withId(int newId) {
+        return newId == id ? this : new FieldModel(newId, this);
+    }
+
+    /**
+     * @return true if compiling the given field json again would give this field, e.g. when only values changed
+     */
+    boolean isCompiledFrom(JSONObject fieldJson) {
+        if (fieldJson != json || !key.equals(json.optString(JsonFormConstants.KEY, ""))
+                || !type.equals(json.optString(JsonFormConstants.TYPE, ""))
+                || hasRelevance != json.has(JsonFormConstants.RELEVANCE)
+                || hasCalculation != json.has(JsonFormConstants.CALCULATION)
+                || hasConstraints != json.has(JsonFormConstants.CONSTRAINTS)) {
+            return false;
+        }
+
+        JSONArray jsonOptions = json.optJSONArray(JsonFormConstants.OPTIONS_FIELD_NAME);
+        int optionCount = 0;
+        for (int i = 0; jsonOptions != null && i < jsonOptions.length(); i++) {
+            JSONObject option = jsonOptions.optJSONObject(i);
+            if (option == null) {
+                continue;
+            }
+            if (optionCount >= options.size() || options.get(optionCount).getJson() != option
+                    || !options.get(optionCount).getKey().equals(option.optString(JsonFormConstants.KEY, ""))) {
+                return false;
+            }
+            optionCount++;
+        }
+        return optionCount == options.size();
+    }
+
+    private static List<OptionModel> compileOptions(@Nullable JSONArray jsonOptions) {
+        if (jsonOptions == null || jsonOptions.length() == 0) {
+            return Collections.emptyList();
+        }
+
+        List<OptionModel> compiledOptions = new ArrayList<>(jsonOptions.length());
+        for (int i = 0; i < jsonOptions.length(); i++) {
+            JSONObject option = jsonOptions.optJSONObject(i);
+            if (option != null) {
+                compiledOptions.add(OptionModel.compile(option));
+            }
+        }
+        return Collections.unmodifiableList(compiledOptions);
+    }
+
+    /**
+     * @return the numeric id of this field, ids are assigned in form order starting from 0
+     */
+    public int getId() {
+        return id;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the field address in the form stepName_key, this is the key format used by the rules engine
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public JSONObject getJson() {
+        return json;
+    }
+
+    public List<OptionModel> getOptions() {
+        return options;
+    }
+
+    @Nullable
+    public OptionModel getOption(String optionKey) {
+        for (OptionModel option : options) {
+            if (option.getKey().equals(optionKey)) {
+                return option;
+            }
+        }
+        return null;
+    }
+
+    public boolean hasRelevance() {
+        return hasRelevance;
+    }
+
+    public boolean hasCalculation() {
+        return hasCalculation;
+    }
+
+    public boolean hasConstraints() {
+        return hasConstraints;
+    }
+}
@@ -0,0 +1,234 @@
+package com.vijay.jsonwizard.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, compiled view of a multi step json form.
+ * <p>
+ * The form is walked once when it is loaded and every step, field and option is indexed by name, address
+ * (stepName_key) and numeric id. The rules engine resolves fields through this model instead of re-walking the
+ * {@link JSONObject} tree on every relevance, calculation and constraint pass. Values are still written into the
+ * backing field objects, which is what gets serialised when the form is saved.
+ */
+public class FormModel {
+    private final JSONObject source;
+    private final List<StepModel> steps;
+    private final Map<String, StepModel> stepsByName;
+    private final List<FieldModel> fields;
+    private final Map<String, FieldModel> fieldsByAddress;
+    private final Map<String, FieldModel> fieldsByKey;
+
+    private FormModel(JSONObject source, List<StepModel> steps, List<FieldModel> fields) {
+        this.source = source;
+        this.steps = Collections.unmodifiableList(steps);
+        this.fields = Collections.unmodifiableList(fields);
+        this.stepsByName = new HashMap<>();
+        this.fieldsByAddress = new HashMap<>();
+        this.fieldsByKey = new HashMap<>();
+
+        for (StepModel step : steps) {
+            stepsByName.put(step.getName(), step);
+        }
+
+        for (FieldModel field : fields) {
+            fieldsByAddress.put(field.getAddress(), field);
+            if (!fieldsByKey.containsKey(field.getKey())) {
+                fieldsByKey.put(field.getKey(), field);
+            }
+        }
+    }
+
+    /**
+     * Compiles the form json into a {@link FormModel}
+     *
+     * @param form {@link JSONObject} the whole form json
+     * @return the compiled form
+     */
+    @NonNull
+    public static FormModel compile(@NonNull JSONObject form) {
+        List<StepModel> steps = new ArrayList<>();
+        List<FieldModel> fields = new ArrayList<>();
+
+        int count = form.optInt(JsonFormConstants.COUNT);
+        for (int stepNumber = 1; stepNumber <= count; stepNumber++) {
+            String stepName = (JsonFormConstants.STEP + stepNumber).intern();
+            JSONObject step = form.optJSONObject(stepName);
+            if (step == null) {
+                continue;
+            }
+
+            steps.add(compileStep(stepName, stepNumber, step, fields));
+        }
+
+        return new FormModel(form, steps, fields);
+    }
+
+    /**
+     * Compiles a step, its fields are added to the form fields and get ids following the fields already there
+     */
+    private static StepModel compileStep(String stepName, int stepNumber, JSONObject step, List<FieldModel> formFields) {
+        List<FieldModel> stepFields = new ArrayList<>();
+        for (JSONObject jsonField : getFieldJsons(step)) {
+            FieldModel field = new FieldModel(formFields.size(), stepName, jsonField);
+            formFields.add(field);
+            stepFields.add(field);
+        }
+        return new StepModel(stepName, stepNumber, step, stepFields);
+    }
+
+    /**
+     * @return the json of the fields of a step in form order, fields declared in sections are flattened
+     */
+    private static List<JSONObject> getFieldJsons(JSONObject step) {
+        List<JSONObject> jsonFields = new ArrayList<>();
+        JSONArray sections = step.optJSONArray(JsonFormConstants.SECTIONS);
+        if (sections != null) {
+            for (int i = 0; i < sections.length(); i++) {
+                JSONObject section = sections.optJSONObject(i);
+                if (section != null) {
+                    addFieldJsons(section.optJSONArray(JsonFormConstants.FIELDS), jsonFields);
+                }
+            }
+        } else {
+            addFieldJsons(step.optJSONArray(JsonFormConstants.FIELDS), jsonFields);
+        }
+        return jsonFields;
+    }
+
+    private static void addFieldJsons(@Nullable JSONArray fields, List<JSONObject> jsonFields) {
+        if (fields == null) {
+            return;
+        }
+
+        for (int i = 0; i < fields.length(); i++) {
+            JSONObject jsonField = fields.optJSONObject(i);
+            if (jsonField != null && jsonField.has(JsonFormConstants.KEY)) {
+                jsonFields.add(jsonField);
+            }
+        }
+    }
+
+    /**
+     * Brings one step up to date with the form json after the step was changed in place, e.g. fields were added to it
+     * by a repeating group. The step is only compiled again if its fields changed shape, the other steps are shared
+     * with this model and the fields after the step only get new ids.
+     *
+     * @param stepName name of the step that changed
+     * @return this model if the step did not change shape, an updated model otherwise
+     */
+    @NonNull
+    public FormModel withStep(@NonNull String stepName) {
+        StepModel current = stepsByName.get(stepName);
+        JSONObject step = source.optJSONObject(stepName);
+        if (current == null || step == null) {
+            // Steps are only ever changed in place, a step that was added or removed changes the whole form
+            return compile(source);
+        }
+        if (current.getJson() == step && isStepCompiledFrom(current, step)) {
+            return this;
+        }
+
+        List<StepModel> updatedSteps = new ArrayList<>(steps.size());
+        List<FieldModel> updatedFields = new ArrayList<>(fields.size());
+        for (StepModel stepModel : steps) {
+            if (stepModel == current) {
+                updatedSteps.add(compileStep(stepName, current.getNumber(), step, updatedFields));
+                continue;
+            }
+
+            List<FieldModel> stepFields = new ArrayList<>(stepModel.getFields().size());
+            for (FieldModel field : stepModel.getFields()) {
+                FieldModel updatedField = field.withId(updatedFields.size());
+                updatedFields.add(updatedField);
+                stepFields.add(updatedField);
+            }
+            updatedSteps.add(stepFields.equals(stepModel.getFields()) ? stepModel :
+                    new StepModel(stepModel.getName(), stepModel.getNumber(), stepModel.getJson(), stepFields));
+        }
+        return new FormModel(source, updatedSteps, updatedFields);
+    }
+
+    private static boolean isStepCompiledFrom(StepModel stepModel, JSONObject step) {
+        List<JSONObject> jsonFields = getFieldJsons(step);
+        List<FieldModel> stepFields = stepModel.getFields();
+        if (jsonFields.size() != stepFields.size()) {
+            return false;
+        }
+        for (int i = 0; i < jsonFields.size(); i++) {
+            if (!stepFields.get(i).isCompiledFrom(jsonFields.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param form {@link JSONObject}
+     * @return true if this model was compiled from the given form instance
+     */
+    public boolean isCompiledFrom(@Nullable JSONObject form) {
+        return source == form;
+    }
+
+    public List<StepModel> getSteps() {
+        return steps;
+    }
+
+    @Nullable
+    public StepModel getStep(String stepName) {
+        return stepsByName.get(stepName);
+    }
+
+    /**
+     * @return all the compiled fields in form order, the index of each field is its id
+     */
+    public List<FieldModel> getFields() {
+        return fields;
+    }
+
+    @Nullable
+    public FieldModel getField(int id) {
+        return id >= 0 && id < fields.size() ? fields.get(id) : null;
+    }
+
+    /**
+     * @param address field address in the form stepName_key
+     * @return the field or null if the form has no such field
+     */
+    @Nullable
+    public FieldModel getField(String address) {
+        return fieldsByAddress.get(address);
+    }
+
+    @Nullable
+    public FieldModel getField(String stepName, String key) {
+        return fieldsByAddress.get(stepName + "_" + key);
+    }
+
+    /**
+     * Finds the first field in the form with the given key regardless of the step it is in
+     *
+     * @param key field key
+     * @return the field or null if the form has no such field
+     */
+    @Nullable
+    public FieldModel findFieldByKey(String key) {
+        return fieldsByKey.get(key);
+    }
+
+    public int getFieldCount() {
+        return fields.size();
+    }
+}
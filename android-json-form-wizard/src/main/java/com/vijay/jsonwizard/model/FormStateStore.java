@@ -0,0 +1,322 @@
+package com.vijay.jsonwizard.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+import com.vijay.jsonwizard.utils.JsonUtils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import timber.log.Timber;
+
+/**
+ * Owner of the mutable form json.
+ * <p>
+ * The live form belongs to the thread the store is created on, the ui thread of the form activity, and is only read
+ * and changed there. Mutations from that thread are applied straight away with {@link #write(Mutation)}, mutations from
+ * other threads are queued with {@link #enqueue(Mutation)} on the serial mutation queue of the owner thread and applied
+ * in submission order. No lock is taken, so the owner thread never waits for a background reader.
+ * <p>
+ * Other threads read immutable snapshots. Snapshots are copy-on-write per step: publishing a field copies the field and
+ * the path to it within its step, and swaps in a new step, so background readers never see a field half way through a
+ * write. A snapshot reflects a field as of its last {@link #publish(String, JSONObject)}, which the form activity does
+ * after every value write, and a step as of its last {@link #publishStep(String)}, which it does after a step was
+ * changed in place. The entries of the form other than steps are small and are copied after every mutation.
+ */
+public class FormStateStore {
+
+    public interface Mutation {
+        void apply(@NonNull JSONObject form) throws JSONException;
+    }
+
+    public interface Query<T> {
+        /**
+         * @param form the live form on the owner thread, a snapshot of it on any other thread, which must not be
+         *             modified
+         */
+        T apply(@NonNull JSONObject form) throws JSONException;
+    }
+
+    // Stands for a step among the entries of the root snapshot, so the form is assembled in its own order
+    private static final Object STEP_ENTRY = new Object();
+    private final Executor mutationQueue;
+    private final Thread ownerThread;
+    private JSONObject form;
+    private volatile Map<String, StepSnapshot> stepSnapshots = Collections.emptyMap();
+    private volatile Map<String, Object> rootSnapshot = Collections.emptyMap();
+
+    /**
+     * @param form          the form json
+     * @param mutationQueue serial queue that runs tasks on the thread creating the store
+     */
+    public FormStateStore(@NonNull JSONObject form, @NonNull Executor mutationQueue) {
+        this.form = form;
+        this.mutationQueue = mutationQueue;
+        this.ownerThread = Thread.currentThread();
+    }
+
+    /**
+     * Replaces the form and snapshots all of it. Call it on the owner thread when the form object is replaced, steps
+     * changed in place are published with {@link #publishStep(String)}.
+     *
+     * @param form the form json
+     */
+    public void reset(@NonNull JSONObject form) {
+        this.form = form;
+        Map<String, StepSnapshot> snapshots = new HashMap<>();
+        Iterator<String> names = form.keys();
+        while (names.hasNext()) {
+            String name = names.next();
+            JSONObject step = getStep(form, name);
+            if (step != null) {
+                snapshots.put(name, StepSnapshot.of(name, JsonUtils.deepCopy(step)));
+            }
+        }
+        stepSnapshots = Collections.unmodifiableMap(snapshots);
+        publishRoot();
+    }
+
+    /**
+     * Runs a query against the live form on the owner thread, and against a snapshot of the form on any other thread
+     */
+    public <T> T read(@NonNull Query<T> query) throws JSONException {
+        return query.apply(isOwnerThread() ? form : getSnapshot());
+    }
+
+    /**
+     * Applies a mutation on the owner thread, mutations from any other thread are queued
+     */
+    public void write(@NonNull Mutation mutation) throws JSONException {
+        if (!isOwnerThread()) {
+            enqueue(mutation);
+            return;
+        }
+        mutation.apply(form);
+        publishRoot();
+    }
+
+    /**
+     * Queues a mutation on the serial mutation queue, mutations are applied one at a time in submission order
+     */
+    public void enqueue(@NonNull final Mutation mutation) {
+        mutationQueue.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mutation.apply(form);
+                    publishRoot();
+                } catch (JSONException e) {
+                    Timber.e(e, "FormStateStore --> enqueue");
+                }
+            }
+        });
+    }
+
+    /**
+     * Publishes a new snapshot of a field. Call it on the owner thread once the write is complete.
+     *
+     * @param address field address in the form stepName_key
+     * @param field   the live field json
+     */
+    public void publish(@NonNull String address, @Nullable JSONObject field) {
+        String stepName = getStepName(address);
+        StepSnapshot current = stepSnapshots.get(stepName);
+        StepSnapshot step = current != null ? current.with(address, field != null ? JsonUtils.deepCopy(field) : null) :
+                StepSnapshot.detached(address, field != null ? JsonUtils.deepCopy(field) : null);
+        putStepSnapshot(stepName, step);
+    }
+
+    /**
+     * Replaces the snapshot of a step with a copy of the live step, e.g. after fields were added to it or removed from
+     * it. Call it on the owner thread once the change is complete.
+     *
+     * @param stepName the step name
+     */
+    public void publishStep(@NonNull String stepName) {
+        JSONObject step = getStep(form, stepName);
+        if (step != null) {
+            putStepSnapshot(stepName, StepSnapshot.of(stepName, JsonUtils.deepCopy(step)));
+        } else {
+            Map<String, StepSnapshot> snapshots = new HashMap<>(stepSnapshots);
+            snapshots.remove(stepName);
+            stepSnapshots = Collections.unmodifiableMap(snapshots);
+        }
+        publishRoot();
+    }
+
+    /**
+     * Returns a private copy of the last published snapshot of a field. The copy can be annotated by the caller, nested
+     * objects and arrays are shared with the snapshot and must not be modified.
+     *
+     * @param address field address in the form stepName_key
+     * @return the snapshot copy or null if the field has never been published
+     */
+    @Nullable
+    public JSONObject getFieldSnapshot(@NonNull String address) {
+        StepSnapshot step = stepSnapshots.get(getStepName(address));
+        JSONObject snapshot = step != null ? step.fields.get(address) : null;
+        return snapshot != null ? JsonUtils.shallowCopy(snapshot) : null;
+    }
+
+    private boolean isOwnerThread() {
+        return Thread.currentThread() == ownerThread;
+    }
+
+    private void putStepSnapshot(String stepName, StepSnapshot step) {
+        Map<String, StepSnapshot> snapshots = new HashMap<>(stepSnapshots);
+        snapshots.put(stepName, step);
+        stepSnapshots = Collections.unmodifiableMap(snapshots);
+    }
+
+    private void publishRoot() {
+        Map<String, Object> root = new LinkedHashMap<>();
+        Iterator<String> names = form.keys();
+        while (names.hasNext()) {
+            String name = names.next();
+            Object value = form.opt(name);
+            if (getStep(form, name) != null) {
+                root.put(name, STEP_ENTRY);
+            } else {
+                root.put(name, value instanceof JSONObject ? JsonUtils.deepCopy((JSONObject) value) :
+                        value instanceof JSONArray ? JsonUtils.deepCopy((JSONArray) value) : value);
+            }
+        }
+        rootSnapshot = Collections.unmodifiableMap(root);
+    }
+
+    /**
+     * Assembles the form from the snapshots, the steps and other entries are shared with the snapshots
+     */
+    private JSONObject getSnapshot() throws JSONException {
+        Map<String, StepSnapshot> steps = stepSnapshots;
+        JSONObject snapshot = new JSONObject();
+        for (Map.Entry<String, Object> entry : rootSnapshot.entrySet()) {
+            if (entry.getValue() != STEP_ENTRY) {
+                snapshot.put(entry.getKey(), entry.getValue());
+            } else if (steps.containsKey(entry.getKey()) && steps.get(entry.getKey()).json != null) {
+                snapshot.put(entry.getKey(), steps.get(entry.getKey()).json);
+            }
+        }
+        return snapshot;
+    }
+
+    @Nullable
+    private static JSONObject getStep(JSONObject form, String name) {
+        return name.startsWith(JsonFormConstants.STEP) ? form.optJSONObject(name) : null;
+    }
+
+    private static String getStepName(String address) {
+        int separator = address.indexOf('_');
+        return separator < 0 ? address : address.substring(0, separator);
+    }
+
+    /**
+     * Immutable copy of a step, with its fields indexed by address. A field is located by the index of its section,
+     * -1 if the step has no sections, and its index in the fields array.
+     */
+    private static final class StepSnapshot {
+        @Nullable
+        private final JSONObject json;
+        private final Map<String, JSONObject> fields;
+        private final Map<String, int[]> locations;
+
+        private StepSnapshot(@Nullable JSONObject json, Map<String, JSONObject> fields, Map<String, int[]> locations) {
+            this.json = json;
+            this.fields = fields;
+            this.locations = locations;
+        }
+
+        static StepSnapshot of(String stepName, JSONObject json) {
+            Map<String, JSONObject> fields = new HashMap<>();
+            Map<String, int[]> locations = new HashMap<>();
+            JSONArray sections = json.optJSONArray(JsonFormConstants.SECTIONS);
+            if (sections != null) {
+                for (int i = 0; i < sections.length(); i++) {
+                    JSONObject section = sections.optJSONObject(i);
+                    if (section != null) {
+                        index(stepName, i, section.optJSONArray(JsonFormConstants.FIELDS), fields, locations);
+                    }
+                }
+            } else {
+                index(stepName, -1, json.optJSONArray(JsonFormConstants.FIELDS), fields, locations);
+            }
+            return new StepSnapshot(json, Collections.unmodifiableMap(fields), Collections.unmodifiableMap(locations));
+        }
+
+        /**
+         * @return the snapshot of a field whose step has not been published
+         */
+        static StepSnapshot detached(String address, @Nullable JSONObject field) {
+            Map<String, JSONObject> fields = new HashMap<>();
+            if (field != null) {
+                fields.put(address, field);
+            }
+            return new StepSnapshot(null, fields, Collections.<String, int[]>emptyMap());
+        }
+
+        private static void index(String stepName, int section, @Nullable JSONArray jsonFields,
+                                  Map<String, JSONObject> fields, Map<String, int[]> locations) {
+            for (int i = 0; jsonFields != null && i < jsonFields.length(); i++) {
+                JSONObject field = jsonFields.optJSONObject(i);
+                if (field != null && field.has(JsonFormConstants.KEY)) {
+                    String address = stepName + "_" + field.optString(JsonFormConstants.KEY);
+                    fields.put(address, field);
+                    locations.put(address, new int[]{section, i});
+                }
+            }
+        }
+
+        /**
+         * @return a copy of this step with the field replaced, only the arrays and objects on the path to the field
+         * are copied. A field that is not part of the step json is kept by its address only.
+         */
+        StepSnapshot with(String address, @Nullable JSONObject field) {
+            Map<String, JSONObject> updatedFields = new HashMap<>(fields);
+            int[] location = locations.get(address);
+            if (field == null || json == null || location == null) {
+                if (field != null) {
+                    updatedFields.put(address, field);
+                } else {
+                    updatedFields.remove(address);
+                }
+                return new StepSnapshot(json, Collections.unmodifiableMap(updatedFields), locations);
+            }
+
+            JSONObject updatedJson = JsonUtils.shallowCopy(json);
+            try {
+                if (location[0] < 0) {
+                    updatedJson.put(JsonFormConstants.FIELDS, withField(json.getJSONArray(JsonFormConstants.FIELDS),
+                            location[1], field));
+                } else {
+                    JSONArray sections = JsonUtils.shallowCopy(json.getJSONArray(JsonFormConstants.SECTIONS));
+                    JSONObject section = JsonUtils.shallowCopy(sections.getJSONObject(location[0]));
+                    section.put(JsonFormConstants.FIELDS, withField(section.getJSONArray(JsonFormConstants.FIELDS),
+                            location[1], field));
+                    sections.put(location[0], section);
+                    updatedJson.put(JsonFormConstants.SECTIONS, sections);
+                }
+            } catch (JSONException e) {
+                // The snapshot was indexed from this json, the path to the field exists
+                throw new IllegalStateException(e);
+            }
+            updatedFields.put(address, field);
+            return new StepSnapshot(updatedJson, Collections.unmodifiableMap(updatedFields), locations);
+        }
+
+        private static JSONArray withField(JSONArray fields, int index, JSONObject field) throws JSONException {
+            JSONArray updatedFields = JsonUtils.shallowCopy(fields);
+            updatedFields.put(index, field);
+            return updatedFields;
+        }
+    }
+}
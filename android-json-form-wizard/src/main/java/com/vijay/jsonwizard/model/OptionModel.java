@@ -0,0 +1,38 @@
+package com.vijay.jsonwizard.model;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONObject;
+
+/**
+ * Compiled representation of a single option of a checkbox, radio button or expansion panel widget.
+ */
+public class OptionModel {
+    private final String key;
+    private final JSONObject json;
+
+    OptionModel(String key, JSONObject json) {
+        this.key = key;
+        this.json = json;
+    }
+
+    static OptionModel compile(JSONObject option) {
+        String key = option.optString(JsonFormConstants.KEY, "").intern();
+        return new OptionModel(key, option);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public boolean hasSubForm() {
+        return json.has(JsonFormConstants.CONTENT_FORM);
+    }
+
+    /**
+     * @return the backing option json, this is where the option value is written and read from on save
+     */
+    public JSONObject getJson() {
+        return json;
+    }
+}
@@ -0,0 +1,55 @@
+package com.vijay.jsonwizard.model;
+
+import androidx.annotation.Nullable;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled representation of a single form step. Fields declared in sections are flattened into the step in the order
+ * they appear in the form.
+ */
+public class StepModel {
+    private final String name;
+    private final int number;
+    private final JSONObject json;
+    private final List<FieldModel> fields;
+
+    StepModel(String name, int number, JSONObject json, List<FieldModel> fields) {
+        this.name = name;
+        this.number = number;
+        this.json = json;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the step number, step1 is 1
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    public JSONObject getJson() {
+        return json;
+    }
+
+    public List<FieldModel> getFields() {
+        return fields;
+    }
+
+    @Nullable
+    public FieldModel getField(String key) {
+        for (FieldModel field : fields) {
+            if (field.getKey().equals(key)) {
+                return field;
+            }
+        }
+        return null;
+    }
+}
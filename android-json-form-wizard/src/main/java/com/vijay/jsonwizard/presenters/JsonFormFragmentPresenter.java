@@ -58,6 +58,7 @@ import com.vijay.jsonwizard.task.ExpansionPanelGenericPopupDialogTask;
 import com.vijay.jsonwizard.utils.FormUtils;
 import com.vijay.jsonwizard.utils.ImageUtils;
 import com.vijay.jsonwizard.utils.PermissionUtils;
+import com.vijay.jsonwizard.utils.TextInputCoalescer;
 import com.vijay.jsonwizard.utils.Utils;
 import com.vijay.jsonwizard.utils.ValidationStatus;
 import com.vijay.jsonwizard.views.CustomTextView;
@@ -306,6 +307,7 @@ public class JsonFormFragmentPresenter extends
                             }
                             String next = mStepDetails.optString(JsonFormConstants.NEXT);
                             formFragment.getJsonApi().setNextStep(next);
+                            prefetchNextStep(next);
                         }
                     }
                 });
@@ -340,10 +342,21 @@ public class JsonFormFragmentPresenter extends
     }
 
     public void onBackClick() {
+        commitPendingInput();
         getView().hideKeyBoard();
         getView().backClick();
     }
 
+    /**
+     * Commits the text still held back while the user was typing so that validation and the form see the final values
+     */
+    protected void commitPendingInput() {
+        TextInputCoalescer textInputCoalescer = formFragment != null ? formFragment.getTextInputCoalescer() : null;
+        if (textInputCoalescer != null) {
+            textInputCoalescer.flushAll();
+        }
+    }
+
     public Stack<String> getIncorrectlyFormattedFields() {
         return incorrectlyFormattedFields;
     }
@@ -357,6 +370,7 @@ public class JsonFormFragmentPresenter extends
     }
 
     public boolean onNextClick(LinearLayout mainView) {
+        commitPendingInput();
         validateAndWriteValues();
         checkAndStopCountdownAlarm();
         boolean validateOnSubmit = validateOnSubmit();
@@ -557,15 +571,23 @@ public class JsonFormFragmentPresenter extends
         return entireJsonForm.optBoolean(JsonFormConstants.VALIDATE_ON_SUBMIT, false);
     }
 
+    /**
+     * Finds out whether the next step has anything to show from the step relevance of the form, without building its
+     * views, and skips it if it has not
+     *
+     * @return true if the next step was skipped
+     */
     public boolean executeRefreshLogicForNextStep() {
         boolean isSkipped = false;
         final String nextStep = getFormFragment().getJsonApi().nextStep();
         if (StringUtils.isNotBlank(nextStep)) {
-            getmJsonFormInteractor().fetchFormElements(nextStep, getFormFragment(), getFormFragment().getJsonApi().getmJSONObject().optJSONObject(nextStep), getView().getCommonListener(), false);
-            getFormFragment().getJsonApi().initializeDependencyMaps();
             cleanDataForNextStep();
-            getFormFragment().getJsonApi().invokeRefreshLogic(null, false, null, null, nextStep, true);
-            if (!getFormFragment().getJsonApi().isNextStepRelevant()) {
+            boolean isNextStepRelevant = getFormFragment().evaluateStepRelevance().isStepRelevant(nextStep);
+            if (!isNextStepRelevant && getFormFragment().stepHasCalculations(nextStep)) {
+                runCalculationsOfSkippedStep(nextStep);
+            }
+            getFormFragment().getJsonApi().setNextStepRelevant(isNextStepRelevant);
+            if (!isNextStepRelevant) {
                 Utils.checkIfStepHasNoSkipLogic(getFormFragment());
             }
             isSkipped = getFormFragment().skipStepsOnNextPressed(nextStep);
@@ -573,6 +595,36 @@ public class JsonFormFragmentPresenter extends
         return isSkipped;
     }
 
+    /**
+     * Calculations only run on the views of a step, so the views of a step that is about to be skipped are built to
+     * run them before the step is skipped
+     *
+     * @param stepName name of the skipped step
+     */
+    private void runCalculationsOfSkippedStep(String stepName) {
+        getmJsonFormInteractor().fetchFormElements(stepName, getFormFragment(),
+                getFormFragment().getJsonApi().getmJSONObject().optJSONObject(stepName), getView().getCommonListener(),
+                false);
+        getFormFragment().getJsonApi().initializeDependencyMaps();
+        getFormFragment().getJsonApi().invokeRefreshLogic(null, false, null, null, stepName, true);
+    }
+
+    /**
+     * Loads the rules files of the next step and compiles the rule configuration of its fields in the background while
+     * this step is being filled, so that the next step is refreshed without reading and parsing them first once its
+     * views are built. The files are found in the form on this thread, the background only reads the files.
+     *
+     * @param nextStep name of the step after this one
+     */
+    @VisibleForTesting
+    void prefetchNextStep(String nextStep) {
+        if (StringUtils.isBlank(nextStep) || cleanupAndExit) {
+            return;
+        }
+        loadRuleFiles(getRuleFiles(formFragment.getJsonApi().getmJSONObject().optJSONObject(nextStep)));
+        formFragment.getJsonApi().prefetchRuleBindings(nextStep);
+    }
+
     private void cleanDataForNextStep() {
         getFormFragment().getJsonApi().setNextStepRelevant(false);
     }
@@ -633,6 +685,7 @@ public class JsonFormFragmentPresenter extends
     }
 
     public void onSaveClick(LinearLayout mainView) {
+        commitPendingInput();
         validateAndWriteValues();
         checkAndStopCountdownAlarm();
         boolean isFormValid = isFormValid();
@@ -1227,23 +1280,29 @@ public class JsonFormFragmentPresenter extends
 
 
     private void preLoadRules(String stepName, JSONObject formJSONObject) {
+        loadRuleFiles(getRuleFiles(formJSONObject.optJSONObject(stepName)));
+    }
+
+    private Set<String> getRuleFiles(JSONObject step) {
         Set<String> ruleFiles = new HashSet<>();
-        JSONObject step = formJSONObject.optJSONObject(stepName);
         if (step == null)
-            return;
+            return ruleFiles;
         JSONArray fields = step.optJSONArray(JsonFormConstants.FIELDS);
         if (fields == null)
-            return;
+            return ruleFiles;
         for (int i = 0; i < fields.length(); i++) {
             if (cleanupAndExit)
-                return;
+                return ruleFiles;
             JSONObject calculation = fields.optJSONObject(i).optJSONObject(JsonFormConstants.CALCULATION);
             JSONObject relevance = fields.optJSONObject(i).optJSONObject(JsonFormConstants.RELEVANCE);
 
             addRules(calculation, ruleFiles);
             addRules(relevance, ruleFiles);
         }
+        return ruleFiles;
+    }
 
+    private void loadRuleFiles(Set<String> ruleFiles) {
         for (final String fileName : ruleFiles) {
             formFragment.getJsonApi().getAppExecutors().diskIO().execute(new Runnable() {
                 @Override
@@ -17,7 +17,7 @@ public class JsonWizardFormFragmentPresenter extends JsonFormFragmentPresenter {
 
     @Override
     public boolean onNextClick(LinearLayout mainViews) {
-
+        commitPendingInput();
         validateAndWriteValues();
         checkAndStopCountdownAlarm();
 
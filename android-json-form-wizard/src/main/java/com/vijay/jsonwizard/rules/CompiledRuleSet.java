@@ -0,0 +1,253 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+import org.jeasy.rules.api.RuleListener;
+import org.jeasy.rules.core.BasicRule;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.mvel2.MVEL;
+import org.mvel2.integration.VariableResolverFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import timber.log.Timber;
+
+/**
+ * Rules of one rule file, or one dynamic rule set, indexed by name with their conditions and actions compiled once.
+ * <p>
+ * The form always selects a single rule by name, so firing looks the rule up instead of letting the rules engine walk
+ * every rule in the file. Firing keeps the semantics of the engine as the factory configures it: rules sharing a name
+ * are tried in priority order, a rule whose condition fails to evaluate is skipped, a rule whose action fails lets the
+ * next one run, and firing stops at the first rule applied. A {@link RuleListener} is called around every rule as
+ * the engine calls its listeners, a rule the listener does not want evaluated is skipped.
+ * <p>
+ * Composite rules and rules that fail to compile are not indexed, {@link #canFire(String)} returns false for them and
+ * the caller has to fall back to the rules engine.
+ * <p>
+ * Rules that call the helper, e.g. to count days up to today, can give another result for the same facts,
+ * {@link #canCache(String)} returns false for them.
+ */
+public class CompiledRuleSet {
+
+    private static final Pattern HELPER_REFERENCE = Pattern.compile("\\bhelper\\b");
+
+    private final Map<String, List<CompiledRule>> rulesByName;
+    private final Set<String> engineOnlyRules;
+    private final Set<String> uncacheableRules;
+
+    private CompiledRuleSet(Map<String, List<CompiledRule>> rulesByName, Set<String> engineOnlyRules,
+                            Set<String> uncacheableRules) {
+        this.rulesByName = rulesByName;
+        this.engineOnlyRules = engineOnlyRules;
+        this.uncacheableRules = uncacheableRules;
+    }
+
+    @NonNull
+    public static CompiledRuleSet fromDefinitions(@NonNull List<RuleFile.Definition> ruleDefinitions) {
+        Builder builder = new Builder();
+        for (RuleFile.Definition ruleDefinition : ruleDefinitions) {
+            if (ruleDefinition.isComposite()) {
+                builder.addEngineOnlyRule(ruleDefinition.getName());
+            } else {
+                builder.addRule(ruleDefinition.getName(), ruleDefinition.getDescription(), ruleDefinition.getPriority(),
+                        ruleDefinition.getCondition(), ruleDefinition.getActions());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Compiles a dynamic rule set, the entry holding the rule set key is skipped
+     *
+     * @param jsonArray rules-dynamic json array
+     */
+    @NonNull
+    public static CompiledRuleSet fromJsonArray(@NonNull JSONArray jsonArray) {
+        Builder builder = new Builder();
+        for (int i = 0; i < jsonArray.length(); i++) {
+            JSONObject jsonRuleObject = jsonArray.optJSONObject(i);
+            if (jsonRuleObject != null && !jsonRuleObject.has(JsonFormConstants.KEY)) {
+                builder.addRule(jsonRuleObject.optString(RuleConstant.NAME),
+                        jsonRuleObject.optString(RuleConstant.DESCRIPTION), jsonRuleObject.optInt(RuleConstant.PRIORITY),
+                        jsonRuleObject.optString(RuleConstant.CONDITION),
+                        Collections.singletonList(jsonRuleObject.optString(RuleConstant.ACTIONS)));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return false if the rule has to be fired through the rules engine
+     */
+    public boolean canFire(@Nullable String ruleName) {
+        return !engineOnlyRules.contains(ruleName);
+    }
+
+    /**
+     * @return false if the result of the rule does not only depend on the facts passed in, so it must not be cached.
+     * Rules left to the rules engine are not cached either.
+     */
+    public boolean canCache(@Nullable String ruleName) {
+        return !engineOnlyRules.contains(ruleName) && !uncacheableRules.contains(ruleName);
+    }
+
+    /**
+     * Fires the named rule against the facts, does nothing if there is no rule with that name
+     *
+     * @param ruleName the selected rule
+     * @param facts    resolves the facts the rule reads, variables assigned by the actions are created in its first layer
+     */
+    public void fire(@Nullable String ruleName, @NonNull VariableResolverFactory facts) {
+        fire(ruleName, facts, null, null);
+    }
+
+    /**
+     * Fires the named rule against the facts and calls the listener around every rule as the rules engine does
+     *
+     * @param ruleName      the selected rule
+     * @param facts         resolves the facts the rule reads, variables assigned by the actions are created in its first
+     *                      layer
+     * @param listener      listener of the rules, null if there is none
+     * @param listenerFacts facts handed to the listener
+     */
+    public void fire(@Nullable String ruleName, @NonNull VariableResolverFactory facts, @Nullable RuleListener listener,
+                     @Nullable Facts listenerFacts) {
+        List<CompiledRule> rules = rulesByName.get(ruleName);
+        if (rules == null) {
+            return;
+        }
+
+        for (CompiledRule rule : rules) {
+            if (listener != null && !listener.beforeEvaluate(rule.rule, listenerFacts)) {
+                continue;
+            }
+
+            boolean applies = false;
+            try {
+                applies = rule.evaluate(facts);
+            } catch (RuntimeException e) {
+                Timber.e(e, "CompiledRuleSet --> evaluating %s", ruleName);
+            }
+            if (listener != null) {
+                listener.afterEvaluate(rule.rule, listenerFacts, applies);
+            }
+
+            if (applies) {
+                if (listener != null) {
+                    listener.beforeExecute(rule.rule, listenerFacts);
+                }
+                try {
+                    rule.execute(facts);
+                    if (listener != null) {
+                        listener.onSuccess(rule.rule, listenerFacts);
+                    }
+                    return;
+                } catch (RuntimeException e) {
+                    Timber.e(e, "CompiledRuleSet --> executing %s", ruleName);
+                    if (listener != null) {
+                        listener.onFailure(rule.rule, listenerFacts, e);
+                    }
+                }
+            }
+        }
+    }
+
+    private static final class Builder {
+        private final Map<String, List<CompiledRule>> rulesByName = new HashMap<>();
+        private final Set<String> engineOnlyRules = new HashSet<>();
+        private final Set<String> uncacheableRules = new HashSet<>();
+
+        private void addRule(String name, String description, int priority, String condition, List<String> actions) {
+            if (callsHelper(condition, actions)) {
+                uncacheableRules.add(name);
+            }
+
+            CompiledRule rule;
+            try {
+                rule = new CompiledRule(new BasicRule(name, description, priority), condition, actions);
+            } catch (RuntimeException e) {
+                Timber.e(e, "CompiledRuleSet --> compiling %s", name);
+                addEngineOnlyRule(name);
+                return;
+            }
+
+            List<CompiledRule> rules = rulesByName.get(name);
+            if (rules == null) {
+                rules = new ArrayList<>();
+                rulesByName.put(name, rules);
+            }
+
+            // Rules with the same name and priority are duplicates for the engine, only the first one registered is kept
+            int index = 0;
+            while (index < rules.size() && rules.get(index).priority <= priority) {
+                if (rules.get(index).priority == priority) {
+                    return;
+                }
+                index++;
+            }
+            rules.add(index, rule);
+        }
+
+        private void addEngineOnlyRule(String name) {
+            engineOnlyRules.add(name);
+        }
+
+        private static boolean callsHelper(String condition, List<String> actions) {
+            if (condition != null && HELPER_REFERENCE.matcher(condition).find()) {
+                return true;
+            }
+            for (String action : actions) {
+                if (HELPER_REFERENCE.matcher(action).find()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private CompiledRuleSet build() {
+            return new CompiledRuleSet(rulesByName, engineOnlyRules, uncacheableRules);
+        }
+    }
+
+    private static final class CompiledRule {
+        // Describes the rule to listeners, it is never fired
+        private final Rule rule;
+        private final int priority;
+        private final Serializable condition;
+        private final List<Serializable> actions;
+
+        private CompiledRule(Rule rule, String condition, List<String> actions) {
+            this.rule = rule;
+            this.priority = rule.getPriority();
+            this.condition = MVEL.compileExpression(condition);
+            this.actions = new ArrayList<>(actions.size());
+            for (String action : actions) {
+                this.actions.add(MVEL.compileExpression(action));
+            }
+        }
+
+        private boolean evaluate(VariableResolverFactory facts) {
+            return (Boolean) MVEL.executeExpression(condition, facts);
+        }
+
+        private void execute(VariableResolverFactory facts) {
+            for (Serializable action : actions) {
+                MVEL.executeExpression(action, facts);
+            }
+        }
+    }
+}
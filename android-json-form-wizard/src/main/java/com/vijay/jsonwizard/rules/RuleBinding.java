@@ -0,0 +1,345 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import timber.log.Timber;
+
+/**
+ * Compiled relevance, calculation and constraint configuration of a single widget view.
+ * <p>
+ * Widget factories attach the rule configuration to their views as json strings. Parsing those strings and resolving
+ * the rule addresses is done once per view by {@link #compile(String, String, Object, String, String, String)} and the
+ * result is kept on the view so that the refresh loops do not parse json on every value change.
+ */
+public class RuleBinding {
+    private final String addressString;
+    private final String[] address;
+    private final String stepName;
+    private final String widgetKey;
+    private final boolean popup;
+    private final int[] canvasIds;
+    private final Descriptor relevance;
+    private final Descriptor calculation;
+    private final JSONObject calculationValueSource;
+    private final JSONArray nativeConstraints;
+    private final List<String> nativeConstraintReferences;
+    private final List<Descriptor> constraints;
+
+    private RuleBinding(String addressString, String widgetKey, boolean popup, int[] canvasIds, Descriptor relevance,
+                        Descriptor calculation, JSONObject calculationValueSource, JSONArray nativeConstraints,
+                        List<String> nativeConstraintReferences, List<Descriptor> constraints) {
+        this.addressString = addressString;
+        this.address = addressString.split(":");
+        this.stepName = address[0];
+        this.widgetKey = widgetKey;
+        this.popup = popup;
+        this.canvasIds = canvasIds;
+        this.relevance = relevance;
+        this.calculation = calculation;
+        this.calculationValueSource = calculationValueSource;
+        this.nativeConstraints = nativeConstraints;
+        this.nativeConstraintReferences = nativeConstraintReferences;
+        this.constraints = constraints;
+    }
+
+    /**
+     * Compiles the rule tags of a view. Malformed configuration is logged and left out of the binding.
+     *
+     * @param addressString  view address in the form stepName:key
+     * @param widgetKey      widget key
+     * @param popupTag       value of the extraPopup tag
+     * @param canvasIdsTag   json array of the canvas view ids
+     * @param relevanceTag   relevance json
+     * @param calculationTag calculation json
+     * @param constraintsTag constraints json, either a native constraints array or a rules engine object
+     * @return the compiled binding
+     */
+    @NonNull
+    public static RuleBinding compile(@NonNull String addressString, @Nullable String widgetKey, @Nullable Object popupTag,
+                                      @Nullable String canvasIdsTag, @Nullable String relevanceTag,
+                                      @Nullable String calculationTag, @Nullable String constraintsTag) {
+        String viewAddress = addressString.replace(':', '_');
+        boolean popup = popupTag instanceof Boolean && (Boolean) popupTag;
+
+        Descriptor relevance = null;
+        if (relevanceTag != null && relevanceTag.length() > 0) {
+            try {
+                JSONObject relevanceObject = new JSONObject(relevanceTag);
+                Iterator<String> keys = relevanceObject.keys();
+                if (keys.hasNext()) {
+                    String curKey = keys.next();
+                    JSONObject curRelevance = relevanceObject.has(curKey) ? relevanceObject.getJSONObject(curKey) : null;
+                    relevance = new Descriptor(curKey, curRelevance, getAddress(curKey, curRelevance, viewAddress));
+                }
+            } catch (JSONException e) {
+                Timber.e(e, "RuleBinding --> relevance %s", addressString);
+            }
+        }
+
+        Descriptor calculation = null;
+        JSONObject calculationValueSource = new JSONObject();
+        if (calculationTag != null && calculationTag.length() > 0) {
+            try {
+                JSONObject calculationObject = new JSONObject(calculationTag);
+                Iterator<String> keys = calculationObject.keys();
+                if (keys.hasNext()) {
+                    String curKey = keys.next();
+                    JSONObject curCalculation = calculationObject.getJSONObject(curKey);
+                    if (calculationObject.has(JsonFormConstants.SRC)) {
+                        calculationValueSource = calculationObject.getJSONObject(JsonFormConstants.SRC);
+                    }
+
+                    String[] calculationAddress = null;
+                    if (curCalculation.has(JsonFormConstants.JSON_FORM_KEY.EX_RULES)) {
+                        calculationAddress = getRulesEngineAddress(curKey, curCalculation, viewAddress);
+                    }
+                    calculation = new Descriptor(curKey, curCalculation, calculationAddress);
+                }
+            } catch (JSONException e) {
+                Timber.e(e, "RuleBinding --> calculation %s", addressString);
+            }
+        }
+
+        JSONArray nativeConstraints = null;
+        List<String> nativeConstraintReferences = Collections.emptyList();
+        List<Descriptor> constraints = Collections.emptyList();
+        if (constraintsTag != null && constraintsTag.length() > 0) {
+            try {
+                if (constraintsTag.charAt(0) == '[') {
+                    nativeConstraints = new JSONArray(constraintsTag);
+                    nativeConstraintReferences = getNativeConstraintReferences(nativeConstraints);
+                } else {
+                    JSONObject constraintObject = new JSONObject(constraintsTag);
+                    constraints = new ArrayList<>(constraintObject.length());
+                    Iterator<String> keys = constraintObject.keys();
+                    while (keys.hasNext()) {
+                        String curKey = keys.next();
+                        JSONObject curConstraint = constraintObject.getJSONObject(curKey);
+                        constraints.add(new Descriptor(curKey, curConstraint, getAddress(curKey, curConstraint, viewAddress)));
+                    }
+                    constraints = Collections.unmodifiableList(constraints);
+                }
+            } catch (JSONException e) {
+                Timber.e(e, "RuleBinding --> constraints %s", addressString);
+            }
+        }
+
+        return new RuleBinding(addressString, widgetKey, popup, getCanvasIds(canvasIdsTag, addressString), relevance,
+                calculation, calculationValueSource, nativeConstraints, nativeConstraintReferences, constraints);
+    }
+
+    /**
+     * @param canvasIdsTag json array of the canvas view ids
+     * @return a binding for a view with other canvas views, sharing the compiled rule configuration of this binding
+     */
+    @NonNull
+    public RuleBinding withCanvasIds(@Nullable String canvasIdsTag) {
+        return new RuleBinding(addressString, widgetKey, popup, getCanvasIds(canvasIdsTag, addressString), relevance,
+                calculation, calculationValueSource, nativeConstraints, nativeConstraintReferences, constraints);
+    }
+
+    /**
+     * Collects the fields referenced by the arguments of native constraint functions such as
+     * greaterThanEqualTo(., step1:min_age). The current value (.) and quoted literals are skipped.
+     */
+    private static List<String> getNativeConstraintReferences(JSONArray nativeConstraints) {
+        List<String> references = new ArrayList<>();
+        for (int i = 0; i < nativeConstraints.length(); i++) {
+            JSONObject constraint = nativeConstraints.optJSONObject(i);
+            String ex = constraint != null ? constraint.optString(JsonFormConstants.EX) : "";
+            int argsStart = ex.indexOf('(');
+            int argsEnd = ex.lastIndexOf(')');
+            if (argsStart < 0 || argsEnd <= argsStart) {
+                continue;
+            }
+
+            for (String arg : ex.substring(argsStart + 1, argsEnd).split(",")) {
+                String curArg = arg.trim();
+                if (!".".equals(curArg) && !curArg.startsWith("\"") && curArg.contains(":")) {
+                    references.add(curArg.replace(':', '_'));
+                }
+            }
+        }
+        return Collections.unmodifiableList(references);
+    }
+
+    private static int[] getCanvasIds(@Nullable String canvasIdsTag, String addressString) {
+        if (canvasIdsTag == null || canvasIdsTag.isEmpty()) {
+            return new int[0];
+        }
+
+        try {
+            JSONArray canvasIdsArray = new JSONArray(canvasIdsTag);
+            int[] canvasIds = new int[canvasIdsArray.length()];
+            for (int i = 0; i < canvasIdsArray.length(); i++) {
+                canvasIds[i] = canvasIdsArray.getInt(i);
+            }
+            return canvasIds;
+        } catch (JSONException e) {
+            Timber.e(e, "RuleBinding --> canvas ids %s", addressString);
+            return new int[0];
+        }
+    }
+
+    /**
+     * Resolves the address of a relevance or constraint entry. Keys of the form stepName:key reference a field
+     * directly, any other key is resolved to a rules engine address.
+     */
+    @Nullable
+    private static String[] getAddress(String curKey, @Nullable JSONObject definition, String viewAddress) {
+        if (curKey.contains(":")) {
+            return curKey.split(":");
+        }
+
+        if (definition == null || !definition.has(JsonFormConstants.JSON_FORM_KEY.EX_RULES)) {
+            return null;
+        }
+        return getRulesEngineAddress(curKey, definition, viewAddress);
+    }
+
+    /**
+     * Rules engine addresses take the form {key or rules-dynamic, rules file or dynamic rules, stepName_key}
+     */
+    private static String[] getRulesEngineAddress(String curKey, JSONObject definition, String viewAddress) {
+        try {
+            JSONObject exRules = definition.getJSONObject(JsonFormConstants.JSON_FORM_KEY.EX_RULES);
+            String ruleType = exRules.has(RuleConstant.RULES_DYNAMIC) ? RuleConstant.RULES_DYNAMIC : RuleConstant.RULES_FILE;
+            String currentKey = RuleConstant.RULES_DYNAMIC.equals(ruleType) ? ruleType : curKey;
+            return new String[]{currentKey, exRules.getString(ruleType), viewAddress};
+        } catch (JSONException e) {
+            Timber.e(e, "RuleBinding --> getRulesEngineAddress");
+            return new String[0];
+        }
+    }
+
+    /**
+     * @return the view address in the form stepName:key
+     */
+    public String getAddressString() {
+        return addressString;
+    }
+
+    /**
+     * @return the view address split into {stepName, key}
+     */
+    public String[] getAddress() {
+        return address;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    @Nullable
+    public String getWidgetKey() {
+        return widgetKey;
+    }
+
+    /**
+     * @return true if the view is displayed in a popup
+     */
+    public boolean isPopup() {
+        return popup;
+    }
+
+    public int[] getCanvasIds() {
+        return canvasIds;
+    }
+
+    @Nullable
+    public Descriptor getRelevance() {
+        return relevance;
+    }
+
+    @Nullable
+    public Descriptor getCalculation() {
+        return calculation;
+    }
+
+    /**
+     * @return the calculation src object, empty when the calculation does not declare one
+     */
+    public JSONObject getCalculationValueSource() {
+        return calculationValueSource;
+    }
+
+    /**
+     * @return the native constraints array or null if the view uses rules engine constraints
+     */
+    @Nullable
+    public JSONArray getNativeConstraints() {
+        return nativeConstraints;
+    }
+
+    /**
+     * @return addresses in the form stepName_key of the fields the native constraints compare against
+     */
+    public List<String> getNativeConstraintReferences() {
+        return nativeConstraintReferences;
+    }
+
+    public List<Descriptor> getConstraints() {
+        return constraints;
+    }
+
+    public boolean hasConstraints() {
+        return nativeConstraints != null || !constraints.isEmpty();
+    }
+
+    /**
+     * A single relevance, calculation or constraint entry together with its resolved address
+     */
+    public static class Descriptor {
+        private final String key;
+        private final JSONObject definition;
+        private final String[] address;
+
+        Descriptor(String key, @Nullable JSONObject definition, @Nullable String[] address) {
+            this.key = key;
+            this.definition = definition;
+            this.address = address;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        @Nullable
+        public JSONObject getDefinition() {
+            return definition;
+        }
+
+        /**
+         * @return {stepName, key} for field references or {rule key, rules file, stepName_key} for rules engine
+         * entries, null when the address could not be resolved
+         */
+        @Nullable
+        public String[] getAddress() {
+            return address;
+        }
+
+        public boolean isRulesEngine() {
+            return address != null && address.length > 2;
+        }
+
+        /**
+         * @return the rules file name or the dynamic rules json for rules engine entries
+         */
+        @Nullable
+        public String getRuleFile() {
+            return isRulesEngine() ? address[1] : null;
+        }
+    }
+}
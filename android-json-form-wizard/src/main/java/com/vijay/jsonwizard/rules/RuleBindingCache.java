@@ -0,0 +1,102 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rule bindings compiled from the field json of a step before its views are built, e.g. for the next step while the
+ * current step is being filled, so that the first refresh of the views does not parse their rule configuration on the
+ * ui thread.
+ * <p>
+ * A binding is found by the address, key, popup flag and rule tags of a view, a view tagged differently from its field
+ * json is compiled as usual. Canvas ids differ for every view that is built and are added when the binding is found.
+ */
+public class RuleBindingCache {
+
+    private final Map<List<Object>, RuleBinding> bindings = new ConcurrentHashMap<>();
+
+    /**
+     * Compiles the bindings of the fields of a step that have rules. Call it off the ui thread.
+     *
+     * @param stepName the step name
+     * @param step     step json that is not modified while it is read, e.g. a snapshot
+     */
+    public void prefetch(@NonNull String stepName, @NonNull JSONObject step) {
+        JSONArray sections = step.optJSONArray(JsonFormConstants.SECTIONS);
+        if (sections == null) {
+            prefetchFields(stepName, step.optJSONArray(JsonFormConstants.FIELDS));
+            return;
+        }
+        for (int i = 0; i < sections.length(); i++) {
+            JSONObject section = sections.optJSONObject(i);
+            if (section != null) {
+                prefetchFields(stepName, section.optJSONArray(JsonFormConstants.FIELDS));
+            }
+        }
+    }
+
+    private void prefetchFields(String stepName, @Nullable JSONArray fields) {
+        for (int i = 0; fields != null && i < fields.length(); i++) {
+            JSONObject field = fields.optJSONObject(i);
+            if (field == null || !field.has(JsonFormConstants.KEY)) {
+                continue;
+            }
+
+            String relevance = getRuleTag(field, JsonFormConstants.RELEVANCE);
+            String calculation = getRuleTag(field, JsonFormConstants.CALCULATION);
+            String constraints = getRuleTag(field, JsonFormConstants.CONSTRAINTS);
+            if (relevance == null && calculation == null && constraints == null) {
+                continue;
+            }
+
+            String key = field.optString(JsonFormConstants.KEY);
+            String address = stepName + ":" + key;
+            List<Object> cacheKey = getCacheKey(address, key, false, relevance, calculation, constraints);
+            if (!bindings.containsKey(cacheKey)) {
+                bindings.put(cacheKey, RuleBinding.compile(address, key, false, null, relevance, calculation,
+                        constraints));
+            }
+        }
+    }
+
+    /**
+     * Finds the binding compiled for a view with the given tags, the arguments are the same as those of
+     * {@link RuleBinding#compile(String, String, Object, String, String, String, String)}
+     *
+     * @return the binding or null if none was compiled for these tags
+     */
+    @Nullable
+    public RuleBinding get(@NonNull String addressString, @Nullable String widgetKey, @Nullable Object popupTag,
+                           @Nullable String canvasIdsTag, @Nullable String relevanceTag,
+                           @Nullable String calculationTag, @Nullable String constraintsTag) {
+        boolean popup = popupTag instanceof Boolean && (Boolean) popupTag;
+        RuleBinding ruleBinding = bindings.get(getCacheKey(addressString, widgetKey, popup, relevanceTag,
+                calculationTag, constraintsTag));
+        return ruleBinding != null ? ruleBinding.withCanvasIds(canvasIdsTag) : null;
+    }
+
+    /**
+     * Widgets tag their views with the rule json as a string and leave out empty rules
+     */
+    @Nullable
+    private static String getRuleTag(JSONObject field, String name) {
+        String tag = field.optString(name);
+        return tag.isEmpty() ? null : tag;
+    }
+
+    private static List<Object> getCacheKey(String addressString, @Nullable String widgetKey, boolean popup,
+                                            @Nullable String relevanceTag, @Nullable String calculationTag,
+                                            @Nullable String constraintsTag) {
+        return Arrays.<Object>asList(addressString, widgetKey, popup, relevanceTag, calculationTag, constraintsTag);
+    }
+}
@@ -0,0 +1,379 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import timber.log.Timber;
+
+/**
+ * Directed dependency graph between form fields and the calculation, relevance and constraint rules that read them.
+ * <p>
+ * Nodes are field addresses (stepName_key or global_key). An edge runs from every field a rule reads to the field the
+ * rule is attached to. The graph is ordered topologically when it is built so that a change only touches the rules
+ * reachable from the changed field, each one once and upstream rules first. Calculated fields and fields with
+ * relevance are walked through, the refresh writes a calculated value before the rules reading it are evaluated.
+ * <p>
+ * Rules whose inputs cannot be resolved are kept aside and are affected by every change. Rules that depend on each
+ * other in a cycle are ordered by the order they were added in, so that every member of the cycle is evaluated once.
+ */
+public class RuleDependencyGraph {
+
+    public enum Kind {CALCULATION, RELEVANCE, CONSTRAINT}
+
+    private static final RuleDependencyGraph EMPTY = new Builder().build();
+
+    private final Map<String, Node> nodes;
+    private final Map<Kind, Set<String>> viewKeys;
+    private final Map<Kind, Set<String>> unresolvedViewKeys;
+    private final Set<String> cyclicAddresses;
+    private final Map<String, List<Node>> affectedNodes = new ConcurrentHashMap<>();
+
+    private RuleDependencyGraph(Map<String, Node> nodes, Map<Kind, Set<String>> viewKeys,
+                                Map<Kind, Set<String>> unresolvedViewKeys, Set<String> cyclicAddresses) {
+        this.nodes = nodes;
+        this.viewKeys = viewKeys;
+        this.unresolvedViewKeys = unresolvedViewKeys;
+        this.cyclicAddresses = cyclicAddresses;
+    }
+
+    public static RuleDependencyGraph empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns the views holding rules of the given kind that have to be re-evaluated after the field at
+     * changedAddress changed, in topological order, followed by the views whose rule inputs could not be resolved.
+     *
+     * @param changedAddress address of the changed field in the form stepName_key
+     * @param kind           the rule kind
+     * @return the view keys, the changed field's own views are not included
+     */
+    @NonNull
+    public List<String> getAffectedViews(String changedAddress, Kind kind) {
+        List<String> affectedViews = new ArrayList<>();
+        for (Node node : getAffectedNodes(changedAddress)) {
+            Set<String> nodeViews = node.views.get(kind);
+            if (nodeViews != null) {
+                affectedViews.addAll(nodeViews);
+            }
+        }
+        affectedViews.addAll(getUnresolvedViews(kind));
+        return affectedViews;
+    }
+
+    /**
+     * Returns the rules of all kinds that have to be re-evaluated after the field at changedAddress changed. The rules
+     * of a field come after the rules of every field they read, within a field calculations come first, then relevance
+     * and constraints. The rules whose inputs could not be resolved come last.
+     *
+     * @param changedAddress address of the changed field in the form stepName_key
+     * @return the rules, the changed field's own rules are not included
+     */
+    @NonNull
+    public List<Rule> getAffectedRules(String changedAddress) {
+        List<Rule> affectedRules = new ArrayList<>();
+        for (Node node : getAffectedNodes(changedAddress)) {
+            for (Map.Entry<Kind, Set<String>> entry : node.views.entrySet()) {
+                for (String viewKey : entry.getValue()) {
+                    affectedRules.add(new Rule(entry.getKey(), viewKey));
+                }
+            }
+        }
+        for (Kind kind : Kind.values()) {
+            for (String viewKey : getUnresolvedViews(kind)) {
+                affectedRules.add(new Rule(kind, viewKey));
+            }
+        }
+        return affectedRules;
+    }
+
+    /**
+     * @param kind the rule kind
+     * @return keys of the views whose rule inputs could not be resolved, they are affected by every change
+     */
+    @NonNull
+    public Set<String> getUnresolvedViews(Kind kind) {
+        Set<String> kindViewKeys = unresolvedViewKeys.get(kind);
+        return kindViewKeys != null ? kindViewKeys : Collections.<String>emptySet();
+    }
+
+    private List<Node> getAffectedNodes(String changedAddress) {
+        List<Node> affected = affectedNodes.get(changedAddress);
+        if (affected != null) {
+            return affected;
+        }
+
+        Node changedNode = nodes.get(changedAddress);
+        if (changedNode == null) {
+            affected = Collections.emptyList();
+        } else {
+            affected = new ArrayList<>();
+            Set<Node> visited = new HashSet<>();
+            visited.add(changedNode);
+            Deque<Node> queue = new ArrayDeque<>();
+            queue.add(changedNode);
+            while (!queue.isEmpty()) {
+                Node current = queue.poll();
+                for (Node dependent : current.dependents) {
+                    if (visited.add(dependent)) {
+                        affected.add(dependent);
+                        queue.add(dependent);
+                    }
+                }
+            }
+            Collections.sort(affected, new Comparator<Node>() {
+                @Override
+                public int compare(Node first, Node second) {
+                    return Integer.compare(first.order, second.order);
+                }
+            });
+            affected = Collections.unmodifiableList(affected);
+        }
+
+        affectedNodes.put(changedAddress, affected);
+        return affected;
+    }
+
+    /**
+     * @param kind    the rule kind
+     * @param viewKey key the view was registered with
+     * @return true if the view's rule was added to the graph, whether or not its inputs were resolved
+     */
+    public boolean contains(Kind kind, String viewKey) {
+        Set<String> kindViewKeys = viewKeys.get(kind);
+        return kindViewKeys != null && kindViewKeys.contains(viewKey) || getUnresolvedViews(kind).contains(viewKey);
+    }
+
+    /**
+     * @return addresses of the fields whose rules depend on each other in a cycle
+     */
+    public Set<String> getCyclicAddresses() {
+        return cyclicAddresses;
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    public static class Builder {
+        private final Map<String, Node> nodes = new LinkedHashMap<>();
+        private final Map<Kind, Set<String>> viewKeys = new EnumMap<>(Kind.class);
+        private final Map<Kind, Set<String>> unresolvedViewKeys = new EnumMap<>(Kind.class);
+        private int ruleCount;
+
+        /**
+         * Adds a rule to the graph
+         *
+         * @param kind    the rule kind
+         * @param address address of the field the rule is attached to, stepName_key
+         * @param viewKey key the view holding the rule is registered with
+         * @param inputs  addresses of the fields the rule reads
+         * @return this builder
+         */
+        public Builder addRule(Kind kind, String address, String viewKey, Collection<String> inputs) {
+            Node node = getNode(address);
+            if (node.declaration < 0) {
+                node.declaration = ruleCount++;
+            }
+            Set<String> nodeViews = node.views.get(kind);
+            if (nodeViews == null) {
+                nodeViews = new LinkedHashSet<>();
+                node.views.put(kind, nodeViews);
+            }
+            nodeViews.add(viewKey);
+            getViewKeys(viewKeys, kind).add(viewKey);
+
+            for (String input : inputs) {
+                if (!address.equals(input)) {
+                    getNode(input).dependents.add(node);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds a rule whose inputs cannot be resolved, it is affected by every change
+         *
+         * @param kind    the rule kind
+         * @param viewKey key the view holding the rule is registered with
+         * @return this builder
+         */
+        public Builder addUnresolvedRule(Kind kind, String viewKey) {
+            getViewKeys(unresolvedViewKeys, kind).add(viewKey);
+            return this;
+        }
+
+        private static Set<String> getViewKeys(Map<Kind, Set<String>> kindViewKeys, Kind kind) {
+            Set<String> keys = kindViewKeys.get(kind);
+            if (keys == null) {
+                keys = new LinkedHashSet<>();
+                kindViewKeys.put(kind, keys);
+            }
+            return keys;
+        }
+
+        private Node getNode(String address) {
+            Node node = nodes.get(address);
+            if (node == null) {
+                node = new Node(address);
+                nodes.put(address, node);
+            }
+            return node;
+        }
+
+        public RuleDependencyGraph build() {
+            Map<Node, Integer> inDegrees = new HashMap<>();
+            for (Node node : nodes.values()) {
+                for (Node dependent : node.dependents) {
+                    Integer inDegree = inDegrees.get(dependent);
+                    inDegrees.put(dependent, inDegree == null ? 1 : inDegree + 1);
+                }
+            }
+
+            Deque<Node> ready = new ArrayDeque<>();
+            for (Node node : nodes.values()) {
+                if (!inDegrees.containsKey(node)) {
+                    ready.add(node);
+                }
+            }
+
+            // When only nodes with incoming edges are left they are held up by a cycle. The cycle is broken at the
+            // member whose rule was added first, so cycle members are evaluated once each in the order they were
+            // added in.
+            Set<Node> ordered = new HashSet<>();
+            Set<String> cyclicAddresses = new LinkedHashSet<>();
+            int order = 0;
+            while (ordered.size() < nodes.size()) {
+                if (ready.isEmpty()) {
+                    List<Node> cycle = new ArrayList<>();
+                    for (Node node : nodes.values()) {
+                        if (!ordered.contains(node) && isOnCycle(node, ordered)) {
+                            cycle.add(node);
+                        }
+                    }
+                    Collections.sort(cycle, new Comparator<Node>() {
+                        @Override
+                        public int compare(Node first, Node second) {
+                            return Integer.compare(first.declaration, second.declaration);
+                        }
+                    });
+                    for (Node node : cycle) {
+                        cyclicAddresses.add(node.address);
+                    }
+                    ready.add(cycle.get(0));
+                }
+
+                Node node = ready.poll();
+                if (!ordered.add(node)) {
+                    continue;
+                }
+                node.order = order++;
+                for (Node dependent : node.dependents) {
+                    if (!ordered.contains(dependent)) {
+                        int inDegree = inDegrees.get(dependent) - 1;
+                        inDegrees.put(dependent, inDegree);
+                        if (inDegree == 0) {
+                            ready.add(dependent);
+                        }
+                    }
+                }
+            }
+
+            if (!cyclicAddresses.isEmpty()) {
+                Timber.w("Rule dependency cycle between %s", cyclicAddresses);
+            }
+
+            return new RuleDependencyGraph(nodes, viewKeys, unresolvedViewKeys,
+                    Collections.unmodifiableSet(cyclicAddresses));
+        }
+
+        /**
+         * @return true if the node can be reached from itself through nodes that are not ordered yet
+         */
+        private static boolean isOnCycle(Node node, Set<Node> ordered) {
+            Set<Node> visited = new HashSet<>();
+            Deque<Node> pending = new ArrayDeque<>(node.dependents);
+            while (!pending.isEmpty()) {
+                Node current = pending.poll();
+                if (current == node) {
+                    return true;
+                }
+                if (!ordered.contains(current) && visited.add(current)) {
+                    pending.addAll(current.dependents);
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class Node {
+        private final String address;
+        private final Map<Kind, Set<String>> views = new EnumMap<>(Kind.class);
+        private final Set<Node> dependents = new LinkedHashSet<>();
+        private int order;
+        // Position of the first rule added for the node, -1 for fields that are only read
+        private int declaration = -1;
+
+        private Node(String address) {
+            this.address = address;
+        }
+    }
+
+    /**
+     * A rule of a view that has to be re-evaluated
+     */
+    public static final class Rule {
+        private final Kind kind;
+        private final String viewKey;
+
+        public Rule(Kind kind, String viewKey) {
+            this.kind = kind;
+            this.viewKey = viewKey;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public String getViewKey() {
+            return viewKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Rule)) {
+                return false;
+            }
+            Rule rule = (Rule) o;
+            return kind == rule.kind && viewKey.equals(rule.viewKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * kind.hashCode() + viewKey.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + viewKey;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.utils.Utils;
+
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.mvel.MVELRule;
+import org.jeasy.rules.mvel.MVELRuleFactory;
+import org.jeasy.rules.support.RuleDefinition;
+import org.jeasy.rules.support.YamlRuleDefinitionReader;
+
+import java.io.Serializable;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A parsed yaml rules file: the rule definitions, the fields every rule reads and, built on first use, the compiled
+ * rules and the rules for the rules engine.
+ * <p>
+ * Rule files are shared by every form in the process through {@link RuleFileLoader} and must not be modified. The
+ * definitions and the rule inputs are serializable so that the loader can cache them on disk.
+ */
+public class RuleFile implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Definition> definitions;
+    private final Map<String, Set<String>> ruleInputs;
+    // Only kept for files with composite rules, the engine rules for those cannot be rebuilt from the definitions
+    private final String compositeRulesYaml;
+
+    private transient volatile CompiledRuleSet compiledRules;
+    private transient volatile Rules rules;
+
+    private RuleFile(List<Definition> definitions, Map<String, Set<String>> ruleInputs, String compositeRulesYaml) {
+        this.definitions = definitions;
+        this.ruleInputs = ruleInputs;
+        this.compositeRulesYaml = compositeRulesYaml;
+    }
+
+    /**
+     * Parses a yaml rules file
+     *
+     * @param rulesYaml content of the rules file
+     * @return the rule file
+     * @throws Exception if the yaml cannot be read as rule definitions
+     */
+    @NonNull
+    public static RuleFile parse(@NonNull String rulesYaml) throws Exception {
+        List<RuleDefinition> ruleDefinitions = new YamlRuleDefinitionReader().read(new StringReader(rulesYaml));
+        List<Definition> definitions = new ArrayList<>(ruleDefinitions.size());
+        Map<String, Set<String>> ruleInputs = new HashMap<>();
+        boolean hasCompositeRules = false;
+
+        for (RuleDefinition ruleDefinition : ruleDefinitions) {
+            Definition definition = new Definition(ruleDefinition);
+            definitions.add(definition);
+            hasCompositeRules |= definition.composite;
+
+            // The first rule with a name decides its inputs
+            if (!ruleInputs.containsKey(definition.name) && definition.condition != null) {
+                ruleInputs.put(definition.name, Collections.unmodifiableSet(new LinkedHashSet<>(getConditionKeys(definition))));
+            }
+        }
+
+        return new RuleFile(Collections.unmodifiableList(definitions), Collections.unmodifiableMap(ruleInputs),
+                hasCompositeRules ? rulesYaml : null);
+    }
+
+    private static List<String> getConditionKeys(Definition definition) {
+        StringBuilder conditionString = new StringBuilder(definition.condition);
+        for (String action : definition.actions) {
+            if (action.trim().startsWith(RuleConstant.CALCULATION) || action.trim().startsWith(RuleConstant.CONSTRAINT)) {
+                conditionString.append(' ').append(action);
+            }
+        }
+        return Utils.getConditionKeys(conditionString.toString());
+    }
+
+    @NonNull
+    public List<Definition> getDefinitions() {
+        return definitions;
+    }
+
+    /**
+     * @param ruleName name of the rule
+     * @return addresses of the fields the rule reads, null if there is no rule with that name
+     */
+    @Nullable
+    public Set<String> getRuleInputs(@NonNull String ruleName) {
+        return ruleInputs.get(ruleName);
+    }
+
+    @NonNull
+    public CompiledRuleSet getCompiledRules() {
+        CompiledRuleSet result = compiledRules;
+        if (result == null) {
+            result = CompiledRuleSet.fromDefinitions(definitions);
+            compiledRules = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the rules for the rules engine
+     * @throws Exception if a rule cannot be created
+     */
+    @NonNull
+    public Rules getRules() throws Exception {
+        Rules result = rules;
+        if (result == null) {
+            result = compositeRulesYaml != null ?
+                    new MVELRuleFactory(new YamlRuleDefinitionReader()).createRules(new StringReader(compositeRulesYaml)) :
+                    createRules();
+            rules = result;
+        }
+        return result;
+    }
+
+    private Rules createRules() {
+        Rules result = new Rules();
+        for (Definition definition : definitions) {
+            MVELRule rule = new MVELRule();
+            rule.name(definition.name);
+            rule.description(definition.description);
+            rule.priority(definition.priority);
+            rule.when(definition.condition);
+            for (String action : definition.actions) {
+                rule.then(action);
+            }
+            result.register(rule);
+        }
+        return result;
+    }
+
+    /**
+     * Serializable copy of a rule definition
+     */
+    public static final class Definition implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String name;
+        private final String description;
+        private final int priority;
+        private final String condition;
+        private final List<String> actions;
+        private final boolean composite;
+
+        private Definition(RuleDefinition ruleDefinition) {
+            name = ruleDefinition.getName();
+            description = ruleDefinition.getDescription();
+            priority = ruleDefinition.getPriority();
+            condition = ruleDefinition.getCondition();
+            actions = ruleDefinition.getActions() != null ?
+                    Collections.unmodifiableList(new ArrayList<>(ruleDefinition.getActions())) :
+                    Collections.<String>emptyList();
+            composite = ruleDefinition.isCompositeRule();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public String getCondition() {
+            return condition;
+        }
+
+        public List<String> getActions() {
+            return actions;
+        }
+
+        public boolean isComposite() {
+            return composite;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.vijay.jsonwizard.utils.FormExecutors;
+import com.vijay.jsonwizard.utils.FormUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import timber.log.Timber;
+
+/**
+ * Parses yaml rule files once per process.
+ * <p>
+ * Rule files are keyed by a hash of their content, so the same file served from the assets or from the client form
+ * repository is parsed once, and a new version of a file is never mistaken for an old one. Parsed files are also written
+ * to a disk cache so that opening a form in a new process skips the yaml parsing. The disk cache keeps the most recently
+ * written {@link #MAX_CACHE_FILES} files.
+ * <p>
+ * Rule files are also kept by where they were read from, the data source with the version of the file, locale and path
+ * of the file, so that opening the same form again does not read the file at all. A new version of a file in the client
+ * form repository gets a new key, entries are also dropped through {@link #invalidate(String)} when another version
+ * becomes active, see {@link com.vijay.jsonwizard.NativeFormLibrary#onClientFormUpdated(String)}. Both caches keep the
+ * most recently used {@link #MAX_RULE_FILES} files.
+ */
+public class RuleFileLoader {
+
+    // Bump whenever the serialized form of RuleFile changes
+    private static final int CACHE_FORMAT_VERSION = 1;
+    private static final String CACHE_DIRECTORY = "native-form-rules";
+    private static final String CACHE_FILE_EXTENSION = ".rules";
+    private static final String SOURCE_KEY_SEPARATOR = "|";
+    @VisibleForTesting
+    static final int MAX_RULE_FILES = 32;
+    @VisibleForTesting
+    static final int MAX_CACHE_FILES = 64;
+    private static final RuleFileLoader INSTANCE = new RuleFileLoader(FormExecutors.io());
+
+    private final Map<String, RuleFile> ruleFiles = createLruMap();
+    private final Map<String, RuleFile> ruleFilesBySource = createLruMap();
+    private final Executor diskExecutor;
+
+    @VisibleForTesting
+    RuleFileLoader(@NonNull Executor diskExecutor) {
+        this.diskExecutor = diskExecutor;
+    }
+
+    public static RuleFileLoader getInstance() {
+        return INSTANCE;
+    }
+
+    private static Map<String, RuleFile> createLruMap() {
+        return new LinkedHashMap<String, RuleFile>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RuleFile> eldest) {
+                return size() > MAX_RULE_FILES;
+            }
+        };
+    }
+
+    /**
+     * @param dataSource where the file is read from, the assets, the disk or a version of a client form
+     * @param locale     language the file is read for
+     * @param fileName   path of the rules file including the rules folder
+     * @return the key of the file for {@link #get(String)} and {@link #load(String, String, File)}
+     */
+    @NonNull
+    public static String getSourceKey(@Nullable String dataSource, @Nullable String locale, @NonNull String fileName) {
+        return dataSource + SOURCE_KEY_SEPARATOR + locale + SOURCE_KEY_SEPARATOR + fileName;
+    }
+
+    /**
+     * @param sourceKey key from {@link #getSourceKey(String, String, String)}
+     * @return the rule file last loaded for the key, null if it has to be read
+     */
+    @Nullable
+    public RuleFile get(@NonNull String sourceKey) {
+        synchronized (ruleFilesBySource) {
+            return ruleFilesBySource.get(sourceKey);
+        }
+    }
+
+    /**
+     * Loads the rule file like {@link #load(String, File)} and keeps it for the source key
+     */
+    @NonNull
+    public RuleFile load(@NonNull String sourceKey, @NonNull String rulesYaml, @Nullable File cacheDirectory) throws Exception {
+        RuleFile ruleFile = load(rulesYaml, cacheDirectory);
+        synchronized (ruleFilesBySource) {
+            ruleFilesBySource.put(sourceKey, ruleFile);
+        }
+        return ruleFile;
+    }
+
+    /**
+     * Drops the rule files read for a client form identifier so that they are read again on the next use. Locale
+     * variants and paths with or without the rules folder are matched by the file name, other files that only start
+     * with the same name are kept.
+     *
+     * @param formIdentifier identifier of the client form, e.g. rule/anc_relevance.yml
+     */
+    public void invalidate(@NonNull String formIdentifier) {
+        String baseName = FormUtils.getFormBaseName(formIdentifier);
+        synchronized (ruleFilesBySource) {
+            Iterator<String> iterator = ruleFilesBySource.keySet().iterator();
+            while (iterator.hasNext()) {
+                String sourceKey = iterator.next();
+                String fileName = sourceKey.substring(sourceKey.lastIndexOf(SOURCE_KEY_SEPARATOR) + 1);
+                if (FormUtils.isFormOrLocaleVariant(fileName, baseName)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (ruleFilesBySource) {
+            ruleFilesBySource.clear();
+        }
+    }
+
+    /**
+     * Returns the parsed rule file for the yaml content, from memory, the disk cache or by parsing it
+     *
+     * @param rulesYaml      content of the rules file
+     * @param cacheDirectory app cache directory, the disk cache is not used if it is null
+     * @return the rule file
+     * @throws Exception if the yaml cannot be parsed
+     */
+    @NonNull
+    public RuleFile load(@NonNull String rulesYaml, @Nullable File cacheDirectory) throws Exception {
+        final String contentHash = getContentHash(rulesYaml);
+        RuleFile ruleFile;
+        synchronized (ruleFiles) {
+            ruleFile = ruleFiles.get(contentHash);
+        }
+        if (ruleFile != null) {
+            return ruleFile;
+        }
+
+        final File cacheFile = cacheDirectory != null ?
+                new File(new File(cacheDirectory, CACHE_DIRECTORY), contentHash + CACHE_FILE_EXTENSION) : null;
+        ruleFile = readCacheFile(cacheFile);
+        if (ruleFile == null) {
+            ruleFile = RuleFile.parse(rulesYaml);
+            if (cacheFile != null) {
+                final RuleFile parsedRuleFile = ruleFile;
+                diskExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        writeCacheFile(cacheFile, parsedRuleFile);
+                    }
+                });
+            }
+        }
+
+        synchronized (ruleFiles) {
+            RuleFile existingRuleFile = ruleFiles.get(contentHash);
+            if (existingRuleFile != null) {
+                return existingRuleFile;
+            }
+            ruleFiles.put(contentHash, ruleFile);
+        }
+        return ruleFile;
+    }
+
+    @Nullable
+    private RuleFile readCacheFile(@Nullable File cacheFile) {
+        if (cacheFile == null || !cacheFile.exists()) {
+            return null;
+        }
+
+        try (ObjectInputStream inputStream = new ObjectInputStream(new FileInputStream(cacheFile))) {
+            return (RuleFile) inputStream.readObject();
+        } catch (Exception e) {
+            Timber.e(e, "RuleFileLoader --> unreadable cache file %s", cacheFile.getName());
+            if (!cacheFile.delete()) {
+                Timber.w("RuleFileLoader --> could not delete %s", cacheFile.getName());
+            }
+            return null;
+        }
+    }
+
+    private void writeCacheFile(@NonNull File cacheFile, @NonNull RuleFile ruleFile) {
+        File directory = cacheFile.getParentFile();
+        if (directory == null || (!directory.exists() && !directory.mkdirs())) {
+            return;
+        }
+
+        // Write to a temporary file first so that a reader never sees a partly written cache file. Two loads of the
+        // same content may write at the same time, each writes its own temporary file.
+        File tempFile = null;
+        try {
+            tempFile = File.createTempFile(cacheFile.getName(), ".tmp", directory);
+            try (ObjectOutputStream outputStream = new ObjectOutputStream(new FileOutputStream(tempFile))) {
+                outputStream.writeObject(ruleFile);
+            }
+        } catch (IOException e) {
+            Timber.e(e, "RuleFileLoader --> writeCacheFile");
+            if (tempFile != null) {
+                tempFile.delete();
+            }
+            return;
+        }
+
+        if (!tempFile.renameTo(cacheFile)) {
+            tempFile.delete();
+            return;
+        }
+        trimCacheDirectory(directory);
+    }
+
+    /**
+     * Deletes the least recently written cache files beyond {@link #MAX_CACHE_FILES}, temporary files still being
+     * written are left alone
+     */
+    private void trimCacheDirectory(File directory) {
+        File[] cacheFiles = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(CACHE_FILE_EXTENSION);
+            }
+        });
+        if (cacheFiles == null || cacheFiles.length <= MAX_CACHE_FILES) {
+            return;
+        }
+
+        Arrays.sort(cacheFiles, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.compare(second.lastModified(), first.lastModified());
+            }
+        });
+        for (int i = MAX_CACHE_FILES; i < cacheFiles.length; i++) {
+            if (!cacheFiles[i].delete()) {
+                Timber.w("RuleFileLoader --> could not delete %s", cacheFiles[i].getName());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static String getContentHash(@NonNull String rulesYaml) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+            messageDigest.update((byte) CACHE_FORMAT_VERSION);
+            byte[] digest = messageDigest.digest(rulesYaml.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+}
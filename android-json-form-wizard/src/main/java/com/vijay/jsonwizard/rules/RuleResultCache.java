@@ -0,0 +1,158 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bounded least recently used cache of rule results.
+ * <p>
+ * Results are keyed by the rule (rule file or dynamic rule key, and the selected rule name) and a fingerprint of the
+ * facts passed in for it. The form only passes the facts a rule reads, so two evaluations with the same key produce
+ * the same result. Global facts are not part of the key, they are fixed for the rules engine factory that owns the
+ * cache. Rules that call the helper are not cached, see {@link CompiledRuleSet#canCache(String)}. A reverse index from
+ * fact name to cached results drops every result that read a fact as soon as that fact is written.
+ */
+public class RuleResultCache {
+
+    private final int maxEntries;
+    private final LinkedHashMap<Key, Object> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByFact = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+
+    public RuleResultCache(int maxEntries) {
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Creates the cache key for evaluating a rule against a set of facts. Call it before any global or helper facts
+     * are added.
+     *
+     * @param ruleId identifies the rule file or dynamic rule set and the kind of result
+     * @param facts  the facts the rule reads, keyed by fact name
+     * @return the key
+     */
+    @NonNull
+    public static Key createKey(@NonNull String ruleId, @NonNull Map<String, Object> facts) {
+        TreeMap<String, Object> sortedFacts = new TreeMap<>(facts);
+        StringBuilder fingerprint = new StringBuilder(ruleId).append('|');
+        for (Map.Entry<String, Object> fact : sortedFacts.entrySet()) {
+            Object value = fact.getValue();
+            String type = value == null ? "null" : value.getClass().getName();
+            String text = String.valueOf(value);
+            // Length prefixes keep the fingerprint unambiguous whatever characters the values contain
+            fingerprint.append(fact.getKey().length()).append(':').append(fact.getKey())
+                    .append(type).append(text.length()).append(':').append(text);
+        }
+        return new Key(fingerprint.toString(), new ArrayList<>(sortedFacts.keySet()));
+    }
+
+    /**
+     * @return the cached result or null on a miss
+     */
+    @Nullable
+    public synchronized Object get(@NonNull Key key) {
+        Object result = entries.get(key);
+        if (result == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return result;
+    }
+
+    public synchronized void put(@NonNull Key key, @NonNull Object result) {
+        if (entries.put(key, result) == null) {
+            for (String factName : key.factNames) {
+                Set<Key> keys = keysByFact.get(factName);
+                if (keys == null) {
+                    keys = new HashSet<>();
+                    keysByFact.put(factName, keys);
+                }
+                keys.add(key);
+            }
+        }
+
+        Iterator<Key> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Key evicted = eldest.next();
+            eldest.remove();
+            unindex(evicted);
+        }
+    }
+
+    /**
+     * Drops every cached result that read the fact
+     *
+     * @param factName fact name in the form stepName_key or global_key
+     */
+    public synchronized void invalidate(@NonNull String factName) {
+        Set<Key> keys = keysByFact.remove(factName);
+        if (keys != null) {
+            for (Key key : keys) {
+                entries.remove(key);
+                unindex(key);
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByFact.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    private void unindex(Key key) {
+        for (String factName : key.factNames) {
+            Set<Key> keys = keysByFact.get(factName);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByFact.remove(factName);
+                }
+            }
+        }
+    }
+
+    public static final class Key {
+        private final String fingerprint;
+        private final List<String> factNames;
+
+        private Key(String fingerprint, List<String> factNames) {
+            this.fingerprint = fingerprint;
+            this.factNames = Collections.unmodifiableList(factNames);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || (o instanceof Key && fingerprint.equals(((Key) o).fingerprint));
+        }
+
+        @Override
+        public int hashCode() {
+            return fingerprint.hashCode();
+        }
+    }
+}
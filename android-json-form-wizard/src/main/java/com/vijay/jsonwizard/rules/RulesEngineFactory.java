@@ -1,12 +1,16 @@
 package com.vijay.jsonwizard.rules;
 
 import android.content.Context;
+import android.content.res.Resources;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.google.gson.Gson;
+import com.vijay.jsonwizard.NativeFormLibrary;
 import com.vijay.jsonwizard.activities.JsonFormBaseActivity;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.factory.FileSourceFactoryHelper;
+import com.vijay.jsonwizard.utils.FormUtils;
 import com.vijay.jsonwizard.utils.Utils;
 
 import org.jeasy.rules.api.Facts;
@@ -17,32 +21,39 @@ import org.jeasy.rules.api.RulesEngine;
 import org.jeasy.rules.core.DefaultRulesEngine;
 import org.jeasy.rules.core.RulesEngineParameters;
 import org.jeasy.rules.mvel.MVELRule;
-import org.jeasy.rules.mvel.MVELRuleFactory;
-import org.jeasy.rules.support.YamlRuleDefinitionReader;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.mvel2.integration.VariableResolverFactory;
+import org.mvel2.integration.impl.MapVariableResolverFactory;
 import org.smartregister.client.utils.contract.ClientFormContract;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import timber.log.Timber;
 
 public class RulesEngineFactory implements RuleListener {
+    private static final int RULE_RESULT_CACHE_SIZE = 512;
     public final String TAG = RulesEngineFactory.class.getCanonicalName();
     private Context context;
     private RulesEngine defaultRulesEngine;
     private Map<String, Rules> ruleMap;
     private String RULE_FOLDER_PATH = "rule/";
-    private Rules rules;
     private String selectedRuleName;
     private Gson gson;
     private RulesEngineHelper rulesEngineHelper;
     private Facts globalFacts;
-    private MVELRuleFactory mvelRuleFactory;
+    private final RuleResultCache ruleResultCache = new RuleResultCache(RULE_RESULT_CACHE_SIZE);
+    private final Map<String, CompiledRuleSet> compiledRuleMap = new ConcurrentHashMap<>();
+    private final Map<String, RuleFile> ruleFileMap = new ConcurrentHashMap<>();
+    private Map<String, Object> helperFacts;
 
     public RulesEngineFactory(Context context, Map<String, String> globalValues) {
         this.context = context;
@@ -52,8 +63,7 @@ public class RulesEngineFactory implements RuleListener {
         this.ruleMap = new HashMap<>();
         gson = new Gson();
         this.rulesEngineHelper = new RulesEngineHelper();
-        this.mvelRuleFactory = new MVELRuleFactory(new YamlRuleDefinitionReader());
-
+        this.helperFacts = Collections.<String, Object>singletonMap("helper", rulesEngineHelper);
 
         if (globalValues != null) {
             globalFacts = new Facts();
@@ -66,12 +76,28 @@ public class RulesEngineFactory implements RuleListener {
     public RulesEngineFactory() {
     }
 
+    /**
+     * Whether rules are fired from their compiled form and their results cached. Compiled rules neither go through
+     * {@link #initializeFacts(Facts)} nor {@link #processDefaultRules(Rules, Facts)}, so subclasses that override either
+     * of them must return false to keep every rule going through the rules engine.
+     *
+     * @return true by default
+     */
+    protected boolean useCompiledRules() {
+        return true;
+    }
+
+    @Nullable
+    private String getDynamicRulesKey(@NonNull JSONArray jsonArray, @NonNull String type) {
+        JSONObject keyJsonObject = Utils.getJsonObjectFromJsonArray(JsonFormConstants.KEY, jsonArray);
+        return keyJsonObject == null ? null : type + "/" + keyJsonObject.optString(JsonFormConstants.KEY);
+    }
+
     private Rules getDynamicRulesFromJsonArray(@NonNull JSONArray jsonArray, @NonNull String type) {
         try {
             Rules rules = new Rules();
-            JSONObject keyJsonObject = Utils.getJsonObjectFromJsonArray(JsonFormConstants.KEY, jsonArray);
-            if (keyJsonObject != null) {
-                String key = type + "/" + keyJsonObject.optString(JsonFormConstants.KEY);
+            String key = getDynamicRulesKey(jsonArray, type);
+            if (key != null) {
                 if (!ruleMap.containsKey(key)) {
                     for (int i = 0; i < jsonArray.length(); i++) {
                         JSONObject jsonRuleObject = jsonArray.optJSONObject(i);
@@ -83,6 +109,7 @@ public class RulesEngineFactory implements RuleListener {
                         }
                     }
                     ruleMap.put(key, rules);
+                    compiledRuleMap.put(key, CompiledRuleSet.fromJsonArray(jsonArray));
                 }
                 return ruleMap.get(key);
             }
@@ -110,29 +137,133 @@ public class RulesEngineFactory implements RuleListener {
 
 
     public boolean getRelevance(@NonNull Facts relevanceFact, @NonNull String ruleFilename) {
+        Rules rules = getRulesFromAsset(RULE_FOLDER_PATH + ruleFilename);
+        CompiledRuleSet compiledRules = compiledRuleMap.get(RULE_FOLDER_PATH + ruleFilename);
+
+        RuleResultCache.Key cacheKey = getRuleCacheKey(RuleConstant.IS_RELEVANT + ":" + ruleFilename, relevanceFact,
+                compiledRules);
+        Boolean cachedResult = cacheKey != null ? (Boolean) ruleResultCache.get(cacheKey) : null;
+        if (cachedResult != null) {
+            return cachedResult;
+        }
 
-        Facts facts = initializeFacts(relevanceFact);
+        SelectedRuleListener ruleListener = new SelectedRuleListener(relevanceFact);
+        Facts facts = fireRules(relevanceFact, rules, RuleConstant.IS_RELEVANT, false, compiledRules, ruleListener);
 
-        facts.put(RuleConstant.IS_RELEVANT, false);
+        boolean relevant = facts.get(RuleConstant.IS_RELEVANT);
+        if (cacheKey != null && ruleListener.hasSelectedRuleRun()) {
+            ruleResultCache.put(cacheKey, relevant);
+        }
+        return relevant;
+    }
 
-        rules = getRulesFromAsset(RULE_FOLDER_PATH + ruleFilename);
+    public boolean getDynamicRelevance(@NonNull Facts relevanceFact, @NonNull JSONArray rulesStrObject) {
+        Rules rules = getDynamicRulesFromJsonArray(rulesStrObject, JsonFormConstants.RELEVANCE);
+        CompiledRuleSet compiledRules = getCompiledDynamicRules(rulesStrObject, JsonFormConstants.RELEVANCE);
+
+        RuleResultCache.Key cacheKey = getDynamicRuleCacheKey(relevanceFact, rulesStrObject, JsonFormConstants.RELEVANCE,
+                compiledRules);
+        Boolean cachedResult = cacheKey != null ? (Boolean) ruleResultCache.get(cacheKey) : null;
+        if (cachedResult != null) {
+            return cachedResult;
+        }
 
-        processDefaultRules(rules, facts);
+        SelectedRuleListener ruleListener = new SelectedRuleListener(relevanceFact);
+        Facts facts = fireRules(relevanceFact, rules, RuleConstant.IS_RELEVANT, false, compiledRules, ruleListener);
 
-        return facts.get(RuleConstant.IS_RELEVANT);
+        boolean relevant = facts.get(RuleConstant.IS_RELEVANT);
+        if (cacheKey != null && ruleListener.hasSelectedRuleRun()) {
+            ruleResultCache.put(cacheKey, relevant);
+        }
+        return relevant;
     }
 
-    public boolean getDynamicRelevance(@NonNull Facts relevanceFact, @NonNull JSONArray rulesStrObject) {
+    /**
+     * Results are only cached for compiled rules whose result depends on nothing but the facts passed in, rules that
+     * call the helper or are left to the rules engine are fired every time, and so are all rules when
+     * {@link #useCompiledRules()} is off
+     *
+     * @return the cache key, null if the result must not be cached
+     */
+    @Nullable
+    private RuleResultCache.Key getRuleCacheKey(String ruleId, Facts facts, @Nullable CompiledRuleSet compiledRules) {
+        if (!useCompiledRules()) {
+            return null;
+        }
+        String ruleName = facts.get(RuleConstant.SELECTED_RULE);
+        return compiledRules != null && compiledRules.canCache(ruleName) ?
+                RuleResultCache.createKey(ruleId, facts.asMap()) : null;
+    }
 
-        Facts facts = initializeFacts(relevanceFact);
+    /**
+     * Dynamic rules are cached under the key entry of their json array, rule sets without one are not cached
+     */
+    @Nullable
+    private RuleResultCache.Key getDynamicRuleCacheKey(Facts facts, JSONArray jsonArray, String type,
+                                                       @Nullable CompiledRuleSet compiledRules) {
+        String key = getDynamicRulesKey(jsonArray, type);
+        return key == null ? null : getRuleCacheKey(key, facts, compiledRules);
+    }
 
-        facts.put(RuleConstant.IS_RELEVANT, false);
+    @Nullable
+    private CompiledRuleSet getCompiledDynamicRules(JSONArray jsonArray, String type) {
+        String key = getDynamicRulesKey(jsonArray, type);
+        return key == null ? null : compiledRuleMap.get(key);
+    }
 
-        rules = getDynamicRulesFromJsonArray(rulesStrObject, JsonFormConstants.RELEVANCE);
+    /**
+     * Fires the selected rule and returns the facts holding its result.
+     * <p>
+     * Compiled rules are fired directly by name and read the global and helper facts through a layered resolver
+     * instead of copying them into every set of facts. The rule listener callbacks are called for compiled rules too,
+     * with the rule facts. Rules that have not been compiled go through the rules engine.
+     *
+     * @param ruleFacts     facts of the fields the rule reads and the selected rule name
+     * @param rules         rules of the rule file for the rules engine
+     * @param resultName    fact the rule writes its result to
+     * @param defaultResult result when no rule applies
+     * @param compiledRules compiled rules of the rule file, null if they are not available
+     * @param ruleListener  listener of this firing, it is only called for compiled rules
+     * @return the facts after firing
+     */
+    private Facts fireRules(Facts ruleFacts, Rules rules, String resultName, Object defaultResult,
+                            @Nullable CompiledRuleSet compiledRules, SelectedRuleListener ruleListener) {
+        String ruleName = ruleFacts.get(RuleConstant.SELECTED_RULE);
+        if (useCompiledRules() && compiledRules != null && compiledRules.canFire(ruleName)) {
+            ruleFacts.put(resultName, defaultResult);
+            compiledRules.fire(ruleName, createFactResolver(ruleFacts), ruleListener, ruleFacts);
+            return ruleFacts;
+        }
 
+        Facts facts = initializeFacts(ruleFacts);
+        facts.put(resultName, defaultResult);
         processDefaultRules(rules, facts);
+        return facts;
+    }
+
+    /**
+     * Resolves variables from the rule facts first, then the global facts, then the helper. Variables assigned by rule
+     * actions are created in the rule facts, a global fact assigned by an action is only changed for that firing as it
+     * is when the globals are copied into the facts.
+     */
+    private VariableResolverFactory createFactResolver(Facts ruleFacts) {
+        VariableResolverFactory helperResolver = new MapVariableResolverFactory(helperFacts);
+        VariableResolverFactory globalResolver = globalFacts == null ? helperResolver :
+                new MapVariableResolverFactory(new CopyOnWriteFacts(globalFacts.asMap()), helperResolver);
+        return new MapVariableResolverFactory(ruleFacts.asMap(), globalResolver);
+    }
+
+    /**
+     * Drops the cached results of every rule that read the fact, call it whenever the fact's field is written
+     *
+     * @param factName fact name in the form stepName_key
+     */
+    public void invalidateRuleResults(@NonNull String factName) {
+        ruleResultCache.invalidate(factName);
+    }
 
-        return facts.get(RuleConstant.IS_RELEVANT);
+    public RuleResultCache getRuleResultCache() {
+        return ruleResultCache;
     }
 
     protected Facts initializeFacts(Facts facts) {
@@ -152,8 +283,9 @@ public class RulesEngineFactory implements RuleListener {
 
                 if (context instanceof ClientFormContract.View) {
                     try {
-                        BufferedReader bufferedReader = ((ClientFormContract.View) context).getRules(context, fileName);
-                        ruleMap.put(fileName, mvelRuleFactory.createRules(bufferedReader));
+                        RuleFile ruleFile = loadRuleFile(fileName);
+                        ruleMap.put(fileName, ruleFile.getRules());
+                        compiledRuleMap.put(fileName, ruleFile.getCompiledRules());
                     } catch (Exception ex) {
                         ((ClientFormContract.View) context).handleFormError(true, fileName);
                         return null;
@@ -172,6 +304,74 @@ public class RulesEngineFactory implements RuleListener {
         }
     }
 
+    private String readRules(BufferedReader bufferedReader) throws IOException {
+        try {
+            StringBuilder rulesYaml = new StringBuilder();
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                rulesYaml.append(line).append('\n');
+            }
+            return rulesYaml.toString();
+        } finally {
+            bufferedReader.close();
+        }
+    }
+
+    /**
+     * Returns the parsed rules file, shared with every other form in the process
+     *
+     * @param fileName path of the rules file including the rules folder
+     * @return the rule file or null if it cannot be read
+     */
+    @Nullable
+    public RuleFile getRuleFile(@NonNull String fileName) {
+        if (!(context instanceof ClientFormContract.View)) {
+            return null;
+        }
+
+        try {
+            return loadRuleFile(fileName);
+        } catch (Exception e) {
+            Timber.e(e, "%s getRuleFile", this.getClass().getCanonicalName());
+            return null;
+        }
+    }
+
+    private RuleFile loadRuleFile(String fileName) throws Exception {
+        RuleFile ruleFile = ruleFileMap.get(fileName);
+        if (ruleFile == null) {
+            // Activities may read rules from their own sources, so the activity is part of the data source
+            String sourceKey = RuleFileLoader.getSourceKey(JsonFormBaseActivity.DATA_SOURCE + ":" + context.getClass().getName()
+                    + getClientFormSource(fileName), getLocale(), fileName);
+            RuleFileLoader ruleFileLoader = RuleFileLoader.getInstance();
+            ruleFile = ruleFileLoader.get(sourceKey);
+            if (ruleFile == null) {
+                BufferedReader bufferedReader = ((ClientFormContract.View) context).getRules(context, fileName);
+                ruleFile = ruleFileLoader.load(sourceKey, readRules(bufferedReader), context.getCacheDir());
+            }
+            ruleFileMap.put(fileName, ruleFile);
+        }
+        return ruleFile;
+    }
+
+    /**
+     * @return the active version of the rules file in the client form repository, so that a new or rolled back version
+     * gets a new source key, an empty string if the file is not in the repository
+     */
+    @NonNull
+    private String getClientFormSource(String fileName) {
+        ClientFormContract.Dao clientFormDao = NativeFormLibrary.getInstance().getClientFormDao();
+        ClientFormContract.Model clientForm = clientFormDao != null ?
+                new FormUtils().getRulesClientForm(context, clientFormDao, fileName) : null;
+        return clientForm != null ? ":" + FormUtils.getClientFormSource(clientForm) : "";
+    }
+
+    @Nullable
+    private String getLocale() {
+        Resources resources = context.getResources();
+        return resources != null ? resources.getConfiguration().locale.getLanguage() : null;
+    }
+
     protected void processDefaultRules(Rules rules, Facts facts) {
         defaultRulesEngine.fire(rules, facts);
     }
@@ -201,25 +401,45 @@ public class RulesEngineFactory implements RuleListener {
 
     public String getCalculation(Facts calculationFact, String ruleFilename) {
         //need to clean curValue map as constraint depend on valid values, empties wont do
-        Facts facts = initializeFacts(calculationFact);
-        facts.put(RuleConstant.CALCULATION, "");
-        rules = getRulesFromAsset(RULE_FOLDER_PATH + ruleFilename);
-        processDefaultRules(rules, facts);
+        Rules rules = getRulesFromAsset(RULE_FOLDER_PATH + ruleFilename);
+        CompiledRuleSet compiledRules = compiledRuleMap.get(RULE_FOLDER_PATH + ruleFilename);
+
+        RuleResultCache.Key cacheKey = getRuleCacheKey(RuleConstant.CALCULATION + ":" + ruleFilename, calculationFact,
+                compiledRules);
+        String cachedResult = cacheKey != null ? (String) ruleResultCache.get(cacheKey) : null;
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        SelectedRuleListener ruleListener = new SelectedRuleListener(calculationFact);
+        Facts facts = fireRules(calculationFact, rules, RuleConstant.CALCULATION, "", compiledRules, ruleListener);
 
-        return formatCalculationReturnValue(facts.get(RuleConstant.CALCULATION));
+        String calculation = formatCalculationReturnValue(facts.get(RuleConstant.CALCULATION));
+        if (cacheKey != null && ruleListener.hasSelectedRuleRun()) {
+            ruleResultCache.put(cacheKey, calculation);
+        }
+        return calculation;
     }
 
     public String getDynamicCalculation(@NonNull Facts calculationFact, @NonNull JSONArray rulesStrObject) {
+        Rules rules = getDynamicRulesFromJsonArray(rulesStrObject, JsonFormConstants.CALCULATION);
+        CompiledRuleSet compiledRules = getCompiledDynamicRules(rulesStrObject, JsonFormConstants.CALCULATION);
+
+        RuleResultCache.Key cacheKey = getDynamicRuleCacheKey(calculationFact, rulesStrObject,
+                JsonFormConstants.CALCULATION, compiledRules);
+        String cachedResult = cacheKey != null ? (String) ruleResultCache.get(cacheKey) : null;
+        if (cachedResult != null) {
+            return cachedResult;
+        }
 
-        Facts facts = initializeFacts(calculationFact);
-
-        facts.put(RuleConstant.CALCULATION, false);
-
-        rules = getDynamicRulesFromJsonArray(rulesStrObject, JsonFormConstants.CALCULATION);
-
-        processDefaultRules(rules, facts);
+        SelectedRuleListener ruleListener = new SelectedRuleListener(calculationFact);
+        Facts facts = fireRules(calculationFact, rules, RuleConstant.CALCULATION, false, compiledRules, ruleListener);
 
-        return formatCalculationReturnValue(facts.get(RuleConstant.CALCULATION));
+        String calculation = formatCalculationReturnValue(facts.get(RuleConstant.CALCULATION));
+        if (cacheKey != null && ruleListener.hasSelectedRuleRun()) {
+            ruleResultCache.put(cacheKey, calculation);
+        }
+        return calculation;
     }
 
     private String formatCalculationReturnValue(Object rawValue) {
@@ -239,17 +459,37 @@ public class RulesEngineFactory implements RuleListener {
     }
 
     public String getConstraint(Facts constraintFact, String ruleFilename) {
-        Facts facts = initializeFacts(constraintFact);
-        facts.put(RuleConstant.CONSTRAINT, "0");
-        rules = getRulesFromAsset(RULE_FOLDER_PATH + ruleFilename);
-        processDefaultRules(rules, facts);
+        Rules rules = getRulesFromAsset(RULE_FOLDER_PATH + ruleFilename);
+        CompiledRuleSet compiledRules = compiledRuleMap.get(RULE_FOLDER_PATH + ruleFilename);
+
+        RuleResultCache.Key cacheKey = getRuleCacheKey(RuleConstant.CONSTRAINT + ":" + ruleFilename, constraintFact,
+                compiledRules);
+        String cachedResult = cacheKey != null ? (String) ruleResultCache.get(cacheKey) : null;
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        SelectedRuleListener ruleListener = new SelectedRuleListener(constraintFact);
+        Facts facts = fireRules(constraintFact, rules, RuleConstant.CONSTRAINT, "0", compiledRules, ruleListener);
 
-        return formatCalculationReturnValue(facts.get(RuleConstant.CONSTRAINT));
+        String constraint = formatCalculationReturnValue(facts.get(RuleConstant.CONSTRAINT));
+        if (cacheKey != null && ruleListener.hasSelectedRuleRun()) {
+            ruleResultCache.put(cacheKey, constraint);
+        }
+        return constraint;
     }
 
+    /**
+     * Only lets the selected rule be evaluated, the name is read from the facts being fired so that firings on other
+     * threads cannot change it
+     */
     @Override
     public boolean beforeEvaluate(Rule rule, Facts facts) {
-        return selectedRuleName != null && selectedRuleName.equals(rule.getName());
+        String ruleName = facts.get(RuleConstant.SELECTED_RULE);
+        if (ruleName == null) {
+            ruleName = selectedRuleName;
+        }
+        return ruleName != null && ruleName.equals(rule.getName());
     }
 
     @Override
@@ -272,12 +512,107 @@ public class RulesEngineFactory implements RuleListener {
         //Overriden
     }
 
+    /**
+     * Listener of a single firing of compiled rules, it only lets the rule selected for that firing through and passes the
+     * callbacks on to the factory, recording whether the selected rule ran
+     */
+    private final class SelectedRuleListener implements RuleListener {
+        private final String ruleName;
+        private boolean selectedRuleRun;
+
+        private SelectedRuleListener(Facts ruleFacts) {
+            this.ruleName = ruleFacts.get(RuleConstant.SELECTED_RULE);
+        }
+
+        /**
+         * @return whether the selected rule was evaluated, the result is the default one otherwise
+         */
+        private boolean hasSelectedRuleRun() {
+            return selectedRuleRun;
+        }
+
+        @Override
+        public boolean beforeEvaluate(Rule rule, Facts facts) {
+            boolean evaluate = ruleName != null && ruleName.equals(rule.getName())
+                    && RulesEngineFactory.this.beforeEvaluate(rule, facts);
+            selectedRuleRun |= evaluate;
+            return evaluate;
+        }
+
+        @Override
+        public void afterEvaluate(Rule rule, Facts facts, boolean evaluationResult) {
+            RulesEngineFactory.this.afterEvaluate(rule, facts, evaluationResult);
+        }
+
+        @Override
+        public void beforeExecute(Rule rule, Facts facts) {
+            RulesEngineFactory.this.beforeExecute(rule, facts);
+        }
+
+        @Override
+        public void onSuccess(Rule rule, Facts facts) {
+            RulesEngineFactory.this.onSuccess(rule, facts);
+        }
+
+        @Override
+        public void onFailure(Rule rule, Facts facts, Exception exception) {
+            RulesEngineFactory.this.onFailure(rule, facts, exception);
+        }
+    }
+
+    /**
+     * Reads from the shared facts until the first write, which goes to a copy
+     */
+    private static final class CopyOnWriteFacts extends AbstractMap<String, Object> {
+        private Map<String, Object> facts;
+        private boolean copied;
+
+        private CopyOnWriteFacts(Map<String, Object> facts) {
+            this.facts = facts;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return facts.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return facts.containsKey(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return copy().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return copy().remove(key);
+        }
+
+        @NonNull
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return Collections.unmodifiableMap(facts).entrySet();
+        }
+
+        private Map<String, Object> copy() {
+            if (!copied) {
+                facts = new HashMap<>(facts);
+                copied = true;
+            }
+            return facts;
+        }
+    }
+
     public String getRulesFolderPath() {
         return RULE_FOLDER_PATH;
     }
 
     public void setRulesFolderPath(String path) {
         RULE_FOLDER_PATH = path;
+        ruleResultCache.clear();
     }
 
 }
@@ -0,0 +1,468 @@
+package com.vijay.jsonwizard.rules;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.comparisons.ComparisonExpression;
+import com.vijay.jsonwizard.comparisons.TypedValue;
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+import com.vijay.jsonwizard.model.FieldModel;
+import com.vijay.jsonwizard.model.FormModel;
+import com.vijay.jsonwizard.model.StepModel;
+import com.vijay.jsonwizard.utils.FormUtils;
+import com.vijay.jsonwizard.utils.Utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jeasy.rules.api.Facts;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import timber.log.Timber;
+
+/**
+ * Works out which fields are visible and which steps are relevant from the compiled form and the rules alone.
+ * <p>
+ * The form activity evaluates relevance per widget view, so finding out whether a step has anything to show used to
+ * mean building the widgets of that step first. This evaluator reads the same relevance definitions from the field
+ * json, with no view and no context, and evaluates the whole form at once. Like the activity clearing the values of
+ * the views it hides, hidden fields are read as having no value, and the form is evaluated again until no visibility
+ * changes so that a field may depend on fields further down the form.
+ * <p>
+ * The relevance definitions are compiled once per evaluator, keep the evaluator for as long as the form model it was
+ * created for to evaluate the form again when values change. It is not thread safe.
+ */
+public class StepRelevanceEvaluator {
+
+    private static final int MAX_PASSES = 5;
+    private final FormModel formModel;
+    @Nullable
+    private final RulesEngineFactory rulesEngineFactory;
+    private final FormUtils formUtils = new FormUtils();
+    private final Set<String> hiddenFields = new HashSet<>();
+    // Rule inputs of the dynamic rules of each binding, keyed by the dynamic rules json of the binding
+    private final Map<String, Set<String>> dynamicRuleInputs = new HashMap<>();
+    private List<RuleBinding> bindings;
+    private List<FieldModel> relevanceFields;
+
+    /**
+     * @param formModel          the compiled form, holding the current values
+     * @param rulesEngineFactory evaluates rules engine relevance, fields using the rules engine are visible without it
+     */
+    public StepRelevanceEvaluator(@NonNull FormModel formModel, @Nullable RulesEngineFactory rulesEngineFactory) {
+        this.formModel = formModel;
+        this.rulesEngineFactory = rulesEngineFactory;
+    }
+
+    /**
+     * @return the form model this evaluator evaluates
+     */
+    @NonNull
+    public FormModel getFormModel() {
+        return formModel;
+    }
+
+    /**
+     * Evaluates the relevance of every field of the form for the current values
+     *
+     * @return the visible fields and relevant steps
+     */
+    @NonNull
+    public Result evaluate() {
+        if (bindings == null) {
+            compileBindings();
+        }
+
+        hiddenFields.clear();
+        for (int pass = 0; pass < MAX_PASSES; pass++) {
+            boolean changed = false;
+            for (int i = 0; i < relevanceFields.size(); i++) {
+                String address = relevanceFields.get(i).getAddress();
+                changed |= isRelevant(bindings.get(i).getRelevance()) ? hiddenFields.remove(address) :
+                        hiddenFields.add(address);
+            }
+            if (!changed) {
+                break;
+            }
+        }
+
+        Set<String> relevantSteps = new HashSet<>();
+        for (StepModel step : formModel.getSteps()) {
+            for (FieldModel field : step.getFields()) {
+                if (!JsonFormConstants.HIDDEN.equals(field.getType()) && !hiddenFields.contains(field.getAddress())) {
+                    relevantSteps.add(step.getName());
+                    break;
+                }
+            }
+        }
+        return new Result(formModel, new HashSet<>(hiddenFields), relevantSteps);
+    }
+
+    private void compileBindings() {
+        bindings = new ArrayList<>();
+        relevanceFields = new ArrayList<>();
+        for (FieldModel field : formModel.getFields()) {
+            if (field.hasRelevance()) {
+                JSONObject relevance = field.getJson().optJSONObject(JsonFormConstants.RELEVANCE);
+                bindings.add(RuleBinding.compile(field.getStepName() + ":" + field.getKey(), field.getKey(), false,
+                        null, relevance != null ? relevance.toString() : null, null, null));
+                relevanceFields.add(field);
+            }
+        }
+    }
+
+    /**
+     * Mirrors the relevance decision the form activity makes for a widget view, a relevance that cannot be resolved or
+     * evaluated leaves the field visible
+     */
+    private boolean isRelevant(@Nullable RuleBinding.Descriptor relevance) {
+        if (relevance == null || relevance.getAddress() == null || relevance.getAddress().length < 2) {
+            return true;
+        }
+
+        try {
+            Facts facts = getFacts(relevance.getAddress());
+            return facts == null || isRelevant(facts, relevance.getDefinition());
+        } catch (Exception e) {
+            Timber.e(e, "StepRelevanceEvaluator --> isRelevant %s", relevance.getKey());
+            return true;
+        }
+    }
+
+    private boolean isRelevant(@NonNull Facts facts, @Nullable JSONObject relevance) throws Exception {
+        if (relevance == null) {
+            return false;
+        }
+
+        if (relevance.has(JsonFormConstants.JSON_FORM_KEY.EX_RULES)) {
+            JSONObject exRules = relevance.getJSONObject(JsonFormConstants.JSON_FORM_KEY.EX_RULES);
+            if (rulesEngineFactory == null) {
+                return true;
+            } else if (exRules.has(RuleConstant.RULES_FILE)) {
+                return facts.asMap().size() != 0 &&
+                        rulesEngineFactory.getRelevance(facts, exRules.getString(RuleConstant.RULES_FILE));
+            } else if (exRules.has(RuleConstant.RULES_DYNAMIC)) {
+                return facts.asMap().size() != 0 &&
+                        rulesEngineFactory.getDynamicRelevance(facts, exRules.optJSONArray(RuleConstant.RULES_DYNAMIC));
+            }
+            return false;
+        } else if (relevance.has(JsonFormConstants.JSON_FORM_KEY.EX_CHECKBOX)) {
+            JSONArray exArray = relevance.getJSONArray(JsonFormConstants.JSON_FORM_KEY.EX_CHECKBOX);
+            for (int i = 0; i < exArray.length(); i++) {
+                JSONObject exObject = exArray.getJSONObject(i);
+                Boolean result = isExObjectRelevant(facts, exObject);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return false;
+        }
+
+        Object value = facts.get(JsonFormConstants.VALUE);
+        return doComparison(TypedValue.of(value != null ? String.valueOf(value) : ""), relevance);
+    }
+
+    /**
+     * @return whether a single ex-checkbox entry decides relevance, null when the next entry has to be checked
+     */
+    @Nullable
+    private Boolean isExObjectRelevant(Facts facts, JSONObject exObject) throws JSONException {
+        JSONArray notArray = exObject.optJSONArray(JsonFormConstants.JSON_FORM_KEY.NOT);
+        if (notArray != null && notArray.length() > 0) {
+            String value = facts.get(notArray.getString(0));
+            return value != null && !Boolean.valueOf(value);
+        }
+
+        JSONArray orArray = exObject.optJSONArray(JsonFormConstants.JSON_FORM_KEY.OR);
+        if (orArray != null) {
+            for (int i = 0; i < orArray.length(); i++) {
+                String value = facts.get(orArray.getString(i));
+                if (value != null && Boolean.valueOf(value)) {
+                    return true;
+                }
+            }
+        }
+
+        JSONArray andArray = exObject.optJSONArray(JsonFormConstants.JSON_FORM_KEY.AND);
+        if (andArray != null) {
+            for (int i = 0; i < andArray.length(); i++) {
+                String value = facts.get(andArray.getString(i));
+                if (value != null && !Boolean.valueOf(value)) {
+                    return null;
+                }
+            }
+            return true;
+        }
+        return null;
+    }
+
+    private boolean doComparison(TypedValue value, JSONObject comparison) throws JSONException {
+        String type = comparison.getString(JsonFormConstants.TYPE).toLowerCase();
+        ComparisonExpression expression = ComparisonExpression.compile(comparison.getString(JsonFormConstants.EX));
+        return expression != null && expression.compare(value, type, new ComparisonExpression.ValueResolver() {
+            @NonNull
+            @Override
+            public TypedValue getValue(@NonNull String[] address) {
+                FieldModel field = address.length > 1 ? formModel.getField(address[0], address[1]) : null;
+                try {
+                    Object value = field != null ? getFieldFacts(field, false).get(JsonFormConstants.VALUE) : null;
+                    return TypedValue.of(String.valueOf(value));
+                } catch (JSONException e) {
+                    Timber.e(e, "StepRelevanceEvaluator --> getValue");
+                    return TypedValue.of(null);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return the facts a relevance is evaluated against, null if rules engine facts are needed and there is no rules
+     * engine
+     */
+    @Nullable
+    private Facts getFacts(String[] address) throws JSONException {
+        Set<String> ruleInputs;
+        if (RuleConstant.RULES_DYNAMIC.equals(address[0])) {
+            ruleInputs = getDynamicRuleInputs(address[1]);
+        } else if (RuleConstant.RULES_ENGINE.equals(address[0])) {
+            if (rulesEngineFactory == null) {
+                return null;
+            }
+            RuleFile ruleFile = rulesEngineFactory.getRuleFile(rulesEngineFactory.getRulesFolderPath() + address[1]);
+            ruleInputs = ruleFile != null ? ruleFile.getRuleInputs(address[2]) : null;
+            if (ruleInputs == null) {
+                return new Facts();
+            }
+        } else {
+            FieldModel field = formModel.getField(address[0], address[1]);
+            return field != null ? getFieldFacts(field, false) : new Facts();
+        }
+
+        Facts facts = new Facts();
+        for (String input : ruleInputs) {
+            FieldModel field = formModel.getField(input);
+            if (field != null) {
+                facts.asMap().putAll(getFieldFacts(field, true).asMap());
+            }
+        }
+        facts.put(RuleConstant.SELECTED_RULE, address[2]);
+        return facts;
+    }
+
+    private Set<String> getDynamicRuleInputs(String dynamicRules) {
+        Set<String> inputs = dynamicRuleInputs.get(dynamicRules);
+        if (inputs == null) {
+            inputs = Collections.unmodifiableSet(parseDynamicRuleInputs(dynamicRules));
+            dynamicRuleInputs.put(dynamicRules, inputs);
+        }
+        return inputs;
+    }
+
+    private Set<String> parseDynamicRuleInputs(String dynamicRules) {
+        Set<String> inputs = new LinkedHashSet<>();
+        try {
+            JSONArray rules = new JSONArray(dynamicRules);
+            for (int i = 0; i < rules.length(); i++) {
+                JSONObject rule = rules.optJSONObject(i);
+                if (rule != null && !rule.has(JsonFormConstants.KEY)) {
+                    String condition = rule.optString(RuleConstant.CONDITION);
+                    if (StringUtils.isNotBlank(condition)) {
+                        inputs.addAll(Utils.getConditionKeys(condition));
+                    }
+
+                    String action = rule.optString(RuleConstant.ACTIONS);
+                    if (StringUtils.isNotBlank(action) && !action.trim().startsWith(RuleConstant.IS_RELEVANT)) {
+                        inputs.addAll(Utils.getConditionKeys(action));
+                    }
+                }
+            }
+        } catch (JSONException e) {
+            Timber.e(e);
+        }
+        return inputs;
+    }
+
+    /**
+     * Reads the facts of a field the way the form activity does, the form is left untouched. Most fields are read in
+     * place, check boxes and radio buttons are read through a shallow copy that carries the flags the shared readers
+     * expect, their options are not copied.
+     *
+     * @param ruleCheck true if the facts are keyed by field address for the rules engine
+     */
+    private Facts getFieldFacts(FieldModel field, boolean ruleCheck) throws JSONException {
+        JSONObject json = field.getJson();
+        boolean hidden = hiddenFields.contains(field.getAddress());
+        boolean multiRelevance = json.optBoolean(JsonFormConstants.NATIVE_RADIO_BUTTON_MULTI_RELEVANCE, false);
+
+        Facts result;
+        switch (field.getType()) {
+            case JsonFormConstants.CHECK_BOX:
+                result = formUtils.getCheckBoxResults(getFlaggedCopy(field, ruleCheck, hidden));
+                break;
+            case JsonFormConstants.NATIVE_RADIO_BUTTON:
+            case JsonFormConstants.EXTENDED_RADIO_BUTTON:
+                result = formUtils.getRadioButtonResults(multiRelevance, getFlaggedCopy(field, ruleCheck, hidden));
+                break;
+            default:
+                result = new Facts();
+                result.put(ruleCheck ? field.getAddress() : JsonFormConstants.VALUE, getValue(json, hidden));
+                break;
+        }
+
+        if (ruleCheck && (JsonFormConstants.CHECK_BOX.equals(field.getType()) ||
+                (JsonFormConstants.NATIVE_RADIO_BUTTON.equals(field.getType()) && multiRelevance))) {
+            List<String> selectedValues = new ArrayList<>(result.asMap().keySet());
+            result = new Facts();
+            result.put(field.getAddress(), selectedValues);
+        }
+        return result;
+    }
+
+    private JSONObject getFlaggedCopy(FieldModel field, boolean ruleCheck, boolean hidden) throws JSONException {
+        JSONObject json = field.getJson();
+        JSONObject copy = new JSONObject();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (!hidden || !JsonFormConstants.VALUE.equals(key)) {
+                copy.put(key, json.opt(key));
+            }
+        }
+        copy.put(RuleConstant.IS_RULE_CHECK, ruleCheck);
+        copy.put(RuleConstant.STEP, field.getStepName());
+        return copy;
+    }
+
+    private Object getValue(JSONObject object, boolean hidden) {
+        boolean numberWidget = JsonFormConstants.EDIT_TEXT_TYPE.NUMBER.equals(object.optString(JsonFormConstants.EDIT_TYPE)) ||
+                JsonFormConstants.NUMBER_SELECTOR.equals(object.optString(JsonFormConstants.TYPE));
+        if (hidden || !object.has(JsonFormConstants.VALUE)) {
+            return numberWidget ? 0 : "";
+        }
+
+        String rawValue = object.optString(JsonFormConstants.VALUE);
+        if (numberWidget) {
+            return StringUtils.isEmpty(rawValue) ? 0 : getNumberValue(rawValue);
+        }
+
+        String value = Utils.getValueAfterTranslation(object);
+        String type = object.optString(JsonFormConstants.TYPE);
+        if (!StringUtils.isEmpty(rawValue) &&
+                (JsonFormConstants.HIDDEN.equals(type) || JsonFormConstants.SPINNER.equals(type))) {
+            return getNumberValue(value);
+        }
+        return value;
+    }
+
+    private Object getNumberValue(String value) {
+        try {
+            if (value.contains(".")) {
+                return String.valueOf((float) Math.round(Float.valueOf(value) * 100) / 100);
+            }
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            return value;
+        }
+    }
+
+    /**
+     * Visible fields and relevant steps of the form for the values it had when it was evaluated
+     */
+    public static final class Result {
+        private final FormModel formModel;
+        private final Set<String> hiddenFields;
+        private final Set<String> relevantSteps;
+
+        private Result(FormModel formModel, Set<String> hiddenFields, Set<String> relevantSteps) {
+            this.formModel = formModel;
+            this.hiddenFields = hiddenFields;
+            this.relevantSteps = relevantSteps;
+        }
+
+        /**
+         * @param address field address in the form stepName_key
+         */
+        public boolean isFieldVisible(String address) {
+            return formModel.getField(address) != null && !hiddenFields.contains(address);
+        }
+
+        /**
+         * @return addresses in the form stepName_key of the visible fields, in form order
+         */
+        public List<String> getVisibleFields() {
+            List<String> visibleFields = new ArrayList<>();
+            for (FieldModel field : formModel.getFields()) {
+                if (!hiddenFields.contains(field.getAddress())) {
+                    visibleFields.add(field.getAddress());
+                }
+            }
+            return visibleFields;
+        }
+
+        /**
+         * @return true if the step has a visible field that is not of the hidden type
+         */
+        public boolean isStepRelevant(String stepName) {
+            return relevantSteps.contains(stepName);
+        }
+
+        /**
+         * @return the relevant steps in step order
+         */
+        public List<String> getRelevantSteps() {
+            List<String> steps = new ArrayList<>();
+            for (StepModel step : formModel.getSteps()) {
+                if (relevantSteps.contains(step.getName())) {
+                    steps.add(step.getName());
+                }
+            }
+            return Collections.unmodifiableList(steps);
+        }
+
+        /**
+         * Follows the next step of each step from the given one
+         *
+         * @return the first relevant step after the given step, null if none of the steps after it is relevant
+         */
+        @Nullable
+        public String getNextRelevantStep(String stepName) {
+            Set<String> visited = new HashSet<>();
+            StepModel step = formModel.getStep(stepName);
+            while (step != null && visited.add(step.getName())) {
+                step = formModel.getStep(step.getJson().optString(JsonFormConstants.NEXT));
+                if (step != null && relevantSteps.contains(step.getName())) {
+                    return step.getName();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return the last relevant step numbered before the given step, null if there is none
+         */
+        @Nullable
+        public String getPreviousRelevantStep(String stepName) {
+            StepModel step = formModel.getStep(stepName);
+            if (step == null) {
+                return null;
+            }
+            for (int i = formModel.getSteps().indexOf(step) - 1; i >= 0; i--) {
+                String previous = formModel.getSteps().get(i).getName();
+                if (relevantSteps.contains(previous)) {
+                    return previous;
+                }
+            }
+            return null;
+        }
+    }
+}
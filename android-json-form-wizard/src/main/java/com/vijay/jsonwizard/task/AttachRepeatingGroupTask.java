@@ -65,6 +65,8 @@ public class AttachRepeatingGroupTask {
     private Map<Integer, String> repeatingGroupLayouts;
     private int currNumRepeatingGroups;
     private final AppExecutors appExecutors;
+    // Fields of the groups built in the background, added to the step on the ui thread
+    private final List<JSONObject> repeatingGroupFields = new ArrayList<>();
 
     public AttachRepeatingGroupTask(final ViewParent parent, int numRepeatingGroups, Map<Integer, String> repeatingGroupLayouts, WidgetArgs widgetArgs, ImageButton doneButton) {
         this.rootLayout = (LinearLayout) parent;
@@ -74,7 +76,8 @@ public class AttachRepeatingGroupTask {
         this.doneButton = doneButton;
         this.repeatingGroupLayouts = repeatingGroupLayouts;
         currNumRepeatingGroups = ((ViewGroup) parent).getChildCount() - 1;
-        appExecutors = new AppExecutors();
+        appExecutors = widgetArgs.getContext() instanceof JsonApi ?
+                ((JsonApi) widgetArgs.getContext()).getAppExecutors() : new AppExecutors();
     }
 
     public void init() {
@@ -101,7 +104,6 @@ public class AttachRepeatingGroupTask {
                 Timber.e(e);
             }
         }
-        updateRepeatingGrpCountObject();
         return repeatingGroups;
     }
 
@@ -117,6 +119,7 @@ public class AttachRepeatingGroupTask {
     }
 
     protected void onPostExecute() {
+        updateRepeatingGrpCountObject();
         if (diff < 0) {
             try {
                 JSONObject step = ((JsonApi) widgetArgs.getContext()).getmJSONObject().getJSONObject(widgetArgs.getStepName());
@@ -160,9 +163,19 @@ public class AttachRepeatingGroupTask {
             for (View repeatingGroup : repeatingGroups) {
                 rootLayout.addView(repeatingGroup);
             }
+            try {
+                // add elements to json form object to be written into
+                JSONObject step = ((JsonApi) widgetArgs.getContext()).getmJSONObject().getJSONObject(widgetArgs.getStepName());
+                for (JSONObject element : repeatingGroupFields) {
+                    step.getJSONArray(FIELDS).put(element);
+                }
+            } catch (JSONException e) {
+                Timber.e(e, " --> onPostExecute");
+            }
         }
 
         try {
+            ((JsonApi) widgetArgs.getContext()).onStepChanged(widgetArgs.getStepName());
             ((JsonApi) widgetArgs.getContext()).invokeRefreshLogic(null, false, null, null, widgetArgs.getStepName(), false);
         } catch (Exception e) {
             Timber.e(e);
@@ -212,9 +225,7 @@ public class AttachRepeatingGroupTask {
                     view.setLayoutParams(WIDTH_MATCH_PARENT_HEIGHT_WRAP_CONTENT);
                     repeatingGroup.addView(view);
                 }
-                // add element to json form object to be written into
-                JSONObject step = ((JsonApi) widgetArgs.getContext()).getmJSONObject().getJSONObject(widgetArgs.getStepName());
-                step.getJSONArray(FIELDS).put(element);
+                repeatingGroupFields.add(element);
             }
         }
 
@@ -13,6 +13,7 @@ import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.customviews.ExpansionPanelGenericPopupDialog;
 import com.vijay.jsonwizard.fragments.JsonFormFragment;
 import com.vijay.jsonwizard.interfaces.CommonListener;
+import com.vijay.jsonwizard.interfaces.JsonApi;
 import com.vijay.jsonwizard.utils.AppExecutors;
 import com.vijay.jsonwizard.utils.FormUtils;
 import com.vijay.jsonwizard.utils.Utils;
@@ -37,7 +38,8 @@ public class ExpansionPanelGenericPopupDialogTask  {
     }
 
    public void init(){
-       AppExecutors appExecutors = new AppExecutors();
+       Context context = (Context) view.getTag(R.id.specify_context);
+       AppExecutors appExecutors = context instanceof JsonApi ? ((JsonApi) context).getAppExecutors() : new AppExecutors();
        appExecutors.mainThread().execute(this::onPreExecute);
        appExecutors.diskIO().execute(this::processViewOnBackground);
     }
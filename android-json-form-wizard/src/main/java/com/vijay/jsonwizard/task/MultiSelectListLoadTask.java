@@ -6,8 +6,11 @@ import com.vijay.jsonwizard.R;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.domain.MultiSelectItem;
 import com.vijay.jsonwizard.domain.MultiSelectListAccessory;
+import com.vijay.jsonwizard.interfaces.PagedMultiSelectListRepository;
 import com.vijay.jsonwizard.utils.AppExecutors;
 import com.vijay.jsonwizard.utils.MultiSelectListUtils;
+import com.vijay.jsonwizard.utils.MultiSelectSearchIndex;
+import com.vijay.jsonwizard.utils.Utils;
 import com.vijay.jsonwizard.widgets.MultiSelectListFactory;
 
 import org.apache.commons.lang3.StringUtils;
@@ -15,6 +18,7 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -28,6 +32,7 @@ public class MultiSelectListLoadTask {
     private String currentAdapterKey;
     private ProgressDialog progressBar;
     private AppExecutors appExecutors;
+    private MultiSelectListPageLoader pageLoader;
 
     public MultiSelectListLoadTask(final MultiSelectListFactory multiSelectListFactory) {
         this.multiSelectListFactory = multiSelectListFactory;
@@ -46,6 +51,11 @@ public class MultiSelectListLoadTask {
     private void init() {
         appExecutors.diskIO().execute(() -> {
             String source = jsonObject.optString(JsonFormConstants.MultiSelectUtils.SOURCE);
+            PagedMultiSelectListRepository pagedRepository = multiSelectListFactory.loadPagedRepository(source);
+            if (pagedRepository != null) {
+                appExecutors.mainThread().execute(() -> startPaging(pagedRepository));
+                return;
+            }
             final List<MultiSelectItem> multiSelectItems = multiSelectListFactory.loadListItems(source);
             if (multiSelectItems == null) {
                 return;
@@ -79,18 +89,60 @@ public class MultiSelectListLoadTask {
                 }
             }
 
-            appExecutors.mainThread().execute(() -> onPostExecute(multiSelectItems));
+            // Built here so that the first search of a long list does not wait for it
+            final MultiSelectSearchIndex searchIndex = MultiSelectSearchIndex.build(multiSelectItems);
+            appExecutors.mainThread().execute(() -> onPostExecute(multiSelectItems, searchIndex));
         });
     }
 
-    private void onPostExecute(List<MultiSelectItem> multiSelectItems) {
+    private void onPostExecute(List<MultiSelectItem> multiSelectItems, MultiSelectSearchIndex searchIndex) {
         if (progressBar != null) {
             progressBar.dismiss();
         }
         if (multiSelectItems != null) {
             MultiSelectListAccessory multiSelectListAccessory = multiSelectListFactory.getMultiSelectListAccessoryHashMap().get(currentAdapterKey);
             multiSelectListAccessory.setItemList(multiSelectItems);
+            multiSelectListAccessory.setSearchIndex(searchIndex);
             multiSelectListFactory.updateListData(true, currentAdapterKey);
         }
     }
+
+    private void startPaging(PagedMultiSelectListRepository pagedRepository) {
+        pageLoader = new MultiSelectListPageLoader(pagedRepository, getOrderHint(),
+                jsonObject.optInt(JsonFormConstants.MultiSelectUtils.PAGE_SIZE, MultiSelectListPageLoader.DEFAULT_PAGE_SIZE),
+                appExecutors, this::onPageLoaded);
+        pageLoader.start();
+    }
+
+    private void onPageLoaded(int offset, List<MultiSelectItem> page) {
+        MultiSelectListAccessory multiSelectListAccessory = multiSelectListFactory.getMultiSelectListAccessoryHashMap().get(currentAdapterKey);
+        if (offset > 0) {
+            multiSelectListAccessory.getItemList().addAll(page);
+            multiSelectListAccessory.getListAdapter().appendItems(page);
+            return;
+        }
+
+        if (progressBar != null) {
+            progressBar.dismiss();
+        }
+        if (page.isEmpty()) {
+            Utils.showToast(multiSelectListFactory.getContext(), multiSelectListFactory.getContext().getString(R.string.multi_select_list_msg_data_source_invalid));
+            return;
+        }
+        multiSelectListAccessory.setItemList(new ArrayList<>(page));
+        multiSelectListAccessory.setPageLoader(pageLoader);
+        multiSelectListFactory.updateListData(true, currentAdapterKey);
+    }
+
+    private JSONObject getOrderHint() {
+        JSONObject orderHint = new JSONObject();
+        try {
+            orderHint.put(JsonFormConstants.MultiSelectUtils.SORT, jsonObject.optBoolean(JsonFormConstants.MultiSelectUtils.SORT));
+            orderHint.putOpt(JsonFormConstants.MultiSelectUtils.SORTING_CLASS, jsonObject.opt(JsonFormConstants.MultiSelectUtils.SORTING_CLASS));
+            orderHint.putOpt(JsonFormConstants.MultiSelectUtils.GROUPINGS, jsonObject.opt(JsonFormConstants.MultiSelectUtils.GROUPINGS));
+        } catch (JSONException e) {
+            Timber.e(e);
+        }
+        return orderHint;
+    }
 }
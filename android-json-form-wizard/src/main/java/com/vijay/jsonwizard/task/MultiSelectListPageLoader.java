@@ -0,0 +1,108 @@
+package com.vijay.jsonwizard.task;
+
+import androidx.annotation.NonNull;
+
+import com.vijay.jsonwizard.domain.MultiSelectItem;
+import com.vijay.jsonwizard.interfaces.PagedMultiSelectListRepository;
+import com.vijay.jsonwizard.utils.AppExecutors;
+
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads a {@link PagedMultiSelectListRepository} a page at a time. The page after the one last handed out is fetched
+ * in the background straight away, so that it is ready when the list is scrolled to its end, and nothing beyond it is
+ * read until then.
+ * <p>
+ * Must only be used from the main thread, pages are fetched on the disk executor.
+ */
+public class MultiSelectListPageLoader {
+
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    private final PagedMultiSelectListRepository repository;
+    private final JSONObject orderHint;
+    private final int pageSize;
+    private final AppExecutors appExecutors;
+    private final PageListener pageListener;
+
+    private int nextOffset;
+    private List<MultiSelectItem> prefetchedPage;
+    private boolean fetching;
+    private boolean deliverWhenFetched;
+    private boolean lastPageFetched;
+
+    public MultiSelectListPageLoader(@NonNull PagedMultiSelectListRepository repository, @NonNull JSONObject orderHint,
+                                     int pageSize, @NonNull AppExecutors appExecutors, @NonNull PageListener pageListener) {
+        this.repository = repository;
+        this.orderHint = orderHint;
+        this.pageSize = pageSize > 0 ? pageSize : DEFAULT_PAGE_SIZE;
+        this.appExecutors = appExecutors;
+        this.pageListener = pageListener;
+    }
+
+    /**
+     * Fetches the first page and hands it out as soon as it is read
+     */
+    public void start() {
+        deliverWhenFetched = true;
+        fetch();
+    }
+
+    /**
+     * Hands out the next page, straight away if it has been prefetched or else once it is read
+     */
+    public void loadNextPage() {
+        if (prefetchedPage != null) {
+            List<MultiSelectItem> page = prefetchedPage;
+            prefetchedPage = null;
+            deliver(nextOffset - page.size(), page);
+        } else if (fetching) {
+            deliverWhenFetched = true;
+        }
+    }
+
+    public boolean hasMorePages() {
+        return prefetchedPage != null || !lastPageFetched;
+    }
+
+    private void fetch() {
+        if (fetching || lastPageFetched) {
+            return;
+        }
+        fetching = true;
+        final int offset = nextOffset;
+        appExecutors.diskIO().execute(() -> {
+            List<MultiSelectItem> page = repository.fetchPage(offset, pageSize, orderHint);
+            final List<MultiSelectItem> fetchedPage = page != null ? page : Collections.<MultiSelectItem>emptyList();
+            appExecutors.mainThread().execute(() -> onFetched(offset, fetchedPage));
+        });
+    }
+
+    private void onFetched(int offset, List<MultiSelectItem> page) {
+        fetching = false;
+        nextOffset = offset + page.size();
+        lastPageFetched = page.size() < pageSize;
+        if (deliverWhenFetched) {
+            deliverWhenFetched = false;
+            deliver(offset, page);
+        } else if (!page.isEmpty()) {
+            prefetchedPage = page;
+        }
+    }
+
+    private void deliver(int offset, List<MultiSelectItem> page) {
+        pageListener.onPageLoaded(offset, page);
+        fetch();
+    }
+
+    public interface PageListener {
+        /**
+         * @param offset position of the first item of the page in the list
+         * @param page   items of the page
+         */
+        void onPageLoaded(int offset, @NonNull List<MultiSelectItem> page);
+    }
+}
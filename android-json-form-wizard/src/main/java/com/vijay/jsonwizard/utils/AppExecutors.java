@@ -9,31 +9,47 @@ import android.os.Looper;
 import androidx.annotation.NonNull;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Global executor pools for the whole application.
  * <p>
  * Grouping tasks like this avoids the effects of task starvation (e.g. disk reads don't wait behind webservice requests).
+ * The default instance delegates to the process wide pools in {@link FormExecutors}, constructing it is cheap and does
+ * not start any threads.
  */
 public class AppExecutors {
 
-    private static final int THREAD_COUNT = 3;
-
     private final Executor diskIO;
 
     private final Executor networkIO;
 
     private final Executor mainThread;
 
+    private final Executor compute;
+
+    private final Executor formState;
+
     public AppExecutors() {
-        this(new DiskIOThreadExecutor(), Executors.newFixedThreadPool(THREAD_COUNT), new MainThreadExecutor());
+        this(FormExecutors.io(), FormExecutors.io(), new MainThreadExecutor(), FormExecutors.compute(),
+                FormExecutors.formState());
     }
 
+    /**
+     * Compute and form-state work runs on the given diskIO executor, form-state tasks one at a time
+     */
     public AppExecutors(Executor diskIO, Executor networkIO, Executor mainThread) {
+        this(diskIO, networkIO, mainThread, diskIO, new SerialExecutor(diskIO));
+    }
+
+    /**
+     * @param formState executor for background form work, it must run tasks one at a time in submission order
+     */
+    public AppExecutors(Executor diskIO, Executor networkIO, Executor mainThread, Executor compute, Executor formState) {
         this.diskIO = diskIO;
         this.networkIO = networkIO;
         this.mainThread = mainThread;
+        this.compute = compute;
+        this.formState = formState;
     }
 
     public Executor diskIO() {
@@ -48,30 +64,27 @@ public class AppExecutors {
         return mainThread;
     }
 
-    private static class MainThreadExecutor implements Executor {
-        private Handler mainThreadHandler = new Handler(Looper.getMainLooper());
-
-        @Override
-        public void execute(@NonNull Runnable command) {
-            mainThreadHandler.post(command);
-        }
+    /**
+     * @return executor for cpu bound work such as rule evaluation
+     */
+    public Executor compute() {
+        return compute;
     }
 
     /**
-     * Executor that runs a task on a new background thread.
+     * @return serial executor for background form work, the form json itself is only changed on the main thread, see
+     * {@link com.vijay.jsonwizard.model.FormStateStore}
      */
-    private static class DiskIOThreadExecutor implements Executor {
-
-        private final Executor mDiskIO;
+    public Executor formState() {
+        return formState;
+    }
 
-        public DiskIOThreadExecutor() {
-            mDiskIO = Executors.newFixedThreadPool(THREAD_COUNT);
-        }
+    private static class MainThreadExecutor implements Executor {
+        private Handler mainThreadHandler = new Handler(Looper.getMainLooper());
 
         @Override
         public void execute(@NonNull Runnable command) {
-            mDiskIO.execute(command);
+            mainThreadHandler.post(command);
         }
     }
 }
-
@@ -0,0 +1,205 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process wide thread pools used by the form screens.
+ * <p>
+ * There are three pools: a bounded compute pool for rule evaluation and other cpu bound work, an I/O pool for disk and
+ * repository access, and a single threaded form-state executor that serialises background writes to the form json.
+ * The pools are shared by every {@link AppExecutors}, created when the first form activity acquires them and shut down
+ * once the last one is destroyed. A task submitted while no activity holds the pools, e.g. deleting a form session
+ * after the form closed, holds them until it has run. Idle threads time out, so a long data entry session never holds
+ * more than the configured number of threads.
+ */
+public final class FormExecutors {
+
+    private static final int DEFAULT_IO_THREAD_COUNT = 3;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final Object LOCK = new Object();
+    private static FormExecutors instance;
+    private static int computeThreadCount = getDefaultComputeThreadCount();
+    private static int ioThreadCount = DEFAULT_IO_THREAD_COUNT;
+    private static int activeUsers = 0;
+    // Tasks submitted while no user held the pools that have not run yet
+    private static int pendingTasks = 0;
+
+    private final ThreadPoolExecutor compute;
+    private final ThreadPoolExecutor io;
+    private final ThreadPoolExecutor formState;
+
+    private FormExecutors(int computeThreads, int ioThreads) {
+        compute = newPool("native-form-compute", computeThreads);
+        io = newPool("native-form-io", ioThreads);
+        formState = newPool("native-form-state", 1);
+    }
+
+    private static int getDefaultComputeThreadCount() {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+    }
+
+    private static ThreadPoolExecutor newPool(final String name, int threadCount) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, name + "-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static FormExecutors start() {
+        if (instance == null) {
+            instance = new FormExecutors(computeThreadCount, ioThreadCount);
+        }
+        return instance;
+    }
+
+    private static void shutdownIfUnused() {
+        if (activeUsers == 0 && pendingTasks == 0 && instance != null) {
+            instance.compute.shutdown();
+            instance.io.shutdown();
+            instance.formState.shutdown();
+            instance = null;
+        }
+    }
+
+    /**
+     * Sets the pool sizes. Takes effect the next time the pools are created, call it before the first form is opened.
+     *
+     * @param computeThreads number of threads in the compute pool
+     * @param ioThreads      number of threads in the I/O pool
+     */
+    public static void configure(int computeThreads, int ioThreads) {
+        synchronized (LOCK) {
+            computeThreadCount = Math.max(1, computeThreads);
+            ioThreadCount = Math.max(1, ioThreads);
+        }
+    }
+
+    /**
+     * Registers a user of the pools, typically called from an activity's onCreate
+     */
+    public static void acquire() {
+        synchronized (LOCK) {
+            activeUsers++;
+            start();
+        }
+    }
+
+    /**
+     * Unregisters a user of the pools, typically called from an activity's onDestroy. The pools are shut down once the
+     * last user is gone, tasks already queued still run to completion.
+     */
+    public static void release() {
+        synchronized (LOCK) {
+            activeUsers = Math.max(0, activeUsers - 1);
+            shutdownIfUnused();
+        }
+    }
+
+    @VisibleForTesting
+    static boolean isRunning() {
+        synchronized (LOCK) {
+            return instance != null;
+        }
+    }
+
+    /**
+     * @return executor for cpu bound work such as rule evaluation
+     */
+    public static Executor compute() {
+        return COMPUTE;
+    }
+
+    /**
+     * @return executor for disk, database and network access
+     */
+    public static Executor io() {
+        return IO;
+    }
+
+    /**
+     * @return single threaded executor, tasks run one at a time in submission order
+     */
+    public static Executor formState() {
+        return FORM_STATE;
+    }
+
+    private static final Executor COMPUTE = new PoolExecutor() {
+        @Override
+        ThreadPoolExecutor getPool(FormExecutors formExecutors) {
+            return formExecutors.compute;
+        }
+    };
+
+    private static final Executor IO = new PoolExecutor() {
+        @Override
+        ThreadPoolExecutor getPool(FormExecutors formExecutors) {
+            return formExecutors.io;
+        }
+    };
+
+    private static final Executor FORM_STATE = new PoolExecutor() {
+        @Override
+        ThreadPoolExecutor getPool(FormExecutors formExecutors) {
+            return formExecutors.formState;
+        }
+    };
+
+    /**
+     * Resolves the current pool on every call so that executors handed out before a shutdown keep working
+     */
+    private abstract static class PoolExecutor implements Executor {
+
+        abstract ThreadPoolExecutor getPool(FormExecutors formExecutors);
+
+        @Override
+        public void execute(@NonNull final Runnable command) {
+            // Submitting under the lock keeps the pools from being shut down in between, execute does not block
+            synchronized (LOCK) {
+                if (activeUsers > 0) {
+                    getPool(instance).execute(command);
+                    return;
+                }
+
+                pendingTasks++;
+                try {
+                    getPool(start()).execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                command.run();
+                            } finally {
+                                synchronized (LOCK) {
+                                    pendingTasks--;
+                                    shutdownIfUnused();
+                                }
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    pendingTasks--;
+                    shutdownIfUnused();
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import timber.log.Timber;
+
+/**
+ * Append-only journal of the values written to a form, kept in the form session so that a form that was not closed,
+ * e.g. because the app crashed, can be filled in again from where it was left.
+ * <p>
+ * Every write is one small json record on its own line. Records are appended in batches on a background thread, all
+ * the records added while a batch is written go into the next one, and every batch is synced to disk. Once the
+ * journal holds more than {@link #MAX_JOURNAL_RECORDS} records it is compacted: the last record written to each
+ * field, checkbox option and metadata entry is written to a snapshot and the journal starts again empty. Replaying the
+ * snapshot and then the journal, see {@link #getRecords(RecordsListener)}, gives the values the form had when the last
+ * batch was written. A record that was only partly written is dropped along with the records after it.
+ * <p>
+ * The records already written are read on the disk executor, which must run tasks one at a time in submission order,
+ * so they are read before any record appended later is written.
+ * <p>
+ * Only values are journaled, not changes to the structure of the form: fields added by repeating groups, expansion
+ * panel values and steps replaced as a whole, e.g. by {@code setmJSONObject}, are not restored.
+ */
+public class FormJournal {
+
+    public interface RecordsListener {
+        /**
+         * @param records the records to replay onto the form, oldest first
+         */
+        void onRecordsRead(@NonNull List<JSONObject> records);
+    }
+
+    public static final String TYPE = "type";
+    public static final String TYPE_VALUE = "value";
+    public static final String TYPE_CHECKBOX = "checkbox";
+    public static final String TYPE_METADATA = "metadata";
+    public static final String PARENT_KEY = "parent_key";
+    public static final String CHILD_OBJECT_KEY = "child_object_key";
+    public static final String CHILD_KEY = "child_key";
+    public static final String METADATA_KEY = "metadata_key";
+    public static final String VALUES = "values";
+
+    @VisibleForTesting
+    static final String JOURNAL_FILE = "journal.jsonl";
+    @VisibleForTesting
+    static final String SNAPSHOT_FILE = "snapshot.jsonl";
+    @VisibleForTesting
+    static final int MAX_JOURNAL_RECORDS = 500;
+
+    private final File sessionDirectory;
+    private final Executor diskExecutor;
+    private final Object fileLock = new Object();
+    private final List<JSONObject> pendingRecords = new ArrayList<>();
+    // The last record of each field, checkbox option and metadata entry, in the order they were last written
+    private final Map<String, JSONObject> latestRecords = new LinkedHashMap<>();
+    // Only used on the disk executor
+    private List<JSONObject> records;
+    private int journalRecordCount;
+    private boolean flushScheduled;
+    private volatile boolean closed;
+
+    /**
+     * Opens the journal of a form session, the records already written to it are read on the disk executor
+     */
+    FormJournal(@NonNull File sessionDirectory, @NonNull Executor diskExecutor) {
+        this.sessionDirectory = sessionDirectory;
+        this.diskExecutor = diskExecutor;
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (fileLock) {
+                    load();
+                }
+            }
+        });
+    }
+
+    private void load() {
+        List<JSONObject> snapshotRecords = new ArrayList<>();
+        List<JSONObject> journalRecords = new ArrayList<>();
+        boolean complete = readRecords(new File(sessionDirectory, SNAPSHOT_FILE), snapshotRecords);
+        complete &= readRecords(new File(sessionDirectory, JOURNAL_FILE), journalRecords);
+        List<JSONObject> allRecords = new ArrayList<>(snapshotRecords.size() + journalRecords.size());
+        allRecords.addAll(snapshotRecords);
+        allRecords.addAll(journalRecords);
+        for (JSONObject record : allRecords) {
+            putLatestRecord(record);
+        }
+        records = Collections.unmodifiableList(allRecords);
+        journalRecordCount = journalRecords.size();
+
+        if (!complete) {
+            // Records appended after a partly written one would be lost with it, start again from a snapshot
+            compact();
+        }
+    }
+
+    @NonNull
+    public static JSONObject newValueRecord(@NonNull String stepName, @NonNull String key, @Nullable String value,
+                                            @Nullable String openMrsEntityParent, @Nullable String openMrsEntity,
+                                            @Nullable String openMrsEntityId) throws JSONException {
+        return new JSONObject()
+                .put(TYPE, TYPE_VALUE)
+                .put(JsonFormConstants.STEPNAME, stepName)
+                .put(JsonFormConstants.KEY, key)
+                .put(JsonFormConstants.VALUE, value)
+                .put(JsonFormConstants.OPENMRS_ENTITY_PARENT, openMrsEntityParent)
+                .put(JsonFormConstants.OPENMRS_ENTITY, openMrsEntity)
+                .put(JsonFormConstants.OPENMRS_ENTITY_ID, openMrsEntityId);
+    }
+
+    @NonNull
+    public static JSONObject newCheckboxRecord(@NonNull String stepName, @NonNull String parentKey,
+                                               @NonNull String childObjectKey, @NonNull String childKey,
+                                               @Nullable String value) throws JSONException {
+        return new JSONObject()
+                .put(TYPE, TYPE_CHECKBOX)
+                .put(JsonFormConstants.STEPNAME, stepName)
+                .put(PARENT_KEY, parentKey)
+                .put(CHILD_OBJECT_KEY, childObjectKey)
+                .put(CHILD_KEY, childKey)
+                .put(JsonFormConstants.VALUE, value);
+    }
+
+    @NonNull
+    public static JSONObject newMetadataRecord(@NonNull String metadataKey, @NonNull Map<String, String> values)
+            throws JSONException {
+        JSONObject valuesObject = new JSONObject();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            valuesObject.put(entry.getKey(), entry.getValue() == null ? "" : entry.getValue());
+        }
+        return new JSONObject()
+                .put(TYPE, TYPE_METADATA)
+                .put(METADATA_KEY, metadataKey)
+                .put(VALUES, valuesObject);
+    }
+
+    /**
+     * Hands the records written before the journal was opened, oldest first, to the listener on the disk executor
+     */
+    public void getRecords(@NonNull final RecordsListener listener) {
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                listener.onRecordsRead(records);
+            }
+        });
+    }
+
+    /**
+     * Queues a record, it is written with the next batch
+     */
+    public void append(@NonNull JSONObject record) {
+        if (closed) {
+            return;
+        }
+
+        synchronized (pendingRecords) {
+            pendingRecords.add(record);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        });
+    }
+
+    /**
+     * Stops taking records, records already queued are still written
+     */
+    public void close() {
+        closed = true;
+    }
+
+    private void flush() {
+        synchronized (fileLock) {
+            List<JSONObject> batch;
+            synchronized (pendingRecords) {
+                batch = new ArrayList<>(pendingRecords);
+                pendingRecords.clear();
+                flushScheduled = false;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            StringBuilder lines = new StringBuilder();
+            for (JSONObject record : batch) {
+                lines.append(record.toString()).append('\n');
+                putLatestRecord(record);
+            }
+            try {
+                writeLines(new File(sessionDirectory, JOURNAL_FILE), lines.toString(), true);
+                journalRecordCount += batch.size();
+            } catch (IOException e) {
+                Timber.e(e, "FormJournal --> flush");
+                return;
+            }
+
+            if (journalRecordCount > MAX_JOURNAL_RECORDS) {
+                compact();
+            }
+        }
+    }
+
+    private void compact() {
+        StringBuilder lines = new StringBuilder();
+        for (JSONObject record : latestRecords.values()) {
+            lines.append(record.toString()).append('\n');
+        }
+
+        File snapshotFile = new File(sessionDirectory, SNAPSHOT_FILE);
+        File tempFile = new File(sessionDirectory, SNAPSHOT_FILE + ".tmp");
+        try {
+            writeLines(tempFile, lines.toString(), false);
+            if (!tempFile.renameTo(snapshotFile)) {
+                throw new IOException("Could not write " + SNAPSHOT_FILE);
+            }
+            // Records the snapshot holds may be replayed again if the journal outlives it, which changes nothing
+            writeLines(new File(sessionDirectory, JOURNAL_FILE), "", false);
+            journalRecordCount = 0;
+        } catch (IOException e) {
+            Timber.e(e, "FormJournal --> compact");
+            tempFile.delete();
+        }
+    }
+
+    private void putLatestRecord(JSONObject record) {
+        String type = record.optString(TYPE);
+        String stepName = record.optString(JsonFormConstants.STEPNAME);
+        if (TYPE_VALUE.equals(type)) {
+            putLatestRecord(type + ":" + stepName + ":" + record.optString(JsonFormConstants.KEY), record);
+        } else if (TYPE_CHECKBOX.equals(type)) {
+            putLatestRecord(type + ":" + stepName + ":" + record.optString(PARENT_KEY) + ":"
+                    + record.optString(CHILD_OBJECT_KEY) + ":" + record.optString(CHILD_KEY), record);
+        } else if (TYPE_METADATA.equals(type)) {
+            // Metadata writes only add values, so the values of every write are kept
+            JSONObject values = record.optJSONObject(VALUES);
+            if (values == null) {
+                return;
+            }
+            Iterator<String> keys = values.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                try {
+                    JSONObject valueRecord = new JSONObject()
+                            .put(TYPE, TYPE_METADATA)
+                            .put(METADATA_KEY, record.optString(METADATA_KEY))
+                            .put(VALUES, new JSONObject().put(key, values.opt(key)));
+                    putLatestRecord(type + ":" + record.optString(METADATA_KEY) + ":" + key, valueRecord);
+                } catch (JSONException e) {
+                    Timber.e(e, "FormJournal --> putLatestRecord");
+                }
+            }
+        }
+    }
+
+    private void putLatestRecord(String address, JSONObject record) {
+        // Removing first moves the address to the end, so the snapshot keeps the order the records were written in
+        latestRecords.remove(address);
+        latestRecords.put(address, record);
+    }
+
+    /**
+     * @return false if the file ends with a partly written record
+     */
+    private static boolean readRecords(File file, List<JSONObject> records) {
+        if (!file.exists()) {
+            return true;
+        }
+
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    records.add(new JSONObject(line));
+                } catch (JSONException e) {
+                    // A batch cut short by the process dying, nothing after it was written completely
+                    Timber.w(e, "FormJournal --> dropping a partly written record of %s", file.getName());
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            Timber.e(e, "FormJournal --> readRecords");
+        }
+        return true;
+    }
+
+    private static void writeLines(File file, String lines, boolean append) throws IOException {
+        File directory = file.getParentFile();
+        if (directory != null && !directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory.getName());
+        }
+
+        try (FileOutputStream outputStream = new FileOutputStream(file, append)) {
+            outputStream.write(lines.getBytes(StandardCharsets.UTF_8));
+            outputStream.getFD().sync();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads form json straight from a stream into a {@link JSONObject}.
+ * <p>
+ * The stream is decoded and parsed a buffer at a time, so a form is never held as a whole {@link String} next to
+ * the parsed form. Json is read the way {@link JSONTokener} reads it, forms are lenient json, e.g. regexes in forms
+ * have escapes like {@code \d} that strict json readers reject, and numbers are read into the same types, so
+ * {@link #readObject(InputStream)} gives the same form as {@link JSONObject#JSONObject(String)}.
+ */
+public class FormJsonReader {
+
+    private static final int END_OF_INPUT = -1;
+    private static final String LITERAL_DELIMITERS = "{}[]/\\:,=;# \t\f\r\n";
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private int offset;
+
+    private FormJsonReader(@NonNull Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads a json object from a UTF-8 stream and closes the stream
+     *
+     * @throws JSONException if the stream does not hold a json object
+     */
+    @NonNull
+    public static JSONObject readObject(@NonNull InputStream inputStream) throws JSONException, IOException {
+        return readObject(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a json object and closes the reader
+     *
+     * @throws JSONException if the reader does not hold a json object
+     */
+    @NonNull
+    public static JSONObject readObject(@NonNull Reader reader) throws JSONException, IOException {
+        try (Reader formReader = reader) {
+            FormJsonReader formJsonReader = new FormJsonReader(formReader);
+            formJsonReader.skipByteOrderMark();
+            Object value = formJsonReader.nextValue();
+            if (!(value instanceof JSONObject)) {
+                throw new JSONException("Value " + value + " cannot be converted to JSONObject");
+            }
+            return (JSONObject) value;
+        }
+    }
+
+    /**
+     * Skips a byte order mark at the start of the input, like {@link JSONTokener} does, files saved by some editors
+     * start with one
+     */
+    private void skipByteOrderMark() throws IOException {
+        if (peek() == '\ufeff') {
+            position++;
+        }
+    }
+
+    private Object nextValue() throws JSONException, IOException {
+        int c = nextClean();
+        switch (c) {
+            case END_OF_INPUT:
+                throw syntaxError("End of input");
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '\'':
+            case '"':
+                return readString((char) c);
+            default:
+                position--;
+                return readLiteral();
+        }
+    }
+
+    private JSONObject readObject() throws JSONException, IOException {
+        JSONObject jsonObject = new JSONObject();
+        int first = nextClean();
+        if (first == '}') {
+            return jsonObject;
+        } else if (first != END_OF_INPUT) {
+            position--;
+        }
+
+        while (true) {
+            Object name = nextValue();
+            if (!(name instanceof String)) {
+                throw syntaxError("Names must be strings, but " + name + " is of type " + name.getClass().getName());
+            }
+
+            int separator = nextClean();
+            if (separator != ':' && separator != '=') {
+                throw syntaxError("Expected ':' after " + name);
+            }
+            if (peek() == '>') {
+                position++;
+            }
+
+            jsonObject.put((String) name, nextValue());
+
+            switch (nextClean()) {
+                case '}':
+                    return jsonObject;
+                case ';':
+                case ',':
+                    continue;
+                default:
+                    throw syntaxError("Unterminated object");
+            }
+        }
+    }
+
+    private JSONArray readArray() throws JSONException, IOException {
+        JSONArray jsonArray = new JSONArray();
+        boolean hasTrailingSeparator = false;
+
+        while (true) {
+            switch (nextClean()) {
+                case END_OF_INPUT:
+                    throw syntaxError("Unterminated array");
+                case ']':
+                    if (hasTrailingSeparator) {
+                        jsonArray.put(null);
+                    }
+                    return jsonArray;
+                case ',':
+                case ';':
+                    // An empty element, e.g. [1,,2], is null
+                    jsonArray.put(null);
+                    hasTrailingSeparator = true;
+                    continue;
+                default:
+                    position--;
+            }
+
+            jsonArray.put(nextValue());
+
+            switch (nextClean()) {
+                case ']':
+                    return jsonArray;
+                case ',':
+                case ';':
+                    hasTrailingSeparator = true;
+                    continue;
+                default:
+                    throw syntaxError("Unterminated array");
+            }
+        }
+    }
+
+    private String readString(char quote) throws JSONException, IOException {
+        StringBuilder builder = new StringBuilder();
+        while (true) {
+            if (!fill()) {
+                throw syntaxError("Unterminated string");
+            }
+
+            // Copy the run of plain characters in the buffer at once
+            int start = position;
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == quote || c == '\\') {
+                    break;
+                }
+                position++;
+            }
+            builder.append(buffer, start, position - start);
+            if (position == limit) {
+                continue;
+            }
+
+            if (buffer[position++] == quote) {
+                return builder.toString();
+            }
+            builder.append(readEscapeCharacter());
+        }
+    }
+
+    private char readEscapeCharacter() throws JSONException, IOException {
+        int escaped = read();
+        switch (escaped) {
+            case END_OF_INPUT:
+                throw syntaxError("Unterminated escape sequence");
+            case 'u':
+                char[] hex = new char[4];
+                for (int i = 0; i < hex.length; i++) {
+                    int c = read();
+                    if (c == END_OF_INPUT) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    hex[i] = (char) c;
+                }
+                try {
+                    return (char) Integer.parseInt(new String(hex), 16);
+                } catch (NumberFormatException e) {
+                    throw syntaxError("Invalid escape sequence: " + new String(hex));
+                }
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            default:
+                // Any other escaped character, e.g. \d in a regex, stands for itself
+                return (char) escaped;
+        }
+    }
+
+    private Object readLiteral() throws JSONException, IOException {
+        StringBuilder builder = new StringBuilder();
+        while (fill()) {
+            int start = position;
+            while (position < limit && LITERAL_DELIMITERS.indexOf(buffer[position]) == -1) {
+                position++;
+            }
+            builder.append(buffer, start, position - start);
+            if (position < limit) {
+                break;
+            }
+        }
+
+        String literal = builder.toString();
+        if (literal.isEmpty()) {
+            throw syntaxError("Expected literal value");
+        } else if ("null".equalsIgnoreCase(literal)) {
+            return JSONObject.NULL;
+        } else if ("true".equalsIgnoreCase(literal)) {
+            return Boolean.TRUE;
+        } else if ("false".equalsIgnoreCase(literal)) {
+            return Boolean.FALSE;
+        }
+        return toNumber(literal);
+    }
+
+    /**
+     * Reads a literal into the type {@link JSONTokener} reads it into, an Integer or a Long for integral numbers that
+     * fit, else a Double, else the literal itself
+     */
+    private static Object toNumber(@NonNull String literal) {
+        if (literal.indexOf('.') == -1) {
+            int base = 10;
+            String number = literal;
+            if (number.startsWith("0x") || number.startsWith("0X")) {
+                number = number.substring(2);
+                base = 16;
+            } else if (number.startsWith("0") && number.length() > 1) {
+                number = number.substring(1);
+                base = 8;
+            }
+            try {
+                long longValue = Long.parseLong(number, base);
+                if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                    return (int) longValue;
+                }
+                return longValue;
+            } catch (NumberFormatException e) {
+                // Not integral, e.g. 1e5, it may still be a double
+            }
+        }
+
+        try {
+            return Double.valueOf(literal);
+        } catch (NumberFormatException e) {
+            return literal;
+        }
+    }
+
+    /**
+     * @return the next character that is not whitespace or part of a comment
+     */
+    private int nextClean() throws JSONException, IOException {
+        while (true) {
+            int c = read();
+            switch (c) {
+                case '\t':
+                case ' ':
+                case '\n':
+                case '\r':
+                    continue;
+                case '/':
+                    int next = peek();
+                    if (next == '*') {
+                        position++;
+                        skipBlockComment();
+                        continue;
+                    } else if (next == '/') {
+                        position++;
+                        skipToEndOfLine();
+                        continue;
+                    }
+                    return c;
+                case '#':
+                    skipToEndOfLine();
+                    continue;
+                default:
+                    return c;
+            }
+        }
+    }
+
+    private void skipBlockComment() throws JSONException, IOException {
+        int previous = END_OF_INPUT;
+        int c;
+        while ((c = read()) != END_OF_INPUT) {
+            if (previous == '*' && c == '/') {
+                return;
+            }
+            previous = c;
+        }
+        throw syntaxError("Unterminated comment");
+    }
+
+    private void skipToEndOfLine() throws IOException {
+        int c;
+        while ((c = read()) != END_OF_INPUT) {
+            if (c == '\r' || c == '\n') {
+                return;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        return fill() ? buffer[position++] : END_OF_INPUT;
+    }
+
+    private int peek() throws IOException {
+        return fill() ? buffer[position] : END_OF_INPUT;
+    }
+
+    /**
+     * Makes sure there is a character to read, keeping the last character read so that it can be read again
+     *
+     * @return false at the end of the input
+     */
+    private boolean fill() throws IOException {
+        if (position < limit) {
+            return true;
+        }
+
+        int kept = 0;
+        if (limit > 0) {
+            buffer[0] = buffer[limit - 1];
+            kept = 1;
+        }
+        offset += limit - kept;
+        position = kept;
+        limit = kept;
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read == END_OF_INPUT) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at character " + (offset + position));
+    }
+}
@@ -8,6 +8,7 @@ import androidx.annotation.VisibleForTesting;
 import android.widget.ArrayAdapter;
 import android.widget.Toast;
 
+import com.vijay.jsonwizard.NativeFormLibrary;
 import com.vijay.jsonwizard.R;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.interfaces.RollbackDialogCallback;
@@ -117,6 +118,9 @@ public class FormRollbackDialogUtil {
 
             currentClientForm.setActive(false);
             clientFormRepository.addOrUpdate(currentClientForm);
+            if (currentClientForm.getIdentifier() != null) {
+                NativeFormLibrary.getInstance().onClientFormUpdated(currentClientForm.getIdentifier());
+            }
             rollbackDialogCallback.onFormSelected(selectedClientForm);
             return true;
         }
@@ -0,0 +1,320 @@
+package com.vijay.jsonwizard.utils;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * Keeps the json of open forms in app-private storage, so that a form does not travel through Intent extras and
+ * saved instance state Bundles.
+ * <p>
+ * A form session is a folder named by a session handle. A caller saves the form with {@link #create(Context, String)}
+ * and starts the form activity with the handle in {@link com.vijay.jsonwizard.constants.JsonFormConstants.JSON_FORM_KEY#SESSION}
+ * instead of the form in {@link com.vijay.jsonwizard.constants.JsonFormConstants.JSON_FORM_KEY#JSON}. While the form is
+ * filled the activity writes the top level entries of the form that changed, usually a few steps, with
+ * {@link #writeEntries(Context, String, Map)}, and after the process is recreated it reads the form and the changed
+ * entries back. The activity serialises the entries on the ui thread, which owns the form, and they are written in the
+ * background with {@link #writeEntriesInBackground(Context, String, Map, OnEntriesWrittenListener)}, after the writes
+ * queued before them. An entry is only written again when its json changed. An entry the activity recorded in its saved state that did not reach the
+ * disk is left as it was last written. Sessions are deleted when the form is
+ * closed, sessions of forms that were never closed are deleted once they are older than
+ * {@link #MAX_SESSION_AGE_MILLIS}.
+ */
+public class FormSessionStore {
+
+    /**
+     * Told about the entries written by {@link #writeEntriesInBackground(Context, String, Map, OnEntriesWrittenListener)},
+     * on the disk executor
+     */
+    public interface OnEntriesWrittenListener {
+        /**
+         * @param writtenNames names of the entries that are on disk, entries that could not be written are left out
+         */
+        void onEntriesWritten(@NonNull List<String> writtenNames);
+    }
+
+    @VisibleForTesting
+    static final String SESSION_DIRECTORY = "native-form-sessions";
+    private static final String FORM_FILE = "form.json";
+    private static final String ENTRY_FILE_PREFIX = "entry-";
+    private static final String ENTRY_FILE_EXTENSION = ".json";
+    @VisibleForTesting
+    static final long MAX_SESSION_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+    // Journal batches are synced to disk, so they get their own queue instead of holding up form-state writes
+    private static final FormSessionStore INSTANCE = new FormSessionStore(new SerialExecutor(FormExecutors.io()));
+
+    // Digest of the json last written to each entry file, so that entries that did not change are not written again
+    private final Map<String, byte[]> writtenEntries = new HashMap<>();
+    private final Executor diskExecutor;
+
+    @VisibleForTesting
+    FormSessionStore(@NonNull Executor diskExecutor) {
+        this.diskExecutor = diskExecutor;
+    }
+
+    public static FormSessionStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return a handle for a session that starts without a saved form, e.g. one whose form came in an Intent extra
+     */
+    @NonNull
+    public static String newSessionHandle() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Saves a form to open with its session handle. The form is written on the calling thread.
+     *
+     * @param context  context used to find app-private storage
+     * @param formJson the form to open
+     * @return the session handle
+     */
+    @NonNull
+    public String create(@NonNull Context context, @NonNull String formJson) throws IOException {
+        String sessionHandle = newSessionHandle();
+        File sessionDirectory = getSessionDirectory(context, sessionHandle);
+        if (!sessionDirectory.mkdirs()) {
+            throw new IOException("Could not create form session " + sessionHandle);
+        }
+        writeFile(new File(sessionDirectory, FORM_FILE), formJson);
+        return sessionHandle;
+    }
+
+    /**
+     * @return the form the session was created with, null if the session has no saved form
+     */
+    @Nullable
+    public String readForm(@NonNull Context context, @NonNull String sessionHandle) {
+        File formFile = new File(getSessionDirectory(context, sessionHandle), FORM_FILE);
+        if (!formFile.exists()) {
+            Timber.e("FormSessionStore --> form session %s has no form", sessionHandle);
+            return null;
+        }
+
+        try {
+            return Utils.convertStreamToString(new FileInputStream(formFile));
+        } catch (IOException e) {
+            Timber.e(e, "FormSessionStore --> readForm");
+            return null;
+        }
+    }
+
+    /**
+     * Writes the top level entries of a form on the calling thread, the form activity writes them in the background
+     * with {@link #writeEntriesInBackground(Context, String, Map, OnEntriesWrittenListener)}
+     *
+     * @param entries json of each entry, keyed by the name of the entry, e.g. step1 or metadata
+     * @return names of the entries that are on disk, entries that could not be written are left out
+     */
+    @NonNull
+    public ArrayList<String> writeEntries(@NonNull Context context, @NonNull String sessionHandle,
+                                          @NonNull Map<String, String> entries) {
+        ArrayList<String> writtenNames = new ArrayList<>();
+        File sessionDirectory = getSessionDirectory(context, sessionHandle);
+        if (!sessionDirectory.exists() && !sessionDirectory.mkdirs()) {
+            Timber.e("FormSessionStore --> could not create %s", sessionDirectory.getName());
+            return writtenNames;
+        }
+
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            File entryFile = getEntryFile(sessionDirectory, entry.getKey());
+            byte[] digest = getDigest(entry.getValue());
+            byte[] writtenDigest;
+            synchronized (writtenEntries) {
+                writtenDigest = writtenEntries.get(entryFile.getPath());
+            }
+            if (MessageDigest.isEqual(digest, writtenDigest) && entryFile.exists()) {
+                writtenNames.add(entry.getKey());
+                continue;
+            }
+
+            try {
+                writeFile(entryFile, entry.getValue());
+                synchronized (writtenEntries) {
+                    writtenEntries.put(entryFile.getPath(), digest);
+                }
+                writtenNames.add(entry.getKey());
+            } catch (IOException e) {
+                Timber.e(e, "FormSessionStore --> writeEntries");
+            }
+        }
+        return writtenNames;
+    }
+
+    /**
+     * Writes the top level entries of a form on the disk executor, the json of the entries is only hashed and written
+     * there
+     *
+     * @param entries json of each entry, keyed by the name of the entry
+     */
+    public void writeEntriesInBackground(@NonNull final Context context, @NonNull final String sessionHandle,
+                                         @NonNull final Map<String, String> entries,
+                                         @NonNull final OnEntriesWrittenListener listener) {
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<String> writtenNames = entries.isEmpty() ? new ArrayList<String>() :
+                        writeEntries(context, sessionHandle, entries);
+                listener.onEntriesWritten(writtenNames);
+            }
+        });
+    }
+
+    /**
+     * Replaces the given top level entries of a form with the entries last written to the session. An entry that was
+     * never written is left as it is in the form.
+     *
+     * @return the form
+     */
+    @NonNull
+    public JSONObject restoreEntries(@NonNull Context context, @NonNull String sessionHandle,
+                                     @NonNull JSONObject form, @NonNull Collection<String> names) {
+        File sessionDirectory = getSessionDirectory(context, sessionHandle);
+        for (String name : names) {
+            File entryFile = getEntryFile(sessionDirectory, name);
+            if (!entryFile.exists()) {
+                Timber.w("FormSessionStore --> %s of form session %s was not written", name, sessionHandle);
+                continue;
+            }
+
+            try {
+                JSONObject entry = FormJsonReader.readObject(new FileInputStream(entryFile));
+                // An entry that was removed from the form is written as an empty object, put removes it again
+                form.put(name, entry.opt(name));
+            } catch (IOException | JSONException e) {
+                Timber.e(e, "FormSessionStore --> restoreEntries");
+            }
+        }
+        return form;
+    }
+
+    /**
+     * Opens the journal of the values written to the form of a session. The records already written are read and
+     * records are written on the same executor as the session, so a session deleted after its journal was closed is
+     * not written to again.
+     */
+    @NonNull
+    public FormJournal openJournal(@NonNull Context context, @NonNull String sessionHandle) {
+        return new FormJournal(getSessionDirectory(context, sessionHandle), diskExecutor);
+    }
+
+    /**
+     * Deletes a session in the background, along with the sessions of forms that were never closed
+     */
+    public void delete(@NonNull Context context, @NonNull final String sessionHandle) {
+        final File sessionsDirectory = new File(context.getFilesDir(), SESSION_DIRECTORY);
+        diskExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deleteSession(new File(sessionsDirectory, sessionHandle));
+
+                File[] sessionDirectories = sessionsDirectory.listFiles();
+                if (sessionDirectories == null) {
+                    return;
+                }
+                long oldest = System.currentTimeMillis() - MAX_SESSION_AGE_MILLIS;
+                for (File sessionDirectory : sessionDirectories) {
+                    if (sessionDirectory.lastModified() < oldest) {
+                        deleteSession(sessionDirectory);
+                    }
+                }
+            }
+        });
+    }
+
+    private void deleteSession(File sessionDirectory) {
+        File[] files = sessionDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    Timber.w("FormSessionStore --> could not delete %s", file.getName());
+                }
+            }
+        }
+        if (sessionDirectory.exists() && !sessionDirectory.delete()) {
+            Timber.w("FormSessionStore --> could not delete %s", sessionDirectory.getName());
+        }
+
+        String sessionPath = sessionDirectory.getPath() + File.separator;
+        synchronized (writtenEntries) {
+            Iterator<String> iterator = writtenEntries.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().startsWith(sessionPath)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static File getSessionDirectory(Context context, String sessionHandle) {
+        return new File(new File(context.getFilesDir(), SESSION_DIRECTORY), sessionHandle);
+    }
+
+    private static File getEntryFile(File sessionDirectory, String name) {
+        try {
+            return new File(sessionDirectory, ENTRY_FILE_PREFIX + URLEncoder.encode(name, "UTF-8") + ENTRY_FILE_EXTENSION);
+        } catch (UnsupportedEncodingException e) {
+            // Every Java platform is required to support UTF-8
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] getDigest(String content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        // Write to a temporary file first so that a reader never sees a partly written file, and sync it before the
+        // rename so that the rename cannot reach the disk ahead of the content
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+            Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+            writer.write(content);
+            writer.flush();
+            outputStream.getFD().sync();
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+
+        if (!tempFile.renameTo(file)) {
+            tempFile.delete();
+            throw new IOException("Could not write " + file.getName());
+        }
+    }
+}
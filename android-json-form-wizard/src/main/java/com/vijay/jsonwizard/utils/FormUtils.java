@@ -65,9 +65,7 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.StringReader;
-import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -99,6 +97,9 @@ public class FormUtils {
     private static final SimpleDateFormat DATE_TIME_FORMAT = new SimpleDateFormat(
             "yyyy-MM-dd HH:mm:ss", Locale.ENGLISH);
     private static final String START_JAVAROSA_PROPERTY = "start";
+    private static final String CLIENT_FORM_SOURCE = "client_form";
+    // Language suffix of a locale variant of a form, e.g. anc_register-sw.json or form_strings_sw.properties
+    private static final Pattern LOCALE_SUFFIX_PATTERN = Pattern.compile("[-_][a-z]{2}");
     private static final String END_JAVAROSA_PROPERTY = "end";
     private static final String TODAY_JAVAROSA_PROPERTY = "today";
     private static final String DEFAULT_FORM_IMAGES_FOLDER = "image/";
@@ -517,13 +518,57 @@ public class FormUtils {
     public static JSONObject getSubFormJson(String formIdentity, String subFormsLocation,
                                             Context context) throws Exception {
 
-        return new JSONObject(loadSubForm(formIdentity, getSubFormLocation(subFormsLocation), context));
+        return getSubFormJson(formIdentity, subFormsLocation, context, false);
     }
 
+    /**
+     * Reads a sub form from the assets, parsed sub forms are kept in the {@link SubFormCache}
+     *
+     * @return a sub form the caller may change
+     */
     public static JSONObject getSubFormJson(String formIdentity, String subFormsLocation,
                                             Context context, boolean translateSubForm) throws Exception {
+        String location = getSubFormLocation(subFormsLocation);
+        String cacheKey = SubFormCache.getKey(JsonFormConstants.FileSource.ASSETS, location, formIdentity,
+                translateSubForm ? NativeFormLangUtils.getLanguage(context) : null);
+        JSONObject subForm = SubFormCache.getInstance().get(cacheKey);
+        if (subForm == null) {
+            // Only a translated sub form has to be read as a string, to translate it
+            subForm = translateSubForm ? new JSONObject(loadSubForm(formIdentity, location, context, true))
+                    : FormJsonReader.readObject(context.getAssets().open(location + "/" + formIdentity + ".json"));
+            SubFormCache.getInstance().put(cacheKey, subForm);
+        }
+        return subForm;
+    }
+
+    /**
+     * @param formIdentity identity or path of a form file
+     * @return the file name without its folders and extension
+     */
+    @NonNull
+    public static String getFormBaseName(@NonNull String formIdentity) {
+        String baseName = formIdentity.substring(formIdentity.lastIndexOf('/') + 1);
+        int extension = baseName.lastIndexOf('.');
+        return extension > 0 ? baseName.substring(0, extension) : baseName;
+    }
+
+    /**
+     * @param formIdentity identity or path of a form file
+     * @param baseName     base name of a form, see {@link #getFormBaseName(String)}
+     * @return whether the file is the form or a locale variant of it
+     */
+    public static boolean isFormOrLocaleVariant(@NonNull String formIdentity, @NonNull String baseName) {
+        String formBaseName = getFormBaseName(formIdentity);
+        return formBaseName.equals(baseName) || (formBaseName.startsWith(baseName)
+                && LOCALE_SUFFIX_PATTERN.matcher(formBaseName.substring(baseName.length())).matches());
+    }
 
-        return new JSONObject(loadSubForm(formIdentity, getSubFormLocation(subFormsLocation), context, translateSubForm));
+    /**
+     * @return where a version of a client form is read from, a new or rolled back version is another source
+     */
+    @NonNull
+    public static String getClientFormSource(@NonNull ClientFormContract.Model clientForm) {
+        return CLIENT_FORM_SOURCE + ":" + clientForm.getId() + ":" + clientForm.getVersion();
     }
 
     public static String getSubFormLocation(String subFormsLocation) {
@@ -534,7 +579,8 @@ public class FormUtils {
                                      Context context, boolean translateSubForm) throws IOException {
 
         String subForm = loadSubForm(formIdentity, defaultSubFormLocation, context);
-        return translateSubForm ? NativeFormLangUtils.getTranslatedString(subForm, context) : subForm;
+        return translateSubForm ? NativeFormLangUtils.getTranslatedAsset(subForm, context,
+                defaultSubFormLocation + "/" + formIdentity + ".json") : subForm;
     }
 
     public static String loadSubForm(String formIdentity, String defaultSubFormLocation,
@@ -2042,16 +2088,7 @@ public class FormUtils {
                 inputStream = context.getApplicationContext().getAssets()
                         .open("json.form/" + formIdentity + JsonFormConstants.JSON_FILE_EXTENSION);
             }
-            BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-            String jsonString;
-            StringBuilder stringBuilder = new StringBuilder();
-
-            while ((jsonString = reader.readLine()) != null) {
-                stringBuilder.append(jsonString);
-            }
-            inputStream.close();
-            return new JSONObject(stringBuilder.toString());
+            return FormJsonReader.readObject(inputStream);
         } catch (IOException | JSONException e) {
             Timber.e(e);
             return null;
@@ -2059,13 +2096,17 @@ public class FormUtils {
     }
 
     protected String getLocaleFormIdentity(final Context context, final String formIdentity) {
-        String locale = context.getResources().getConfiguration().locale.getLanguage();
+        String locale = getConfigurationLanguage(context);
         if (!Locale.ENGLISH.getLanguage().equals(locale)) {
             return formIdentity + "-" + locale;
         }
         return formIdentity;
     }
 
+    private String getConfigurationLanguage(Context context) {
+        return context.getResources().getConfiguration().locale.getLanguage();
+    }
+
     private ClientFormContract.Model getClientFormFromRepository(@NonNull Context
                                                                          context, @NonNull ClientFormContract.Dao clientFormRepository, String formIdentity) {
         //Check the current locale of the app to load the correct version of the form in the desired language
@@ -2172,12 +2213,24 @@ public class FormUtils {
 
         if (clientForm != null) {
             Timber.d("============%s form loaded from db============", dbFormName);
+            // The id and version identify the content, a new or rolled back version gets a new key
+            String source = getClientFormSource(clientForm);
+            String cacheKey = SubFormCache.getKey(source, null, dbFormName,
+                    translateSubForm ? getConfigurationLanguage(context) : null);
+            JSONObject subForm = SubFormCache.getInstance().get(cacheKey);
+            if (subForm != null) {
+                return subForm;
+            }
+
             String originalJson = clientForm.getJson();
 
             if (translateSubForm) {
-                originalJson = NativeFormLangUtils.getTranslatedStringWithDBResourceBundle(context, originalJson, null);
+                originalJson = NativeFormLangUtils.getTranslatedStringWithDBResourceBundle(context, originalJson, null,
+                        source + ":" + dbFormName);
             }
-            return new JSONObject(originalJson);
+            subForm = new JSONObject(originalJson);
+            SubFormCache.getInstance().put(cacheKey, subForm);
+            return subForm;
         }
 
         return null;
@@ -2186,6 +2239,23 @@ public class FormUtils {
     @Nullable
     public BufferedReader getRulesFromRepository(@NonNull Context
                                                          context, @NonNull ClientFormContract.Dao clientFormDao, @NonNull String fileName) {
+        ClientFormContract.Model clientForm = getRulesClientForm(context, clientFormDao, fileName);
+        if (clientForm != null) {
+            Timber.d("============%s form loaded from db============", fileName);
+            String originalJson = clientForm.getJson();
+
+            return new BufferedReader(new StringReader(originalJson));
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the active version of a rules file in the client form repository, null if the repository has none
+     */
+    @Nullable
+    public ClientFormContract.Model getRulesClientForm(@NonNull Context context,
+                                                       @NonNull ClientFormContract.Dao clientFormDao, @NonNull String fileName) {
         //Check the current locale of the app to load the correct version of the form in the desired language
         String localeFormIdentity = getLocaleFormIdentity(context, fileName);
 
@@ -2197,14 +2267,7 @@ public class FormUtils {
             clientForm = clientFormDao.getActiveClientFormByIdentifier(localeFormIdentity);
 
         }
-        if (clientForm != null) {
-            Timber.d("============%s form loaded from db============", localeFormIdentity);
-            String originalJson = clientForm.getJson();
-
-            return new BufferedReader(new StringReader(originalJson));
-        }
-
-        return null;
+        return clientForm;
     }
 
     public String getPropertiesFileContentsFromDB(String identifier) {
@@ -0,0 +1,99 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Iterator;
+
+/**
+ * Structural copies of form json that avoid the serialise and re-parse round trip of
+ * {@code new JSONObject(json.toString())}
+ */
+public class JsonUtils {
+
+    private JsonUtils() {
+    }
+
+    /**
+     * Copies every nested {@link JSONObject} and {@link JSONArray}, other values are immutable and shared
+     *
+     * @param source {@link JSONObject} to copy
+     * @return the copy
+     */
+    @NonNull
+    public static JSONObject deepCopy(@NonNull JSONObject source) {
+        JSONObject copy = new JSONObject();
+        Iterator<String> keys = source.keys();
+        try {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                copy.put(key, copyValue(source.opt(key)));
+            }
+        } catch (JSONException e) {
+            // Values come from a valid JSONObject, put cannot reject them
+            throw new IllegalStateException(e);
+        }
+        return copy;
+    }
+
+    /**
+     * @param source {@link JSONArray} to copy
+     * @return the copy
+     * @see #deepCopy(JSONObject)
+     */
+    @NonNull
+    public static JSONArray deepCopy(@NonNull JSONArray source) {
+        JSONArray copy = new JSONArray();
+        for (int i = 0; i < source.length(); i++) {
+            copy.put(copyValue(source.opt(i)));
+        }
+        return copy;
+    }
+
+    /**
+     * Copies only the top level members, nested objects and arrays are shared with the source
+     *
+     * @param source {@link JSONObject} to copy
+     * @return the copy
+     */
+    @NonNull
+    public static JSONObject shallowCopy(@NonNull JSONObject source) {
+        JSONObject copy = new JSONObject();
+        Iterator<String> keys = source.keys();
+        try {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                copy.put(key, source.opt(key));
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException(e);
+        }
+        return copy;
+    }
+
+    /**
+     * @param source {@link JSONArray} to copy
+     * @return the copy
+     * @see #shallowCopy(JSONObject)
+     */
+    @NonNull
+    public static JSONArray shallowCopy(@NonNull JSONArray source) {
+        JSONArray copy = new JSONArray();
+        for (int i = 0; i < source.length(); i++) {
+            copy.put(source.opt(i));
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof JSONObject) {
+            return deepCopy((JSONObject) value);
+        } else if (value instanceof JSONArray) {
+            return deepCopy((JSONArray) value);
+        }
+        return value;
+    }
+}
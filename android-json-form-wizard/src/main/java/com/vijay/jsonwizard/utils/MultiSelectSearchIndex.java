@@ -0,0 +1,187 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.domain.MultiSelectItem;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Search index of the items of a multi select list.
+ * <p>
+ * The text of every item is lower cased once, when the index is built, and every three letter sequence of it is mapped
+ * to the items containing it. A query is answered from the shortest item list of its three letter sequences instead of
+ * the whole list, queries shorter than that are matched against the lower cased texts. Matching is the same as a
+ * {@code contains} on the lower cased text.
+ * <p>
+ * The index is immutable once built and can be built and searched off the main thread.
+ */
+public class MultiSelectSearchIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final MultiSelectItem[] items;
+    private final String[] texts;
+    private final Map<String, Postings> postings;
+
+    private MultiSelectSearchIndex(List<MultiSelectItem> itemList) {
+        items = itemList.toArray(new MultiSelectItem[0]);
+        texts = new String[items.length];
+        postings = new HashMap<>();
+        for (int position = 0; position < items.length; position++) {
+            String text = normalize(items[position].getText());
+            texts[position] = text;
+            for (int start = 0; start + GRAM_LENGTH <= text.length(); start++) {
+                String gram = text.substring(start, start + GRAM_LENGTH);
+                Postings gramPostings = postings.get(gram);
+                if (gramPostings == null) {
+                    gramPostings = new Postings();
+                    postings.put(gram, gramPostings);
+                }
+                gramPostings.add(position);
+            }
+        }
+    }
+
+    /**
+     * @param itemList items in the order they are listed
+     * @return the index of the items
+     */
+    @NonNull
+    public static MultiSelectSearchIndex build(@NonNull List<MultiSelectItem> itemList) {
+        return new MultiSelectSearchIndex(itemList);
+    }
+
+    @NonNull
+    public static String normalize(@Nullable CharSequence text) {
+        return text == null ? "" : text.toString().toLowerCase();
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    /**
+     * Compares every item by identity, which is far cheaper than building the index again
+     *
+     * @return whether the index was built from the list as it is now
+     */
+    public boolean isIndexOf(@Nullable List<MultiSelectItem> itemList) {
+        if (itemList == null || itemList.size() != items.length) {
+            return false;
+        }
+        int position = 0;
+        for (MultiSelectItem item : itemList) {
+            if (item != items[position++]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the items whose text contains the query. When the query contains the query of the previous result and that
+     * result was not cut off at the limit, only the items of the previous result are checked.
+     *
+     * @param query    text typed by the user
+     * @param previous result of the previous query or null
+     * @param limit    maximum number of items matched
+     * @return the matching items in list order
+     */
+    @NonNull
+    public Result search(@Nullable CharSequence query, @Nullable Result previous, int limit) {
+        String normalizedQuery = normalize(query);
+        if (previous != null && previous.index == this && previous.isComplete()
+                && normalizedQuery.contains(previous.query)) {
+            return match(normalizedQuery, previous.positions, previous.size, limit);
+        }
+
+        if (normalizedQuery.length() < GRAM_LENGTH) {
+            return match(normalizedQuery, null, items.length, limit);
+        }
+
+        Postings candidates = null;
+        for (int start = 0; start + GRAM_LENGTH <= normalizedQuery.length(); start++) {
+            Postings gramPostings = postings.get(normalizedQuery.substring(start, start + GRAM_LENGTH));
+            if (gramPostings == null) {
+                return new Result(this, normalizedQuery, new int[0], 0, true);
+            }
+            if (candidates == null || gramPostings.size < candidates.size) {
+                candidates = gramPostings;
+            }
+        }
+        return match(normalizedQuery, candidates.positions, candidates.size, limit);
+    }
+
+    /**
+     * @param positions candidate positions, all positions when null
+     */
+    private Result match(String normalizedQuery, @Nullable int[] positions, int count, int limit) {
+        int[] matches = new int[Math.min(count, limit)];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            int position = positions == null ? i : positions[i];
+            if (texts[position].contains(normalizedQuery)) {
+                if (size == matches.length) {
+                    return new Result(this, normalizedQuery, matches, size, false);
+                }
+                matches[size++] = position;
+            }
+        }
+        return new Result(this, normalizedQuery, matches, size, true);
+    }
+
+    /**
+     * Items matched by a query
+     */
+    public static final class Result {
+        private final MultiSelectSearchIndex index;
+        private final String query;
+        private final int[] positions;
+        private final int size;
+        private final boolean complete;
+
+        private Result(MultiSelectSearchIndex index, String query, int[] positions, int size, boolean complete) {
+            this.index = index;
+            this.query = query;
+            this.positions = positions;
+            this.size = size;
+            this.complete = complete;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public MultiSelectItem getItem(int position) {
+            return index.items[positions[position]];
+        }
+
+        /**
+         * @return false if more items matched than the limit of the search
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    private static final class Postings {
+        private int[] positions = new int[4];
+        private int size;
+
+        private void add(int position) {
+            // Positions are added in order, a text repeating a sequence adds its position once
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+    }
+}
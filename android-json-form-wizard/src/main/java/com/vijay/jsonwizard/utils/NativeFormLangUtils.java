@@ -3,20 +3,20 @@ package com.vijay.jsonwizard.utils;
 import static com.vijay.jsonwizard.constants.JsonFormConstants.MLS.PROPERTIES_FILE_NAME;
 
 import android.content.Context;
+import android.content.pm.PackageManager;
 import android.content.res.Configuration;
 import android.content.res.Resources;
 import android.os.Build;
 import android.preference.PreferenceManager;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
 import com.vijay.jsonwizard.constants.JsonFormConstants;
-import com.vijay.jsonwizard.domain.DBResourceBundle;
-import com.vijay.jsonwizard.domain.DBResourceBundleControl;
 
 import java.io.File;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.regex.Matcher;
@@ -26,6 +26,9 @@ import timber.log.Timber;
 
 public class NativeFormLangUtils {
 
+    private static final Pattern PROPERTIES_FILE_NAME_PATTERN =
+            Pattern.compile("\"?" + PROPERTIES_FILE_NAME + "\"?: ?\"([a-zA-Z_0-9\\.\\-]+)\"");
+
     public static String getLanguage(Context context) {
         AllSharedPreferences allSharedPreferences = new AllSharedPreferences(PreferenceManager.getDefaultSharedPreferences(context));
         return allSharedPreferences.fetchLanguagePreference();
@@ -82,13 +85,55 @@ public class NativeFormLangUtils {
      * @return
      */
     public static String getTranslatedString(String str, Context context) {
+        return translate(str, context, null);
+    }
+
+    /**
+     * Performs translation on an interpolated {@param str} read from an asset of this install, the translation is
+     * cached by the path of the asset instead of by its content
+     *
+     * @param str       content of the asset
+     * @param context   context used to find the locale and the version of the install
+     * @param assetPath path of the asset {@param str} was read from
+     * @return the translated string
+     */
+    public static String getTranslatedAsset(String str, Context context, String assetPath) {
+        return translate(str, context, getAssetIdentity(context, assetPath));
+    }
+
+    /**
+     * @return identity of an asset of this install, null if the install can not be identified. Assets only change
+     * when the app is updated, so the time it was last updated versions them.
+     */
+    @Nullable
+    public static String getAssetIdentity(@Nullable Context context, @NonNull String assetPath) {
+        if (context == null) {
+            return null;
+        }
+        try {
+            long lastUpdateTime = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+            return JsonFormConstants.FileSource.ASSETS + ":" + lastUpdateTime + ":" + assetPath;
+        } catch (PackageManager.NameNotFoundException e) {
+            Timber.e(e);
+            return null;
+        }
+    }
+
+    private static String translate(String str, Context context, @Nullable String formIdentity) {
+        // The text is only compiled when it is not found in the cache
         String translationsFileName = getTranslationsFileName(str);
         if (translationsFileName.isEmpty()) {
             Timber.e("Could not translate the String. Translation file name is not specified!");
             return str;
         }
         Locale currLocale = context == null ? Locale.getDefault() : getLocale(context);
-        return translateString(str, ResourceBundle.getBundle(translationsFileName, currLocale));
+        return TranslatedFormCache.getInstance().translate(formIdentity, str, currLocale,
+                ResourceBundle.getBundle(translationsFileName, currLocale), getCacheDirectory(context));
+    }
+
+    @Nullable
+    private static File getCacheDirectory(@Nullable Context context) {
+        return context != null ? context.getCacheDir() : null;
     }
 
     /**
@@ -125,9 +170,10 @@ public class NativeFormLangUtils {
         String translatedString = str;
         try {
             Locale currLocale = context == null ? Locale.getDefault() : getLocale(context);
-            ResourceBundle mlsResourceBundle = ResourceBundle.getBundle(getTranslationsFileName(str),
-                    currLocale, getPathURL(propertyFilesFolderPath));
-            translatedString = translateString(str, mlsResourceBundle);
+            TranslationTemplate template = TranslationTemplate.compile(str);
+            ResourceBundle mlsResourceBundle = TranslationBundleCache.getInstance()
+                    .getFolderBundle(template.getTranslationsFileName(), currLocale, propertyFilesFolderPath);
+            translatedString = template.translate(mlsResourceBundle);
         } catch (MalformedURLException e) {
             Timber.e(e);
         }
@@ -135,31 +181,28 @@ public class NativeFormLangUtils {
     }
 
     public static String getTranslatedStringWithDBResourceBundle(Context context, String str, ResourceBundle dbResourceBundle) {
-        ResourceBundle mlsResourceBundle = dbResourceBundle;
-        if (dbResourceBundle == null) {
-            mlsResourceBundle = getResourceBundleFromRepository(context, str);
-        }
-        return (mlsResourceBundle != null && mlsResourceBundle.getKeys().hasMoreElements()) ? translateString(str, mlsResourceBundle) : getTranslatedString(str);
+        return getTranslatedStringWithDBResourceBundle(context, str, dbResourceBundle, null);
     }
 
     /**
-     * Helper method that performs regex matching to replace placeholders with String literals
-     *
-     * @param str
-     * @param mlsResourceBundle
-     * @return
+     * @param formIdentity where {@param str} was read from with its version, e.g. the id and version of a client form,
+     *                     null to cache the translation by the content of {@param str}
      */
-    private static String translateString(String str, ResourceBundle mlsResourceBundle) {
-        StringBuffer stringBuffer = new StringBuffer();
-        Pattern interpolatedStringPattern = Pattern.compile("\\{\\{([a-zA-Z_0-9\\.\\-\\{\\}\\[\\]]+)\\}\\}");
-        Matcher matcher = interpolatedStringPattern.matcher(str);
-        while (matcher.find()) {
-            String replacement = Matcher.quoteReplacement(getEscapedValue(mlsResourceBundle.getString(matcher.group(1))));
-            matcher.appendReplacement(stringBuffer, replacement);
+    public static String getTranslatedStringWithDBResourceBundle(Context context, String str, ResourceBundle dbResourceBundle,
+                                                                 @Nullable String formIdentity) {
+        ResourceBundle mlsResourceBundle = dbResourceBundle;
+        if (dbResourceBundle == null) {
+            mlsResourceBundle = getResourceBundleFromRepository(context, str);
         }
-        matcher.appendTail(stringBuffer);
-
-        return stringBuffer.toString();
+        return (mlsResourceBundle != null && mlsResourceBundle.getKeys().hasMoreElements()) ?
+                TranslatedFormCache.getInstance().translate(formIdentity, str, context == null ? Locale.getDefault() :
+                        context.getResources().getConfiguration().locale, mlsResourceBundle, getCacheDirectory(context)) :
+                getTranslatedString(str);
+    }
+        return (mlsResourceBundle != null && mlsResourceBundle.getKeys().hasMoreElements()) ?
+                TranslatedFormCache.getInstance().translate(str, context == null ? Locale.getDefault() :
+                        context.getResources().getConfiguration().locale, mlsResourceBundle, getCacheDirectory(context)) :
+                getTranslatedString(str);
     }
 
     public static String getEscapedValue(String value) {
@@ -169,19 +212,6 @@ public class NativeFormLangUtils {
                 .replace("â\u0097\u008F", "●");
     }
 
-    /**
-     * Creates a {@link URLClassLoader} from a String {@param path}
-     *
-     * @param path
-     * @return
-     * @throws MalformedURLException
-     */
-    private static URLClassLoader getPathURL(String path) throws MalformedURLException {
-        File file = new File(path);
-        URL[] urls = {file.toURI().toURL()};
-        return new URLClassLoader(urls);
-    }
-
     /**
      * Gets the name of the translation file to be applied to the {@param str}
      *
@@ -189,8 +219,7 @@ public class NativeFormLangUtils {
      * @return
      */
     public static String getTranslationsFileName(String str) {
-        Pattern propertiesFileNamePattern = Pattern.compile("\"?" + PROPERTIES_FILE_NAME + "\"?: ?\"([a-zA-Z_0-9\\.\\-]+)\"");
-        Matcher matcher = propertiesFileNamePattern.matcher(str);
+        Matcher matcher = PROPERTIES_FILE_NAME_PATTERN.matcher(str);
         return matcher.find() ? matcher.group(1) : "";
     }
 
@@ -202,6 +231,6 @@ public class NativeFormLangUtils {
             identifier = identifier + "_" + locale;
         }
         identifier = identifier + JsonFormConstants.PROPERTIES_FILE_EXTENSION;
-        return ResourceBundle.getBundle(DBResourceBundle.class.getCanonicalName(), new DBResourceBundleControl(identifier));
+        return TranslationBundleCache.getInstance().getRepositoryBundle(identifier);
     }
 }
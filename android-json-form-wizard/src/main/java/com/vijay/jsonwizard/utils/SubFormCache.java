@@ -0,0 +1,99 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONObject;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process wide cache of parsed and translated sub forms, the forms behind expansion panels and popups.
+ * <p>
+ * Sub forms are keyed by where they were read from, their location, identity and the language they were translated
+ * to. The cached form is never handed out, every read returns a deep copy that the caller is free to change, which is
+ * far cheaper than reading and parsing the file again. The most recently used {@link #MAX_SUB_FORMS} forms are kept.
+ */
+public class SubFormCache {
+
+    @VisibleForTesting
+    static final int MAX_SUB_FORMS = 32;
+    private static final String KEY_SEPARATOR = "|";
+    private static final SubFormCache INSTANCE = new SubFormCache();
+
+    private final Map<String, JSONObject> subForms = new LinkedHashMap<String, JSONObject>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, JSONObject> eldest) {
+            return size() > MAX_SUB_FORMS;
+        }
+    };
+
+    @VisibleForTesting
+    SubFormCache() {
+    }
+
+    public static SubFormCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param source       where the sub form is read from, with the version of the form if it has one
+     * @param location     folder of the sub form
+     * @param formIdentity name of the sub form
+     * @param language     language the sub form is translated to, null if it is not translated
+     * @return the key of the sub form
+     */
+    @NonNull
+    public static String getKey(@NonNull String source, @Nullable String location, @NonNull String formIdentity,
+                                @Nullable String language) {
+        return source + KEY_SEPARATOR + language + KEY_SEPARATOR + location + "/" + formIdentity;
+    }
+
+    /**
+     * @return a copy of the cached sub form, null if it is not cached
+     */
+    @Nullable
+    public JSONObject get(@NonNull String key) {
+        JSONObject subForm;
+        synchronized (subForms) {
+            subForm = subForms.get(key);
+        }
+        return subForm != null ? JsonUtils.deepCopy(subForm) : null;
+    }
+
+    /**
+     * Caches a copy of the sub form, the caller keeps the sub form it passed in
+     */
+    public void put(@NonNull String key, @NonNull JSONObject subForm) {
+        JSONObject copy = JsonUtils.deepCopy(subForm);
+        synchronized (subForms) {
+            subForms.put(key, copy);
+        }
+    }
+
+    /**
+     * Drops every cached version and translation of a sub form
+     *
+     * @param formIdentity identity of the sub form, with or without its location
+     */
+    public void invalidate(@NonNull String formIdentity) {
+        String baseName = FormUtils.getFormBaseName(formIdentity);
+        synchronized (subForms) {
+            Iterator<String> iterator = subForms.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (FormUtils.isFormOrLocaleVariant(iterator.next(), baseName)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (subForms) {
+            subForms.clear();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.vijay.jsonwizard.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds back the commit of typed text until the user stops typing.
+ * <p>
+ * A commit validates a field and writes its value, which runs the calculations, skip logic and constraints of the form.
+ * Every new commit for a key replaces the pending one, so only the latest value of a field is committed once the quiet
+ * period has passed. Pending commits are run straight away when a field loses focus and before the step is left or the
+ * form is saved, so that validation and the saved form always see the final value.
+ * <p>
+ * Must only be used from the main thread.
+ */
+public class TextInputCoalescer {
+
+    public static final long DEFAULT_QUIET_PERIOD_MILLIS = 300;
+
+    private final Handler handler;
+    private final Map<String, PendingCommit> pendingCommits = new LinkedHashMap<>();
+
+    public TextInputCoalescer() {
+        this(new Handler(Looper.getMainLooper()));
+    }
+
+    TextInputCoalescer(@NonNull Handler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Reads the quiet period of a field, the field setting wins over the form setting
+     *
+     * @param field the field json
+     * @param form  the form json
+     * @return quiet period in milliseconds, 0 if commits should not be held back
+     */
+    public static long getQuietPeriod(@Nullable JSONObject field, @Nullable JSONObject form) {
+        long quietPeriod = form != null ?
+                form.optLong(JsonFormConstants.INPUT_QUIET_PERIOD, DEFAULT_QUIET_PERIOD_MILLIS) :
+                DEFAULT_QUIET_PERIOD_MILLIS;
+        if (field != null) {
+            quietPeriod = field.optLong(JsonFormConstants.INPUT_QUIET_PERIOD, quietPeriod);
+        }
+        return Math.max(0, quietPeriod);
+    }
+
+    /**
+     * Schedules a commit for a field, replacing the one pending for the same key
+     *
+     * @param key         identifies the field
+     * @param quietPeriod milliseconds to wait for further input, the commit runs straight away if it is 0
+     * @param commit      validates and writes the value
+     */
+    public void submit(@NonNull String key, long quietPeriod, @NonNull Runnable commit) {
+        cancel(key);
+        if (quietPeriod <= 0) {
+            commit.run();
+            return;
+        }
+
+        PendingCommit pendingCommit = new PendingCommit(key, commit);
+        pendingCommits.put(key, pendingCommit);
+        handler.postDelayed(pendingCommit, quietPeriod);
+    }
+
+    /**
+     * Runs the commit pending for a field, if any
+     */
+    public void flush(@Nullable String key) {
+        PendingCommit pendingCommit = pendingCommits.get(key);
+        if (pendingCommit != null) {
+            handler.removeCallbacks(pendingCommit);
+            pendingCommit.run();
+        }
+    }
+
+    /**
+     * Runs every pending commit in the order the fields were last edited
+     */
+    public void flushAll() {
+        if (pendingCommits.isEmpty()) {
+            return;
+        }
+
+        // A commit can lead to new input, only run the commits pending now
+        List<PendingCommit> commits = new ArrayList<>(pendingCommits.values());
+        for (PendingCommit pendingCommit : commits) {
+            handler.removeCallbacks(pendingCommit);
+            pendingCommit.run();
+        }
+    }
+
+    /**
+     * Drops the commit pending for a field without running it
+     */
+    public void cancel(@Nullable String key) {
+        PendingCommit pendingCommit = pendingCommits.remove(key);
+        if (pendingCommit != null) {
+            handler.removeCallbacks(pendingCommit);
+        }
+    }
+
+    /**
+     * Drops every pending commit without running it
+     */
+    public void cancelAll() {
+        for (PendingCommit pendingCommit : pendingCommits.values()) {
+            handler.removeCallbacks(pendingCommit);
+        }
+        pendingCommits.clear();
+    }
+
+    public boolean hasPendingCommit(@Nullable String key) {
+        return pendingCommits.containsKey(key);
+    }
+
+    private final class PendingCommit implements Runnable {
+        private final String key;
+        private final Runnable commit;
+
+        private PendingCommit(String key, Runnable commit) {
+            this.key = key;
+            this.commit = commit;
+        }
+
+        @Override
+        public void run() {
+            // Only run if this is still the latest commit for the field
+            if (pendingCommits.get(key) == this) {
+                pendingCommits.remove(key);
+                commit.run();
+            }
+        }
+    }
+}
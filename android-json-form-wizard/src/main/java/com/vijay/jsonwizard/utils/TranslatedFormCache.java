@@ -0,0 +1,273 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+import java.util.WeakHashMap;
+import java.util.concurrent.Executor;
+
+import timber.log.Timber;
+
+/**
+ * Translates forms, sub forms and yaml files once per process and once per install.
+ * <p>
+ * A translation depends only on the text that is translated, the locale and the translations it is translated with.
+ * Text read from a known place, e.g. an asset of this install or a version of a client form, is keyed by that form
+ * identity, so a lookup never has to go over the text. Text without an identity, e.g. a prefilled form from an Intent,
+ * is keyed by its content. Either way a new version of a form or of its properties file gets a new key and is never
+ * mistaken for the old one, nothing has to be invalidated. Translations are kept in memory, the most recently used
+ * {@link #MAX_TRANSLATIONS}, and written to a cache directory in app-private storage so that opening the form in a new
+ * process skips translating it. The directory keeps the most recently written {@link #MAX_CACHE_FILES} files. The
+ * directory is never read on the main thread, text translated there is only found in memory.
+ */
+public class TranslatedFormCache {
+
+    // Bump whenever the way forms are translated changes
+    private static final int CACHE_FORMAT_VERSION = 2;
+    private static final String KEY_SEPARATOR = "|";
+    private static final String CACHE_DIRECTORY = "native-form-translations";
+    private static final String CACHE_FILE_EXTENSION = ".txt";
+    @VisibleForTesting
+    static final int MAX_TRANSLATIONS = 8;
+    @VisibleForTesting
+    static final int MAX_CACHE_FILES = 64;
+    private static final TranslatedFormCache INSTANCE = new TranslatedFormCache(FormExecutors.io());
+
+    private final Map<String, Translation> translations = new LinkedHashMap<String, Translation>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Translation> eldest) {
+            return size() > MAX_TRANSLATIONS;
+        }
+    };
+    // Bundles are cached by ResourceBundle and TranslationBundleCache, so each is hashed once
+    private final Map<ResourceBundle, String> bundleHashes = new WeakHashMap<>();
+    private final Executor diskExecutor;
+
+    @VisibleForTesting
+    TranslatedFormCache(@NonNull Executor diskExecutor) {
+        this.diskExecutor = diskExecutor;
+    }
+
+    public static TranslatedFormCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the translation of text that has no form identity, it is looked up by its content
+     *
+     * @see #translate(String, String, Locale, ResourceBundle, File)
+     */
+    @NonNull
+    public String translate(@NonNull String str, @NonNull Locale locale, @NonNull ResourceBundle bundle,
+                            @Nullable File cacheDirectory) {
+        return translate(null, str, locale, bundle, cacheDirectory);
+    }
+
+    /**
+     * Returns the translation of the text, from memory, the disk cache or by translating it
+     *
+     * @param formIdentity   where the text was read from with its version, e.g. an asset of this install or a version of
+     *                       a client form, null if the text has no identity and has to be looked up by its content
+     * @param str            text with {{string_name}} placeholders
+     * @param locale         locale the text is translated to
+     * @param bundle         translations of the placeholders
+     * @param cacheDirectory app cache directory, the disk cache is not used if it is null
+     * @return the translated text
+     * @throws java.util.MissingResourceException if the bundle has no translation for a placeholder
+     */
+    @NonNull
+    public String translate(@Nullable final String formIdentity, @NonNull final String str, @NonNull final Locale locale,
+                            @NonNull ResourceBundle bundle, @Nullable File cacheDirectory) {
+        final String bundleHash = getBundleHash(bundle);
+        // Text without an identity is found by its length and String hash, which are cheap, and compared on a hit
+        String key = (formIdentity != null ? "form:" + formIdentity : "text:" + str.length() + ":" + str.hashCode())
+                + KEY_SEPARATOR + locale + KEY_SEPARATOR + bundleHash;
+        Translation translation;
+        synchronized (translations) {
+            translation = translations.get(key);
+        }
+        if (translation != null && (formIdentity != null || str.equals(translation.source))) {
+            return translation.text;
+        }
+
+        final File cacheFileDirectory = cacheDirectory != null ? new File(cacheDirectory, CACHE_DIRECTORY) : null;
+        String text = null;
+        if (cacheFileDirectory != null && !Utils.isRunningOnUiThread()) {
+            text = readCacheFile(getCacheFile(cacheFileDirectory, formIdentity, str, locale, bundleHash));
+        }
+        if (text == null) {
+            text = TranslationTemplate.compile(str).translate(bundle);
+            if (cacheFileDirectory != null) {
+                final String translatedString = text;
+                diskExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        writeCacheFile(getCacheFile(cacheFileDirectory, formIdentity, str, locale, bundleHash),
+                                translatedString);
+                    }
+                });
+            }
+        }
+
+        synchronized (translations) {
+            // Only text without an identity has to be kept to be compared
+            translations.put(key, new Translation(formIdentity != null ? null : str, text));
+        }
+        return text;
+    }
+
+    public void clear() {
+        synchronized (translations) {
+            translations.clear();
+        }
+    }
+
+    private String getBundleHash(ResourceBundle bundle) {
+        synchronized (bundleHashes) {
+            String hash = bundleHashes.get(bundle);
+            if (hash == null) {
+                List<String> keys = new ArrayList<>(bundle.keySet());
+                Collections.sort(keys);
+                List<String> entries = new ArrayList<>(keys.size() * 2);
+                for (String key : keys) {
+                    entries.add(key);
+                    entries.add(String.valueOf(bundle.getObject(key)));
+                }
+                hash = getHash(entries);
+                bundleHashes.put(bundle, hash);
+            }
+            return hash;
+        }
+    }
+
+    private static File getCacheFile(@NonNull File directory, @Nullable String formIdentity, @NonNull String str,
+                                     @NonNull Locale locale, @NonNull String bundleHash) {
+        String version = String.valueOf(CACHE_FORMAT_VERSION);
+        // The content of text without an identity is hashed, which is left to the disk thread whenever possible
+        String name = formIdentity != null ? getHash(Arrays.asList(version, formIdentity, locale.toString(), bundleHash))
+                : getHash(Arrays.asList(version, locale.toString(), bundleHash, str));
+        return new File(directory, name + CACHE_FILE_EXTENSION);
+    }
+
+    @Nullable
+    private String readCacheFile(@NonNull File cacheFile) {
+        if (!cacheFile.exists()) {
+            return null;
+        }
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8)) {
+            StringBuilder builder = new StringBuilder((int) cacheFile.length());
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                builder.append(buffer, 0, read);
+            }
+            return builder.toString();
+        } catch (IOException e) {
+            Timber.e(e, "TranslatedFormCache --> unreadable cache file %s", cacheFile.getName());
+            if (!cacheFile.delete()) {
+                Timber.w("TranslatedFormCache --> could not delete %s", cacheFile.getName());
+            }
+            return null;
+        }
+    }
+
+    private void writeCacheFile(@NonNull File cacheFile, @NonNull String translation) {
+        File directory = cacheFile.getParentFile();
+        if (directory == null || (!directory.exists() && !directory.mkdirs())) {
+            return;
+        }
+
+        // Write to a temporary file first so that a reader never sees a partly written cache file
+        File tempFile = new File(directory, cacheFile.getName() + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8)) {
+            writer.write(translation);
+        } catch (IOException e) {
+            Timber.e(e, "TranslatedFormCache --> writeCacheFile");
+            tempFile.delete();
+            return;
+        }
+
+        if (!tempFile.renameTo(cacheFile)) {
+            tempFile.delete();
+            return;
+        }
+        trimCacheDirectory(directory);
+    }
+
+    private void trimCacheDirectory(File directory) {
+        File[] cacheFiles = directory.listFiles();
+        if (cacheFiles == null || cacheFiles.length <= MAX_CACHE_FILES) {
+            return;
+        }
+
+        Arrays.sort(cacheFiles, new Comparator<File>() {
+            @Override
+            public int compare(File first, File second) {
+                return Long.compare(second.lastModified(), first.lastModified());
+            }
+        });
+        for (int i = MAX_CACHE_FILES; i < cacheFiles.length; i++) {
+            if (!cacheFiles[i].delete()) {
+                Timber.w("TranslatedFormCache --> could not delete %s", cacheFiles[i].getName());
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static String getHash(@NonNull List<String> parts) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-1");
+            for (String part : parts) {
+                byte[] bytes = part.getBytes(StandardCharsets.UTF_8);
+                // Lengths keep the parts apart, ("ab", "c") and ("a", "bc") hash differently
+                messageDigest.update(String.valueOf(bytes.length).getBytes(StandardCharsets.UTF_8));
+                messageDigest.update((byte) ':');
+                messageDigest.update(bytes);
+            }
+            byte[] digest = messageDigest.digest();
+            StringBuilder hash = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-1
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Translation {
+
+        @Nullable
+        private final String source;
+        @NonNull
+        private final String text;
+
+        private Translation(@Nullable String source, @NonNull String text) {
+            this.source = source;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.vijay.jsonwizard.domain.DBResourceBundle;
+import com.vijay.jsonwizard.domain.DBResourceBundleControl;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * Process wide cache of the translations forms are translated with.
+ * <p>
+ * Translations read from the client form repository are keyed by the identifier of their properties file, which
+ * names the locale, e.g. {@code form_strings_sw.properties}. They are read and split once, instead of once for every
+ * form, sub form and rules file, and must be dropped through {@link #invalidate(String)} when another version of the
+ * properties file becomes active, see {@link com.vijay.jsonwizard.NativeFormLibrary#onClientFormUpdated(String)}.
+ * The most recently used {@link #MAX_BUNDLES} are kept.
+ * <p>
+ * Properties files read from a folder are loaded through one class loader per folder, so the bundles
+ * {@link ResourceBundle} caches for a class loader are found again instead of every file being read again.
+ */
+public class TranslationBundleCache {
+
+    @VisibleForTesting
+    static final int MAX_BUNDLES = 32;
+    private static final TranslationBundleCache INSTANCE = new TranslationBundleCache();
+    // Bundles of a folder are checked against the last modified time of their file whenever they are read
+    private static final ResourceBundle.Control FOLDER_CONTROL = new ResourceBundle.Control() {
+        @Override
+        public long getTimeToLive(String baseName, Locale locale) {
+            return 0;
+        }
+    };
+
+    private final Map<String, ResourceBundle> repositoryBundles = new LinkedHashMap<String, ResourceBundle>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ResourceBundle> eldest) {
+            return size() > MAX_BUNDLES;
+        }
+    };
+    private final Map<String, ClassLoader> folderClassLoaders = new LinkedHashMap<>();
+
+    @VisibleForTesting
+    TranslationBundleCache() {
+    }
+
+    public static TranslationBundleCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param identifier identifier of the properties file in the client form repository, including its locale
+     * @return the translations in the file, empty if the repository does not have the file
+     */
+    @NonNull
+    public ResourceBundle getRepositoryBundle(@NonNull String identifier) {
+        ResourceBundle bundle;
+        synchronized (repositoryBundles) {
+            bundle = repositoryBundles.get(identifier);
+        }
+        if (bundle == null) {
+            Object[][] properties = DBResourceBundleControl.getPropertiesFromRepository(identifier);
+            bundle = new DBResourceBundle(properties);
+            // A file the repository does not have yet is looked up again next time
+            if (properties.length > 0) {
+                synchronized (repositoryBundles) {
+                    repositoryBundles.put(identifier, bundle);
+                }
+            }
+        }
+        return bundle;
+    }
+
+    /**
+     * @param baseName name of the properties file without its locale
+     * @param locale   locale to read the translations for
+     * @param path     folder the properties files are read from
+     * @return the translations, read again only when the properties file changed since it was read
+     */
+    @NonNull
+    public ResourceBundle getFolderBundle(@NonNull String baseName, @NonNull Locale locale, @NonNull String path)
+            throws MalformedURLException {
+        return ResourceBundle.getBundle(baseName, locale, getFolderClassLoader(path), FOLDER_CONTROL);
+    }
+
+    private ClassLoader getFolderClassLoader(String path) throws MalformedURLException {
+        synchronized (folderClassLoaders) {
+            ClassLoader classLoader = folderClassLoaders.get(path);
+            if (classLoader == null) {
+                URL[] urls = {new File(path).toURI().toURL()};
+                classLoader = new URLClassLoader(urls);
+                folderClassLoaders.put(path, classLoader);
+            }
+            return classLoader;
+        }
+    }
+
+    /**
+     * Drops the translations of every locale of a properties file
+     *
+     * @param identifier identifier of the properties file, with or without its locale
+     */
+    public void invalidate(@NonNull String identifier) {
+        String baseName = FormUtils.getFormBaseName(identifier);
+        synchronized (repositoryBundles) {
+            Iterator<String> iterator = repositoryBundles.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (FormUtils.isFormOrLocaleVariant(iterator.next(), baseName)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (repositoryBundles) {
+            repositoryBundles.clear();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.vijay.jsonwizard.utils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ResourceBundle;
+
+/**
+ * A string with {@code {{string_name}}} placeholders, split once into the literal text and the placeholders.
+ * <p>
+ * Translating a template appends the literal text and the translation of each placeholder in a single pass, with no
+ * pattern matching. Templates of forms are shared and the most recently used {@link #MAX_TEMPLATES} are kept, so a form
+ * that is translated again, e.g. to another language, is not tokenized again. Strings shorter than
+ * {@link #MIN_CACHED_LENGTH}, e.g. single labels, are cheap to tokenize and are not kept, so that they never push a
+ * form out. Placeholders are found the way the pattern
+ * {@code \{\{([a-zA-Z_0-9\.\-\{\}\[\]]+)\}\}} finds them.
+ */
+public class TranslationTemplate {
+
+    @VisibleForTesting
+    static final int MAX_TEMPLATES = 16;
+    @VisibleForTesting
+    static final int MIN_CACHED_LENGTH = 1024;
+    private static final Map<String, TranslationTemplate> TEMPLATES =
+            new LinkedHashMap<String, TranslationTemplate>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, TranslationTemplate> eldest) {
+                    return size() > MAX_TEMPLATES;
+                }
+            };
+
+    private final String source;
+    private final String translationsFileName;
+    // Per placeholder: where the placeholder starts, where it ends and its key
+    private final int[] starts;
+    private final int[] ends;
+    private final String[] keys;
+
+    private TranslationTemplate(String source, List<int[]> placeholders) {
+        this.source = source;
+        this.translationsFileName = NativeFormLangUtils.getTranslationsFileName(source);
+        starts = new int[placeholders.size()];
+        ends = new int[placeholders.size()];
+        keys = new String[placeholders.size()];
+        for (int i = 0; i < placeholders.size(); i++) {
+            int[] placeholder = placeholders.get(i);
+            starts[i] = placeholder[0];
+            ends[i] = placeholder[1];
+            keys[i] = source.substring(placeholder[0] + 2, placeholder[1] - 2);
+        }
+    }
+
+    @NonNull
+    public static TranslationTemplate compile(@NonNull String str) {
+        if (str.length() < MIN_CACHED_LENGTH) {
+            return new TranslationTemplate(str, findPlaceholders(str));
+        }
+
+        TranslationTemplate template;
+        synchronized (TEMPLATES) {
+            template = TEMPLATES.get(str);
+        }
+        if (template == null) {
+            template = new TranslationTemplate(str, findPlaceholders(str));
+            synchronized (TEMPLATES) {
+                TEMPLATES.put(str, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * @return the start and end of every placeholder
+     */
+    private static List<int[]> findPlaceholders(String str) {
+        List<int[]> placeholders = new ArrayList<>();
+        int length = str.length();
+        int i = 0;
+        while (i < length - 1) {
+            if (str.charAt(i) != '{' || str.charAt(i + 1) != '{') {
+                i++;
+                continue;
+            }
+
+            // The key runs as far as the allowed characters go, less the closing braces
+            int runEnd = i + 2;
+            while (runEnd < length && isKeyCharacter(str.charAt(runEnd))) {
+                runEnd++;
+            }
+            int keyEnd = runEnd - 2;
+            while (keyEnd > i + 2 && (str.charAt(keyEnd) != '}' || str.charAt(keyEnd + 1) != '}')) {
+                keyEnd--;
+            }
+
+            if (keyEnd > i + 2) {
+                placeholders.add(new int[]{i, keyEnd + 2});
+                i = keyEnd + 2;
+            } else {
+                // No placeholder can start anywhere else in the same run of key characters either
+                i = runEnd;
+            }
+        }
+        return placeholders;
+    }
+
+    private static boolean isKeyCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '.'
+                || c == '-' || c == '{' || c == '}' || c == '[' || c == ']';
+    }
+
+    @VisibleForTesting
+    static void clearCache() {
+        synchronized (TEMPLATES) {
+            TEMPLATES.clear();
+        }
+    }
+
+    /**
+     * @return the name of the translation file the string names, empty if it names none
+     */
+    @NonNull
+    public String getTranslationsFileName() {
+        return translationsFileName;
+    }
+
+    public int getPlaceholderCount() {
+        return keys.length;
+    }
+
+    /**
+     * Replaces every placeholder with its escaped translation
+     *
+     * @throws java.util.MissingResourceException if the bundle has no translation for a placeholder
+     */
+    @NonNull
+    public String translate(@NonNull ResourceBundle bundle) {
+        if (keys.length == 0) {
+            return source;
+        }
+
+        StringBuilder builder = new StringBuilder(source.length());
+        int literalStart = 0;
+        for (int i = 0; i < keys.length; i++) {
+            builder.append(source, literalStart, starts[i])
+                    .append(NativeFormLangUtils.getEscapedValue(bundle.getString(keys[i])));
+            literalStart = ends[i];
+        }
+        return builder.append(source, literalStart, source.length()).toString();
+    }
+}
@@ -7,7 +7,6 @@ import static com.vijay.jsonwizard.constants.JsonFormConstants.OPENMRS_ENTITY_PA
 import static com.vijay.jsonwizard.constants.JsonFormConstants.TEXT;
 import static com.vijay.jsonwizard.constants.JsonFormConstants.TYPE;
 import static com.vijay.jsonwizard.constants.JsonFormConstants.VALUE;
-import static com.vijay.jsonwizard.utils.NativeFormLangUtils.getTranslatedString;
 import static com.vijay.jsonwizard.widgets.RepeatingGroupFactory.REFERENCE_EDIT_TEXT_HINT;
 
 import android.app.Activity;
@@ -57,8 +56,12 @@ import org.yaml.snakeyaml.Yaml;
 
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -71,7 +74,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -615,7 +617,7 @@ public class Utils {
      * @return Translated Yaml file in its String representation
      */
     public static String getTranslatedYamlFile(String fileName, Context context) {
-        return getTranslatedString(getAssetFileAsString(fileName, context), context);
+        return NativeFormLangUtils.getTranslatedAsset(getAssetFileAsString(fileName, context), context, fileName);
     }
 
     /**
@@ -627,7 +629,8 @@ public class Utils {
      * @return Translated Yaml file in its String representation
      */
     public static String getTranslatedYamlFileWithDBProperties(String fileName, Context context) {
-        return NativeFormLangUtils.getTranslatedStringWithDBResourceBundle(context, getAssetFileAsString(fileName, context), null);
+        return NativeFormLangUtils.getTranslatedStringWithDBResourceBundle(context, getAssetFileAsString(fileName, context), null,
+                NativeFormLangUtils.getAssetIdentity(context, fileName));
     }
 
     /**
@@ -661,12 +664,6 @@ public class Utils {
         }
     }
 
-    private static void closeScanner(Scanner scanner) {
-        if (scanner != null) {
-            scanner.close();
-        }
-    }
-
     /**
      * Returns file contents for the file at {@param filePath} as a String
      * <p>
@@ -680,30 +677,35 @@ public class Utils {
     }
 
     public static String getFileContentsAsString(File file) {
-        Scanner scanner = null;
         String fileContents = "";
         try {
-            scanner = new Scanner(file);
-            fileContents = scanner.useDelimiter("\\A").next();
+            fileContents = convertStreamToString(new FileInputStream(file));
         } catch (IOException e) {
             Timber.e(e);
-        } finally {
-            closeScanner(scanner);
         }
         return fileContents;
     }
 
     /**
-     * Converts an {@link InputStream} into a {@link String}
+     * Converts a UTF-8 {@link InputStream} into a {@link String} and closes the stream
+     * <p>
+     * Use {@link FormJsonReader} instead when the contents are json that is parsed right away
      *
      * @param inputStream
      * @return String representation of an {@link InputStream}
      */
     public static String convertStreamToString(InputStream inputStream) {
-        Scanner scanner = new Scanner(inputStream).useDelimiter("\\A");
-        String data = scanner.hasNext() ? scanner.next() : "";
-        closeScanner(scanner);
-        return data;
+        StringBuilder builder = new StringBuilder();
+        try (Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                builder.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            Timber.e(e);
+        }
+        return builder.toString();
     }
 
     /**
@@ -0,0 +1,148 @@
+package com.vijay.jsonwizard.views;
+
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.vijay.jsonwizard.R;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import timber.log.Timber;
+
+/**
+ * Index of the canvas views of a form, the views whose visibility follows the relevance of a widget.
+ * <p>
+ * Widgets list their canvas views by id in the {@code canvas_ids} tag. The views are registered when the widget
+ * factories create them so that relevance changes find them without searching the view hierarchy. Canvas ids are
+ * generated and unique in the process, so one registry serves every step and popup of a form. Views are held by weak
+ * references and drop out of the registry once their step or popup is gone.
+ * <p>
+ * Visibility changes made while a batch is open are applied when the batch is closed and only the last change of every
+ * view is applied, so a view that is hidden and shown again within a relevance cascade does not request a layout at
+ * all. A whole relevance cascade then costs a single layout pass.
+ * <p>
+ * Must only be used from the main thread.
+ */
+public class CanvasViewRegistry {
+
+    private final SparseArray<WeakReference<View>> canvasViews = new SparseArray<>();
+    private final Map<View, Integer> pendingVisibility = new LinkedHashMap<>();
+    private int batchDepth;
+
+    /**
+     * Registers the canvas views listed by the widgets in a view tree
+     *
+     * @param root view created by a widget factory
+     */
+    public void register(@NonNull View root) {
+        SparseArray<View> viewsById = new SparseArray<>();
+        List<Integer> canvasIds = new ArrayList<>();
+        collectViews(root, viewsById, canvasIds);
+
+        for (Integer canvasId : canvasIds) {
+            View canvasView = viewsById.get(canvasId);
+            if (canvasView != null) {
+                canvasViews.put(canvasId, new WeakReference<>(canvasView));
+            }
+        }
+    }
+
+    private void collectViews(View view, SparseArray<View> viewsById, List<Integer> canvasIds) {
+        if (view.getId() != View.NO_ID && viewsById.get(view.getId()) == null) {
+            viewsById.put(view.getId(), view);
+        }
+
+        Object canvasIdsTag = view.getTag(R.id.canvas_ids);
+        if (canvasIdsTag != null) {
+            try {
+                JSONArray jsonArray = new JSONArray(canvasIdsTag.toString());
+                for (int i = 0; i < jsonArray.length(); i++) {
+                    canvasIds.add(jsonArray.getInt(i));
+                }
+            } catch (JSONException e) {
+                Timber.e(e, "CanvasViewRegistry --> collectViews");
+            }
+        }
+
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                collectViews(group.getChildAt(i), viewsById, canvasIds);
+            }
+        }
+    }
+
+    /**
+     * Finds a canvas view. Views that were not registered are looked up once in the hierarchy of the anchor and then
+     * kept in the registry.
+     *
+     * @param anchor   a view in the same window as the canvas view
+     * @param canvasId id of the canvas view
+     * @return the canvas view or null if it is not in the window
+     */
+    @Nullable
+    public View getView(@NonNull View anchor, int canvasId) {
+        WeakReference<View> reference = canvasViews.get(canvasId);
+        View canvasView = reference != null ? reference.get() : null;
+        if (canvasView == null) {
+            canvasView = anchor.getRootView().findViewById(canvasId);
+            if (canvasView != null) {
+                canvasViews.put(canvasId, new WeakReference<>(canvasView));
+            } else if (reference != null) {
+                canvasViews.remove(canvasId);
+            }
+        }
+        return canvasView;
+    }
+
+    /**
+     * Holds back visibility changes until the matching {@link #endBatch()}, batches can be nested
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Closes a batch, the visibility changes are applied once the outermost batch is closed
+     */
+    public void endBatch() {
+        if (batchDepth == 0 || --batchDepth > 0) {
+            return;
+        }
+
+        Map<View, Integer> changes = new LinkedHashMap<>(pendingVisibility);
+        pendingVisibility.clear();
+        for (Map.Entry<View, Integer> change : changes.entrySet()) {
+            change.getKey().setVisibility(change.getValue());
+        }
+    }
+
+    /**
+     * Sets the visibility of a canvas view, held back while a batch is open
+     *
+     * @param canvasView the canvas view
+     * @param visibility {@link View#VISIBLE}, {@link View#INVISIBLE} or {@link View#GONE}
+     */
+    public void setVisibility(@NonNull View canvasView, int visibility) {
+        if (batchDepth > 0) {
+            pendingVisibility.put(canvasView, visibility);
+        } else {
+            canvasView.setVisibility(visibility);
+        }
+    }
+
+    public boolean isBatching() {
+        return batchDepth > 0;
+    }
+}
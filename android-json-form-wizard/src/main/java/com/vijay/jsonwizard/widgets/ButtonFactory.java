@@ -136,6 +136,7 @@ public class ButtonFactory implements FormWidgetFactory {
                         JSONObject jsonObject1 = context
                                 .getObjectUsingAddress(address, false);
                         jsonObject1.put(JsonFormConstants.VALUE, Boolean.TRUE.toString());
+                        context.onStepChanged(address[0]);
 
                         switch (behaviour) {
                             case JsonFormConstants.BEHAVIOUR_FINISH_FORM:
@@ -149,6 +150,7 @@ public class ButtonFactory implements FormWidgetFactory {
                                 jsonObject1.getJSONObject(JsonFormConstants.ACTION)
                                         .put(JsonFormConstants.RESULT, false);
                                 jsonObject1.put(JsonFormConstants.VALUE, Boolean.FALSE.toString());
+                                context.onStepChanged(address[0]);
                                 break;
                         }
                     }
@@ -37,6 +37,7 @@ import com.vijay.jsonwizard.interfaces.CommonListener;
 import com.vijay.jsonwizard.interfaces.FormWidgetFactory;
 import com.vijay.jsonwizard.interfaces.JsonApi;
 import com.vijay.jsonwizard.utils.FormUtils;
+import com.vijay.jsonwizard.utils.TextInputCoalescer;
 import com.vijay.jsonwizard.utils.ValidationStatus;
 import com.vijay.jsonwizard.validators.edittext.CumulativeTotalValidator;
 import com.vijay.jsonwizard.validators.edittext.MaxLengthValidator;
@@ -199,7 +200,10 @@ public class EditTextFactory implements FormWidgetFactory {
         }
 
         editText.setSingleLine(false);
-        editText.addTextChangedListener(new GenericTextWatcher(stepName, formFragment, editText));
+        GenericTextWatcher textWatcher = new GenericTextWatcher(stepName, formFragment, editText);
+        textWatcher.setQuietPeriod(TextInputCoalescer.getQuietPeriod(jsonObject,
+                context instanceof JsonApi ? ((JsonApi) context).getmJSONObject() : null));
+        editText.addTextChangedListener(textWatcher);
         attachRefreshLogic(context, jsonObject, editText);
     }
 
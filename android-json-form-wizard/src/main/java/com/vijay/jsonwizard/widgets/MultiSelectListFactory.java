@@ -31,7 +31,9 @@ import com.vijay.jsonwizard.interfaces.CommonListener;
 import com.vijay.jsonwizard.interfaces.FormWidgetFactory;
 import com.vijay.jsonwizard.interfaces.JsonApi;
 import com.vijay.jsonwizard.interfaces.MultiSelectListRepository;
+import com.vijay.jsonwizard.interfaces.PagedMultiSelectListRepository;
 import com.vijay.jsonwizard.task.MultiSelectListLoadTask;
+import com.vijay.jsonwizard.task.MultiSelectListPageLoader;
 import com.vijay.jsonwizard.utils.MultiSelectListUtils;
 import com.vijay.jsonwizard.utils.Utils;
 import com.vijay.jsonwizard.utils.ValidationStatus;
@@ -222,6 +224,30 @@ public class MultiSelectListFactory implements FormWidgetFactory {
         return new ArrayList<>();
     }
 
+    /**
+     * @return the repository of the widget if it is read a page at a time, null otherwise
+     */
+    @Nullable
+    public PagedMultiSelectListRepository loadPagedRepository(@Nullable String source) {
+        String strRepositoryClass = jsonObject.optString(JsonFormConstants.MultiSelectUtils.REPOSITORY_CLASS);
+        if (StringUtils.isBlank(source) || StringUtils.isBlank(strRepositoryClass)) {
+            return null;
+        }
+        try {
+            Class<?> aClass = Class.forName(strRepositoryClass);
+            if (PagedMultiSelectListRepository.class.isAssignableFrom(aClass)) {
+                return (PagedMultiSelectListRepository) aClass.newInstance();
+            }
+        } catch (IllegalAccessException e) {
+            Timber.e(e);
+        } catch (InstantiationException e) {
+            Timber.e(e);
+        } catch (ClassNotFoundException e) {
+            Timber.e(e);
+        }
+        return null;
+    }
+
     public List<MultiSelectItem> loadListItems(@Nullable String source) {
         if (StringUtils.isBlank(source)) {
             return MultiSelectListUtils.loadOptionsFromJsonForm(jsonObject);
@@ -276,6 +302,7 @@ public class MultiSelectListFactory implements FormWidgetFactory {
             getMultiSelectListAdapter(currentAdapterKey).getData().clear();
         }
         getMultiSelectListAdapter(currentKey).getData().addAll(multiSelectListAccessory.getItemList());
+        getMultiSelectListAdapter(currentKey).setSearchIndex(multiSelectListAccessory.getSearchIndex());
         getMultiSelectListAdapter(currentKey).notifyDataSetChanged();
     }
 
@@ -312,6 +339,33 @@ public class MultiSelectListFactory implements FormWidgetFactory {
         LinearLayoutManager linearLayoutManager = new LinearLayoutManager(context);
         recyclerView.setLayoutManager(linearLayoutManager);
         recyclerView.setAdapter(multiSelectListAdapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (linearLayoutManager.findLastVisibleItemPosition() < multiSelectListAdapter.getItemCount() - 1) {
+                    return;
+                }
+                // Adapter changes are not allowed while the list is scrolling or laid out
+                if (multiSelectListAdapter.hasMoreResults()) {
+                    recyclerView.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            multiSelectListAdapter.showNextPage();
+                        }
+                    });
+                } else if (multiSelectListAdapter.getData() == multiSelectListAdapter.getOrigData()) {
+                    final MultiSelectListPageLoader pageLoader = getMultiSelectListAccessoryHashMap().get(currentKey).getPageLoader();
+                    if (pageLoader != null && pageLoader.hasMorePages()) {
+                        recyclerView.post(new Runnable() {
+                            @Override
+                            public void run() {
+                                pageLoader.loadNextPage();
+                            }
+                        });
+                    }
+                }
+            }
+        });
         searchViewMultiSelect.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
@@ -21,6 +21,7 @@ import com.vijay.jsonwizard.interfaces.CommonListener;
 import com.vijay.jsonwizard.interfaces.FormWidgetFactory;
 import com.vijay.jsonwizard.interfaces.JsonApi;
 import com.vijay.jsonwizard.utils.FormUtils;
+import com.vijay.jsonwizard.utils.TextInputCoalescer;
 import com.vijay.jsonwizard.utils.ValidationStatus;
 import com.vijay.jsonwizard.validators.edittext.MaxNumericValidator;
 import com.vijay.jsonwizard.validators.edittext.MinNumericValidator;
@@ -146,7 +147,10 @@ public class NativeEditTextFactory implements FormWidgetFactory {
             }
         }
 
-        editText.addTextChangedListener(new GenericTextWatcher(stepName, formFragment, editText));
+        GenericTextWatcher textWatcher = new GenericTextWatcher(stepName, formFragment, editText);
+        textWatcher.setQuietPeriod(TextInputCoalescer.getQuietPeriod(jsonObject,
+                context instanceof JsonApi ? ((JsonApi) context).getmJSONObject() : null));
+        editText.addTextChangedListener(textWatcher);
         if (!TextUtils.isEmpty(relevance) && context instanceof JsonApi) {
             editText.setTag(R.id.relevance, relevance);
             ((JsonApi) context).addSkipLogicView(editText);
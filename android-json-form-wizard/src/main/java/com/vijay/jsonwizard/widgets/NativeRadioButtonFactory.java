@@ -171,6 +171,9 @@ public class NativeRadioButtonFactory implements FormWidgetFactory {
                                 Timber.e(e);
                             }
                         }
+                        if (context instanceof JsonApi) {
+                            ((JsonApi) context).onStepChanged(stepName);
+                        }
                     }
 
                 } else {
@@ -16,6 +16,7 @@ import com.rey.material.util.ViewUtil;
 import com.vijay.jsonwizard.R;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.customviews.GenericTextWatcher;
+import com.vijay.jsonwizard.customviews.TreeNodeTable;
 import com.vijay.jsonwizard.customviews.TreeViewDialog;
 import com.vijay.jsonwizard.fragments.JsonFormFragment;
 import com.vijay.jsonwizard.interfaces.CommonListener;
@@ -126,19 +127,17 @@ public class TreeViewFactory implements FormWidgetFactory {
         formFragment.getJsonApi().getAppExecutors().mainThread().execute(new Runnable() {
             @Override
             public void run() {
-                try {
-                    final TreeViewDialog treeViewDialog = new TreeViewDialog(context,
-                            jsonObject.optJSONArray(JsonFormConstants.TREE), defaultValue, value);
-
-                    if (!TextUtils.isEmpty(jsonObject.optString(JsonFormConstants.VALUE))) {
-                        JSONArray name = new JSONArray(treeViewDialog.getName());
-                        changeEditTextValue(editText, jsonObject.optString(JsonFormConstants.VALUE), name.toString());
-                    }
-
-                    addViewListeners(treeViewDialog, context, editText, stepName, formFragment);
-                } catch (JSONException e) {
-                    Timber.e(e);
+                TreeDialogLoader dialogLoader = new TreeDialogLoader(context, editText,
+                        jsonObject.optJSONArray(JsonFormConstants.TREE), defaultValue, value);
+
+                if (!TextUtils.isEmpty(jsonObject.optString(JsonFormConstants.VALUE))) {
+                    // Only the nodes on the saved path are read, the tree is flattened once the dialog is opened
+                    JSONArray name = new JSONArray(TreeNodeTable.getPathNames(
+                            jsonObject.optJSONArray(JsonFormConstants.TREE), value));
+                    changeEditTextValue(editText, jsonObject.optString(JsonFormConstants.VALUE), name.toString());
                 }
+
+                addViewListeners(dialogLoader, editText, stepName, formFragment);
             }
         });
 
@@ -151,25 +150,12 @@ public class TreeViewFactory implements FormWidgetFactory {
         return views;
     }
 
-    private void addViewListeners(final TreeViewDialog treeViewDialog, final Context context, final MaterialEditText editText, String stepName, JsonFormFragment formFragment) {
-        treeViewDialog.setOnShowListener(new DialogInterface.OnShowListener() {
-            @Override
-            public void onShow(DialogInterface dialog) {
-                onShowAction(context);
-            }
-        });
-
-        treeViewDialog.setOnDismissListener(new DialogInterface.OnDismissListener() {
-            @Override
-            public void onDismiss(DialogInterface dialog) {
-                onDismissAction(treeViewDialog, editText);
-            }
-        });
-
+    private void addViewListeners(final TreeDialogLoader dialogLoader, final MaterialEditText editText, String stepName,
+                                  JsonFormFragment formFragment) {
         editText.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                showTreeDialog(treeViewDialog);
+                showTreeDialog(dialogLoader.getTreeViewDialog());
             }
         });
 
@@ -186,7 +172,7 @@ public class TreeViewFactory implements FormWidgetFactory {
             @Override
             public void onFocusChange(View v, boolean hasFocus) {
                 if (hasFocus) {
-                    showTreeDialog(treeViewDialog);
+                    showTreeDialog(dialogLoader.getTreeViewDialog());
                 }
             }
         });
@@ -261,4 +247,54 @@ public class TreeViewFactory implements FormWidgetFactory {
     public Set<String> getCustomTranslatableWidgetFields() {
         return new HashSet<>();
     }
+
+    /**
+     * Builds the node table and the dialog of a tree widget the first time they are needed, so that large trees do not
+     * slow down loading the step
+     */
+    private class TreeDialogLoader {
+        private final Context context;
+        private final MaterialEditText editText;
+        private final JSONArray structure;
+        private final ArrayList<String> defaultValue;
+        private final ArrayList<String> value;
+        private TreeNodeTable nodeTable;
+        private TreeViewDialog treeViewDialog;
+
+        private TreeDialogLoader(Context context, MaterialEditText editText, JSONArray structure,
+                                 ArrayList<String> defaultValue, ArrayList<String> value) {
+            this.context = context;
+            this.editText = editText;
+            this.structure = structure;
+            this.defaultValue = defaultValue;
+            this.value = value;
+        }
+
+        private TreeNodeTable getNodeTable() {
+            if (nodeTable == null) {
+                nodeTable = TreeNodeTable.fromJsonArray(structure);
+            }
+            return nodeTable;
+        }
+
+        private TreeViewDialog getTreeViewDialog() {
+            if (treeViewDialog == null) {
+                final TreeViewDialog dialog = new TreeViewDialog(context, getNodeTable(), defaultValue, value);
+                dialog.setOnShowListener(new DialogInterface.OnShowListener() {
+                    @Override
+                    public void onShow(DialogInterface dialogInterface) {
+                        onShowAction(context);
+                    }
+                });
+                dialog.setOnDismissListener(new DialogInterface.OnDismissListener() {
+                    @Override
+                    public void onDismiss(DialogInterface dialogInterface) {
+                        onDismissAction(dialog, editText);
+                    }
+                });
+                treeViewDialog = dialog;
+            }
+            return treeViewDialog;
+        }
+    }
 }
\ No newline at end of file
@@ -618,4 +618,14 @@ public class JsonFormActivityTest extends BaseActivityTest {
         assertEquals(key + ":" + childKey, returnKey);
 
     }
+
+    @Test
+    public void testGetRuleBindingShouldReadCanvasIdsTaggedAsAJsonArray() {
+        View view = new View(activity);
+        view.setTag(R.id.address, "step1:image");
+        view.setTag(R.id.key, "image");
+        view.setTag(R.id.canvas_ids, new JSONArray(Arrays.asList(3, 4)));
+
+        Assert.assertArrayEquals(new int[]{3, 4}, activity.getRuleBinding(view).getCanvasIds());
+    }
 }
@@ -1,23 +1,29 @@
 package com.vijay.jsonwizard.adapter;
 
 import androidx.recyclerview.widget.RecyclerView;
+import android.widget.Filter;
 import android.widget.LinearLayout;
 
 import com.vijay.jsonwizard.BaseTest;
 import com.vijay.jsonwizard.domain.MultiSelectItem;
+import com.vijay.jsonwizard.utils.MultiSelectSearchIndex;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.robolectric.RuntimeEnvironment;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import static android.os.Looper.getMainLooper;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
 
 public class MultiSelectListAdapterTest extends BaseTest {
 
@@ -70,7 +76,7 @@ public class MultiSelectListAdapterTest extends BaseTest {
     }
 
     @Test
-    public void testGetFilterShouldFilterList() {
+    public void testGetFilterShouldFilterList() throws InterruptedException {
         MultiSelectItem viewSelectItem = new MultiSelectItem();
         viewSelectItem.setKey("key1");
         viewSelectItem.setText("text1");
@@ -90,9 +96,45 @@ public class MultiSelectListAdapterTest extends BaseTest {
         multiSelectListAdapter.getData().add(viewSelectItem2);
 
         assertEquals(3, multiSelectListAdapter.getData().size());
-        multiSelectListAdapter.getFilter().filter("cho");
+        filterAndWait("cho");
         assertEquals(1, multiSelectListAdapter.getData().size());
         verify(multiSelectListAdapter, times(1))
                 .notifyDataSetChanged();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetFilterShouldFindItemsAppendedAfterTheIndexWasBuilt() throws InterruptedException {
+        MultiSelectItem firstItem = new MultiSelectItem();
+        firstItem.setKey("key1");
+        firstItem.setText("text1");
+        firstItem.setValue("");
+        multiSelectListAdapter.getData().add(firstItem);
+        multiSelectListAdapter.setSearchIndex(MultiSelectSearchIndex.build(new ArrayList<>(multiSelectListAdapter.getOrigData())));
+
+        MultiSelectItem appendedItem = new MultiSelectItem();
+        appendedItem.setKey("key2");
+        appendedItem.setText("chosen");
+        appendedItem.setValue("");
+        multiSelectListAdapter.appendItems(Collections.singletonList(appendedItem));
+
+        filterAndWait("cho");
+        assertEquals(1, multiSelectListAdapter.getData().size());
+        assertEquals("key2", multiSelectListAdapter.getData().get(0).getKey());
+    }
+
+    private void filterAndWait(String constraint) throws InterruptedException {
+        final AtomicBoolean published = new AtomicBoolean();
+        multiSelectListAdapter.getFilter().filter(constraint, new Filter.FilterListener() {
+            @Override
+            public void onFilterComplete(int count) {
+                published.set(true);
+            }
+        });
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!published.get() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            shadowOf(getMainLooper()).idle();
+        }
+        assertTrue(published.get());
+    }
+}
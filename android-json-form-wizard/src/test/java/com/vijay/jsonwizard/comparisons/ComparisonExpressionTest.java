@@ -0,0 +1,99 @@
+package com.vijay.jsonwizard.comparisons;
+
+import com.vijay.jsonwizard.BaseTest;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ComparisonExpressionTest extends BaseTest {
+
+    private final ComparisonExpression.ValueResolver resolver = new ComparisonExpression.ValueResolver() {
+        @Override
+        public TypedValue getValue(String[] address) {
+            return TypedValue.of("step1".equals(address[0]) && "min_age".equals(address[1]) ? "18" : null);
+        }
+    };
+
+    private static String[] getRaw(TypedValue[] values) {
+        String[] raw = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            raw[i] = values[i].getRaw();
+        }
+        return raw;
+    }
+
+    @Before
+    public void setUp() {
+        ComparisonExpression.clearCache();
+    }
+
+    @Test
+    public void testCompileShouldReadTheFunctionAndArguments() {
+        ComparisonExpression expression = ComparisonExpression.compile("lessThanEqualTo(., \"5\")");
+
+        Assert.assertNotNull(expression);
+        Assert.assertEquals("lessThanEqualTo", expression.getFunctionName());
+        Assert.assertArrayEquals(new String[]{"3", "5"}, getRaw(expression.resolveArguments(TypedValue.of("3"), resolver)));
+    }
+
+    @Test
+    public void testResolveArgumentsShouldReadReferencedFields() {
+        ComparisonExpression expression = ComparisonExpression.compile("greaterThanEqualTo(., step1:min_age)");
+
+        Assert.assertNotNull(expression);
+        Assert.assertArrayEquals(new String[]{"20", "18"}, getRaw(expression.resolveArguments(TypedValue.of("20"), resolver)));
+    }
+
+    @Test
+    public void testCompareShouldUseTheComparison() {
+        ComparisonExpression expression = ComparisonExpression.compile("regex(., \"[0-9]+\")");
+
+        Assert.assertNotNull(expression);
+        Assert.assertTrue(expression.compare(TypedValue.of("123"), "string", resolver));
+        Assert.assertFalse(expression.compare(TypedValue.of("12a"), "string", resolver));
+    }
+
+    @Test
+    public void testCompareShouldReuseParsedLiterals() {
+        ComparisonExpression expression = ComparisonExpression.compile("greaterThan(., \"10\")");
+
+        Assert.assertNotNull(expression);
+        TypedValue[] first = expression.resolveArguments(TypedValue.of("12"), resolver);
+        TypedValue[] second = expression.resolveArguments(TypedValue.of("8"), resolver);
+        Assert.assertSame(first[1], second[1]);
+        Assert.assertTrue(expression.compare(first, "numeric"));
+        Assert.assertFalse(expression.compare(second, "numeric"));
+    }
+
+    @Test
+    public void testCompileShouldReturnNullForUnknownFunctions() {
+        Assert.assertNull(ComparisonExpression.compile("startsWith(., \"a\")"));
+        Assert.assertNull(ComparisonExpression.compile(null));
+    }
+
+    @Test
+    public void testResolveArgumentsShouldReturnNullsWithoutTwoArguments() {
+        ComparisonExpression expression = ComparisonExpression.compile("equalTo(.)");
+
+        Assert.assertNotNull(expression);
+        Assert.assertArrayEquals(new String[]{null, null}, getRaw(expression.resolveArguments(TypedValue.of("a"), resolver)));
+    }
+
+    @Test
+    public void testCompileShouldReuseCompiledExpressions() {
+        ComparisonExpression expression = ComparisonExpression.compile("equalTo(., \"yes\")");
+
+        Assert.assertSame(expression, ComparisonExpression.compile("equalTo(., \"yes\")"));
+        Assert.assertEquals(1, ComparisonExpression.getCacheSize());
+    }
+
+    @Test
+    public void testCompileShouldKeepTheMostRecentExpressions() {
+        for (int i = 0; i <= ComparisonExpression.MAX_EXPRESSIONS; i++) {
+            ComparisonExpression.compile("equalTo(., \"" + i + "\")");
+        }
+
+        Assert.assertEquals(ComparisonExpression.MAX_EXPRESSIONS, ComparisonExpression.getCacheSize());
+    }
+}
@@ -0,0 +1,60 @@
+package com.vijay.jsonwizard.comparisons;
+
+import com.vijay.jsonwizard.BaseTest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TypedValueTest extends BaseTest {
+
+    @Test
+    public void testNumberShouldBeParsedFromTheValue() {
+        TypedValue value = TypedValue.of("12.5");
+
+        Assert.assertTrue(value.isNumber());
+        Assert.assertEquals(12.5, value.getNumber(), 0);
+        Assert.assertFalse(TypedValue.of("twelve").isNumber());
+    }
+
+    @Test
+    public void testNullShouldReadAsTheComparisonDefaults() {
+        TypedValue value = TypedValue.of(null);
+
+        Assert.assertNull(value.getRaw());
+        Assert.assertEquals(0, value.getNumber(), 0);
+        Assert.assertEquals(TypedValue.of("01-01-1900").getDate(), value.getDate());
+        Assert.assertTrue(value.isArray());
+        Assert.assertTrue(value.getArray().isEmpty());
+    }
+
+    @Test
+    public void testDateShouldBeParsedFromTheValue() {
+        Assert.assertTrue(TypedValue.of("02-02-2030").isDate());
+        Assert.assertTrue(TypedValue.of("02-02-2030").getDate() > TypedValue.of("01-01-2000").getDate());
+        Assert.assertFalse(TypedValue.of("2030/02/02").isDate());
+    }
+
+    @Test
+    public void testArrayShouldKeepItsItemsInOrder() {
+        TypedValue value = TypedValue.of("['test','test2','test']");
+
+        Assert.assertEquals(Arrays.asList("test", "test2", "test"), value.getArray());
+        Assert.assertEquals(2, value.getArrayItems().size());
+        Assert.assertFalse(TypedValue.of("['test','test2").isArray());
+    }
+
+    @Test
+    public void testStoreShouldKeepTheWrittenValueUntilItChanges() {
+        TypedValueStore store = new TypedValueStore();
+        TypedValue written = store.write("step1_age", "5");
+
+        Assert.assertSame(written, store.read("step1_age", "5"));
+
+        TypedValue changed = store.read("step1_age", "6");
+        Assert.assertNotSame(written, changed);
+        Assert.assertEquals(6, changed.getNumber(), 0);
+        Assert.assertSame(changed, store.read("step1_age", "6"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.vijay.jsonwizard.customviews;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TreeNodeTableTest {
+
+    private static final String TREE = "[" +
+            "{\"name\":\"Kenya\",\"key\":\"kenya\",\"level\":\"Country\",\"nodes\":[" +
+            "{\"name\":\"Nairobi\",\"key\":\"nairobi\",\"nodes\":[" +
+            "{\"name\":\"St Mary Hospital\",\"key\":\"st_mary\"},{\"name\":\"Mbagathi Hospital\",\"key\":\"mbagathi\"}]}," +
+            "{\"name\":\"Mombasa\",\"key\":\"mombasa\"}]}," +
+            "{\"name\":\"Uganda\",\"key\":\"uganda\"}]";
+
+    private TreeNodeTable nodeTable;
+
+    @Before
+    public void setUp() throws JSONException {
+        nodeTable = TreeNodeTable.fromJsonArray(new JSONArray(TREE));
+    }
+
+    @Test
+    public void testChildrenAreAddressedByIndex() {
+        Assert.assertEquals(7, nodeTable.size());
+        Assert.assertEquals(2, nodeTable.getChildCount(TreeNodeTable.ROOT));
+
+        int kenya = nodeTable.getChild(TreeNodeTable.ROOT, 0);
+        Assert.assertEquals("Kenya", nodeTable.getName(kenya));
+        Assert.assertEquals(1, nodeTable.getDepth(kenya));
+        Assert.assertEquals("Country", nodeTable.getNode(kenya).optString("level"));
+
+        int nairobi = nodeTable.findChild(kenya, "nairobi");
+        Assert.assertEquals(2, nodeTable.getChildCount(nairobi));
+        Assert.assertEquals("mbagathi", nodeTable.getKey(nodeTable.getChild(nairobi, 1)));
+        Assert.assertEquals(TreeNodeTable.NO_NODE, nodeTable.findChild(kenya, "uganda"));
+    }
+
+    @Test
+    public void testPathAndNamesFollowTheWidgetValue() {
+        int stMary = nodeTable.indexOfKey("st_mary");
+
+        Assert.assertEquals(Arrays.asList("kenya", "nairobi", "st_mary"), nodeTable.getPath(stMary));
+        Assert.assertEquals(Arrays.asList("Kenya", "St Mary Hospital"),
+                nodeTable.getNames(Arrays.asList("kenya", "unknown", "st_mary")));
+        Assert.assertTrue(nodeTable.getNames(null).isEmpty());
+    }
+
+    @Test
+    public void testPathNamesAreFoundWithoutFlatteningTheStructure() throws JSONException {
+        JSONArray structure = new JSONArray(TREE);
+
+        Assert.assertEquals(Arrays.asList("Kenya", "Nairobi", "St Mary Hospital"),
+                TreeNodeTable.getPathNames(structure, Arrays.asList("kenya", "nairobi", "st_mary")));
+        Assert.assertEquals(Collections.singletonList("Kenya"),
+                TreeNodeTable.getPathNames(structure, Arrays.asList("kenya", "unknown", "st_mary")));
+        Assert.assertTrue(TreeNodeTable.getPathNames(structure, null).isEmpty());
+        Assert.assertTrue(TreeNodeTable.getPathNames(null, Collections.singletonList("kenya")).isEmpty());
+    }
+
+    @Test
+    public void testSearchMatchesTheStartOfAnyWordOfTheName() {
+        Assert.assertEquals(Arrays.asList(nodeTable.indexOfKey("st_mary"), nodeTable.indexOfKey("mbagathi")),
+                nodeTable.search("hosp", 10));
+        Assert.assertEquals(Collections.singletonList(nodeTable.indexOfKey("st_mary")),
+                nodeTable.search("Mary Hos", 10));
+        Assert.assertEquals(1, nodeTable.search("m", 1).size());
+        Assert.assertTrue(nodeTable.search("  ", 10).isEmpty());
+        Assert.assertTrue(nodeTable.search("ospital", 10).isEmpty());
+    }
+
+    @Test
+    public void testEmptyStructureOnlyHasTheRoot() {
+        TreeNodeTable emptyTable = TreeNodeTable.fromJsonArray(null);
+
+        Assert.assertEquals(1, emptyTable.size());
+        Assert.assertEquals(0, emptyTable.getChildCount(TreeNodeTable.ROOT));
+        Assert.assertTrue(emptyTable.search("kenya", 10).isEmpty());
+    }
+}
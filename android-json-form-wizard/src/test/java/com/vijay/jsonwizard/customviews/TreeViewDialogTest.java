@@ -71,6 +71,28 @@ public class TreeViewDialogTest extends BaseTest {
         Mockito.verify(treeViewDialog, Mockito.never()).executeOnClick(Mockito.any(TreeNode.class));
     }
 
+    @Test
+    public void testLazyDialogExpandsBranchesAndSelectsLeaves() throws JSONException {
+        TreeNodeTable nodeTable = TreeNodeTable.fromJsonArray(new JSONArray("[{\"name\":\"Hilton\",\"key\":\"hilton\"," +
+                "\"nodes\":[{\"name\":\"Sarova\",\"key\":\"sarova\"}]},{\"name\":\"Double tree\",\"key\":\"double_tree\"}]"));
+        ArrayList<String> value = new ArrayList<>();
+        value.add("hilton");
+        value.add("sarova");
+        TreeViewDialog lazyDialog = new TreeViewDialog(RuntimeEnvironment.application, nodeTable,
+                new ArrayList<String>(), value);
+
+        Assert.assertEquals("Sarova", lazyDialog.getName().get(1));
+        Assert.assertNull(lazyDialog.getTreeView());
+
+        lazyDialog.onClick(nodeTable.indexOfKey("hilton"));
+        Assert.assertEquals(value, lazyDialog.getValue());
+
+        lazyDialog.onClick(nodeTable.indexOfKey("double_tree"));
+        Assert.assertEquals(1, lazyDialog.getValue().size());
+        Assert.assertEquals("double_tree", lazyDialog.getValue().get(0));
+        Assert.assertEquals("Double tree", lazyDialog.getName().get(0));
+    }
+
     @Test
     public void testGetCanvasIsNotNull() {
         Assert.assertNotNull(treeViewDialog.getCanvas());
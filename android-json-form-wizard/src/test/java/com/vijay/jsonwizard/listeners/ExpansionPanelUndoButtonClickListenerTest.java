@@ -99,6 +99,7 @@ public class ExpansionPanelUndoButtonClickListenerTest extends FactoryTest {
         ArgumentCaptor<JSONObject> jsonObjectArgumentCaptor = ArgumentCaptor.forClass(JSONObject.class);
         Mockito.verify(jsonApi, Mockito.times(1))
                 .setmJSONObject(jsonObjectArgumentCaptor.capture());
+        Mockito.verify(jsonApi, Mockito.times(1)).onStepChanged("step1");
 
         JSONObject formResult = jsonObjectArgumentCaptor.getValue();
         Assert.assertNotNull(formResult);
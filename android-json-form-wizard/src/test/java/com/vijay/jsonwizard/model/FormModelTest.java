@@ -0,0 +1,109 @@
+package com.vijay.jsonwizard.model;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FormModelTest {
+
+    private JSONObject form;
+
+    @Before
+    public void setUp() throws JSONException {
+        form = new JSONObject("{" +
+                "\"count\":\"2\"," +
+                "\"encounter_type\":\"ANC\"," +
+                "\"step1\":{\"title\":\"Step 1\",\"fields\":[" +
+                "{\"key\":\"first_name\",\"type\":\"edit_text\"}," +
+                "{\"key\":\"gender\",\"type\":\"native_radio\",\"relevance\":{\"step1:first_name\":{\"type\":\"string\",\"ex\":\"notEqualTo(.,\\\"\\\")\"}}," +
+                "\"options\":[{\"key\":\"male\",\"text\":\"Male\"},{\"key\":\"female\",\"text\":\"Female\"}]}" +
+                "]}," +
+                "\"step2\":{\"title\":\"Step 2\",\"sections\":[" +
+                "{\"fields\":[{\"key\":\"weight\",\"type\":\"edit_text\",\"calculation\":{}}]}," +
+                "{\"fields\":[{\"key\":\"height\",\"type\":\"edit_text\",\"constraints\":[]}]}" +
+                "]}" +
+                "}");
+    }
+
+    @Test
+    public void testCompileShouldIndexStepsAndFieldsInFormOrder() {
+        FormModel formModel = FormModel.compile(form);
+
+        assertEquals(2, formModel.getSteps().size());
+        assertEquals(4, formModel.getFieldCount());
+        assertEquals("first_name", formModel.getField(0).getKey());
+        assertEquals("height", formModel.getField(3).getKey());
+        assertEquals(2, formModel.getStep("step2").getNumber());
+        assertEquals(2, formModel.getStep("step2").getFields().size());
+        assertNull(formModel.getField(4));
+    }
+
+    @Test
+    public void testGetFieldShouldResolveFieldsByAddressAndKey() throws JSONException {
+        FormModel formModel = FormModel.compile(form);
+
+        FieldModel gender = formModel.getField("step1_gender");
+        assertNotNull(gender);
+        assertSame(form.getJSONObject("step1").getJSONArray("fields").getJSONObject(1), gender.getJson());
+        assertSame(gender, formModel.getField("step1", "gender"));
+        assertSame(gender, formModel.findFieldByKey("gender"));
+        assertEquals("step1_gender", gender.getAddress());
+        assertTrue(gender.hasRelevance());
+        assertNull(formModel.getField("step2_gender"));
+    }
+
+    @Test
+    public void testCompileShouldCaptureOptionsAndRuleFlags() {
+        FormModel formModel = FormModel.compile(form);
+
+        FieldModel gender = formModel.findFieldByKey("gender");
+        assertEquals(2, gender.getOptions().size());
+        assertEquals("female", gender.getOption("female").getKey());
+        assertFalse(gender.getOption("female").hasSubForm());
+
+        assertTrue(formModel.findFieldByKey("weight").hasCalculation());
+        assertTrue(formModel.findFieldByKey("height").hasConstraints());
+        assertFalse(formModel.findFieldByKey("first_name").hasRelevance());
+    }
+
+    @Test
+    public void testIsCompiledFromShouldCompareFormInstances() throws JSONException {
+        FormModel formModel = FormModel.compile(form);
+
+        assertTrue(formModel.isCompiledFrom(form));
+        assertFalse(formModel.isCompiledFrom(new JSONObject(form.toString())));
+    }
+
+    @Test
+    public void testWithStepShouldKeepModelWhenOnlyValuesChanged() throws JSONException {
+        FormModel formModel = FormModel.compile(form);
+        form.getJSONObject("step1").getJSONArray("fields").getJSONObject(0).put("value", "Jane");
+
+        assertSame(formModel, formModel.withStep("step1"));
+    }
+
+    @Test
+    public void testWithStepShouldCompileOnlyTheChangedStep() throws JSONException {
+        FormModel formModel = FormModel.compile(form);
+        FieldModel weight = formModel.findFieldByKey("weight");
+        form.getJSONObject("step1").getJSONArray("fields").put(new JSONObject("{\"key\":\"age\",\"type\":\"edit_text\"}"));
+
+        FormModel updated = formModel.withStep("step1");
+
+        assertEquals(5, updated.getFieldCount());
+        assertEquals("age", updated.getField(2).getKey());
+        assertEquals(2, updated.getField("step1_age").getId());
+        assertEquals(3, updated.getField("step2_weight").getId());
+        assertSame(weight.getJson(), updated.getField("step2_weight").getJson());
+        assertEquals(1, updated.getField("step1_gender").getId());
+        assertTrue(updated.isCompiledFrom(form));
+    }
+}
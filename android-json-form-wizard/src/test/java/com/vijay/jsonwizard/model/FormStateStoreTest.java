@@ -0,0 +1,145 @@
+package com.vijay.jsonwizard.model;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FormStateStoreTest {
+
+    private JSONObject form;
+    private JSONObject firstName;
+    private FormStateStore formStateStore;
+
+    @Before
+    public void setUp() throws JSONException {
+        form = new JSONObject("{\"count\":\"1\",\"step1\":{\"fields\":[{\"key\":\"first_name\",\"value\":\"Jane\"}]}}");
+        firstName = form.getJSONObject("step1").getJSONArray("fields").getJSONObject(0);
+        formStateStore = new FormStateStore(form, Runnable::run);
+        formStateStore.reset(form);
+    }
+
+    @Test
+    public void testSnapshotIsNotAffectedByLaterWritesUntilPublished() throws JSONException {
+        firstName.put("value", "Mary");
+        assertEquals("Jane", formStateStore.getFieldSnapshot("step1_first_name").getString("value"));
+
+        formStateStore.publish("step1_first_name", firstName);
+        assertEquals("Mary", formStateStore.getFieldSnapshot("step1_first_name").getString("value"));
+    }
+
+    @Test
+    public void testSnapshotCopiesCanBeAnnotatedWithoutChangingTheSnapshot() throws JSONException {
+        JSONObject snapshot = formStateStore.getFieldSnapshot("step1_first_name");
+        assertNotSame(firstName, snapshot);
+
+        snapshot.put("is-rule-check", true);
+
+        assertFalse(formStateStore.getFieldSnapshot("step1_first_name").has("is-rule-check"));
+        assertFalse(firstName.has("is-rule-check"));
+    }
+
+    @Test
+    public void testPublishStepReplacesTheSnapshotsOfTheStep() throws JSONException {
+        JSONArray fields = new JSONArray().put(new JSONObject("{\"key\":\"age\",\"value\":\"30\"}"));
+        form.getJSONObject("step1").put("fields", fields);
+
+        formStateStore.publishStep("step1");
+
+        assertEquals("30", formStateStore.getFieldSnapshot("step1_age").getString("value"));
+        assertNull(formStateStore.getFieldSnapshot("step1_first_name"));
+    }
+
+    @Test
+    public void testOtherThreadsReadTheFormAsLastPublished() throws Exception {
+        firstName.put("value", "Mary");
+        assertEquals("Jane", readOnOtherThread());
+
+        formStateStore.publish("step1_first_name", firstName);
+        assertEquals("Mary", readOnOtherThread());
+        assertEquals("Mary", formStateStore.read(json -> json.getJSONObject("step1").getJSONArray("fields")
+                .getJSONObject(0).getString("value")));
+    }
+
+    private String readOnOtherThread() throws Exception {
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            return reader.submit(() -> {
+                JSONObject snapshot = formStateStore.read(json -> json);
+                assertNotSame(form, snapshot);
+                assertEquals("1", snapshot.getString("count"));
+                return snapshot.getJSONObject("step1").getJSONArray("fields").getJSONObject(0).getString("value");
+            }).get(5, TimeUnit.SECONDS);
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPublishingNullRemovesTheSnapshot() {
+        formStateStore.publish("step1_first_name", null);
+        assertNull(formStateStore.getFieldSnapshot("step1_first_name"));
+        assertNull(formStateStore.getFieldSnapshot("step2_unknown"));
+    }
+
+    @Test
+    public void testResetReplacesTheFormAndItsSnapshots() throws JSONException {
+        JSONObject newForm = new JSONObject("{\"count\":\"2\"}");
+        formStateStore.reset(newForm);
+
+        assertEquals("2", formStateStore.read(json -> json.getString("count")));
+        assertNull(formStateStore.getFieldSnapshot("step1_first_name"));
+    }
+
+    @Test
+    public void testEnqueuedMutationsAreAppliedInSubmissionOrder() throws Exception {
+        ExecutorService queue = Executors.newSingleThreadExecutor();
+        try {
+            FormStateStore store = new FormStateStore(form, queue);
+            for (int i = 0; i < 50; i++) {
+                final int count = i;
+                store.enqueue(json -> json.put("count", String.valueOf(count)));
+            }
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            queue.execute(latch::countDown);
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertEquals("49", store.read(json -> json.getString("count")));
+        } finally {
+            queue.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWritesArePublishedToOtherThreadsWithoutLocking() throws Exception {
+        formStateStore.write(json -> json.put("count", "2"));
+
+        ExecutorService reader = Executors.newSingleThreadExecutor();
+        try {
+            assertEquals("2", reader.submit(() -> formStateStore.read(json -> json.getString("count")))
+                    .get(5, TimeUnit.SECONDS));
+        } finally {
+            reader.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testEnqueuedMutationFailureDoesNotStopTheQueue() throws JSONException {
+        formStateStore.enqueue(json -> json.getString("missing"));
+        formStateStore.enqueue(json -> json.put("count", "3"));
+
+        assertEquals("3", formStateStore.read(json -> json.getString("count")));
+    }
+}
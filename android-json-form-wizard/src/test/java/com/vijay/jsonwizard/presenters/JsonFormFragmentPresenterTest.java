@@ -2,15 +2,24 @@ package com.vijay.jsonwizard.presenters;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.fragments.JsonFormFragment;
+import com.vijay.jsonwizard.interactors.JsonFormInteractor;
 import com.vijay.jsonwizard.interfaces.JsonApi;
+import com.vijay.jsonwizard.model.FormModel;
+import com.vijay.jsonwizard.rules.RuleConstant;
+import com.vijay.jsonwizard.rules.RulesEngineFactory;
+import com.vijay.jsonwizard.rules.StepRelevanceEvaluator;
 import com.vijay.jsonwizard.testutils.TestReflectionHelpers;
 import com.vijay.jsonwizard.utils.AppExecutors;
 import com.vijay.jsonwizard.views.JsonFormFragmentView;
@@ -28,6 +37,9 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.MockedStatic;
 import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 public class JsonFormFragmentPresenterTest {
@@ -106,6 +118,84 @@ public class JsonFormFragmentPresenterTest {
         }
     }
 
+    @Test
+    public void testPrefetchNextStepShouldLoadTheRulesFilesOfTheNextStep() throws Exception {
+        JsonFormInteractor interactor = mock(JsonFormInteractor.class);
+        presenter = new JsonFormFragmentPresenter(jsonFormFragment, interactor);
+        presenter.attachView(mock(JsonFormFragmentView.class));
+        setUpNextStep();
+        JsonApi jsonApi = jsonFormFragment.getJsonApi();
+        RulesEngineFactory rulesEngineFactory = mock(RulesEngineFactory.class);
+        doReturn(rulesEngineFactory).when(jsonApi).getRulesEngineFactory();
+        JSONObject relevance = new JSONObject().put(RuleConstant.RULES_ENGINE, new JSONObject()
+                .put(JsonFormConstants.JSON_FORM_KEY.EX_RULES, new JSONObject().put(RuleConstant.RULES_FILE, "step2_relevance.yml")));
+        jsonApi.getmJSONObject().getJSONObject("step2").getJSONArray(JsonFormConstants.FIELDS)
+                .put(new JSONObject().put(JsonFormConstants.KEY, "sex").put(JsonFormConstants.RELEVANCE, relevance));
+        List<Runnable> queued = new ArrayList<>();
+        Mockito.doAnswer((Answer<Void>) invocation -> {
+            queued.add(invocation.getArgument(0));
+            return null;
+        }).when(executor).execute(Mockito.any(Runnable.class));
+
+        presenter.prefetchNextStep("step2");
+        // The background never reads the form, which may change in the meantime
+        jsonApi.getmJSONObject().remove("step2");
+        for (Runnable runnable : queued) {
+            runnable.run();
+        }
+
+        verify(rulesEngineFactory).getRulesFromAsset("step2_relevance.yml");
+        verify(jsonApi).prefetchRuleBindings("step2");
+        verify(interactor, never()).fetchFormElements(anyString(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    public void testExecuteRefreshLogicForNextStepShouldNotBuildTheNextStep() throws Exception {
+        JsonFormInteractor interactor = mock(JsonFormInteractor.class);
+        presenter = new JsonFormFragmentPresenter(jsonFormFragment, interactor);
+        presenter.attachView(mock(JsonFormFragmentView.class));
+        setUpNextStep();
+        setUpStepRelevance();
+
+        presenter.prefetchNextStep("step2");
+        presenter.executeRefreshLogicForNextStep();
+
+        verify(jsonFormFragment.getJsonApi()).setNextStepRelevant(false);
+        verify(jsonFormFragment).skipStepsOnNextPressed("step2");
+        verify(interactor, never()).fetchFormElements(anyString(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    public void testExecuteRefreshLogicForNextStepShouldBuildASkippedStepWithCalculations() throws Exception {
+        JsonFormInteractor interactor = mock(JsonFormInteractor.class);
+        presenter = new JsonFormFragmentPresenter(jsonFormFragment, interactor);
+        presenter.attachView(mock(JsonFormFragmentView.class));
+        setUpNextStep();
+        setUpStepRelevance();
+        doReturn(true).when(jsonFormFragment).stepHasCalculations("step2");
+
+        presenter.executeRefreshLogicForNextStep();
+
+        verify(interactor, times(1)).fetchFormElements(eq("step2"), eq(jsonFormFragment), any(JSONObject.class), any(),
+                eq(false));
+        verify(jsonFormFragment.getJsonApi()).invokeRefreshLogic(null, false, null, null, "step2", true);
+    }
+
+    private void setUpStepRelevance() {
+        JsonApi jsonApi = jsonFormFragment.getJsonApi();
+        doReturn(new HashMap<String, Boolean>()).when(jsonApi).stepSkipLogicPresenceMap();
+        doReturn(new StepRelevanceEvaluator(FormModel.compile(jsonApi.getmJSONObject()), null).evaluate())
+                .when(jsonFormFragment).evaluateStepRelevance();
+    }
+
+    private void setUpNextStep() throws JSONException {
+        JsonApi jsonApi = jsonFormFragment.getJsonApi();
+        jsonApi.getmJSONObject().put("step2", new JSONObject().put(JsonFormConstants.FIELDS, new JSONArray()));
+        doReturn("step2").when(jsonApi).nextStep();
+        doReturn(appExecutors).when(jsonApi).getAppExecutors();
+        doReturn(executor).when(appExecutors).diskIO();
+    }
+
     private void setUpJsonFormFragment(boolean validationStatus) throws JSONException {
         JsonApi jsonApi = mock(JsonApi.class);
         JSONObject mJsonObject = new JSONObject();
@@ -18,9 +18,12 @@ import com.vijay.jsonwizard.TestConstants;
 import com.vijay.jsonwizard.activities.JsonFormActivity;
 import com.vijay.jsonwizard.constants.JsonFormConstants;
 import com.vijay.jsonwizard.customviews.DatePickerDialog;
+import com.vijay.jsonwizard.fragments.JsonFormFragment;
 import com.vijay.jsonwizard.fragments.JsonWizardFormFragment;
 import com.vijay.jsonwizard.interactors.JsonFormInteractor;
 import com.vijay.jsonwizard.interfaces.OnFieldsInvalid;
+import com.vijay.jsonwizard.model.FormModel;
+import com.vijay.jsonwizard.rules.StepRelevanceEvaluator;
 import com.vijay.jsonwizard.shadow.ShadowFileProvider;
 import com.vijay.jsonwizard.shadow.ShadowIntent;
 import com.vijay.jsonwizard.shadow.ShadowPermissionUtils;
@@ -42,14 +45,19 @@ import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.UUID;
 import java.util.concurrent.Executor;
 
 import static com.vijay.jsonwizard.presenters.JsonFormFragmentPresenter.RESULT_LOAD_IMG;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -110,10 +118,13 @@ public class JsonWizardFormFragmentPresenterRoboelectricTest extends BaseTest {
         Thread.sleep(1000);
 
         when(formActivity.nextStep()).thenReturn("step2");
+        StepRelevanceEvaluator.Result relevance = new StepRelevanceEvaluator(
+                FormModel.compile(formActivity.getmJSONObject()), null).evaluate();
+        when(formFragment.evaluateStepRelevance()).thenReturn(relevance);
+        when(formActivity.stepSkipLogicPresenceMap()).thenReturn(new HashMap<>());
         formFragmentPresenter.onNextClick(null);
-        verify(jsonFormInteractor).fetchFormElements("step2", formFragment, formActivity.getmJSONObject().getJSONObject("step2"), null, false);
-        verify(formActivity).initializeDependencyMaps();
-        verify(formActivity).setNextStepRelevant(false);
+        verify(jsonFormInteractor, never()).fetchFormElements(anyString(), any(JsonFormFragment.class), any(JSONObject.class), any(), anyBoolean());
+        verify(formActivity).setNextStepRelevant(relevance.isStepRelevant("step2"));
         verify(formFragment).skipStepsOnNextPressed("step2");
     }
 
@@ -0,0 +1,75 @@
+package com.vijay.jsonwizard.rules;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mvel2.integration.impl.MapVariableResolverFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CompiledRuleSetTest {
+
+    private static final String RULES = "[" +
+            "{\"key\":\"bmi\"}," +
+            "{\"name\":\"step1_bmi\",\"priority\":2,\"condition\":\"true\",\"actions\":\"calculation = 'fallback'\"}," +
+            "{\"name\":\"step1_bmi\",\"priority\":1,\"condition\":\"step1_weight > 0\",\"actions\":\"calculation = step1_weight * global_factor\"}," +
+            "{\"name\":\"step1_other\",\"priority\":1,\"condition\":\"true\",\"actions\":\"calculation = 'other'\"}" +
+            "]";
+
+    @Test
+    public void testFireRunsTheFirstApplicableRuleWithTheSelectedName() throws JSONException {
+        CompiledRuleSet compiledRuleSet = CompiledRuleSet.fromJsonArray(new JSONArray(RULES));
+        Map<String, Object> facts = new HashMap<>();
+        facts.put("step1_weight", 10);
+
+        compiledRuleSet.fire("step1_bmi", new MapVariableResolverFactory(facts,
+                new MapVariableResolverFactory(Collections.<String, Object>singletonMap("global_factor", 2))));
+
+        Assert.assertEquals(20, facts.get(RuleConstant.CALCULATION));
+    }
+
+    @Test
+    public void testFireFallsThroughToTheNextRuleWhenTheConditionDoesNotApply() throws JSONException {
+        CompiledRuleSet compiledRuleSet = CompiledRuleSet.fromJsonArray(new JSONArray(RULES));
+        Map<String, Object> facts = new HashMap<>();
+        facts.put("step1_weight", 0);
+
+        compiledRuleSet.fire("step1_bmi", new MapVariableResolverFactory(facts));
+
+        Assert.assertEquals("fallback", facts.get(RuleConstant.CALCULATION));
+    }
+
+    @Test
+    public void testFireDoesNothingForUnknownRules() throws JSONException {
+        CompiledRuleSet compiledRuleSet = CompiledRuleSet.fromJsonArray(new JSONArray(RULES));
+        Map<String, Object> facts = new HashMap<>();
+
+        compiledRuleSet.fire("step1_unknown", new MapVariableResolverFactory(facts));
+
+        Assert.assertFalse(facts.containsKey(RuleConstant.CALCULATION));
+        Assert.assertTrue(compiledRuleSet.canFire("step1_unknown"));
+    }
+
+    @Test
+    public void testRulesThatFailToCompileAreLeftToTheRulesEngine() throws JSONException {
+        CompiledRuleSet compiledRuleSet = CompiledRuleSet.fromJsonArray(new JSONArray("[" +
+                "{\"name\":\"step1_broken\",\"priority\":1,\"condition\":\"(step1_a == 1\",\"actions\":\"calculation = 1\"}" +
+                "]"));
+
+        Assert.assertFalse(compiledRuleSet.canFire("step1_broken"));
+    }
+
+    @Test
+    public void testRulesThatCallTheHelperAreNotCached() throws JSONException {
+        CompiledRuleSet compiledRuleSet = CompiledRuleSet.fromJsonArray(new JSONArray("[" +
+                "{\"name\":\"step1_age\",\"priority\":1,\"condition\":\"true\"," +
+                "\"actions\":\"calculation = helper.getDifferenceDays(step1_dob)\"}" +
+                "]"));
+
+        Assert.assertFalse(compiledRuleSet.canCache("step1_age"));
+        Assert.assertTrue(CompiledRuleSet.fromJsonArray(new JSONArray(RULES)).canCache("step1_bmi"));
+    }
+}
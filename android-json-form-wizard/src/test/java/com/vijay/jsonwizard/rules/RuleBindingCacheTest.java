@@ -0,0 +1,41 @@
+package com.vijay.jsonwizard.rules;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RuleBindingCacheTest {
+
+    private static final String RELEVANCE = "{\"step1:medications\":{\"ex-checkbox\":[{\"or\":[\"other\"]}]}}";
+
+    @Test
+    public void testGetReturnsThePrefetchedBindingWithTheCanvasIdsOfTheView() throws JSONException {
+        RuleBindingCache cache = new RuleBindingCache();
+        cache.prefetch("step2", new JSONObject("{\"fields\":[{\"key\":\"medications_other\",\"type\":\"edit_text\","
+                + "\"relevance\":" + RELEVANCE + "},{\"key\":\"notes\",\"type\":\"edit_text\"}]}"));
+
+        RuleBinding ruleBinding = cache.get("step2:medications_other", "medications_other", false, "[12]",
+                new JSONObject(RELEVANCE).toString(), null, null);
+
+        Assert.assertNotNull(ruleBinding);
+        Assert.assertArrayEquals(new String[]{"step1", "medications"}, ruleBinding.getRelevance().getAddress());
+        Assert.assertArrayEquals(new int[]{12}, ruleBinding.getCanvasIds());
+        Assert.assertNull(cache.get("step2:notes", "notes", false, null, null, null, null));
+    }
+
+    @Test
+    public void testGetReturnsNullForAViewTaggedDifferently() throws JSONException {
+        RuleBindingCache cache = new RuleBindingCache();
+        cache.prefetch("step2", new JSONObject("{\"sections\":[{\"fields\":[{\"key\":\"medications_other\","
+                + "\"type\":\"edit_text\",\"relevance\":" + RELEVANCE + "}]}]}"));
+
+        String relevance = new JSONObject(RELEVANCE).toString();
+        Assert.assertNotNull(cache.get("step2:medications_other", "medications_other", null, null, relevance, null,
+                null));
+        Assert.assertNull(cache.get("step2:medications_other", "medications_other", true, null, relevance, null,
+                null));
+        Assert.assertNull(cache.get("step2:medications_other", "medications_other", false, null, null, null,
+                null));
+    }
+}
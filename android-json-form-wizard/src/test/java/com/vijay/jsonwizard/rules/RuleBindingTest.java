@@ -0,0 +1,47 @@
+package com.vijay.jsonwizard.rules;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RuleBindingTest {
+
+    @Test
+    public void testCompileResolvesFieldReferenceRelevance() {
+        RuleBinding ruleBinding = RuleBinding.compile("step1:medications_other", "medications_other", false,
+                "[12, 13]", "{\"step1:medications\":{\"ex-checkbox\":[{\"or\":[\"other\"]}]}}", null, null);
+
+        Assert.assertEquals("step1", ruleBinding.getStepName());
+        Assert.assertArrayEquals(new int[]{12, 13}, ruleBinding.getCanvasIds());
+        Assert.assertNotNull(ruleBinding.getRelevance());
+        Assert.assertArrayEquals(new String[]{"step1", "medications"}, ruleBinding.getRelevance().getAddress());
+        Assert.assertFalse(ruleBinding.getRelevance().isRulesEngine());
+        Assert.assertNull(ruleBinding.getCalculation());
+        Assert.assertFalse(ruleBinding.hasConstraints());
+    }
+
+    @Test
+    public void testCompileResolvesRulesEngineAddresses() {
+        String rules = "{\"rules-engine\":{\"ex-rules\":{\"rules-file\":\"sample-rules.yml\"}}}";
+        RuleBinding ruleBinding = RuleBinding.compile("step2:bmi", "bmi", true, null, rules, rules, rules);
+
+        String[] expected = new String[]{"rules-engine", "sample-rules.yml", "step2_bmi"};
+        Assert.assertTrue(ruleBinding.isPopup());
+        Assert.assertEquals(0, ruleBinding.getCanvasIds().length);
+        Assert.assertArrayEquals(expected, ruleBinding.getRelevance().getAddress());
+        Assert.assertArrayEquals(expected, ruleBinding.getCalculation().getAddress());
+        Assert.assertEquals("sample-rules.yml", ruleBinding.getCalculation().getRuleFile());
+        Assert.assertEquals(1, ruleBinding.getConstraints().size());
+        Assert.assertArrayEquals(expected, ruleBinding.getConstraints().get(0).getAddress());
+        Assert.assertNull(ruleBinding.getNativeConstraints());
+    }
+
+    @Test
+    public void testCompileKeepsNativeConstraints() {
+        RuleBinding ruleBinding = RuleBinding.compile("step1:age", "age", null, "[]", null, null,
+                "[{\"type\":\"numeric\",\"ex\":\"greaterThanEqualTo(., step1:min_age)\",\"err\":\"Too young\"}]");
+
+        Assert.assertTrue(ruleBinding.hasConstraints());
+        Assert.assertEquals(1, ruleBinding.getNativeConstraints().length());
+        Assert.assertTrue(ruleBinding.getConstraints().isEmpty());
+    }
+}
@@ -0,0 +1,87 @@
+package com.vijay.jsonwizard.rules;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class RuleDependencyGraphTest {
+
+    @Test
+    public void testGetAffectedViewsFollowsRelevanceChainsInTopologicalOrder() {
+        RuleDependencyGraph graph = new RuleDependencyGraph.Builder()
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_c", "step1:c", Arrays.asList("step1_b", "step1_a"))
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_b", "step1:b", Collections.singletonList("step1_a"))
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_z", "step1:z", Collections.singletonList("step1_y"))
+                .build();
+
+        Assert.assertEquals(Arrays.asList("step1:b", "step1:c"),
+                graph.getAffectedViews("step1_a", RuleDependencyGraph.Kind.RELEVANCE));
+        Assert.assertTrue(graph.getAffectedViews("step1_a", RuleDependencyGraph.Kind.CALCULATION).isEmpty());
+        Assert.assertTrue(graph.getAffectedViews("step2_unknown", RuleDependencyGraph.Kind.RELEVANCE).isEmpty());
+    }
+
+    @Test
+    public void testGetAffectedViewsPropagatesThroughCalculatedFields() {
+        RuleDependencyGraph graph = new RuleDependencyGraph.Builder()
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_obese", "step1:obese", Collections.singletonList("step1_bmi"))
+                .addRule(RuleDependencyGraph.Kind.CALCULATION, "step1_bmi", "step1:bmi", Arrays.asList("step1_weight", "step1_height"))
+                .addRule(RuleDependencyGraph.Kind.CONSTRAINT, "step1_bmi", "step1:bmi", Collections.singletonList("step1_bmi"))
+                .build();
+
+        Assert.assertEquals(Collections.singletonList("step1:bmi"),
+                graph.getAffectedViews("step1_weight", RuleDependencyGraph.Kind.CALCULATION));
+        Assert.assertEquals(Collections.singletonList("step1:obese"),
+                graph.getAffectedViews("step1_weight", RuleDependencyGraph.Kind.RELEVANCE));
+        Assert.assertEquals(Arrays.asList(
+                new RuleDependencyGraph.Rule(RuleDependencyGraph.Kind.CALCULATION, "step1:bmi"),
+                new RuleDependencyGraph.Rule(RuleDependencyGraph.Kind.CONSTRAINT, "step1:bmi"),
+                new RuleDependencyGraph.Rule(RuleDependencyGraph.Kind.RELEVANCE, "step1:obese")),
+                graph.getAffectedRules("step1_weight"));
+    }
+
+    @Test
+    public void testBuildDetectsCycles() {
+        RuleDependencyGraph graph = new RuleDependencyGraph.Builder()
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_x", "step1:x", Collections.singletonList("step1_y"))
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_y", "step1:y", Collections.singletonList("step1_x"))
+                .addRule(RuleDependencyGraph.Kind.CONSTRAINT, "step1_age", "age", Collections.singletonList("step1_age"))
+                .build();
+
+        Assert.assertEquals(2, graph.getCyclicAddresses().size());
+        Assert.assertEquals(Collections.singletonList("step1:y"),
+                graph.getAffectedViews("step1_x", RuleDependencyGraph.Kind.RELEVANCE));
+        Assert.assertTrue(graph.contains(RuleDependencyGraph.Kind.CONSTRAINT, "age"));
+        Assert.assertFalse(graph.contains(RuleDependencyGraph.Kind.RELEVANCE, "age"));
+    }
+
+    @Test
+    public void testCycleMembersAreEvaluatedOnceInTheOrderTheyWereAdded() {
+        RuleDependencyGraph graph = new RuleDependencyGraph.Builder()
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_after", "step1:after", Collections.singletonList("step1_y"))
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_x", "step1:x", Arrays.asList("step1_y", "step1_a"))
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_y", "step1:y", Collections.singletonList("step1_x"))
+                .build();
+
+        Assert.assertEquals(Arrays.asList("step1_x", "step1_y"), new ArrayList<>(graph.getCyclicAddresses()));
+        Assert.assertEquals(Arrays.asList("step1:x", "step1:y", "step1:after"),
+                graph.getAffectedViews("step1_a", RuleDependencyGraph.Kind.RELEVANCE));
+    }
+
+    @Test
+    public void testUnresolvedViewsAreAffectedByEveryChange() {
+        RuleDependencyGraph graph = new RuleDependencyGraph.Builder()
+                .addRule(RuleDependencyGraph.Kind.RELEVANCE, "step1_b", "step1:b", Collections.singletonList("step1_a"))
+                .addUnresolvedRule(RuleDependencyGraph.Kind.RELEVANCE, "step1:dynamic")
+                .build();
+
+        Assert.assertEquals(Arrays.asList("step1:b", "step1:dynamic"),
+                graph.getAffectedViews("step1_a", RuleDependencyGraph.Kind.RELEVANCE));
+        Assert.assertEquals(Collections.singletonList("step1:dynamic"),
+                graph.getAffectedViews("step1_other", RuleDependencyGraph.Kind.RELEVANCE));
+        Assert.assertTrue(graph.getAffectedViews("step1_a", RuleDependencyGraph.Kind.CALCULATION).isEmpty());
+        Assert.assertTrue(graph.contains(RuleDependencyGraph.Kind.RELEVANCE, "step1:dynamic"));
+    }
+}
@@ -0,0 +1,126 @@
+package com.vijay.jsonwizard.rules;
+
+import com.vijay.jsonwizard.BaseTest;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+public class RuleFileLoaderTest extends BaseTest {
+
+    private static final String RULES_YAML = "---\n" +
+            "name: step1_bmi\n" +
+            "description: bmi\n" +
+            "priority: 1\n" +
+            "condition: \"step1_weight > 0 && global_height > 0\"\n" +
+            "actions:\n" +
+            "    - \"calculation = step1_weight / (global_height * global_height)\"\n" +
+            "---\n" +
+            "name: step1_pregnant\n" +
+            "description: pregnant\n" +
+            "priority: 1\n" +
+            "condition: \"step1_sex == 'female'\"\n" +
+            "actions:\n" +
+            "    - \"isRelevant = true\"\n";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testParseIndexesTheFieldsEveryRuleReads() throws Exception {
+        RuleFile ruleFile = RuleFile.parse(RULES_YAML);
+
+        Assert.assertEquals(2, ruleFile.getDefinitions().size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList("step1_weight", "global_height")),
+                ruleFile.getRuleInputs("step1_bmi"));
+        Assert.assertEquals(Collections.singleton("step1_sex"), ruleFile.getRuleInputs("step1_pregnant"));
+        Assert.assertNull(ruleFile.getRuleInputs("step1_unknown"));
+    }
+
+    @Test
+    public void testLoadParsesTheSameContentOnce() throws Exception {
+        RuleFileLoader ruleFileLoader = new RuleFileLoader(Runnable::run);
+
+        RuleFile ruleFile = ruleFileLoader.load(RULES_YAML, null);
+
+        Assert.assertSame(ruleFile, ruleFileLoader.load(RULES_YAML, null));
+        Assert.assertNotSame(ruleFile, ruleFileLoader.load(RULES_YAML + "\n", null));
+    }
+
+    @Test
+    public void testLoadReadsRuleFilesCachedOnDiskByAnotherProcess() throws Exception {
+        File cacheDirectory = temporaryFolder.newFolder();
+        new RuleFileLoader(Runnable::run).load(RULES_YAML, cacheDirectory);
+
+        RuleFile ruleFile = new RuleFileLoader(Runnable::run).load(RULES_YAML, cacheDirectory);
+
+        Assert.assertEquals(Collections.singleton("step1_sex"), ruleFile.getRuleInputs("step1_pregnant"));
+        Assert.assertTrue(ruleFile.getCompiledRules().canFire("step1_pregnant"));
+    }
+
+    @Test
+    public void testDiskCacheKeepsTheMostRecentlyWrittenFiles() throws Exception {
+        File cacheDirectory = temporaryFolder.newFolder();
+        RuleFileLoader ruleFileLoader = new RuleFileLoader(Runnable::run);
+
+        for (int i = 0; i <= RuleFileLoader.MAX_CACHE_FILES; i++) {
+            ruleFileLoader.load(RULES_YAML + "# version " + i + "\n", cacheDirectory);
+        }
+
+        String[] cacheFiles = new File(cacheDirectory, "native-form-rules").list();
+        Assert.assertNotNull(cacheFiles);
+        Assert.assertEquals(RuleFileLoader.MAX_CACHE_FILES, cacheFiles.length);
+        for (String cacheFile : cacheFiles) {
+            Assert.assertTrue(cacheFile.endsWith(".rules"));
+        }
+    }
+
+    @Test
+    public void testRuleFilesAreKeptBySourceUntilInvalidated() throws Exception {
+        RuleFileLoader ruleFileLoader = new RuleFileLoader(Runnable::run);
+        String sourceKey = RuleFileLoader.getSourceKey("assets", "en", "rule/anc_relevance.yml");
+        String otherSourceKey = RuleFileLoader.getSourceKey("assets", "en", "rule/anc_calculation.yml");
+        String localeSourceKey = RuleFileLoader.getSourceKey("assets", "sw", "rule/anc_relevance-sw.yml");
+        String longerNameSourceKey = RuleFileLoader.getSourceKey("assets", "en", "rule/anc_relevance_visit.yml");
+        Assert.assertNull(ruleFileLoader.get(sourceKey));
+
+        RuleFile ruleFile = ruleFileLoader.load(sourceKey, RULES_YAML, null);
+        ruleFileLoader.load(otherSourceKey, RULES_YAML, null);
+        ruleFileLoader.load(localeSourceKey, RULES_YAML, null);
+        ruleFileLoader.load(longerNameSourceKey, RULES_YAML, null);
+        Assert.assertSame(ruleFile, ruleFileLoader.get(sourceKey));
+
+        ruleFileLoader.invalidate("anc_relevance.yml");
+        Assert.assertNull(ruleFileLoader.get(sourceKey));
+        Assert.assertNull(ruleFileLoader.get(localeSourceKey));
+        Assert.assertSame(ruleFile, ruleFileLoader.get(otherSourceKey));
+        Assert.assertSame(ruleFile, ruleFileLoader.get(longerNameSourceKey));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedRuleFilesAreEvicted() throws Exception {
+        RuleFileLoader ruleFileLoader = new RuleFileLoader(Runnable::run);
+        String firstSourceKey = RuleFileLoader.getSourceKey("assets", "en", "rule/file0.yml");
+        ruleFileLoader.load(firstSourceKey, RULES_YAML, null);
+
+        for (int i = 1; i <= RuleFileLoader.MAX_RULE_FILES; i++) {
+            ruleFileLoader.load(RuleFileLoader.getSourceKey("assets", "en", "rule/file" + i + ".yml"), RULES_YAML, null);
+        }
+
+        Assert.assertNull(ruleFileLoader.get(firstSourceKey));
+        Assert.assertNotNull(ruleFileLoader.get(RuleFileLoader.getSourceKey("assets", "en", "rule/file1.yml")));
+    }
+
+    @Test
+    public void testContentHashChangesWithTheContent() {
+        Assert.assertEquals(RuleFileLoader.getContentHash(RULES_YAML), RuleFileLoader.getContentHash(RULES_YAML));
+        Assert.assertNotEquals(RuleFileLoader.getContentHash(RULES_YAML),
+                RuleFileLoader.getContentHash(RULES_YAML.replace("female", "male")));
+    }
+}
@@ -0,0 +1,76 @@
+package com.vijay.jsonwizard.rules;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class RuleResultCacheTest {
+
+    private RuleResultCache ruleResultCache;
+
+    @Before
+    public void setUp() {
+        ruleResultCache = new RuleResultCache(2);
+    }
+
+    @Test
+    public void testKeysOnlyMatchForTheSameRuleAndFactValues() {
+        Map<String, Object> facts = facts("step1_age", "12");
+
+        Assert.assertEquals(RuleResultCache.createKey("rule", facts), RuleResultCache.createKey("rule", facts("step1_age", "12")));
+        Assert.assertNotEquals(RuleResultCache.createKey("rule", facts), RuleResultCache.createKey("other", facts));
+        Assert.assertNotEquals(RuleResultCache.createKey("rule", facts), RuleResultCache.createKey("rule", facts("step1_age", "13")));
+        Assert.assertNotEquals(RuleResultCache.createKey("rule", facts), RuleResultCache.createKey("rule", facts("step1_age", 12)));
+    }
+
+    @Test
+    public void testGetCountsHitsAndMisses() {
+        RuleResultCache.Key key = RuleResultCache.createKey("rule", facts("step1_age", "12"));
+        Assert.assertNull(ruleResultCache.get(key));
+
+        ruleResultCache.put(key, true);
+
+        Assert.assertEquals(true, ruleResultCache.get(key));
+        Assert.assertEquals(1, ruleResultCache.getHitCount());
+        Assert.assertEquals(1, ruleResultCache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidateDropsOnlyResultsThatReadTheFact() {
+        RuleResultCache.Key age = RuleResultCache.createKey("age", facts("step1_age", "12"));
+        RuleResultCache.Key weight = RuleResultCache.createKey("weight", facts("step1_weight", "40"));
+        ruleResultCache.put(age, "1");
+        ruleResultCache.put(weight, "2");
+
+        ruleResultCache.invalidate("step1_age");
+
+        Assert.assertNull(ruleResultCache.get(age));
+        Assert.assertEquals("2", ruleResultCache.get(weight));
+    }
+
+    @Test
+    public void testPutEvictsTheLeastRecentlyUsedResult() {
+        RuleResultCache.Key first = RuleResultCache.createKey("first", facts("step1_a", "1"));
+        RuleResultCache.Key second = RuleResultCache.createKey("second", facts("step1_b", "1"));
+        RuleResultCache.Key third = RuleResultCache.createKey("third", facts("step1_c", "1"));
+        ruleResultCache.put(first, "1");
+        ruleResultCache.put(second, "2");
+        ruleResultCache.get(first);
+
+        ruleResultCache.put(third, "3");
+
+        Assert.assertEquals(2, ruleResultCache.size());
+        Assert.assertNull(ruleResultCache.get(second));
+        Assert.assertEquals("1", ruleResultCache.get(first));
+    }
+
+    private Map<String, Object> facts(String name, Object value) {
+        Map<String, Object> facts = new HashMap<>();
+        facts.put(RuleConstant.SELECTED_RULE, "step1_rule");
+        facts.put(name, value);
+        return facts;
+    }
+}
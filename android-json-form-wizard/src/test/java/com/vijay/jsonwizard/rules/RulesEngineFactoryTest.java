@@ -27,7 +27,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import timber.log.Timber;
@@ -227,6 +230,141 @@ public class RulesEngineFactoryTest {
         Assert.assertEquals(specifiedString, result);
     }
 
+    @Test
+    public void testGetDynamicCalculationShouldCallTheRuleListenerOfSubclasses() throws JSONException {
+        final List<String> callbacks = new ArrayList<>();
+        rulesEngineFactory = new RulesEngineFactory(context, new HashMap<String, String>()) {
+            @Override
+            public boolean beforeEvaluate(Rule rule, Facts facts) {
+                callbacks.add("beforeEvaluate " + rule.getName());
+                return super.beforeEvaluate(rule, facts);
+            }
+
+            @Override
+            public void onSuccess(Rule rule, Facts facts) {
+                callbacks.add("onSuccess " + facts.get(RuleConstant.CALCULATION));
+            }
+        };
+        JSONArray jsonArray = new JSONArray("[" +
+                "{\"key\":\"listener\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_bmi\",\"priority\":1,\"actions\":\"calculation = 'set'\"}" +
+                "]");
+        Facts calculationFacts = new Facts();
+        calculationFacts.put(RuleConstant.SELECTED_RULE, "step1_bmi");
+
+        Assert.assertEquals("set", rulesEngineFactory.getDynamicCalculation(calculationFacts, jsonArray));
+        Assert.assertEquals(Arrays.asList("beforeEvaluate step1_bmi", "onSuccess set"), callbacks);
+    }
+
+    @Test
+    public void testGetDynamicCalculationShouldUseTheRulesEngineWhenCompiledRulesAreOff() throws JSONException {
+        final List<String> firedRules = new ArrayList<>();
+        rulesEngineFactory = new RulesEngineFactory(context, new HashMap<String, String>()) {
+            @Override
+            protected boolean useCompiledRules() {
+                return false;
+            }
+
+            @Override
+            protected void processDefaultRules(Rules rules, Facts facts) {
+                firedRules.add((String) facts.get(RuleConstant.SELECTED_RULE));
+                super.processDefaultRules(rules, facts);
+            }
+        };
+        JSONArray jsonArray = new JSONArray("[" +
+                "{\"key\":\"engine\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_bmi\",\"priority\":1,\"actions\":\"calculation = 'set'\"}" +
+                "]");
+        Facts calculationFacts = new Facts();
+        calculationFacts.put(RuleConstant.SELECTED_RULE, "step1_bmi");
+
+        Assert.assertEquals("set", rulesEngineFactory.getDynamicCalculation(calculationFacts, jsonArray));
+        Assert.assertEquals(Collections.singletonList("step1_bmi"), firedRules);
+    }
+
+    @Test
+    public void testGetDynamicCalculationShouldLetActionsAssignGlobalsWithoutChangingThem() throws JSONException {
+        rulesEngineFactory = new RulesEngineFactory(context, Collections.singletonMap("threshold", "5"));
+        JSONArray assigningRules = new JSONArray("[" +
+                "{\"key\":\"assign\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_bmi\",\"priority\":1," +
+                "\"actions\":\"global_threshold = 10; calculation = global_threshold\"}" +
+                "]");
+        JSONArray readingRules = new JSONArray("[" +
+                "{\"key\":\"read\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_bmi\",\"priority\":1," +
+                "\"actions\":\"calculation = global_threshold\"}" +
+                "]");
+        Facts assigningFacts = new Facts();
+        assigningFacts.put(RuleConstant.SELECTED_RULE, "step1_bmi");
+        Facts readingFacts = new Facts();
+        readingFacts.put(RuleConstant.SELECTED_RULE, "step1_bmi");
+
+        Assert.assertEquals("10", rulesEngineFactory.getDynamicCalculation(assigningFacts, assigningRules));
+        Assert.assertEquals("5", rulesEngineFactory.getDynamicCalculation(readingFacts, readingRules));
+    }
+
+    @Test
+    public void testGetDynamicCalculationShouldOnlyCacheRulesThatDoNotCallTheHelper() throws JSONException {
+        rulesEngineFactory = new RulesEngineFactory(context, new HashMap<String, String>());
+        JSONArray helperRules = new JSONArray("[" +
+                "{\"key\":\"helper\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_age\",\"priority\":1," +
+                "\"actions\":\"calculation = helper.getDifferenceDays(step1_dob)\"}" +
+                "]");
+        JSONArray factRules = new JSONArray("[" +
+                "{\"key\":\"facts\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_age\",\"priority\":1," +
+                "\"actions\":\"calculation = step1_dob\"}" +
+                "]");
+        Facts calculationFacts = new Facts();
+        calculationFacts.put(RuleConstant.SELECTED_RULE, "step1_age");
+        calculationFacts.put("step1_dob", "01-01-2020");
+
+        rulesEngineFactory.getDynamicCalculation(calculationFacts, helperRules);
+        Assert.assertEquals(0, rulesEngineFactory.getRuleResultCache().size());
+
+        calculationFacts = new Facts();
+        calculationFacts.put(RuleConstant.SELECTED_RULE, "step1_age");
+        calculationFacts.put("step1_dob", "01-01-2020");
+        rulesEngineFactory.getDynamicCalculation(calculationFacts, factRules);
+        Assert.assertEquals(1, rulesEngineFactory.getRuleResultCache().size());
+    }
+
+    @Test
+    public void testGetDynamicCalculationShouldNotCacheResultsWhenCompiledRulesAreOff() throws JSONException {
+        rulesEngineFactory = new RulesEngineFactory(context, new HashMap<String, String>()) {
+            @Override
+            protected boolean useCompiledRules() {
+                return false;
+            }
+        };
+        JSONArray jsonArray = new JSONArray("[" +
+                "{\"key\":\"uncached\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_age\",\"priority\":1,\"actions\":\"calculation = step1_dob\"}" +
+                "]");
+        Facts calculationFacts = new Facts();
+        calculationFacts.put(RuleConstant.SELECTED_RULE, "step1_age");
+        calculationFacts.put("step1_dob", "01-01-2020");
+
+        Assert.assertEquals("01-01-2020", rulesEngineFactory.getDynamicCalculation(calculationFacts, jsonArray));
+        Assert.assertEquals(0, rulesEngineFactory.getRuleResultCache().size());
+    }
+
+    @Test
+    public void testGetDynamicCalculationShouldNotCacheTheDefaultResultOfAMissingRule() throws JSONException {
+        rulesEngineFactory = new RulesEngineFactory(context, new HashMap<String, String>());
+        JSONArray jsonArray = new JSONArray("[" +
+                "{\"key\":\"missing\"}," +
+                "{\"condition\":\"true\",\"name\":\"step1_age\",\"priority\":1,\"actions\":\"calculation = step1_dob\"}" +
+                "]");
+        Facts calculationFacts = new Facts();
+        calculationFacts.put(RuleConstant.SELECTED_RULE, "step1_other");
+
+        rulesEngineFactory.getDynamicCalculation(calculationFacts, jsonArray);
+        Assert.assertEquals(0, rulesEngineFactory.getRuleResultCache().size());
+    }
+
     @Test
     public void testGetConstraintShouldReturnSpecifiedString() throws IOException {
         String specifiedString = "1";
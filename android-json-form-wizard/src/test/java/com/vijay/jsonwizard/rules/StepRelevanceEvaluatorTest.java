@@ -0,0 +1,96 @@
+package com.vijay.jsonwizard.rules;
+
+import com.vijay.jsonwizard.BaseTest;
+import com.vijay.jsonwizard.model.FormModel;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class StepRelevanceEvaluatorTest extends BaseTest {
+
+    private JSONObject form;
+
+    @Before
+    public void setUp() throws JSONException {
+        form = new JSONObject("{" +
+                "\"count\":\"3\"," +
+                "\"step1\":{\"next\":\"step2\",\"fields\":[" +
+                "{\"key\":\"has_children\",\"type\":\"edit_text\",\"value\":\"no\"}," +
+                "{\"key\":\"visit_id\",\"type\":\"hidden\",\"value\":\"12\"}" +
+                "]}," +
+                "\"step2\":{\"next\":\"step3\",\"fields\":[" +
+                "{\"key\":\"children_count\",\"type\":\"edit_text\",\"value\":\"3\"," +
+                "\"relevance\":{\"step1:has_children\":{\"type\":\"string\",\"ex\":\"equalTo(., \\\"yes\\\")\"}}}" +
+                "]}," +
+                "\"step3\":{\"fields\":[" +
+                "{\"key\":\"children_notes\",\"type\":\"edit_text\"," +
+                "\"relevance\":{\"step2:children_count\":{\"type\":\"string\",\"ex\":\"notEqualTo(., \\\"\\\")\"}}}," +
+                "{\"key\":\"medications\",\"type\":\"check_box\",\"options\":[" +
+                "{\"key\":\"other\",\"text\":\"Other\",\"value\":\"true\"},{\"key\":\"none\",\"text\":\"None\"}]}," +
+                "{\"key\":\"medications_other\",\"type\":\"edit_text\"," +
+                "\"relevance\":{\"step3:medications\":{\"ex-checkbox\":[{\"or\":[\"other\"]}]}}}" +
+                "]}" +
+                "}");
+    }
+
+    private StepRelevanceEvaluator.Result evaluate() {
+        return new StepRelevanceEvaluator(FormModel.compile(form), null).evaluate();
+    }
+
+    @Test
+    public void testEvaluateShouldHideFieldsAndStepsFromTheCurrentValues() {
+        StepRelevanceEvaluator.Result result = evaluate();
+
+        Assert.assertFalse(result.isFieldVisible("step2_children_count"));
+        Assert.assertTrue(result.isFieldVisible("step3_medications_other"));
+        Assert.assertFalse(result.isStepRelevant("step2"));
+        Assert.assertEquals(Arrays.asList("step1", "step3"), result.getRelevantSteps());
+        Assert.assertEquals("step3", result.getNextRelevantStep("step1"));
+        Assert.assertEquals("step1", result.getPreviousRelevantStep("step3"));
+        Assert.assertNull(result.getNextRelevantStep("step3"));
+    }
+
+    @Test
+    public void testEvaluateShouldReadHiddenFieldsAsEmpty() {
+        StepRelevanceEvaluator.Result result = evaluate();
+
+        Assert.assertFalse(result.isFieldVisible("step3_children_notes"));
+        Assert.assertEquals(Arrays.asList("step1_has_children", "step1_visit_id", "step3_medications",
+                "step3_medications_other"), result.getVisibleFields());
+    }
+
+    @Test
+    public void testEvaluateShouldFollowValueChanges() throws JSONException {
+        form.getJSONObject("step1").getJSONArray("fields").getJSONObject(0).put("value", "yes");
+
+        StepRelevanceEvaluator.Result result = evaluate();
+
+        Assert.assertTrue(result.isStepRelevant("step2"));
+        Assert.assertTrue(result.isFieldVisible("step3_children_notes"));
+        Assert.assertEquals("step2", result.getNextRelevantStep("step1"));
+    }
+
+    @Test
+    public void testEvaluateShouldFollowValueChangesWhenTheEvaluatorIsKept() throws JSONException {
+        StepRelevanceEvaluator evaluator = new StepRelevanceEvaluator(FormModel.compile(form), null);
+        Assert.assertFalse(evaluator.evaluate().isStepRelevant("step2"));
+
+        form.getJSONObject("step1").getJSONArray("fields").getJSONObject(0).put("value", "yes");
+
+        Assert.assertTrue(evaluator.evaluate().isStepRelevant("step2"));
+    }
+
+    @Test
+    public void testEvaluateShouldNotChangeTheForm() throws JSONException {
+        String before = form.toString();
+
+        evaluate();
+
+        Assert.assertEquals(before, form.toString());
+    }
+}
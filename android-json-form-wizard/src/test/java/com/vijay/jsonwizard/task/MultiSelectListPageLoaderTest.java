@@ -0,0 +1,97 @@
+package com.vijay.jsonwizard.task;
+
+import com.vijay.jsonwizard.domain.MultiSelectItem;
+import com.vijay.jsonwizard.interfaces.PagedMultiSelectListRepository;
+import com.vijay.jsonwizard.utils.AppExecutors;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class MultiSelectListPageLoaderTest {
+
+    private final LinkedList<Runnable> diskTasks = new LinkedList<>();
+    private final List<Integer> fetchedOffsets = new ArrayList<>();
+    private final List<Integer> loadedOffsets = new ArrayList<>();
+    private MultiSelectListPageLoader pageLoader;
+
+    @Before
+    public void setUp() {
+        Executor diskIO = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                diskTasks.add(command);
+            }
+        };
+        Executor mainThread = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                command.run();
+            }
+        };
+        PagedMultiSelectListRepository repository = new PagedMultiSelectListRepository() {
+            @Override
+            public List<MultiSelectItem> fetchPage(int offset, int limit, JSONObject orderHint) {
+                fetchedOffsets.add(offset);
+                List<MultiSelectItem> page = new ArrayList<>();
+                for (int i = offset; i < Math.min(offset + limit, 5); i++) {
+                    page.add(new MultiSelectItem("key" + i, "text" + i, "", null, null, null));
+                }
+                return page;
+            }
+        };
+        pageLoader = new MultiSelectListPageLoader(repository, new JSONObject(), 2,
+                new AppExecutors(diskIO, diskIO, mainThread), new MultiSelectListPageLoader.PageListener() {
+            @Override
+            public void onPageLoaded(int offset, List<MultiSelectItem> page) {
+                loadedOffsets.add(offset);
+            }
+        });
+    }
+
+    @Test
+    public void testNextPageIsPrefetchedAfterEachPageIsHandedOut() {
+        pageLoader.start();
+        diskTasks.poll().run();
+        Assert.assertEquals(1, loadedOffsets.size());
+
+        diskTasks.poll().run();
+        Assert.assertTrue(diskTasks.isEmpty());
+        Assert.assertEquals(1, loadedOffsets.size());
+
+        pageLoader.loadNextPage();
+        Assert.assertEquals(2, (int) loadedOffsets.get(1));
+        Assert.assertEquals(1, diskTasks.size());
+    }
+
+    @Test
+    public void testPageRequestedWhileFetchingIsHandedOutOnceRead() {
+        pageLoader.start();
+        diskTasks.poll().run();
+        pageLoader.loadNextPage();
+        Assert.assertEquals(1, loadedOffsets.size());
+
+        diskTasks.poll().run();
+        Assert.assertEquals(2, loadedOffsets.size());
+    }
+
+    @Test
+    public void testLoadingStopsAfterTheLastPage() {
+        pageLoader.start();
+        while (!diskTasks.isEmpty()) {
+            diskTasks.poll().run();
+            pageLoader.loadNextPage();
+        }
+
+        Assert.assertEquals(3, loadedOffsets.size());
+        Assert.assertEquals(4, (int) loadedOffsets.get(2));
+        Assert.assertEquals(3, fetchedOffsets.size());
+        Assert.assertFalse(pageLoader.hasMorePages());
+    }
+}
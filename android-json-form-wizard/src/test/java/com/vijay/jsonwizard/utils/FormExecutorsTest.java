@@ -0,0 +1,80 @@
+package com.vijay.jsonwizard.utils;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class FormExecutorsTest {
+
+    @After
+    public void tearDown() {
+        while (FormExecutors.isRunning()) {
+            FormExecutors.release();
+        }
+    }
+
+    @Test
+    public void testReleaseShutsDownPoolsOnceLastUserIsGone() {
+        FormExecutors.acquire();
+        FormExecutors.acquire();
+        Assert.assertTrue(FormExecutors.isRunning());
+
+        FormExecutors.release();
+        Assert.assertTrue(FormExecutors.isRunning());
+
+        FormExecutors.release();
+        Assert.assertFalse(FormExecutors.isRunning());
+    }
+
+    @Test
+    public void testExecutorsKeepWorkingAfterRelease() throws InterruptedException {
+        FormExecutors.acquire();
+        FormExecutors.release();
+
+        final CountDownLatch latch = new CountDownLatch(2);
+        FormExecutors.compute().execute(latch::countDown);
+        FormExecutors.io().execute(latch::countDown);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPoolsStartedForTasksAfterReleaseAreShutDownOnceTheTasksRan() throws InterruptedException {
+        FormExecutors.acquire();
+        FormExecutors.release();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        FormExecutors.formState().execute(latch::countDown);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (FormExecutors.isRunning() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse(FormExecutors.isRunning());
+    }
+
+    @Test
+    public void testFormStateExecutorRunsTasksInSubmissionOrder() throws InterruptedException {
+        FormExecutors.acquire();
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            final int task = i;
+            FormExecutors.formState().execute(() -> {
+                order.add(task);
+                latch.countDown();
+            });
+        }
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(Integer.valueOf(i), order.get(i));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.vijay.jsonwizard.utils;
+
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class FormJournalTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File sessionDirectory;
+
+    @Before
+    public void setUp() {
+        sessionDirectory = new File(temporaryFolder.getRoot(), "session");
+    }
+
+    private static List<JSONObject> getRecords(FormJournal formJournal) {
+        List<JSONObject> records = new ArrayList<>();
+        formJournal.getRecords(records::addAll);
+        return records;
+    }
+
+    @Test
+    public void testRecordsAreReadBackInTheOrderTheyWereAppended() throws Exception {
+        FormJournal formJournal = new FormJournal(sessionDirectory, Runnable::run);
+        Assert.assertTrue(getRecords(formJournal).isEmpty());
+
+        formJournal.append(FormJournal.newValueRecord("step1", "name", "Jane", "person", "person", "first_name"));
+        formJournal.append(FormJournal.newCheckboxRecord("step1", "symptoms", "options", "fever", "true"));
+        formJournal.append(FormJournal.newMetadataRecord("look_up", Collections.singletonMap("entity_id", "1234")));
+        formJournal.append(FormJournal.newValueRecord("step1", "name", "Janet", "person", "person", "first_name"));
+
+        List<JSONObject> records = getRecords(new FormJournal(sessionDirectory, Runnable::run));
+        Assert.assertEquals(4, records.size());
+        Assert.assertEquals("Jane", records.get(0).getString(JsonFormConstants.VALUE));
+        Assert.assertEquals("first_name", records.get(0).getString(JsonFormConstants.OPENMRS_ENTITY_ID));
+        Assert.assertEquals("fever", records.get(1).getString(FormJournal.CHILD_KEY));
+        Assert.assertEquals("1234", records.get(2).getJSONObject(FormJournal.VALUES).getString("entity_id"));
+        Assert.assertEquals("Janet", records.get(3).getString(JsonFormConstants.VALUE));
+    }
+
+    @Test
+    public void testJournalIsCompactedToTheLastRecordOfEachField() throws Exception {
+        FormJournal formJournal = new FormJournal(sessionDirectory, Runnable::run);
+        for (int i = 0; i <= FormJournal.MAX_JOURNAL_RECORDS; i++) {
+            formJournal.append(FormJournal.newValueRecord("step1", "age", String.valueOf(i), null, null, null));
+        }
+
+        Assert.assertEquals(0, new File(sessionDirectory, FormJournal.JOURNAL_FILE).length());
+        Assert.assertTrue(new File(sessionDirectory, FormJournal.SNAPSHOT_FILE).exists());
+
+        List<JSONObject> records = getRecords(new FormJournal(sessionDirectory, Runnable::run));
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals(String.valueOf(FormJournal.MAX_JOURNAL_RECORDS),
+                records.get(0).getString(JsonFormConstants.VALUE));
+
+        formJournal.append(FormJournal.newValueRecord("step1", "name", "Jane", null, null, null));
+        records = getRecords(new FormJournal(sessionDirectory, Runnable::run));
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("name", records.get(1).getString(JsonFormConstants.KEY));
+    }
+
+    @Test
+    public void testPartlyWrittenRecordIsDroppedAndTheJournalKeepsWorking() throws Exception {
+        FormJournal formJournal = new FormJournal(sessionDirectory, Runnable::run);
+        formJournal.append(FormJournal.newValueRecord("step1", "name", "Jane", null, null, null));
+        try (FileOutputStream outputStream = new FileOutputStream(new File(sessionDirectory, FormJournal.JOURNAL_FILE), true)) {
+            outputStream.write("{\"type\":\"value\",\"step".getBytes(StandardCharsets.UTF_8));
+        }
+
+        formJournal = new FormJournal(sessionDirectory, Runnable::run);
+        Assert.assertEquals(1, getRecords(formJournal).size());
+
+        formJournal.append(FormJournal.newValueRecord("step1", "age", "30", null, null, null));
+        List<JSONObject> records = getRecords(new FormJournal(sessionDirectory, Runnable::run));
+        Assert.assertEquals(2, records.size());
+        Assert.assertEquals("Jane", records.get(0).getString(JsonFormConstants.VALUE));
+        Assert.assertEquals("30", records.get(1).getString(JsonFormConstants.VALUE));
+    }
+
+    @Test
+    public void testRecordsAppendedAfterCloseAreNotWritten() throws Exception {
+        FormJournal formJournal = new FormJournal(sessionDirectory, Runnable::run);
+        formJournal.append(FormJournal.newValueRecord("step1", "name", "Jane", null, null, null));
+        formJournal.close();
+        formJournal.append(FormJournal.newValueRecord("step1", "age", "30", null, null, null));
+
+        Assert.assertEquals(1, getRecords(new FormJournal(sessionDirectory, Runnable::run)).size());
+    }
+
+    @Test
+    public void testRecordsAreReadOnTheDiskExecutor() throws Exception {
+        new FormJournal(sessionDirectory, Runnable::run)
+                .append(FormJournal.newValueRecord("step1", "name", "Jane", null, null, null));
+
+        List<Runnable> tasks = new ArrayList<>();
+        FormJournal formJournal = new FormJournal(sessionDirectory, tasks::add);
+        List<JSONObject> records = new ArrayList<>();
+        formJournal.getRecords(records::addAll);
+        Assert.assertEquals(2, tasks.size());
+
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        Assert.assertEquals(1, records.size());
+        Assert.assertEquals("Jane", records.get(0).getString(JsonFormConstants.VALUE));
+    }
+}
@@ -0,0 +1,108 @@
+package com.vijay.jsonwizard.utils;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+public class FormJsonReaderTest {
+
+    @Test
+    public void testReadObjectReadsNestedObjectsAndArrays() throws Exception {
+        String form = "{\n" +
+                "  \"count\": \"1\",\n" +
+                "  \"step1\": {\n" +
+                "    \"title\": \"Línea\\nuno\",\n" +
+                "    \"fields\": [{\"key\": \"age\", \"v_required\": {\"value\": true}}, null]\n" +
+                "  }\n" +
+                "}";
+
+        JSONObject jsonObject = FormJsonReader.readObject(new ByteArrayInputStream(form.getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals("1", jsonObject.getString("count"));
+        JSONObject step = jsonObject.getJSONObject("step1");
+        Assert.assertEquals("Línea\nuno", step.getString("title"));
+        JSONArray fields = step.getJSONArray("fields");
+        Assert.assertEquals(2, fields.length());
+        Assert.assertEquals("age", fields.getJSONObject(0).getString("key"));
+        Assert.assertTrue(fields.getJSONObject(0).getJSONObject("v_required").getBoolean("value"));
+        Assert.assertTrue(fields.isNull(1));
+    }
+
+    @Test
+    public void testReadObjectSkipsALeadingByteOrderMark() throws Exception {
+        String form = "{\"count\": \"1\"}";
+
+        JSONObject jsonObject = FormJsonReader.readObject(
+                new ByteArrayInputStream(("\ufeff" + form).getBytes(StandardCharsets.UTF_8)));
+
+        Assert.assertEquals("1", jsonObject.getString("count"));
+        Assert.assertEquals(new JSONObject(form).toString(), jsonObject.toString());
+        Assert.assertEquals("1", FormJsonReader.readObject(new StringReader("\ufeff" + form)).getString("count"));
+    }
+
+    @Test
+    public void testReadObjectReadsNumbersIntoTheSameTypesAsTheJsonTokener() throws Exception {
+        JSONObject jsonObject = FormJsonReader.readObject(new StringReader(
+                "{\"int\": 42, \"long\": 9999999999, \"double\": 1.5, \"exponent\": 1e3, \"hex\": 0x1F, \"octal\": 010}"));
+
+        Assert.assertEquals(42, jsonObject.get("int"));
+        Assert.assertEquals(9999999999L, jsonObject.get("long"));
+        Assert.assertEquals(1.5, jsonObject.get("double"));
+        Assert.assertEquals(1000.0, jsonObject.get("exponent"));
+        Assert.assertEquals(31, jsonObject.get("hex"));
+        Assert.assertEquals(8, jsonObject.get("octal"));
+    }
+
+    @Test
+    public void testReadObjectAcceptsTheLenientJsonFormsUse() throws Exception {
+        String form = "{\n" +
+                "  // line comment\n" +
+                "  \"fields\": [\n" +
+                "    /*{\"key\": \"removed\"},*/\n" +
+                "    {\"key\": 'name', \"v_regex\": {\"value\": \"[A-Za-z\\s\\.\\-]*\"}}\n" +
+                "  ],\n" +
+                "  # hash comment\n" +
+                "  encounter_type = Visit;\n" +
+                "  \"separator\" => \"arrow\"\n" +
+                "}";
+
+        JSONObject jsonObject = FormJsonReader.readObject(new StringReader(form));
+
+        JSONArray fields = jsonObject.getJSONArray("fields");
+        Assert.assertEquals(1, fields.length());
+        Assert.assertEquals("name", fields.getJSONObject(0).getString("key"));
+        // Unknown escapes stand for the escaped character, as they do for the JSONTokener
+        Assert.assertEquals("[A-Za-zs.-]*", fields.getJSONObject(0).getJSONObject("v_regex").getString("value"));
+        Assert.assertEquals("Visit", jsonObject.getString("encounter_type"));
+        Assert.assertEquals("arrow", jsonObject.getString("separator"));
+    }
+
+    @Test
+    public void testReadObjectReadsValuesLongerThanTheBuffer() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            value.append("value ").append(i);
+        }
+
+        JSONObject jsonObject = FormJsonReader.readObject(new StringReader("{\"key\": \"" + value + "\", \"next\": 1}"));
+
+        Assert.assertEquals(value.toString(), jsonObject.getString("key"));
+        Assert.assertEquals(1, jsonObject.getInt("next"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void testReadObjectThrowsExceptionForUnterminatedJson() throws Exception {
+        FormJsonReader.readObject(new StringReader("{\"sonic"));
+    }
+
+    @Test(expected = JSONException.class)
+    public void testReadObjectThrowsExceptionWhenTheJsonIsNotAnObject() throws Exception {
+        FormJsonReader.readObject(new StringReader("[1, 2]"));
+    }
+}
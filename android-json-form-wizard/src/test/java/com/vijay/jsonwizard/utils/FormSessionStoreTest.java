@@ -0,0 +1,112 @@
+package com.vijay.jsonwizard.utils;
+
+import android.content.Context;
+
+import com.vijay.jsonwizard.BaseTest;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FormSessionStoreTest extends BaseTest {
+
+    private static final String FORM = "{\"encounter_type\": \"Visit\", \"count\": \"2\"," +
+            " \"step1\": {\"fields\": [{\"key\": \"name\", \"value\": \"\"}]}," +
+            " \"step2\": {\"fields\": [{\"key\": \"age\", \"value\": \"\"}]}}";
+
+    private Context context;
+    private FormSessionStore formSessionStore;
+
+    @Before
+    public void setUp() {
+        context = RuntimeEnvironment.application;
+        formSessionStore = new FormSessionStore(Runnable::run);
+    }
+
+    @Test
+    public void testReadFormReturnsTheFormTheSessionWasCreatedWith() throws Exception {
+        String sessionHandle = formSessionStore.create(context, FORM);
+
+        Assert.assertEquals(FORM, formSessionStore.readForm(context, sessionHandle));
+        Assert.assertNull(formSessionStore.readForm(context, FormSessionStore.newSessionHandle()));
+    }
+
+    @Test
+    public void testRestoreEntriesReplacesOnlyTheWrittenEntries() throws Exception {
+        String sessionHandle = formSessionStore.create(context, FORM);
+        JSONObject form = new JSONObject(FORM);
+        form.getJSONObject("step1").getJSONArray("fields").getJSONObject(0).put("value", "Jane");
+        form.getJSONObject("step2").getJSONArray("fields").getJSONObject(0).put("value", "30");
+        form.remove("count");
+
+        Map<String, String> entries = new HashMap<>();
+        entries.put("step1", new JSONObject().put("step1", form.get("step1")).toString());
+        entries.put("count", new JSONObject().toString());
+        List<String> writtenNames = formSessionStore.writeEntries(context, sessionHandle, entries);
+        Assert.assertEquals(2, writtenNames.size());
+        Assert.assertTrue(writtenNames.containsAll(entries.keySet()));
+
+        JSONObject restoredForm = formSessionStore.restoreEntries(context, sessionHandle,
+                new JSONObject(formSessionStore.readForm(context, sessionHandle)), Arrays.asList("step1", "count", "metadata"));
+
+        Assert.assertEquals("Jane", restoredForm.getJSONObject("step1").getJSONArray("fields").getJSONObject(0).getString("value"));
+        Assert.assertEquals("", restoredForm.getJSONObject("step2").getJSONArray("fields").getJSONObject(0).getString("value"));
+        Assert.assertFalse(restoredForm.has("count"));
+        Assert.assertFalse(restoredForm.has("metadata"));
+    }
+
+    @Test
+    public void testRestoreEntriesReadsTheLastWrittenEntry() throws Exception {
+        String sessionHandle = FormSessionStore.newSessionHandle();
+
+        formSessionStore.writeEntries(context, sessionHandle, Collections.singletonMap("count", "{\"count\": \"3\"}"));
+        formSessionStore.writeEntries(context, sessionHandle, Collections.singletonMap("count", "{\"count\": \"4\"}"));
+        // Written again unchanged, the entry is not rewritten but is still reported as written
+        Assert.assertEquals(Collections.singletonList("count"), formSessionStore.writeEntries(context, sessionHandle,
+                Collections.singletonMap("count", "{\"count\": \"4\"}")));
+
+        JSONObject restoredForm = formSessionStore.restoreEntries(context, sessionHandle, new JSONObject(FORM),
+                Collections.singletonList("count"));
+        Assert.assertEquals("4", restoredForm.getString("count"));
+    }
+
+    @Test
+    public void testWriteEntriesInBackgroundReportsTheEntriesOnDisk() throws Exception {
+        String sessionHandle = formSessionStore.create(context, FORM);
+        final List<String> writtenNames = new ArrayList<>();
+
+        formSessionStore.writeEntriesInBackground(context, sessionHandle,
+                Collections.singletonMap("count", "{\"count\": \"5\"}"), writtenNames::addAll);
+
+        Assert.assertEquals(Collections.singletonList("count"), writtenNames);
+        JSONObject restoredForm = formSessionStore.restoreEntries(context, sessionHandle, new JSONObject(FORM),
+                writtenNames);
+        Assert.assertEquals("5", restoredForm.getString("count"));
+    }
+
+    @Test
+    public void testDeleteRemovesTheSessionAndSessionsThatWereNeverClosed() throws Exception {
+        String sessionHandle = formSessionStore.create(context, FORM);
+        String abandonedSessionHandle = formSessionStore.create(context, FORM);
+        String openSessionHandle = formSessionStore.create(context, FORM);
+        File sessionsDirectory = new File(context.getFilesDir(), FormSessionStore.SESSION_DIRECTORY);
+        Assert.assertTrue(new File(sessionsDirectory, abandonedSessionHandle)
+                .setLastModified(System.currentTimeMillis() - FormSessionStore.MAX_SESSION_AGE_MILLIS - 1000));
+
+        formSessionStore.delete(context, sessionHandle);
+
+        Assert.assertFalse(new File(sessionsDirectory, sessionHandle).exists());
+        Assert.assertFalse(new File(sessionsDirectory, abandonedSessionHandle).exists());
+        Assert.assertEquals(FORM, formSessionStore.readForm(context, openSessionHandle));
+    }
+}
@@ -0,0 +1,72 @@
+package com.vijay.jsonwizard.utils;
+
+import com.vijay.jsonwizard.domain.MultiSelectItem;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MultiSelectSearchIndexTest {
+
+    private List<MultiSelectItem> items;
+    private MultiSelectSearchIndex searchIndex;
+
+    @Before
+    public void setUp() {
+        items = new ArrayList<>();
+        items.add(new MultiSelectItem("amx", "Amoxicillin", "", null, null, null));
+        items.add(new MultiSelectItem("par", "Paracetamol", "", null, null, null));
+        items.add(new MultiSelectItem("ibu", "Ibuprofen", "", null, null, null));
+        items.add(new MultiSelectItem("ame", "Amlodipine", "", null, null, null));
+        searchIndex = MultiSelectSearchIndex.build(items);
+    }
+
+    private List<String> keys(MultiSelectSearchIndex.Result result) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < result.size(); i++) {
+            keys.add(result.getItem(i).getKey());
+        }
+        return keys;
+    }
+
+    @Test
+    public void testSearchMatchesTextContainingTheQueryIgnoringCase() {
+        Assert.assertEquals(Arrays.asList("amx"), keys(searchIndex.search("CI", null, 10)));
+        Assert.assertEquals(Arrays.asList("ibu"), keys(searchIndex.search("RO", null, 10)));
+        Assert.assertEquals(Arrays.asList("par"), keys(searchIndex.search("mol", null, 10)));
+        Assert.assertEquals(Arrays.asList("amx"), keys(searchIndex.search("xicil", null, 10)));
+        Assert.assertEquals(0, searchIndex.search("zzz", null, 10).size());
+    }
+
+    @Test
+    public void testRefinedQueryNarrowsThePreviousResult() {
+        MultiSelectSearchIndex.Result previous = searchIndex.search("am", null, 10);
+        Assert.assertEquals(Arrays.asList("amx", "par", "ame"), keys(previous));
+
+        MultiSelectSearchIndex.Result refined = searchIndex.search("aml", previous, 10);
+        Assert.assertEquals(Arrays.asList("ame"), keys(refined));
+    }
+
+    @Test
+    public void testSearchStopsAtTheLimit() {
+        MultiSelectSearchIndex.Result result = searchIndex.search("i", null, 2);
+
+        Assert.assertEquals(2, result.size());
+        Assert.assertFalse(result.isComplete());
+        Assert.assertEquals(Arrays.asList("ibu"), keys(searchIndex.search("ibu", result, 2)));
+    }
+
+    @Test
+    public void testIsIndexOf() {
+        Assert.assertTrue(searchIndex.isIndexOf(items));
+        Assert.assertFalse(searchIndex.isIndexOf(items.subList(0, 2)));
+        Assert.assertFalse(searchIndex.isIndexOf(null));
+
+        items.set(1, new MultiSelectItem("asp", "Aspirin", "", null, null, null));
+        Assert.assertFalse(searchIndex.isIndexOf(items));
+    }
+}
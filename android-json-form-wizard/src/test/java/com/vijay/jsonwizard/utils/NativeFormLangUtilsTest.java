@@ -128,6 +128,25 @@ public class NativeFormLangUtilsTest extends BaseTest {
         assertFalse(mlsResourceBundle.getKeys().hasMoreElements());
     }
 
+    @Test
+    public void testResourceBundleFromRepositoryIsReadAgainOnlyAfterTheFormIsUpdated() {
+        ClientFormContract.Dao clientFormRepository = Mockito.mock(ClientFormContract.Dao.class);
+        NativeFormLibrary.getInstance().setClientFormDao(clientFormRepository);
+        NativeFormLangUtils.setAppLocale(context, Locale.ENGLISH.getLanguage());
+        String interpolatedJsonForm = testUtils.getResourceFileContentsAsString("test_form_translation_interpolated");
+        ClientFormContract.Model clientForm = new TestClientForm();
+        clientForm.setJson("step1.title = New client record");
+        Mockito.doReturn(clientForm).when(clientFormRepository).getActiveClientFormByIdentifier(Mockito.eq("form_strings.properties"));
+
+        assertEquals("New client record", NativeFormLangUtils.getResourceBundleFromRepository(context, interpolatedJsonForm).getString("step1.title"));
+        clientForm.setJson("step1.title = Updated client record");
+        assertEquals("New client record", NativeFormLangUtils.getResourceBundleFromRepository(context, interpolatedJsonForm).getString("step1.title"));
+        Mockito.verify(clientFormRepository, Mockito.times(1)).getActiveClientFormByIdentifier("form_strings.properties");
+
+        NativeFormLibrary.getInstance().onClientFormUpdated("form_strings.properties");
+        assertEquals("Updated client record", NativeFormLangUtils.getResourceBundleFromRepository(context, interpolatedJsonForm).getString("step1.title"));
+    }
+
     @Test
     public void testGetDatabaseString() {
         String stringToTranslate = "form_strings.step1.danger_signs.danger_bleeding.text";
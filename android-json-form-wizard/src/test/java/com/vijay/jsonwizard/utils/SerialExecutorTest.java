@@ -0,0 +1,45 @@
+package com.vijay.jsonwizard.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SerialExecutorTest {
+
+    @Test
+    public void testExecuteRunsTasksOneAtATimeInSubmissionOrder() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            SerialExecutor serialExecutor = new SerialExecutor(pool);
+            final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final CountDownLatch latch = new CountDownLatch(50);
+            for (int i = 0; i < 50; i++) {
+                final int task = i;
+                serialExecutor.execute(() -> {
+                    maxRunning.set(Math.max(maxRunning.get(), running.incrementAndGet()));
+                    order.add(task);
+                    running.decrementAndGet();
+                    latch.countDown();
+                });
+            }
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(1, maxRunning.get());
+            for (int i = 0; i < 50; i++) {
+                Assert.assertEquals(Integer.valueOf(i), order.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
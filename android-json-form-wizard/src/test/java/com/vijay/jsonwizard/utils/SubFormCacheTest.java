@@ -0,0 +1,72 @@
+package com.vijay.jsonwizard.utils;
+
+import com.vijay.jsonwizard.BaseTest;
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubFormCacheTest extends BaseTest {
+
+    private SubFormCache subFormCache;
+    private JSONObject subForm;
+
+    @Before
+    public void setUp() throws Exception {
+        subFormCache = new SubFormCache();
+        subForm = new JSONObject().put(JsonFormConstants.CONTENT_FORM,
+                new JSONArray().put(new JSONObject().put(JsonFormConstants.KEY, "blood_type")));
+    }
+
+    @Test
+    public void testGetReturnsACopyTheCallerCanChange() throws Exception {
+        String key = SubFormCache.getKey("ASSETS", "json.form/sub_form", "blood_type_test", "en");
+        subFormCache.put(key, subForm);
+        subForm.put("changed_after_put", true);
+
+        JSONObject first = subFormCache.get(key);
+        first.getJSONArray(JsonFormConstants.CONTENT_FORM).getJSONObject(0).put(JsonFormConstants.VALUE, "A");
+        JSONObject second = subFormCache.get(key);
+
+        Assert.assertFalse(second.has("changed_after_put"));
+        Assert.assertFalse(second.getJSONArray(JsonFormConstants.CONTENT_FORM).getJSONObject(0).has(JsonFormConstants.VALUE));
+        Assert.assertNull(subFormCache.get(SubFormCache.getKey("ASSETS", "json.form/sub_form", "blood_type_test", "fr")));
+    }
+
+    @Test
+    public void testInvalidateDropsEveryTranslationOfTheSubForm() {
+        String englishKey = SubFormCache.getKey("ASSETS", "json.form/sub_form", "blood_type_test", "en");
+        String frenchKey = SubFormCache.getKey("ASSETS", "json.form/sub_form", "blood_type_test", "fr");
+        String swahiliKey = SubFormCache.getKey("client_form:2:1.0.1", null, "json.form/sub_form/blood_type_test-sw", "sw");
+        String otherKey = SubFormCache.getKey("ASSETS", "json.form/sub_form", "hiv_test", "en");
+        String longerNameKey = SubFormCache.getKey("ASSETS", "json.form/sub_form", "blood_type_test_results", "en");
+        subFormCache.put(englishKey, subForm);
+        subFormCache.put(frenchKey, subForm);
+        subFormCache.put(swahiliKey, subForm);
+        subFormCache.put(otherKey, subForm);
+        subFormCache.put(longerNameKey, subForm);
+
+        subFormCache.invalidate("json.form/sub_form/blood_type_test.json");
+
+        Assert.assertNull(subFormCache.get(englishKey));
+        Assert.assertNull(subFormCache.get(frenchKey));
+        Assert.assertNull(subFormCache.get(swahiliKey));
+        Assert.assertNotNull(subFormCache.get(otherKey));
+        Assert.assertNotNull(subFormCache.get(longerNameKey));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSubFormsAreEvicted() {
+        String firstKey = SubFormCache.getKey("ASSETS", null, "form0", null);
+        subFormCache.put(firstKey, subForm);
+        for (int i = 1; i <= SubFormCache.MAX_SUB_FORMS; i++) {
+            subFormCache.put(SubFormCache.getKey("ASSETS", null, "form" + i, null), subForm);
+        }
+
+        Assert.assertNull(subFormCache.get(firstKey));
+        Assert.assertNotNull(subFormCache.get(SubFormCache.getKey("ASSETS", null, "form1", null)));
+    }
+}
@@ -0,0 +1,89 @@
+package com.vijay.jsonwizard.utils;
+
+import com.vijay.jsonwizard.BaseTest;
+import com.vijay.jsonwizard.constants.JsonFormConstants;
+
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class TextInputCoalescerTest extends BaseTest {
+
+    private final List<String> commits = new ArrayList<>();
+
+    private Runnable commit(final String value) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                commits.add(value);
+            }
+        };
+    }
+
+    @Test
+    public void testOnlyTheLatestValueIsCommittedAfterTheQuietPeriod() {
+        TextInputCoalescer textInputCoalescer = new TextInputCoalescer();
+
+        textInputCoalescer.submit("step1:phone", 300, commit("0"));
+        textInputCoalescer.submit("step1:phone", 300, commit("07"));
+        textInputCoalescer.submit("step1:phone", 300, commit("071"));
+        ShadowLooper.idleMainLooper(299, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(commits.isEmpty());
+
+        ShadowLooper.idleMainLooper(1, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(1, commits.size());
+        Assert.assertEquals("071", commits.get(0));
+        Assert.assertFalse(textInputCoalescer.hasPendingCommit("step1:phone"));
+    }
+
+    @Test
+    public void testFlushCommitsStraightAwayAndOnlyOnce() {
+        TextInputCoalescer textInputCoalescer = new TextInputCoalescer();
+
+        textInputCoalescer.submit("step1:phone", 300, commit("071"));
+        textInputCoalescer.submit("step1:name", 300, commit("Jane"));
+        textInputCoalescer.flush("step1:phone");
+        Assert.assertEquals(1, commits.size());
+
+        textInputCoalescer.flushAll();
+        ShadowLooper.idleMainLooper(300, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(2, commits.size());
+        Assert.assertEquals("Jane", commits.get(1));
+    }
+
+    @Test
+    public void testZeroQuietPeriodCommitsEveryChange() {
+        TextInputCoalescer textInputCoalescer = new TextInputCoalescer();
+
+        textInputCoalescer.submit("step1:phone", 0, commit("0"));
+        textInputCoalescer.submit("step1:phone", 0, commit("07"));
+
+        Assert.assertEquals(2, commits.size());
+    }
+
+    @Test
+    public void testCancelAllDropsPendingCommits() {
+        TextInputCoalescer textInputCoalescer = new TextInputCoalescer();
+
+        textInputCoalescer.submit("step1:phone", 300, commit("071"));
+        textInputCoalescer.cancelAll();
+        ShadowLooper.idleMainLooper(300, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(commits.isEmpty());
+    }
+
+    @Test
+    public void testFieldQuietPeriodOverridesTheFormQuietPeriod() throws Exception {
+        JSONObject form = new JSONObject().put(JsonFormConstants.INPUT_QUIET_PERIOD, 500);
+        JSONObject field = new JSONObject().put(JsonFormConstants.INPUT_QUIET_PERIOD, 0);
+
+        Assert.assertEquals(TextInputCoalescer.DEFAULT_QUIET_PERIOD_MILLIS, TextInputCoalescer.getQuietPeriod(null, null));
+        Assert.assertEquals(500, TextInputCoalescer.getQuietPeriod(new JSONObject(), form));
+        Assert.assertEquals(0, TextInputCoalescer.getQuietPeriod(field, form));
+    }
+}
@@ -0,0 +1,126 @@
+package com.vijay.jsonwizard.utils;
+
+import com.vijay.jsonwizard.BaseTest;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.ListResourceBundle;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+public class TranslatedFormCacheTest extends BaseTest {
+
+    private static final String FORM = "{\"properties_file_name\": \"form_strings\", \"title\": \"{{step1.title}}\"}";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private static ResourceBundle getBundle(final String title) {
+        return new ListResourceBundle() {
+            @Override
+            protected Object[][] getContents() {
+                return new Object[][]{{"step1.title", title}};
+            }
+        };
+    }
+
+    @Test
+    public void testTranslateTranslatesTheSameFormOnce() {
+        TranslatedFormCache translatedFormCache = new TranslatedFormCache(Runnable::run);
+        ResourceBundle bundle = getBundle("New client");
+
+        String translation = translatedFormCache.translate(FORM, Locale.ENGLISH, bundle, null);
+
+        Assert.assertEquals("{\"properties_file_name\": \"form_strings\", \"title\": \"New client\"}", translation);
+        Assert.assertSame(translation, translatedFormCache.translate(FORM, Locale.ENGLISH, bundle, null));
+    }
+
+    @Test
+    public void testTranslateUsesTheContentOfTheTranslations() {
+        TranslatedFormCache translatedFormCache = new TranslatedFormCache(Runnable::run);
+
+        translatedFormCache.translate(FORM, Locale.ENGLISH, getBundle("New client"), null);
+
+        Assert.assertEquals("{\"properties_file_name\": \"form_strings\", \"title\": \"Mteja mpya\"}",
+                translatedFormCache.translate(FORM, Locale.ENGLISH, getBundle("Mteja mpya"), null));
+        Assert.assertEquals("{\"properties_file_name\": \"form_strings\", \"title\": \"New client\"}",
+                translatedFormCache.translate(FORM, Locale.ENGLISH, getBundle("New client"), null));
+    }
+
+    @Test
+    public void testTranslateFindsTextWithAFormIdentityByItsIdentity() {
+        TranslatedFormCache translatedFormCache = new TranslatedFormCache(Runnable::run);
+        ResourceBundle bundle = getBundle("New client");
+
+        String translation = translatedFormCache.translate("client_form:1:1.0.0", FORM, Locale.ENGLISH, bundle, null);
+
+        Assert.assertSame(translation, translatedFormCache.translate("client_form:1:1.0.0", FORM, Locale.ENGLISH, bundle, null));
+        Assert.assertNotSame(translation, translatedFormCache.translate("client_form:1:1.0.1", FORM, Locale.ENGLISH, bundle, null));
+        Assert.assertEquals("{\"properties_file_name\": \"form_strings\", \"title\": \"Mteja mpya\"}",
+                translatedFormCache.translate("client_form:1:1.0.0", FORM, Locale.ENGLISH, getBundle("Mteja mpya"), null));
+    }
+
+    @Test
+    public void testTranslateReadsTranslationsCachedOnDiskByAnotherProcess() throws Exception {
+        File cacheDirectory = temporaryFolder.newFolder();
+        new TranslatedFormCache(Runnable::run).translate(FORM, Locale.ENGLISH, getBundle("New client"), cacheDirectory);
+        new TranslatedFormCache(Runnable::run).translate("client_form:1:1.0.0", FORM, Locale.ENGLISH,
+                getBundle("New client"), cacheDirectory);
+
+        File[] cacheFiles = new File(cacheDirectory, "native-form-translations").listFiles();
+        Assert.assertNotNull(cacheFiles);
+        Assert.assertEquals(2, cacheFiles.length);
+        for (File cacheFile : cacheFiles) {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(cacheFile), StandardCharsets.UTF_8)) {
+                writer.write("from disk");
+            }
+        }
+
+        Assert.assertEquals("from disk", translateOffTheMainThread(null, cacheDirectory));
+        Assert.assertEquals("from disk", translateOffTheMainThread("client_form:1:1.0.0", cacheDirectory));
+    }
+
+    @Test
+    public void testTranslateDoesNotReadTheDiskOnTheMainThread() throws Exception {
+        File cacheDirectory = temporaryFolder.newFolder();
+        new TranslatedFormCache(Runnable::run).translate(FORM, Locale.ENGLISH, getBundle("New client"), cacheDirectory);
+
+        File[] cacheFiles = new File(cacheDirectory, "native-form-translations").listFiles();
+        Assert.assertNotNull(cacheFiles);
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(cacheFiles[0]), StandardCharsets.UTF_8)) {
+            writer.write("from disk");
+        }
+
+        Assert.assertEquals("{\"properties_file_name\": \"form_strings\", \"title\": \"New client\"}",
+                new TranslatedFormCache(Runnable::run).translate(FORM, Locale.ENGLISH, getBundle("New client"), cacheDirectory));
+    }
+
+    private static String translateOffTheMainThread(final String formIdentity, final File cacheDirectory) throws Exception {
+        final String[] translation = new String[1];
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                translation[0] = new TranslatedFormCache(Runnable::run).translate(formIdentity, FORM, Locale.ENGLISH,
+                        getBundle("New client"), cacheDirectory);
+            }
+        });
+        thread.start();
+        thread.join();
+        return translation[0];
+    }
+
+    @Test
+    public void testGetHashKeepsThePartsApart() {
+        Assert.assertNotEquals(TranslatedFormCache.getHash(Arrays.asList("ab", "c")),
+                TranslatedFormCache.getHash(Arrays.asList("a", "bc")));
+    }
+}
@@ -0,0 +1,74 @@
+package com.vijay.jsonwizard.utils;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ListResourceBundle;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+
+public class TranslationTemplateTest {
+
+    private final ResourceBundle bundle = new ListResourceBundle() {
+        @Override
+        protected Object[][] getContents() {
+            return new Object[][]{{"step1.title", "New \"client\""}, {"step1.next", "Next"}, {"a}", "brace"}};
+        }
+    };
+
+    @Before
+    public void setUp() {
+        TranslationTemplate.clearCache();
+    }
+
+    @Test
+    public void testTranslateShouldReplaceEveryPlaceholder() {
+        TranslationTemplate template = TranslationTemplate.compile(
+                "{\"properties_file_name\": \"form_strings\", \"title\": \"{{step1.title}}\", \"next\": \"{{step1.next}}\"}");
+
+        Assert.assertEquals(2, template.getPlaceholderCount());
+        Assert.assertEquals("form_strings", template.getTranslationsFileName());
+        Assert.assertEquals("{\"properties_file_name\": \"form_strings\", \"title\": \"New \\\"client\\\"\", \"next\": \"Next\"}",
+                template.translate(bundle));
+    }
+
+    @Test
+    public void testCompileShouldReadPlaceholdersAsTheInterpolationPatternDid() {
+        Assert.assertEquals("brace", TranslationTemplate.compile("{{a}}}").translate(bundle));
+        Assert.assertEquals("{{ }} {{}} {{a b}}", TranslationTemplate.compile("{{ }} {{}} {{a b}}").translate(bundle));
+        Assert.assertEquals("", TranslationTemplate.compile("").getTranslationsFileName());
+    }
+
+    @Test(expected = MissingResourceException.class)
+    public void testTranslateShouldFailForMissingTranslations() {
+        TranslationTemplate.compile("{{step2.title}}").translate(bundle);
+    }
+
+    @Test
+    public void testCompileShouldReuseTemplatesOfForms() {
+        String form = getForm();
+
+        Assert.assertSame(TranslationTemplate.compile(form), TranslationTemplate.compile(new String(form)));
+    }
+
+    @Test
+    public void testShortStringsShouldNotPushFormsOut() {
+        String form = getForm();
+        TranslationTemplate template = TranslationTemplate.compile(form);
+
+        for (int i = 0; i <= TranslationTemplate.MAX_TEMPLATES; i++) {
+            Assert.assertEquals("Next " + i, TranslationTemplate.compile("{{step1.next}} " + i).translate(bundle));
+        }
+
+        Assert.assertSame(template, TranslationTemplate.compile(form));
+    }
+
+    private static String getForm() {
+        StringBuilder form = new StringBuilder("{\"title\": \"{{step1.title}}\"");
+        for (int i = 0; form.length() < TranslationTemplate.MIN_CACHED_LENGTH; i++) {
+            form.append(", \"field").append(i).append("\": \"{{step1.next}}\"");
+        }
+        return form.append('}').toString();
+    }
+}
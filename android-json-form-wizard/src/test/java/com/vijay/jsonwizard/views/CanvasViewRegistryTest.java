@@ -0,0 +1,71 @@
+package com.vijay.jsonwizard.views;
+
+import android.view.View;
+import android.widget.EditText;
+import android.widget.LinearLayout;
+
+import com.vijay.jsonwizard.BaseTest;
+import com.vijay.jsonwizard.R;
+
+import org.json.JSONArray;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.robolectric.RuntimeEnvironment;
+
+public class CanvasViewRegistryTest extends BaseTest {
+
+    private CanvasViewRegistry canvasViewRegistry;
+    private LinearLayout rootLayout;
+    private EditText editText;
+
+    @Before
+    public void setUp() {
+        canvasViewRegistry = new CanvasViewRegistry();
+        rootLayout = new LinearLayout(RuntimeEnvironment.application);
+        rootLayout.setId(View.generateViewId());
+        editText = new EditText(RuntimeEnvironment.application);
+        editText.setTag(R.id.canvas_ids, new JSONArray().put(rootLayout.getId()).toString());
+        rootLayout.addView(editText);
+    }
+
+    @Test
+    public void testRegisterIndexesTheCanvasViewsListedByTheWidgets() {
+        canvasViewRegistry.register(rootLayout);
+
+        LinearLayout otherWindow = new LinearLayout(RuntimeEnvironment.application);
+        Assert.assertSame(rootLayout, canvasViewRegistry.getView(otherWindow, rootLayout.getId()));
+    }
+
+    @Test
+    public void testGetViewFallsBackToTheViewHierarchy() {
+        Assert.assertSame(rootLayout, canvasViewRegistry.getView(editText, rootLayout.getId()));
+        Assert.assertNull(canvasViewRegistry.getView(editText, View.generateViewId()));
+    }
+
+    @Test
+    public void testBatchAppliesOnlyTheLastVisibilityOfEachView() {
+        canvasViewRegistry.beginBatch();
+        canvasViewRegistry.setVisibility(rootLayout, View.GONE);
+        Assert.assertEquals(View.VISIBLE, rootLayout.getVisibility());
+
+        canvasViewRegistry.beginBatch();
+        canvasViewRegistry.setVisibility(editText, View.GONE);
+        canvasViewRegistry.endBatch();
+        Assert.assertEquals(View.VISIBLE, editText.getVisibility());
+
+        canvasViewRegistry.setVisibility(rootLayout, View.VISIBLE);
+        canvasViewRegistry.endBatch();
+
+        Assert.assertFalse(canvasViewRegistry.isBatching());
+        Assert.assertEquals(View.VISIBLE, rootLayout.getVisibility());
+        Assert.assertEquals(View.GONE, editText.getVisibility());
+    }
+
+    @Test
+    public void testSetVisibilityOutsideABatchIsAppliedStraightAway() {
+        canvasViewRegistry.setVisibility(rootLayout, View.GONE);
+
+        Assert.assertEquals(View.GONE, rootLayout.getVisibility());
+    }
+}